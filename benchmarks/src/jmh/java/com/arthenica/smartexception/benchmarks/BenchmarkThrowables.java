@@ -0,0 +1,83 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import com.arthenica.smartexception.ThrowableWrapper;
+
+/**
+ * <p>Creates throwables with a given shape for benchmarks using {@link ExceptionCorpusGenerator} with a fixed seed, so
+ * every trial renders the same stack traces.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class BenchmarkThrowables {
+
+    static final long SEED = ExceptionCorpus.DEFAULT_SEED;
+
+    private BenchmarkThrowables() {
+    }
+
+    /**
+     * <p>Creates a throwable.
+     *
+     * @param traceDepth      number of stack trace elements of the deepest cause
+     * @param causeDepth      number of causes in the exception chain
+     * @param suppressedCount number of suppressed exceptions of the top level throwable
+     * @return a new throwable
+     */
+    public static Throwable create(final int traceDepth, final int causeDepth, final int suppressedCount) {
+        return generator(traceDepth, causeDepth, suppressedCount).nextThrowable();
+    }
+
+    /**
+     * <p>Creates a throwable wrapper.
+     *
+     * @param traceDepth      number of stack trace elements of the deepest cause
+     * @param causeDepth      number of causes in the exception chain
+     * @param suppressedCount number of suppressed exceptions of the top level throwable
+     * @return a new throwable wrapper
+     */
+    public static ThrowableWrapper createWrapper(final int traceDepth, final int causeDepth, final int suppressedCount) {
+        return generator(traceDepth, causeDepth, suppressedCount).nextThrowableWrapper();
+    }
+
+    private static ExceptionCorpusGenerator generator(final int traceDepth, final int causeDepth, final int suppressedCount) {
+        final ExceptionCorpusGenerator generator = new ExceptionCorpusGenerator(SEED);
+        generator.setFrameDepth(traceDepth);
+        generator.setCauseDepth(causeDepth);
+        generator.setSuppressedCount(suppressedCount);
+        return generator;
+    }
+
+}
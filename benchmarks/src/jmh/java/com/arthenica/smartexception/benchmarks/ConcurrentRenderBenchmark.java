@@ -0,0 +1,130 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import com.arthenica.smartexception.FrameworkProfile;
+import com.arthenica.smartexception.java9.Exceptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Renders stack traces with globally registered packages from many threads while a background thread registers
+ * and clears a framework profile.
+ *
+ * <p>Throughput mode reports operations per microsecond, sample time mode reports latency percentiles. The number of
+ * rendering threads is set by the <code>jmhThreads</code> project property, see README. A
+ * <code>reconfigureIntervalMicros</code> of zero disables the background thread.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentRenderBenchmark {
+
+    @Param({"0", "10", "1000"})
+    public long reconfigureIntervalMicros;
+
+    @Param({"64"})
+    public int traceDepth;
+
+    private Throwable throwable;
+
+    private volatile boolean running;
+
+    private Thread reconfigureThread;
+
+    @Setup
+    public void setup() {
+        throwable = BenchmarkThrowables.create(traceDepth, 2, 1);
+
+        Exceptions.registerRootPackage("com.example");
+        Exceptions.registerProfile(FrameworkProfile.TOMCAT);
+
+        if (reconfigureIntervalMicros > 0) {
+            running = true;
+            reconfigureThread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    final long intervalNanos = TimeUnit.MICROSECONDS.toNanos(reconfigureIntervalMicros);
+                    while (running) {
+                        Exceptions.registerProfile(FrameworkProfile.SPRING);
+                        LockSupport.parkNanos(intervalNanos);
+                        Exceptions.clearIgnorePackages();
+                        Exceptions.clearGroupPackages();
+                        Exceptions.registerProfile(FrameworkProfile.TOMCAT);
+                        LockSupport.parkNanos(intervalNanos);
+                    }
+                }
+            }, "reconfigure");
+            reconfigureThread.setDaemon(true);
+            reconfigureThread.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        running = false;
+        if (reconfigureThread != null) {
+            reconfigureThread.join();
+        }
+
+        Exceptions.clearRootPackages();
+        Exceptions.clearGroupPackages();
+        Exceptions.clearIgnorePackages();
+    }
+
+    @Benchmark
+    public String render() {
+        return Exceptions.getStackTraceString(throwable);
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.ExceptionJournal;
+import com.arthenica.smartexception.ThrowableWrapper;
+import com.arthenica.smartexception.java9.Java9StackTraceElementSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compares appending a throwable to an {@link ExceptionJournal} with rendering its smart stack trace.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionJournalBenchmark {
+
+    @Param({"16", "64"})
+    public int traceDepth;
+
+    private File directory;
+
+    private ExceptionJournal journal;
+
+    private ThrowableWrapper throwableWrapper;
+
+    @Setup
+    public void setup() throws IOException {
+        com.arthenica.smartexception.java9.Exceptions.setStackTraceElementSerializer(new Java9StackTraceElementSerializer());
+
+        directory = File.createTempFile("smart-exception", "journal");
+        directory.delete();
+        journal = new ExceptionJournal(directory, ExceptionJournal.DEFAULT_SEGMENT_SIZE, 2);
+        throwableWrapper = new ThrowableWrapper(BenchmarkThrowables.create(traceDepth, 2, 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        journal.close();
+        for (File file : ExceptionJournal.getSegmentFiles(directory)) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public boolean append() {
+        return journal.append(throwableWrapper);
+    }
+
+    @Benchmark
+    public String render() {
+        return AbstractExceptions.getStackTraceString(throwableWrapper, Collections.singleton("com.example"), Collections.singleton("org.apache.catalina"), Collections.<String>emptySet(), 0, false, false);
+    }
+
+}
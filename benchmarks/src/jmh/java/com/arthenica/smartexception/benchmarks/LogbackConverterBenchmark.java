@@ -0,0 +1,219 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.pattern.ExtendedThrowableProxyConverter;
+import ch.qos.logback.classic.pattern.RootCauseFirstThrowableProxyConverter;
+import ch.qos.logback.classic.pattern.ThrowableHandlingConverter;
+import ch.qos.logback.classic.pattern.ThrowableProxyConverter;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.arthenica.smartexception.logback.SmartExceptionConverter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Renders the same throwables through logback's built-in throwable converters and through
+ * {@link SmartExceptionConverter} with different option sets.
+ *
+ * <p>Throughput is reported in operations per millisecond, allocation rate by the <code>gc</code> profiler and output
+ * size by the <code>outputBytesPerEvent</code> counter, which is the number of UTF-8 bytes written for each logging
+ * event.
+ *
+ * <p><code>render</code> creates a new logging event for each operation like a logger does, so the cost of building
+ * the throwable proxy and packaging data is included. <code>convert</code> reuses the same event.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogbackConverterBenchmark {
+
+    @Param({"throwable", "extendedThrowable", "rootCauseFirstThrowable", "smart", "smartPackageInformation", "smartBoundaryFramesOnly", "smartGroupLibraries", "smartProfiles"})
+    public String converterName;
+
+    @Param({"32", "128"})
+    public int traceDepth;
+
+    @Param({"0", "4"})
+    public int causeDepth;
+
+    private LoggerContext loggerContext;
+
+    private ch.qos.logback.classic.Logger logger;
+
+    private ThrowableHandlingConverter converter;
+
+    private Throwable throwable;
+
+    private LoggingEvent loggingEvent;
+
+    @Setup
+    public void setup() {
+        loggerContext = new LoggerContext();
+        loggerContext.setPackagingDataEnabled("extendedThrowable".equals(converterName));
+        logger = loggerContext.getLogger(LogbackConverterBenchmark.class);
+
+        converter = createConverter(converterName);
+        converter.setContext(loggerContext);
+        converter.start();
+
+        throwable = BenchmarkThrowables.create(traceDepth, causeDepth, 0);
+        loggingEvent = newLoggingEvent();
+    }
+
+    @TearDown
+    public void tearDown() {
+        converter.stop();
+        loggerContext.stop();
+    }
+
+    static ThrowableHandlingConverter createConverter(final String converterName) {
+        final ThrowableHandlingConverter converter;
+        final List<String> optionList;
+        switch (converterName) {
+            case "throwable":
+                converter = new ThrowableProxyConverter();
+                optionList = Collections.emptyList();
+                break;
+            case "extendedThrowable":
+                converter = new ExtendedThrowableProxyConverter();
+                optionList = Collections.emptyList();
+                break;
+            case "rootCauseFirstThrowable":
+                converter = new RootCauseFirstThrowableProxyConverter();
+                optionList = Collections.emptyList();
+                break;
+            case "smart":
+                converter = new SmartExceptionConverter();
+                optionList = Arrays.asList("rootPackage=com.example", "groupPackage=org.apache.catalina", "ignorePackage=java.lang.reflect");
+                break;
+            case "smartPackageInformation":
+                converter = new SmartExceptionConverter();
+                optionList = Arrays.asList("rootPackage=com.example", "groupPackage=org.apache.catalina", "ignorePackage=java.lang.reflect", "printPackageInformation=true");
+                break;
+            case "smartBoundaryFramesOnly":
+                converter = new SmartExceptionConverter();
+                optionList = Arrays.asList("printBoundaryFramesOnly=true");
+                break;
+            case "smartGroupLibraries":
+                converter = new SmartExceptionConverter();
+                optionList = Arrays.asList("rootPackage=com.example", "groupLibraries=true");
+                break;
+            case "smartProfiles":
+                converter = new SmartExceptionConverter();
+                optionList = Arrays.asList("rootPackage=com.example", "profile=spring,tomcat,jdk-reflection");
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown converter: %s", converterName));
+        }
+
+        converter.setOptionList(optionList);
+        return converter;
+    }
+
+    private LoggingEvent newLoggingEvent() {
+        return new LoggingEvent(LogbackConverterBenchmark.class.getName(), logger, ch.qos.logback.classic.Level.ERROR, "Request failed.", throwable, null);
+    }
+
+    @Benchmark
+    public String render(final OutputCounters outputCounters) {
+        final String output = converter.convert(newLoggingEvent());
+        outputCounters.count(output);
+        return output;
+    }
+
+    @Benchmark
+    public String convert(final OutputCounters outputCounters) {
+        final String output = converter.convert(loggingEvent);
+        outputCounters.count(output);
+        return output;
+    }
+
+    /**
+     * <p>Counts output size. Converter output is ascii, so the number of characters equals the number of UTF-8 bytes.
+     * Counters of all threads are summed in results, so the size reported by each thread is divided by the number of
+     * threads.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputCounters {
+
+        private long outputBytes;
+
+        private long events;
+
+        private int threadCount;
+
+        @Setup(Level.Iteration)
+        public void reset(final ThreadParams threadParams) {
+            outputBytes = 0;
+            events = 0;
+            threadCount = threadParams.getThreadCount();
+        }
+
+        void count(final String output) {
+            outputBytes += output.length();
+            events++;
+        }
+
+        public double outputBytesPerEvent() {
+            return (events == 0) ? 0 : (double) outputBytes / events / threadCount;
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.HistogramRenderMetrics;
+import com.arthenica.smartexception.ThrowableWrapper;
+import com.arthenica.smartexception.java9.Java9StackTraceElementSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the overhead of render metrics by rendering the same stack trace with render metrics disabled and with
+ * {@link HistogramRenderMetrics} enabled.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderMetricsBenchmark {
+
+    @Param({"16", "64"})
+    public int traceDepth;
+
+    @Param({"disabled", "histogram"})
+    public String renderMetrics;
+
+    private ThrowableWrapper throwableWrapper;
+
+    @Setup
+    public void setup() {
+        com.arthenica.smartexception.java9.Exceptions.setStackTraceElementSerializer(new Java9StackTraceElementSerializer());
+        AbstractExceptions.setRenderMetrics("histogram".equals(renderMetrics) ? new HistogramRenderMetrics() : null);
+
+        throwableWrapper = new ThrowableWrapper(BenchmarkThrowables.create(traceDepth, 2, 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        AbstractExceptions.setRenderMetrics(null);
+    }
+
+    @Benchmark
+    public String render() {
+        return AbstractExceptions.getStackTraceString(throwableWrapper, Collections.singleton("com.example"), Collections.singleton("org.apache.catalina"), Collections.<String>emptySet(), 0, false, false);
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.ThrowableWrapper;
+import com.arthenica.smartexception.java.JavaStackTraceElementSerializer;
+import com.arthenica.smartexception.java9.Java9StackTraceElementSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures <code>getStackTraceString</code> methods over trace depth, cause depth, suppressed count, number of
+ * registered packages, package information and serializer axes.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackTraceStringBenchmark {
+
+    @Param({"16", "64", "256"})
+    public int traceDepth;
+
+    @Param({"0", "4"})
+    public int causeDepth;
+
+    @Param({"0", "4"})
+    public int suppressedCount;
+
+    @Param({"0", "16", "256"})
+    public int packageCount;
+
+    @Param({"false", "true"})
+    public boolean printPackageInformation;
+
+    @Param({"java", "java9"})
+    public String serializer;
+
+    private Throwable throwable;
+
+    private ThrowableWrapper throwableWrapper;
+
+    private Set<String> rootPackageSet;
+
+    private Set<String> groupPackageSet;
+
+    private Set<String> ignorePackageSet;
+
+    @Setup
+    public void setup() {
+        if ("java".equals(serializer)) {
+            com.arthenica.smartexception.java.Exceptions.setStackTraceElementSerializer(new JavaStackTraceElementSerializer());
+        } else {
+            com.arthenica.smartexception.java9.Exceptions.setStackTraceElementSerializer(new Java9StackTraceElementSerializer());
+        }
+
+        throwable = BenchmarkThrowables.create(traceDepth, causeDepth, suppressedCount);
+        throwableWrapper = new ThrowableWrapper(throwable);
+
+        rootPackageSet = Collections.singleton("com.example");
+        groupPackageSet = new HashSet<>();
+        ignorePackageSet = new HashSet<>();
+        if (packageCount > 0) {
+            groupPackageSet.add("org.apache.catalina");
+            ignorePackageSet.add("java.lang.reflect");
+        }
+        for (int i = groupPackageSet.size() + ignorePackageSet.size(); i < packageCount; i++) {
+            if (i % 2 == 0) {
+                groupPackageSet.add("com.example.group" + i);
+            } else {
+                ignorePackageSet.add("com.example.ignore" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public String wrapper() {
+        return AbstractExceptions.getStackTraceString(throwableWrapper, rootPackageSet, groupPackageSet, ignorePackageSet, 0, false, printPackageInformation);
+    }
+
+    @Benchmark
+    public String throwable() {
+        return AbstractExceptions.getStackTraceString(new ThrowableWrapper(throwable), rootPackageSet, groupPackageSet, ignorePackageSet, 0, false, printPackageInformation);
+    }
+
+    @Benchmark
+    public String noRootPackages() {
+        return AbstractExceptions.getStackTraceString(throwableWrapper, Collections.<String>emptySet(), groupPackageSet, ignorePackageSet, 0, false, printPackageInformation);
+    }
+
+}
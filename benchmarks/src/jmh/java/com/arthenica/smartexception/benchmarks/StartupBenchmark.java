@@ -0,0 +1,177 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.logback.SmartExceptionConverter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the latency of the first stack trace rendered in a fresh JVM, with and without warming up during
+ * startup.
+ *
+ * <p>Each fork is a new JVM that renders exactly one exception, so the reported time includes class loading,
+ * package information lookups and interpreted execution of the rendering path. The <code>loadedClasses</code>
+ * secondary result is the number of classes loaded while rendering that exception.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    @Param({"java", "java9", "logback"})
+    public String entryPoint;
+
+    @Param({"false", "true"})
+    public boolean warmUp;
+
+    private Throwable throwable;
+
+    private LoggerContext loggerContext;
+
+    private SmartExceptionConverter converter;
+
+    private LoggingEvent loggingEvent;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ClassLoadingCounters {
+
+        public long loadedClasses;
+
+    }
+
+    @Setup
+    public void setup() {
+        throwable = BenchmarkThrowables.create(64, 2, 1);
+
+        switch (entryPoint) {
+            case "java": {
+                if (warmUp) {
+                    com.arthenica.smartexception.java.Exceptions.registerRootPackage("com.example");
+                    com.arthenica.smartexception.java.Exceptions.registerGroupPackage("org.apache.catalina");
+                    com.arthenica.smartexception.java.Exceptions.warmUp();
+                }
+            }
+            break;
+            case "java9": {
+                if (warmUp) {
+                    com.arthenica.smartexception.java9.Exceptions.registerRootPackage("com.example");
+                    com.arthenica.smartexception.java9.Exceptions.registerGroupPackage("org.apache.catalina");
+                    com.arthenica.smartexception.java9.Exceptions.warmUp();
+                }
+            }
+            break;
+            case "logback": {
+                loggerContext = new LoggerContext();
+                loggingEvent = new LoggingEvent(StartupBenchmark.class.getName(), loggerContext.getLogger(StartupBenchmark.class), Level.ERROR, "Request failed.", throwable, null);
+                if (warmUp) {
+                    startConverter();
+                    converter.warmUp(AbstractExceptions.DEFAULT_WARM_UP_ITERATIONS);
+                }
+            }
+            break;
+            default: {
+                throw new IllegalArgumentException("Unknown entry point " + entryPoint);
+            }
+        }
+    }
+
+    @Benchmark
+    public String firstException(final ClassLoadingCounters counters) {
+        final ClassLoadingMXBean classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
+        final long loadedClassCount = classLoadingMXBean.getTotalLoadedClassCount();
+
+        final String stackTrace;
+        switch (entryPoint) {
+            case "java": {
+                if (!warmUp) {
+                    com.arthenica.smartexception.java.Exceptions.registerRootPackage("com.example");
+                    com.arthenica.smartexception.java.Exceptions.registerGroupPackage("org.apache.catalina");
+                }
+                stackTrace = com.arthenica.smartexception.java.Exceptions.getStackTraceString(throwable);
+            }
+            break;
+            case "java9": {
+                if (!warmUp) {
+                    com.arthenica.smartexception.java9.Exceptions.registerRootPackage("com.example");
+                    com.arthenica.smartexception.java9.Exceptions.registerGroupPackage("org.apache.catalina");
+                }
+                stackTrace = com.arthenica.smartexception.java9.Exceptions.getStackTraceString(throwable);
+            }
+            break;
+            default: {
+                if (!warmUp) {
+                    startConverter();
+                }
+                stackTrace = converter.convert(loggingEvent);
+            }
+        }
+
+        counters.loadedClasses = classLoadingMXBean.getTotalLoadedClassCount() - loadedClassCount;
+        return stackTrace;
+    }
+
+    private void startConverter() {
+        converter = new SmartExceptionConverter();
+        converter.setContext(loggerContext);
+        converter.setOptionList(Arrays.asList("rootPackage=com.example", "groupPackage=org.apache.catalina"));
+        converter.start();
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import com.arthenica.smartexception.java9.ExceptionCorpusFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>Reads and writes exception corpus files created from exceptions of {@link ExceptionCorpusGenerator}, using the
+ * file format and serialization filter of {@link ExceptionCorpusFile}.
+ *
+ * <p>Corpus files can be created from the command line.
+ *
+ * <pre>
+ * java com.arthenica.smartexception.benchmarks.ExceptionCorpus &lt;file&gt; [count] [seed] [frameDepth] [causeDepth] [suppressedCount] [recursionCycles] [messageSize]
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionCorpus {
+
+    public static final int DEFAULT_COUNT = 1024;
+
+    public static final long DEFAULT_SEED = 42;
+
+    /**
+     * <p>Writes exceptions to the given corpus file.
+     *
+     * @param file       corpus file
+     * @param throwables exceptions
+     * @throws IOException if the file can not be written
+     */
+    public static void write(final File file, final List<Throwable> throwables) throws IOException {
+        ExceptionCorpusFile.write(file, throwables);
+    }
+
+    /**
+     * <p>Reads exceptions from the given corpus file.
+     *
+     * @param file corpus file
+     * @return exceptions
+     * @throws IOException if the file can not be read or includes unexpected types
+     */
+    public static List<Throwable> read(final File file) throws IOException {
+        return ExceptionCorpusFile.read(file);
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ExceptionCorpus <file> [count] [seed] [frameDepth] [causeDepth] [suppressedCount] [recursionCycles] [messageSize]");
+            System.exit(1);
+        }
+
+        final File file = new File(args[0]);
+        final int count = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_COUNT;
+        final long seed = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+        final ExceptionCorpusGenerator generator = new ExceptionCorpusGenerator(seed);
+        if (args.length > 3) {
+            generator.setFrameDepth(Integer.parseInt(args[3]));
+        }
+        if (args.length > 4) {
+            generator.setCauseDepth(Integer.parseInt(args[4]));
+        }
+        if (args.length > 5) {
+            generator.setSuppressedCount(Integer.parseInt(args[5]));
+        }
+        if (args.length > 6) {
+            generator.setRecursionCycles(Integer.parseInt(args[6]));
+        }
+        if (args.length > 7) {
+            generator.setMessageSize(Integer.parseInt(args[7]));
+        }
+
+        write(file, generator.generate(count));
+        System.out.printf("Wrote %d exceptions to %s%n", count, file.getAbsolutePath());
+    }
+
+}
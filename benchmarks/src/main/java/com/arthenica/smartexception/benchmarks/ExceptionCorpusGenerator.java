@@ -0,0 +1,413 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import com.arthenica.smartexception.ThrowableWrapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Generates synthetic exceptions. Generated exceptions depend only on the seed and the shape parameters, so the
+ * same corpus can be created again on any machine.
+ *
+ * <p>Stack traces are modelled on a Spring MVC application running on Tomcat. Each trace starts with Tomcat's thread
+ * pool, connector and valve frames, continues with the servlet filter chain, Spring's dispatcher servlet and
+ * reflection frames, and ends with application frames behind a CGLIB proxy. Class names of framework frames are real.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionCorpusGenerator {
+
+    public static final int DEFAULT_FRAME_DEPTH = 96;
+
+    public static final int DEFAULT_RECURSION_CYCLES = 2;
+
+    public static final int DEFAULT_CAUSE_DEPTH = 2;
+
+    public static final int DEFAULT_SUPPRESSED_COUNT = 0;
+
+    public static final int DEFAULT_MESSAGE_SIZE = 64;
+
+    static final int ROOT_CAUSE_TYPES = 6;
+
+    static final int WRAPPER_TYPES = 3;
+
+    static final String[][] THREAD_FRAMES = new String[][]{
+            {"java.lang.Thread", "run"},
+            {"org.apache.tomcat.util.threads.TaskThread$WrappingRunnable", "run"},
+            {"java.util.concurrent.ThreadPoolExecutor$Worker", "run"},
+            {"java.util.concurrent.ThreadPoolExecutor", "runWorker"},
+            {"org.apache.tomcat.util.net.SocketProcessorBase", "run"},
+            {"org.apache.tomcat.util.net.NioEndpoint$SocketProcessor", "doRun"},
+            {"org.apache.coyote.AbstractProtocol$ConnectionHandler", "process"},
+            {"org.apache.coyote.AbstractProcessorLight", "process"},
+            {"org.apache.coyote.http11.Http11Processor", "service"},
+            {"org.apache.catalina.connector.CoyoteAdapter", "service"},
+            {"org.apache.catalina.core.StandardEngineValve", "invoke"},
+            {"org.apache.catalina.valves.ErrorReportValve", "invoke"},
+            {"org.apache.catalina.core.StandardHostValve", "invoke"},
+            {"org.apache.catalina.authenticator.AuthenticatorBase", "invoke"},
+            {"org.apache.catalina.core.StandardContextValve", "invoke"},
+            {"org.apache.catalina.core.StandardWrapperValve", "invoke"}
+    };
+
+    static final String[] FILTERS = new String[]{
+            "org.springframework.web.filter.CharacterEncodingFilter",
+            "org.springframework.web.filter.FormContentFilter",
+            "org.springframework.web.filter.RequestContextFilter",
+            "org.springframework.web.filter.HiddenHttpMethodFilter"
+    };
+
+    static final String[][] DISPATCHER_FRAMES = new String[][]{
+            {"org.apache.catalina.core.ApplicationFilterChain", "doFilter"},
+            {"org.apache.catalina.core.ApplicationFilterChain", "internalDoFilter"},
+            {"org.apache.tomcat.websocket.server.WsFilter", "doFilter"},
+            {"org.apache.catalina.core.ApplicationFilterChain", "doFilter"},
+            {"org.apache.catalina.core.ApplicationFilterChain", "internalDoFilter"},
+            {"javax.servlet.http.HttpServlet", "service"},
+            {"org.springframework.web.servlet.FrameworkServlet", "service"},
+            {"javax.servlet.http.HttpServlet", "service"},
+            {"org.springframework.web.servlet.FrameworkServlet", "doPost"},
+            {"org.springframework.web.servlet.FrameworkServlet", "processRequest"},
+            {"org.springframework.web.servlet.DispatcherServlet", "doService"},
+            {"org.springframework.web.servlet.DispatcherServlet", "doDispatch"},
+            {"org.springframework.web.servlet.mvc.method.AbstractHandlerMethodAdapter", "handle"},
+            {"org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter", "handleInternal"},
+            {"org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter", "invokeHandlerMethod"},
+            {"org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod", "invokeAndHandle"},
+            {"org.springframework.web.method.support.InvocableHandlerMethod", "invokeForRequest"},
+            {"org.springframework.web.method.support.InvocableHandlerMethod", "doInvoke"},
+            {"java.lang.reflect.Method", "invoke"},
+            {"jdk.internal.reflect.DelegatingMethodAccessorImpl", "invoke"},
+            {"jdk.internal.reflect.NativeMethodAccessorImpl", "invoke"},
+            {"jdk.internal.reflect.NativeMethodAccessorImpl", "invoke0"}
+    };
+
+    static final String[][] PROXY_FRAMES = new String[][]{
+            {"org.springframework.aop.framework.CglibAopProxy$DynamicAdvisedInterceptor", "intercept"},
+            {"org.springframework.aop.framework.ReflectiveMethodInvocation", "proceed"},
+            {"org.springframework.aop.framework.CglibAopProxy$CglibMethodInvocation", "proceed"},
+            {"org.springframework.aop.interceptor.ExposeInvocationInterceptor", "invoke"},
+            {"org.springframework.aop.framework.ReflectiveMethodInvocation", "proceed"},
+            {"org.springframework.aop.framework.CglibAopProxy$CglibMethodInvocation", "proceed"},
+            {"org.springframework.aop.framework.CglibAopProxy$CglibMethodInvocation", "invokeJoinpoint"},
+            {"org.springframework.cglib.proxy.MethodProxy", "invoke"}
+    };
+
+    static final String[][] STREAM_FRAMES = new String[][]{
+            {"java.util.ArrayList", "forEach"},
+            {"java.util.stream.ReferencePipeline$Head", "forEach"},
+            {"java.util.stream.ReferencePipeline$3$1", "accept"}
+    };
+
+    static final String[] APPLICATIONS = new String[]{"orders", "billing", "inventory", "shipping"};
+
+    static final String[] ENTITIES = new String[]{"Order", "Invoice", "Customer", "Product", "Shipment", "Payment"};
+
+    static final String[] VERBS = new String[]{"create", "update", "find", "delete", "validate", "process"};
+
+    static final String[] WORDS = new String[]{"request", "failed", "for", "id", "value", "invalid", "state", "timeout", "while", "reading", "record", "connection", "refused", "missing", "field", "expected", "but", "was", "null", "user"};
+
+    private final Random random;
+
+    private int frameDepth = DEFAULT_FRAME_DEPTH;
+
+    private int recursionCycles = DEFAULT_RECURSION_CYCLES;
+
+    private int causeDepth = DEFAULT_CAUSE_DEPTH;
+
+    private int suppressedCount = DEFAULT_SUPPRESSED_COUNT;
+
+    private int messageSize = DEFAULT_MESSAGE_SIZE;
+
+    public ExceptionCorpusGenerator(final long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * <p>Returns the number of stack trace elements of the deepest cause. Each cause up the chain is thrown from a
+     * caller, so it has fewer elements.
+     *
+     * @return frame depth
+     */
+    public int getFrameDepth() {
+        return frameDepth;
+    }
+
+    public void setFrameDepth(final int frameDepth) {
+        this.frameDepth = frameDepth;
+    }
+
+    /**
+     * <p>Returns the number of recursive call cycles in application frames.
+     *
+     * @return recursion cycles
+     */
+    public int getRecursionCycles() {
+        return recursionCycles;
+    }
+
+    public void setRecursionCycles(final int recursionCycles) {
+        this.recursionCycles = recursionCycles;
+    }
+
+    public int getCauseDepth() {
+        return causeDepth;
+    }
+
+    public void setCauseDepth(final int causeDepth) {
+        this.causeDepth = causeDepth;
+    }
+
+    /**
+     * <p>Returns the number of suppressed exceptions added to each top level exception.
+     *
+     * @return suppressed count
+     */
+    public int getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    public void setSuppressedCount(final int suppressedCount) {
+        this.suppressedCount = suppressedCount;
+    }
+
+    /**
+     * <p>Returns the length of exception messages. Zero creates exceptions without a message.
+     *
+     * @return message size
+     */
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    public void setMessageSize(final int messageSize) {
+        this.messageSize = messageSize;
+    }
+
+    /**
+     * <p>Generates the given number of exceptions.
+     *
+     * @param count number of exceptions
+     * @return generated exceptions
+     */
+    public List<Throwable> generate(final int count) {
+        final List<Throwable> throwables = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            throwables.add(nextThrowable());
+        }
+        return throwables;
+    }
+
+    /**
+     * <p>Generates the next exception wrapped in a {@link ThrowableWrapper}.
+     *
+     * @return generated exception wrapper
+     */
+    public ThrowableWrapper nextThrowableWrapper() {
+        return new ThrowableWrapper(nextThrowable());
+    }
+
+    /**
+     * <p>Generates the next exception.
+     *
+     * @return generated exception
+     */
+    public Throwable nextThrowable() {
+        final String application = pick(APPLICATIONS);
+        final String entity = pick(ENTITIES);
+
+        // root cause is thrown from the deepest frame, each wrapper is thrown from a caller
+        StackTraceElement[] stackTrace = requestStackTrace(application, entity);
+        Throwable throwable = createThrowable(random.nextInt(ROOT_CAUSE_TYPES), null);
+        throwable.setStackTrace(stackTrace);
+
+        for (int i = 0; i < causeDepth; i++) {
+            final int dropCount = Math.max(0, Math.min(1 + random.nextInt(6), stackTrace.length - 1));
+            stackTrace = Arrays.copyOfRange(stackTrace, dropCount, stackTrace.length);
+            throwable = createThrowable(ROOT_CAUSE_TYPES + random.nextInt(WRAPPER_TYPES), throwable);
+            throwable.setStackTrace(stackTrace);
+        }
+
+        for (int i = 0; i < suppressedCount; i++) {
+            final Throwable suppressed = createThrowable(0, null);
+            suppressed.setStackTrace(closeStackTrace(application, entity, stackTrace));
+            throwable.addSuppressed(suppressed);
+        }
+
+        return throwable;
+    }
+
+    private Throwable createThrowable(final int type, final Throwable cause) {
+        final String message = message();
+        switch (type) {
+            case 0:
+                return new IOException(message);
+            case 1:
+                return new SQLException(message, "08001");
+            case 2:
+                return new SocketTimeoutException(message);
+            case 3:
+                return new IllegalArgumentException(message);
+            case 4:
+                return new NullPointerException(message);
+            case 5:
+                return new TimeoutException(message);
+            case 6:
+                return new IllegalStateException(message, cause);
+            case 7:
+                return new ExecutionException(message, cause);
+            default:
+                return (cause instanceof IOException) ? new UncheckedIOException(message, (IOException) cause) : new RuntimeException(message, cause);
+        }
+    }
+
+    private String message() {
+        if (messageSize <= 0) {
+            return null;
+        }
+
+        final StringBuilder builder = new StringBuilder(messageSize);
+        while (builder.length() < messageSize) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            if (random.nextInt(4) == 0) {
+                builder.append(Integer.toHexString(random.nextInt()));
+            } else {
+                builder.append(pick(WORDS));
+            }
+        }
+        builder.setLength(messageSize);
+        return builder.toString();
+    }
+
+    private StackTraceElement[] requestStackTrace(final String application, final String entity) {
+        final String packageName = "com.example." + application;
+        final String verb = pick(VERBS);
+        final String method = verb + entity;
+
+        // frames are collected from the outermost caller to the throw site
+        final List<StackTraceElement> frames = new ArrayList<>();
+        for (String[] frame : THREAD_FRAMES) {
+            frames.add(frame(frame[0], frame[1]));
+        }
+        final int filterCount = 2 + random.nextInt(FILTERS.length - 1);
+        for (int i = 0; i < filterCount; i++) {
+            frames.add(frame("org.apache.catalina.core.ApplicationFilterChain", "doFilter"));
+            frames.add(frame("org.apache.catalina.core.ApplicationFilterChain", "internalDoFilter"));
+            frames.add(frame("org.springframework.web.filter.OncePerRequestFilter", "doFilter"));
+            frames.add(frame(FILTERS[i], "doFilterInternal"));
+        }
+        for (String[] frame : DISPATCHER_FRAMES) {
+            frames.add(frame(frame[0], frame[1]));
+        }
+
+        final String hash = Integer.toHexString(random.nextInt() | 0x10000000);
+        frames.add(frame(packageName + ".web." + entity + "Controller", method));
+        frames.add(frame(packageName + ".service." + entity + "Service$$EnhancerBySpringCGLIB$$" + hash, method));
+        for (String[] frame : PROXY_FRAMES) {
+            frames.add(frame(frame[0], frame[1]));
+        }
+        frames.add(frame(packageName + ".service." + entity + "Service$$FastClassBySpringCGLIB$$" + hash, "invoke"));
+        frames.add(frame(packageName + ".service." + entity + "Service", method));
+
+        for (String[] frame : STREAM_FRAMES) {
+            frames.add(frame(frame[0], frame[1]));
+        }
+        frames.add(frame(packageName + ".service." + entity + "Service", "lambda$" + method + "$" + random.nextInt(4)));
+
+        final int recursionStart = frames.size();
+        addRecursionCycles(frames, packageName, entity, recursionCycles);
+        frames.add(frame(packageName + ".repository." + entity + "Repository", pick(VERBS)));
+
+        // pad with recursion cycles or drop outermost frames to reach the requested depth
+        while (frames.size() + 1 < frameDepth) {
+            addRecursionCycles(frames.subList(0, recursionStart), packageName, entity, 1);
+        }
+        if (frames.size() < frameDepth) {
+            frames.add(recursionStart, frame(packageName + ".domain." + entity + "Visitor", "visit"));
+        }
+        return reverse(frames.subList(Math.max(0, frames.size() - frameDepth), frames.size()));
+    }
+
+    private void addRecursionCycles(final List<StackTraceElement> frames, final String packageName, final String entity, final int cycles) {
+        for (int i = 0; i < cycles; i++) {
+            frames.add(frame(packageName + ".domain." + entity + "Visitor", "visit"));
+            frames.add(frame(packageName + ".domain." + entity + "Node", "accept"));
+        }
+    }
+
+    private StackTraceElement[] closeStackTrace(final String application, final String entity, final StackTraceElement[] parentStackTrace) {
+        final List<StackTraceElement> frames = new ArrayList<>();
+        frames.add(frame("com.example." + application + ".repository." + entity + "Connection", "close"));
+        frames.add(frame("com.example." + application + ".repository." + entity + "Repository", "close"));
+        frames.addAll(Arrays.asList(parentStackTrace).subList(Math.min(1, parentStackTrace.length), parentStackTrace.length));
+        return frames.toArray(new StackTraceElement[0]);
+    }
+
+    private StackTraceElement frame(final String className, final String methodName) {
+        final int nestedIndex = className.indexOf('$');
+        final String outerClassName = (nestedIndex < 0) ? className : className.substring(0, nestedIndex);
+        final String fileName = outerClassName.substring(outerClassName.lastIndexOf('.') + 1) + ".java";
+        if (className.contains("$$")) {
+            return new StackTraceElement(className, methodName, "<generated>", -1);
+        }
+        if ("invoke0".equals(methodName)) {
+            return new StackTraceElement(className, methodName, fileName, -2);
+        }
+        return new StackTraceElement(className, methodName, fileName, 20 + random.nextInt(980));
+    }
+
+    private static StackTraceElement[] reverse(final List<StackTraceElement> frames) {
+        final List<StackTraceElement> reversed = new ArrayList<>(frames);
+        Collections.reverse(reversed);
+        return reversed.toArray(new StackTraceElement[0]);
+    }
+
+    private String pick(final String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.benchmarks;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+public class ExceptionCorpusGeneratorTest {
+
+    @Test
+    public void sameSeed() {
+        final ExceptionCorpusGenerator first = new ExceptionCorpusGenerator(7);
+        first.setSuppressedCount(2);
+        final ExceptionCorpusGenerator second = new ExceptionCorpusGenerator(7);
+        second.setSuppressedCount(2);
+
+        for (int i = 0; i < 16; i++) {
+            Assert.assertEquals(print(first.nextThrowable()), print(second.nextThrowable()));
+        }
+    }
+
+    @Test
+    public void shape() {
+        final ExceptionCorpusGenerator generator = new ExceptionCorpusGenerator(11);
+        generator.setFrameDepth(200);
+        generator.setCauseDepth(3);
+        generator.setSuppressedCount(4);
+        generator.setMessageSize(32);
+
+        final Throwable throwable = generator.nextThrowable();
+        Assert.assertEquals(4, throwable.getSuppressed().length);
+        Assert.assertEquals(32, throwable.getMessage().length());
+
+        Throwable rootCause = throwable;
+        int causeDepth = 0;
+        while (rootCause.getCause() != null) {
+            Assert.assertTrue(rootCause.getStackTrace().length < rootCause.getCause().getStackTrace().length);
+            rootCause = rootCause.getCause();
+            causeDepth++;
+        }
+        Assert.assertEquals(3, causeDepth);
+        Assert.assertEquals(200, rootCause.getStackTrace().length);
+        Assert.assertEquals("java.lang.Thread", rootCause.getStackTrace()[199].getClassName());
+
+        generator.setFrameDepth(16);
+        generator.setCauseDepth(0);
+        generator.setSuppressedCount(0);
+        generator.setMessageSize(0);
+
+        final Throwable shallow = generator.nextThrowable();
+        Assert.assertEquals(16, shallow.getStackTrace().length);
+        Assert.assertNull(shallow.getCause());
+        Assert.assertNull(shallow.getMessage());
+        Assert.assertTrue(shallow.getStackTrace()[0].getClassName().startsWith("com.example."));
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        final ExceptionCorpusGenerator generator = new ExceptionCorpusGenerator(13);
+        generator.setSuppressedCount(1);
+        final List<Throwable> throwables = generator.generate(8);
+
+        final File file = File.createTempFile("corpus", ".ser.gz");
+        try {
+            ExceptionCorpus.write(file, throwables);
+
+            final List<Throwable> readThrowables = ExceptionCorpus.read(file);
+            Assert.assertEquals(throwables.size(), readThrowables.size());
+            for (int i = 0; i < throwables.size(); i++) {
+                Assert.assertEquals(print(throwables.get(i)), print(readThrowables.get(i)));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static String print(final Throwable throwable) {
+        final StringWriter writer = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+}
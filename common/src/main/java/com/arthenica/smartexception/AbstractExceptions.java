@@ -34,9 +34,14 @@ package com.arthenica.smartexception;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>Abstract class that includes common variables and methods for different <code>Exceptions</code> implementations.
@@ -72,53 +77,122 @@ public abstract class AbstractExceptions {
     public static final boolean DEFAULT_PRINT_SUPPRESSED_EXCEPTIONS = true;
 
     /**
-     * <p>Stores global root package names.
+     * <p>Default value for printing only boundary frames when stack trace elements are printed or converted to string.
      */
-    static final Set<String> rootPackageSet = Collections.synchronizedSet(new HashSet<String>());
+    public static final boolean DEFAULT_PRINT_BOUNDARY_FRAMES_ONLY = false;
 
     /**
-     * <p>Stores global group package names.
+     * <p>Default value for grouping stack trace elements from the same library when stack trace elements are printed
+     * or converted to string.
      */
-    static final Set<String> groupPackageSet = Collections.synchronizedSet(new HashSet<String>());
+    public static final boolean DEFAULT_GROUP_LIBRARIES = false;
 
     /**
-     * <p>Stores global ignore package names.
+     * <p>Default number of times a sample exception is rendered by {@link #warmUp()}.
      */
-    static final Set<String> ignorePackageSet = Collections.synchronizedSet(new HashSet<String>());
+    public static final int DEFAULT_WARM_UP_ITERATIONS = 1000;
 
     /**
-     * <p>Stores global ignore cause package names.
+     * <p>Max number of class names kept in the library name cache.
      */
-    static final Set<String> ignoreCausePackageSet = Collections.synchronizedSet(new HashSet<String>());
+    public static final int LIBRARY_NAME_CACHE_SIZE = 4096;
+
+    /**
+     * <p>Initial capacity of the builder used to render a stack trace.
+     */
+    static final int STACK_TRACE_BUILDER_CAPACITY = 2048;
+
+    /**
+     * <p>Stores global root, group, ignore and ignore cause package names. Register and clear methods replace this
+     * immutable snapshot while holding the class lock, rendering reads it once without locking.
+     */
+    static volatile PackageConfiguration packageConfiguration = PackageConfiguration.EMPTY;
 
     /**
      * <p>Stores the value of global ignore all causes option.
      */
-    static boolean ignoreAllCauses = DEFAULT_IGNORE_ALL_CAUSES;
+    static volatile boolean ignoreAllCauses = DEFAULT_IGNORE_ALL_CAUSES;
 
     /**
      * <p>Stores the global stack trace serializer implementation.
      */
-    static StackTraceElementSerializer stackTraceElementSerializer;
+    static volatile StackTraceElementSerializer stackTraceElementSerializer;
 
     /**
      * <p>Stores the global print package information option.
      */
-    static boolean printPackageInformation = DEFAULT_PRINT_PACKAGE_INFORMATION;
+    static volatile boolean printPackageInformation = DEFAULT_PRINT_PACKAGE_INFORMATION;
 
     /**
      * <p>Stores the value of global print module name option. If value is false then stack trace elements printed or
      * converted to string will include module name at the beginning of the line. Otherwise, module name will be
      * ignored.
      */
-    static boolean printModuleName = DEFAULT_PRINT_MODULE_NAME;
+    static volatile boolean printModuleName = DEFAULT_PRINT_MODULE_NAME;
 
     /**
      * <p>Stores the value of global print suppressed exceptions option. If value is false then stack trace elements
      * printed or converted to string will include suppressed exceptions as well. Otherwise, suppressed exceptions
      * will be ignored.
      */
-    static boolean printSuppressedExceptions = DEFAULT_PRINT_SUPPRESSED_EXCEPTIONS;
+    static volatile boolean printSuppressedExceptions = DEFAULT_PRINT_SUPPRESSED_EXCEPTIONS;
+
+    /**
+     * <p>Stores the value of global print boundary frames only option. If value is true then only the throw site, root
+     * package frames and frames where control crosses a package or library boundary are printed.
+     */
+    static volatile boolean printBoundaryFramesOnly = DEFAULT_PRINT_BOUNDARY_FRAMES_ONLY;
+
+    /**
+     * <p>Stores the value of global group libraries option. If value is true then consecutive stack trace elements
+     * loaded from the same jar file or module are grouped.
+     */
+    static volatile boolean groupLibraries = DEFAULT_GROUP_LIBRARIES;
+
+    /**
+     * <p>Stores the global class loader implementation used to resolve library names of stack trace elements.
+     */
+    static volatile ClassLoader classLoader;
+
+    /**
+     * <p>Caches library names resolved for class names. Classes without a library name are stored with an empty
+     * string.
+     */
+    static final ConcurrentMap<String, String> libraryNameCache = new ConcurrentHashMap<String, String>();
+
+    static final AtomicLong libraryNameCacheMisses = new AtomicLong();
+
+    static final AtomicLong libraryNameCacheEvictions = new AtomicLong();
+
+    /**
+     * <p>Stores the global render metrics implementation, null if render metrics are disabled.
+     */
+    static volatile RenderMetrics renderMetrics;
+
+    /**
+     * <p>Stores the global exception aggregator, null if exceptions are not aggregated.
+     */
+    static volatile ExceptionAggregator exceptionAggregator;
+
+    /**
+     * <p>Stores the global exception rate tracker, null if exception rates are not tracked.
+     */
+    static volatile ExceptionRateTracker exceptionRateTracker;
+
+    /**
+     * <p>Stores the global exception clusterer, null if exceptions are grouped by exact fingerprints.
+     */
+    static volatile ExceptionClusterer exceptionClusterer;
+
+    /**
+     * <p>Stores the global exception recorder, null if recent exceptions are not recorded.
+     */
+    static volatile ExceptionRecorder exceptionRecorder;
+
+    /**
+     * <p>Stores the global exception journal, null if rendered exceptions are not journaled.
+     */
+    static volatile ExceptionJournal exceptionJournal;
 
     /**
      * <p>Returns the value of print module name option.
@@ -141,33 +215,39 @@ public abstract class AbstractExceptions {
     /**
      * <p>Registers a new root package.
      *
+     * <p>A glob pattern like <code>*$$EnhancerBySpringCGLIB$$*</code> or a method pattern like
+     * <code>com.example.*#lambda$*</code> can be registered instead of a package name, see {@link FrameMatcher}.
+     *
      * @param packageString root package name to register
      */
-    public static void registerRootPackage(final String packageString) {
-        rootPackageSet.add(packageString);
+    public static synchronized void registerRootPackage(final String packageString) {
+        packageConfiguration = compiled(packageConfiguration.withRootPackage(packageString));
     }
 
     /**
      * <p>Clears previously registered root packages.
      */
-    public static void clearRootPackages() {
-        rootPackageSet.clear();
+    public static synchronized void clearRootPackages() {
+        packageConfiguration = compiled(packageConfiguration.withoutRootPackages());
     }
 
     /**
      * <p>Registers a new group package.
      *
+     * <p>A glob pattern like <code>*$$EnhancerBySpringCGLIB$$*</code> or a method pattern like
+     * <code>com.example.*#lambda$*</code> can be registered instead of a package name, see {@link FrameMatcher}.
+     *
      * @param packageString group package name to register
      */
-    public static void registerGroupPackage(final String packageString) {
-        groupPackageSet.add(packageString);
+    public static synchronized void registerGroupPackage(final String packageString) {
+        packageConfiguration = compiled(packageConfiguration.withGroupPackage(packageString));
     }
 
     /**
      * <p>Clears previously registered group packages.
      */
-    public static void clearGroupPackages() {
-        groupPackageSet.clear();
+    public static synchronized void clearGroupPackages() {
+        packageConfiguration = compiled(packageConfiguration.withoutGroupPackages());
     }
 
     /**
@@ -193,22 +273,85 @@ public abstract class AbstractExceptions {
     /**
      * <p>Registers a new ignore package.
      *
+     * <p>A glob pattern like <code>*$$EnhancerBySpringCGLIB$$*</code> or a method pattern like
+     * <code>com.example.*#lambda$*</code> can be registered instead of a package name, see {@link FrameMatcher}.
+     *
      * @param packageString      ignore package name to register
      * @param ignoreCauseClasses ignore cause classes from this package too
      */
-    public static void registerIgnorePackage(final String packageString, final boolean ignoreCauseClasses) {
-        ignorePackageSet.add(packageString);
-        if (ignoreCauseClasses) {
-            ignoreCausePackageSet.add(packageString);
-        }
+    public static synchronized void registerIgnorePackage(final String packageString, final boolean ignoreCauseClasses) {
+        packageConfiguration = compiled(packageConfiguration.withIgnorePackage(packageString, ignoreCauseClasses));
     }
 
     /**
      * <p>Clears previously registered ignore packages.
      */
-    public static void clearIgnorePackages() {
-        ignorePackageSet.clear();
-        ignoreCausePackageSet.clear();
+    public static synchronized void clearIgnorePackages() {
+        packageConfiguration = compiled(packageConfiguration.withoutIgnorePackages());
+    }
+
+    /**
+     * <p>Returns registered ignore packages that ignore cause classes too.
+     *
+     * @return immutable snapshot of ignore cause packages, a different set is returned after they are changed
+     */
+    public static Set<String> getIgnoreCausePackages() {
+        return packageConfiguration.ignoreCausePackageSet;
+    }
+
+    /**
+     * <p>Registers group and ignore packages of the given framework profile.
+     *
+     * <p>Group and ignore packages of the profile become visible to rendering threads at the same time. Packages
+     * registered by a profile are cleared by {@link #clearGroupPackages()} and
+     * {@link #clearIgnorePackages()}.
+     *
+     * @param profile framework profile to register
+     */
+    public static synchronized void registerProfile(final FrameworkProfile profile) {
+        packageConfiguration = compiled(packageConfiguration.withProfile(profile));
+    }
+
+    /**
+     * <p>Replaces all registered root, group and ignore packages at once. Rendering threads see either the previous
+     * packages or the new ones, never a mix of them.
+     *
+     * @param rootPackages        new root packages
+     * @param groupPackages       new group packages
+     * @param ignorePackages      new ignore packages
+     * @param ignoreCausePackages new ignore packages that ignore cause classes too
+     */
+    public static synchronized void reconfigure(final Collection<String> rootPackages, final Collection<String> groupPackages, final Collection<String> ignorePackages, final Collection<String> ignoreCausePackages) {
+        packageConfiguration = compiled(PackageConfiguration.of(rootPackages, groupPackages, ignorePackages, ignoreCausePackages));
+    }
+
+    /**
+     * <p>Compiles the frame matcher of the given package snapshot before it is published, so that rules are compiled
+     * by the thread registering them instead of the first rendering thread.
+     */
+    private static PackageConfiguration compiled(final PackageConfiguration configuration) {
+        configuration.getFrameMatcher();
+        return configuration;
+    }
+
+    /**
+     * <p>Clears the library name cache, the frame matcher cache and the class state cache of the frame matcher
+     * compiled from registered packages. Caches are filled again while rendering.
+     */
+    public static void clearCaches() {
+        libraryNameCache.clear();
+        FrameMatcher.clearMatcherCache();
+        packageConfiguration.getFrameMatcher().clearClassCache();
+    }
+
+    /**
+     * <p>Registers group and ignore packages of the framework profile with the given name.
+     *
+     * @param profileName name of the framework profile to register, e.g. <code>spring</code>
+     * @throws IllegalArgumentException if there is no profile with the given name
+     */
+    public static void registerProfile(final String profileName) {
+        registerProfile(FrameworkProfile.forName(profileName));
     }
 
     /**
@@ -276,6 +419,224 @@ public abstract class AbstractExceptions {
         AbstractExceptions.printSuppressedExceptions = printSuppressedExceptions;
     }
 
+    /**
+     * <p>Returns the value of print boundary frames only option.
+     *
+     * @return the value of global print boundary frames only option
+     */
+    public static boolean getPrintBoundaryFramesOnly() {
+        return printBoundaryFramesOnly;
+    }
+
+    /**
+     * <p>Sets the value of print boundary frames only option.
+     *
+     * <p>When this option is true, stack traces printed or converted to string include only the throw site, frames
+     * from root packages and frames where control crosses a package or library boundary. Frames in between are
+     * collapsed into a single <code>... n more</code> line.
+     *
+     * @param printBoundaryFramesOnly new global print boundary frames only option
+     */
+    public static void setPrintBoundaryFramesOnly(final boolean printBoundaryFramesOnly) {
+        AbstractExceptions.printBoundaryFramesOnly = printBoundaryFramesOnly;
+    }
+
+    /**
+     * <p>Returns the value of group libraries option.
+     *
+     * @return the value of global group libraries option
+     */
+    public static boolean getGroupLibraries() {
+        return groupLibraries;
+    }
+
+    /**
+     * <p>Sets the value of group libraries option.
+     *
+     * <p>When this option is true, consecutive stack trace elements loaded from the same jar file or module are
+     * grouped and printed as <code>[library.jar] ... n more</code>, without registering group packages. Elements from
+     * root packages and elements matching a group package are not affected.
+     *
+     * @param groupLibraries new global group libraries option
+     */
+    public static void setGroupLibraries(final boolean groupLibraries) {
+        AbstractExceptions.groupLibraries = groupLibraries;
+    }
+
+    /**
+     * <p>Returns the global class loader implementation which is used to resolve library names of stack trace
+     * elements.
+     *
+     * @return current class loader implementation
+     */
+    public static ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * <p>Sets the global class loader implementation which is used to resolve library names of stack trace elements.
+     *
+     * @param classLoader new class loader implementation
+     */
+    public static void setClassLoader(final ClassLoader classLoader) {
+        AbstractExceptions.classLoader = classLoader;
+        libraryNameCache.clear();
+    }
+
+    /**
+     * <p>Returns the global render metrics implementation.
+     *
+     * @return current render metrics implementation or null if render metrics are disabled
+     */
+    public static RenderMetrics getRenderMetrics() {
+        return renderMetrics;
+    }
+
+    /**
+     * <p>Sets the global render metrics implementation which receives statistics of every rendered stack trace.
+     * Render metrics are disabled by default, setting null disables them again. When disabled, rendering does not
+     * collect statistics.
+     *
+     * @param renderMetrics new render metrics implementation or null to disable render metrics
+     */
+    public static void setRenderMetrics(final RenderMetrics renderMetrics) {
+        AbstractExceptions.renderMetrics = renderMetrics;
+    }
+
+    /**
+     * <p>Returns the global exception aggregator.
+     *
+     * @return current exception aggregator or null if exceptions are not aggregated
+     */
+    public static ExceptionAggregator getExceptionAggregator() {
+        return exceptionAggregator;
+    }
+
+    /**
+     * <p>Sets the global exception aggregator which records every rendered stack trace. Stack traces rendered
+     * while warming up are not recorded. Exceptions are not aggregated by default, setting null disables
+     * aggregation again.
+     *
+     * @param exceptionAggregator new exception aggregator or null to disable aggregation
+     */
+    public static void setExceptionAggregator(final ExceptionAggregator exceptionAggregator) {
+        AbstractExceptions.exceptionAggregator = exceptionAggregator;
+    }
+
+    /**
+     * <p>Returns the global exception rate tracker.
+     *
+     * @return current exception rate tracker or null if exception rates are not tracked
+     */
+    public static ExceptionRateTracker getExceptionRateTracker() {
+        return exceptionRateTracker;
+    }
+
+    /**
+     * <p>Sets the global exception rate tracker which records every rendered stack trace. Stack traces rendered
+     * while warming up are not recorded. Exception rates are not tracked by default, setting null disables tracking
+     * again.
+     *
+     * @param exceptionRateTracker new exception rate tracker or null to disable tracking
+     */
+    public static void setExceptionRateTracker(final ExceptionRateTracker exceptionRateTracker) {
+        AbstractExceptions.exceptionRateTracker = exceptionRateTracker;
+    }
+
+    /**
+     * <p>Returns the global exception clusterer.
+     *
+     * @return current exception clusterer or null if exceptions are grouped by exact fingerprints
+     */
+    public static ExceptionClusterer getExceptionClusterer() {
+        return exceptionClusterer;
+    }
+
+    /**
+     * <p>Sets the global exception clusterer. When set, the exception aggregator and the exception rate tracker group
+     * rendered exceptions by the id of their cluster instead of their exact fingerprint.
+     *
+     * @param exceptionClusterer new exception clusterer or null to group exceptions by exact fingerprints
+     */
+    public static void setExceptionClusterer(final ExceptionClusterer exceptionClusterer) {
+        AbstractExceptions.exceptionClusterer = exceptionClusterer;
+    }
+
+    /**
+     * <p>Returns the global exception recorder.
+     *
+     * @return current exception recorder or null if recent exceptions are not recorded
+     */
+    public static ExceptionRecorder getExceptionRecorder() {
+        return exceptionRecorder;
+    }
+
+    /**
+     * <p>Sets the global exception recorder. The global recorder is dumped by the management bean and used by
+     * <code>SmartExceptionConverter</code> when its record option is enabled.
+     *
+     * @param exceptionRecorder new exception recorder or null to disable recording
+     */
+    public static void setExceptionRecorder(final ExceptionRecorder exceptionRecorder) {
+        AbstractExceptions.exceptionRecorder = exceptionRecorder;
+    }
+
+    /**
+     * <p>Returns the global exception journal.
+     *
+     * @return current exception journal or null if rendered exceptions are not journaled
+     */
+    public static ExceptionJournal getExceptionJournal() {
+        return exceptionJournal;
+    }
+
+    /**
+     * <p>Sets the global exception journal which appends every rendered exception before its stack trace is rendered.
+     * Exceptions rendered while warming up or dumping an exception recorder are not appended. Exceptions are not
+     * journaled by default, setting null disables journaling again.
+     *
+     * @param exceptionJournal new exception journal or null to disable journaling
+     */
+    public static void setExceptionJournal(final ExceptionJournal exceptionJournal) {
+        AbstractExceptions.exceptionJournal = exceptionJournal;
+    }
+
+    /**
+     * <p>Prepares rendering before the first exception is printed, using {@link #DEFAULT_WARM_UP_ITERATIONS}
+     * iterations.
+     *
+     * @see #warmUp(int)
+     */
+    public static void warmUp() {
+        warmUp(DEFAULT_WARM_UP_ITERATIONS);
+    }
+
+    /**
+     * <p>Prepares rendering before the first exception is printed. Compiles the frame matcher of registered
+     * packages, loads classes used while rendering, resolves package information and library names of the frames of
+     * the calling thread and renders a sample exception <code>iterations</code> times, so that rendering methods are
+     * compiled by the JIT compiler.
+     *
+     * <p>Call this method during startup after registering packages, preferably from a background thread.
+     *
+     * @param iterations number of times the sample exception is rendered
+     */
+    public static void warmUp(final int iterations) {
+        if (stackTraceElementSerializer == null) {
+            throw new IllegalArgumentException("Stack trace element serializer not initialized.");
+        }
+
+        final IllegalStateException exception = new IllegalStateException("Warm up.", new IllegalArgumentException("Warm up cause."));
+        exception.addSuppressed(new UnsupportedOperationException("Warm up suppressed."));
+        final ThrowableWrapper throwable = new ThrowableWrapper(exception);
+        final FrameMatcher frameMatcher = packageConfiguration.getFrameMatcher();
+
+        getStackTraceString(RenderEntryPoint.WARM_UP, throwable, "", false, false, frameMatcher, 0, false, true, printModuleName, true, false, true);
+        for (int i = 0; i < iterations; i++) {
+            getStackTraceString(RenderEntryPoint.WARM_UP, throwable, "", false, false, frameMatcher, 0, false, false, printModuleName, true, (i % 2 == 1), false);
+        }
+    }
+
     /**
      * <p>Returns the smart stack trace for the given <code>throwable</code>.
      *
@@ -287,7 +648,7 @@ public abstract class AbstractExceptions {
      * @return a string containing the smart stack trace for the given <code>throwable</code>
      */
     public static String getStackTraceString(final ThrowableWrapper throwable) {
-        return getStackTraceString(throwable, rootPackageSet, groupPackageSet, ignorePackageSet, 0, ignoreAllCauses, printPackageInformation);
+        return getStackTraceString(throwable, "", false, false, packageConfiguration.getFrameMatcher(), 0, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries);
     }
 
     /**
@@ -302,7 +663,7 @@ public abstract class AbstractExceptions {
      * @return a string containing the smart stack trace for the given <code>throwable</code>
      */
     public static String getStackTraceString(final ThrowableWrapper throwable, final boolean ignoreAllCauses) {
-        return getStackTraceString(throwable, rootPackageSet, groupPackageSet, ignorePackageSet, 0, ignoreAllCauses, printPackageInformation);
+        return getStackTraceString(throwable, "", false, false, packageConfiguration.getFrameMatcher(), 0, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries);
     }
 
     /**
@@ -526,25 +887,214 @@ public abstract class AbstractExceptions {
      * @return a string containing the smart stack trace for the given <code>throwable</code>
      */
     public static String getStackTraceString(final ThrowableWrapper throwable, final String prefix, final boolean isCause, final boolean isSuppressed, final Set<String> rootPackageSet, final Set<String> groupPackageSet, final Set<String> ignorePackageSet, final int maxDepth, final boolean ignoreAllCauses, final boolean printPackageInformation, final boolean printModuleName, final boolean printSuppressedExceptions) {
-        final StringBuilder builder = new StringBuilder();
+        return getStackTraceString(throwable, prefix, isCause, isSuppressed, rootPackageSet, groupPackageSet, ignorePackageSet, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly);
+    }
+
+    /**
+     * <p>Returns the smart stack trace for the given <code>throwable</code> using parameters provided.
+     *
+     * @param throwable                 parent throwable
+     * @param prefix                    prefix to print on each line
+     * @param isCause                   throwable is a cause or not
+     * @param isSuppressed              throwable is a suppressed exception or not
+     * @param rootPackageSet            root packages to use for building the stack trace
+     * @param groupPackageSet           group packages to use for building the stack trace
+     * @param ignorePackageSet          ignore packages to use for building the stack trace
+     * @param maxDepth                  max depth in exception chain that will be used
+     * @param ignoreAllCauses           ignore all causes in the exception chain
+     * @param printPackageInformation   print package information
+     * @param printModuleName           prints module name in log statement
+     * @param printSuppressedExceptions print suppressed exceptions
+     * @param printBoundaryFramesOnly   print only the throw site, root package frames and boundary frames
+     * @return a string containing the smart stack trace for the given <code>throwable</code>
+     */
+    public static String getStackTraceString(final ThrowableWrapper throwable, final String prefix, final boolean isCause, final boolean isSuppressed, final Set<String> rootPackageSet, final Set<String> groupPackageSet, final Set<String> ignorePackageSet, final int maxDepth, final boolean ignoreAllCauses, final boolean printPackageInformation, final boolean printModuleName, final boolean printSuppressedExceptions, final boolean printBoundaryFramesOnly) {
+        return getStackTraceString(throwable, prefix, isCause, isSuppressed, rootPackageSet, groupPackageSet, ignorePackageSet, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries);
+    }
+
+    /**
+     * <p>Returns the smart stack trace for the given <code>throwable</code> using parameters provided.
+     *
+     * @param throwable                 parent throwable
+     * @param prefix                    prefix to print on each line
+     * @param isCause                   throwable is a cause or not
+     * @param isSuppressed              throwable is a suppressed exception or not
+     * @param rootPackageSet            root packages to use for building the stack trace
+     * @param groupPackageSet           group packages to use for building the stack trace
+     * @param ignorePackageSet          ignore packages to use for building the stack trace
+     * @param maxDepth                  max depth in exception chain that will be used
+     * @param ignoreAllCauses           ignore all causes in the exception chain
+     * @param printPackageInformation   print package information
+     * @param printModuleName           prints module name in log statement
+     * @param printSuppressedExceptions print suppressed exceptions
+     * @param printBoundaryFramesOnly   print only the throw site, root package frames and boundary frames
+     * @param groupLibraries            group consecutive elements loaded from the same jar file or module
+     * @return a string containing the smart stack trace for the given <code>throwable</code>
+     */
+    public static String getStackTraceString(final ThrowableWrapper throwable, final String prefix, final boolean isCause, final boolean isSuppressed, final Set<String> rootPackageSet, final Set<String> groupPackageSet, final Set<String> ignorePackageSet, final int maxDepth, final boolean ignoreAllCauses, final boolean printPackageInformation, final boolean printModuleName, final boolean printSuppressedExceptions, final boolean printBoundaryFramesOnly, final boolean groupLibraries) {
+        return getStackTraceString(throwable, prefix, isCause, isSuppressed, getFrameMatcher(rootPackageSet, groupPackageSet, ignorePackageSet), maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries);
+    }
 
+    /**
+     * <p>Returns the frame matcher compiled from the given packages and registered ignore cause packages. Matchers are
+     * cached, calling this method before rendering the first exception precompiles the matcher.
+     *
+     * @param rootPackageSet   root packages to use for building the stack trace
+     * @param groupPackageSet  group packages to use for building the stack trace
+     * @param ignorePackageSet ignore packages to use for building the stack trace
+     * @return compiled frame matcher
+     */
+    public static FrameMatcher getFrameMatcher(final Set<String> rootPackageSet, final Set<String> groupPackageSet, final Set<String> ignorePackageSet) {
+        return FrameMatcher.of(rootPackageSet, groupPackageSet, ignorePackageSet, getIgnoreCausePackages());
+    }
+
+    /**
+     * <p>Returns the smart stack trace for the given <code>throwable</code> using a compiled frame matcher.
+     *
+     * @param throwable                 parent throwable
+     * @param prefix                    prefix to print on each line
+     * @param isCause                   throwable is a cause or not
+     * @param isSuppressed              throwable is a suppressed exception or not
+     * @param frameMatcher              compiled root, group, ignore and ignore cause packages
+     * @param maxDepth                  max depth in exception chain that will be used
+     * @param ignoreAllCauses           ignore all causes in the exception chain
+     * @param printPackageInformation   print package information
+     * @param printModuleName           prints module name in log statement
+     * @param printSuppressedExceptions print suppressed exceptions
+     * @param printBoundaryFramesOnly   print only the throw site, root package frames and boundary frames
+     * @param groupLibraries            group consecutive elements loaded from the same jar file or module
+     * @return a string containing the smart stack trace for the given <code>throwable</code>
+     */
+    public static String getStackTraceString(final ThrowableWrapper throwable, final String prefix, final boolean isCause, final boolean isSuppressed, final FrameMatcher frameMatcher, final int maxDepth, final boolean ignoreAllCauses, final boolean printPackageInformation, final boolean printModuleName, final boolean printSuppressedExceptions, final boolean printBoundaryFramesOnly, final boolean groupLibraries) {
+        return getStackTraceString(RenderEntryPoint.EXCEPTIONS, throwable, prefix, isCause, isSuppressed, frameMatcher, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries);
+    }
+
+    /**
+     * <p>Returns the smart stack trace for the given <code>throwable</code> using a compiled frame matcher. If render
+     * metrics are enabled, statistics of this render are recorded for the given entry point.
+     *
+     * @param entryPoint                method that renders the stack trace
+     * @param throwable                 parent throwable
+     * @param prefix                    prefix to print on each line
+     * @param isCause                   throwable is a cause or not
+     * @param isSuppressed              throwable is a suppressed exception or not
+     * @param frameMatcher              compiled root, group, ignore and ignore cause packages
+     * @param maxDepth                  max depth in exception chain that will be used
+     * @param ignoreAllCauses           ignore all causes in the exception chain
+     * @param printPackageInformation   print package information
+     * @param printModuleName           prints module name in log statement
+     * @param printSuppressedExceptions print suppressed exceptions
+     * @param printBoundaryFramesOnly   print only the throw site, root package frames and boundary frames
+     * @param groupLibraries            group consecutive elements loaded from the same jar file or module
+     * @return a string containing the smart stack trace for the given <code>throwable</code>
+     */
+    public static String getStackTraceString(final RenderEntryPoint entryPoint, final ThrowableWrapper throwable, final String prefix, final boolean isCause, final boolean isSuppressed, final FrameMatcher frameMatcher, final int maxDepth, final boolean ignoreAllCauses, final boolean printPackageInformation, final boolean printModuleName, final boolean printSuppressedExceptions, final boolean printBoundaryFramesOnly, final boolean groupLibraries) {
         if (throwable == null) {
             return "";
         }
 
+        final ExceptionJournal journal = exceptionJournal;
+        if (journal != null && entryPoint != RenderEntryPoint.WARM_UP && entryPoint != RenderEntryPoint.EXCEPTION_RECORDER) {
+            journal.append(throwable);
+        }
+
+        final StringBuilder builder = new StringBuilder(STACK_TRACE_BUILDER_CAPACITY);
+        final RenderMetrics metrics = renderMetrics;
+        final String stackTrace;
+        RenderStatistics statistics = null;
+        if (metrics == null) {
+            appendStackTrace(builder, throwable, prefix, isCause, isSuppressed, frameMatcher, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries, null);
+            stackTrace = builder.toString();
+        } else {
+            statistics = new RenderStatistics(entryPoint, throwable, frameMatcher);
+            final long start = System.nanoTime();
+            appendStackTrace(builder, throwable, prefix, isCause, isSuppressed, frameMatcher, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries, statistics);
+            stackTrace = builder.toString();
+            statistics.nanos = System.nanoTime() - start;
+            statistics.length = stackTrace.length();
+            metrics.record(statistics);
+        }
+
+        final ExceptionAggregator aggregator = exceptionAggregator;
+        final ExceptionRateTracker rateTracker = exceptionRateTracker;
+        if ((aggregator != null || rateTracker != null) && entryPoint != RenderEntryPoint.WARM_UP && entryPoint != RenderEntryPoint.EXCEPTION_RECORDER) {
+            final ExceptionClusterer clusterer = exceptionClusterer;
+            final long fingerprint;
+            if (clusterer != null) {
+                fingerprint = clusterer.assign(throwable, frameMatcher).getId();
+            } else if (statistics != null) {
+                fingerprint = statistics.getFingerprint();
+            } else {
+                fingerprint = ThrowableFingerprint.of(throwable, frameMatcher);
+            }
+            if (aggregator != null) {
+                aggregator.record(fingerprint, throwable, frameMatcher, stackTrace);
+            }
+            if (rateTracker != null) {
+                rateTracker.record(fingerprint, throwable.getClassName());
+            }
+        }
+
+        return stackTrace;
+    }
+
+    /**
+     * <p>Appends the smart stack trace for the given <code>throwable</code>. Causes and suppressed exceptions are
+     * appended to the same builder.
+     *
+     * @param builder                   string builder that the stack trace will be appended
+     * @param throwable                 parent throwable
+     * @param prefix                    prefix to print on each line
+     * @param isCause                   throwable is a cause or not
+     * @param isSuppressed              throwable is a suppressed exception or not
+     * @param frameMatcher              compiled root, group, ignore and ignore cause packages
+     * @param maxDepth                  max depth in exception chain that will be used
+     * @param ignoreAllCauses           ignore all causes in the exception chain
+     * @param printPackageInformation   print package information
+     * @param printModuleName           prints module name in log statement
+     * @param printSuppressedExceptions print suppressed exceptions
+     * @param printBoundaryFramesOnly   print only the throw site, root package frames and boundary frames
+     * @param groupLibraries            group consecutive elements loaded from the same jar file or module
+     * @param statistics                statistics of the current render or null if render metrics are disabled
+     */
+    static void appendStackTrace(final StringBuilder builder, final ThrowableWrapper throwable, final String prefix, final boolean isCause, final boolean isSuppressed, final FrameMatcher frameMatcher, final int maxDepth, final boolean ignoreAllCauses, final boolean printPackageInformation, final boolean printModuleName, final boolean printSuppressedExceptions, final boolean printBoundaryFramesOnly, final boolean groupLibraries, final RenderStatistics statistics) {
+        if (throwable == null) {
+            return;
+        }
+
         final String className = throwable.getClassName();
 
-        final StackTraceElement[] stackTraceElements;
+        StackTraceElement[] stackTraceElements;
+        int[] frameClasses;
         if (maxDepth > 0) {
             stackTraceElements = getStackTrace(throwable, maxDepth);
+            frameClasses = frameMatcher.classify(stackTraceElements);
+            if (statistics != null) {
+                statistics.framesScanned += stackTraceElements.length;
+            }
         } else {
-            stackTraceElements = getStackTrace(throwable, rootPackageSet, ignorePackageSet);
+            stackTraceElements = toStackTraceElements(throwable);
+            frameClasses = frameMatcher.classify(stackTraceElements);
+            if (statistics != null) {
+                statistics.framesScanned += stackTraceElements.length;
+            }
+            final int[] indexes = selectStackTraceElements(stackTraceElements, frameClasses);
+            stackTraceElements = copyStackTraceElements(stackTraceElements, indexes);
+            frameClasses = copyFrameClasses(frameClasses, indexes);
         }
         String message = throwable.getMessage();
         if (isEmpty(message)) {
             message = throwable.getMessage();
         }
 
+        if (statistics != null) {
+            if (isCause) {
+                statistics.causesVisited++;
+            } else if (isSuppressed) {
+                statistics.suppressedVisited++;
+            }
+        }
+
         /* PRINT MESSAGE */
         if (isCause) {
             builder.append(System.lineSeparator());
@@ -562,29 +1112,75 @@ public abstract class AbstractExceptions {
         }
 
         /* PRINT SHORT STACK TRACE */
+        if (printBoundaryFramesOnly) {
+            appendBoundaryStackTraceElements(builder, stackTraceElements, frameClasses, frameMatcher, printModuleName, printPackageInformation, prefix, statistics);
+        } else {
+            appendGroupedStackTraceElements(builder, stackTraceElements, frameClasses, frameMatcher, groupLibraries, printModuleName, printPackageInformation, prefix, statistics);
+        }
+
+        final ThrowableWrapper[] suppressed = throwable.getSuppressed();
+        if (suppressed != null && suppressed.length > 0 && printSuppressedExceptions) {
+            for (ThrowableWrapper suppressedThrowableWrapper : suppressed) {
+                appendStackTrace(builder, suppressedThrowableWrapper, prefix + "\t", false, true, frameMatcher, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries, statistics);
+            }
+        }
+
+        final ThrowableWrapper cause = throwable.getCause();
+        if (cause != null && !FrameMatcher.hasFlag(frameMatcher.match(className), FrameMatcher.IGNORE_CAUSE) && !ignoreAllCauses) {
+            appendStackTrace(builder, cause, prefix, true, false, frameMatcher, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries, statistics);
+        }
+    }
+
+    /**
+     * <p>Appends the given stack trace elements, grouping consecutive elements from the same group package. If
+     * <code>groupLibraries</code> is enabled, consecutive elements loaded from the same jar file or module are grouped
+     * too.
+     *
+     * @param builder                 string builder that stack trace elements will be appended
+     * @param stackTraceElements      stack trace elements to append
+     * @param frameClasses            classification of stack trace elements
+     * @param frameMatcher            matcher used to classify stack trace elements
+     * @param groupLibraries          group consecutive elements loaded from the same jar file or module
+     * @param printModuleName         prints module name in log statement
+     * @param printPackageInformation print package information
+     * @param prefix                  prefix to print on each line
+     * @param statistics              statistics of the current render or null if render metrics are disabled
+     */
+    static void appendGroupedStackTraceElements(final StringBuilder builder, final StackTraceElement[] stackTraceElements, final int[] frameClasses, final FrameMatcher frameMatcher, final boolean groupLibraries, final boolean printModuleName, final boolean printPackageInformation, final String prefix, final RenderStatistics statistics) {
         String currentGroupPackage = null;
+        boolean currentGroupIsLibrary = false;
         StackTraceElement firstStackTraceElementInTheGroup = null;
         int currentGroupCount = 0;
-        for (StackTraceElement traceElement : stackTraceElements) {
-            String traceElementClassName = traceElement.getClassName();
-            String groupPackageMatch = getContainingPackage(traceElementClassName, groupPackageSet);
+        for (int i = 0; i < stackTraceElements.length; i++) {
+            final StackTraceElement traceElement = stackTraceElements[i];
+            final int match = frameClasses[i];
+            String groupPackageMatch = frameMatcher.getGroupPackage(match);
+            boolean groupIsLibrary = false;
+            if (groupPackageMatch == null && groupLibraries && !FrameMatcher.hasFlag(match, FrameMatcher.ROOT)) {
+                groupPackageMatch = getLibraryGroup(traceElement, statistics);
+                groupIsLibrary = (groupPackageMatch != null);
+            }
 
             if (groupPackageMatch != null) {
                 if (!groupPackageMatch.equals(currentGroupPackage)) {
-                    appendStackTraceGroupElement(builder, currentGroupPackage, currentGroupCount, firstStackTraceElementInTheGroup, printModuleName, printPackageInformation, prefix);
+                    appendGroupElement(builder, currentGroupPackage, currentGroupIsLibrary, currentGroupCount, firstStackTraceElementInTheGroup, printModuleName, printPackageInformation, prefix);
 
                     builder.append(System.lineSeparator());
                     builder.append(prefix);
                     builder.append("\tat ");
+                    if (statistics != null) {
+                        statistics.framesEmitted++;
+                    }
 
                     currentGroupPackage = groupPackageMatch;
+                    currentGroupIsLibrary = groupIsLibrary;
                     firstStackTraceElementInTheGroup = traceElement;
                     currentGroupCount = 1;
                 } else {
                     currentGroupCount++;
                 }
             } else {
-                currentGroupCount = appendStackTraceGroupElement(builder, currentGroupPackage, currentGroupCount, firstStackTraceElementInTheGroup, printModuleName, printPackageInformation, prefix);
+                currentGroupCount = appendGroupElement(builder, currentGroupPackage, currentGroupIsLibrary, currentGroupCount, firstStackTraceElementInTheGroup, printModuleName, printPackageInformation, prefix);
 
                 builder.append(System.lineSeparator());
                 builder.append(prefix);
@@ -593,27 +1189,181 @@ public abstract class AbstractExceptions {
                     throw new IllegalArgumentException("Stack trace element serializer not initialized.");
                 } else {
                     builder.append(prefix);
-                    builder.append(stackTraceElementSerializer.toString(traceElement, printModuleName, printPackageInformation));
+                    appendStackTraceElement(builder, traceElement, printModuleName, printPackageInformation);
+                    if (statistics != null) {
+                        statistics.framesEmitted++;
+                    }
                 }
                 currentGroupPackage = null;
             }
         }
 
-        appendStackTraceGroupElement(builder, currentGroupPackage, currentGroupCount, firstStackTraceElementInTheGroup, printModuleName, printPackageInformation, prefix);
+        appendGroupElement(builder, currentGroupPackage, currentGroupIsLibrary, currentGroupCount, firstStackTraceElementInTheGroup, printModuleName, printPackageInformation, prefix);
+    }
 
-        final ThrowableWrapper[] suppressed = throwable.getSuppressed();
-        if (suppressed != null && suppressed.length > 0 && printSuppressedExceptions) {
-            for (ThrowableWrapper suppressedThrowableWrapper : suppressed) {
-                builder.append(getStackTraceString(suppressedThrowableWrapper, prefix + "\t", false, true, rootPackageSet, groupPackageSet, ignorePackageSet, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions));
+    /**
+     * <p>Appends a package group or a library group for the given parameters.
+     *
+     * @param stringBuilder                     string builder that group stack trace information will be appended
+     * @param currentGroup                      package name or library label of the current group
+     * @param isLibraryGroup                    whether the current group is a library group or a package group
+     * @param numberOfElementsInTheCurrentGroup number of elements in the current group
+     * @param firstStackTraceElementInTheGroup  first stack trace element of this group
+     * @param printModuleName                   prints module name in log statement
+     * @param printPackageInformation           print package information
+     * @param prefix                            prefix to print on each line
+     * @return new value for the group element count
+     */
+    static int appendGroupElement(final StringBuilder stringBuilder, final String currentGroup, final boolean isLibraryGroup, final int numberOfElementsInTheCurrentGroup, final StackTraceElement firstStackTraceElementInTheGroup, final boolean printModuleName, final boolean printPackageInformation, final String prefix) {
+        if (isLibraryGroup && numberOfElementsInTheCurrentGroup > 1) {
+            stringBuilder.append(prefix);
+            stringBuilder.append(currentGroup);
+            stringBuilder.append(" ... ");
+            stringBuilder.append(numberOfElementsInTheCurrentGroup - 1);
+            stringBuilder.append(" more");
+            return 0;
+        }
+
+        return appendStackTraceGroupElement(stringBuilder, currentGroup, numberOfElementsInTheCurrentGroup, firstStackTraceElementInTheGroup, printModuleName, printPackageInformation, prefix);
+    }
+
+    /**
+     * <p>Returns the library group label of the given stack trace element. Label includes the name of the jar file
+     * that includes the class or the name of the module if the jar file cannot be found.
+     *
+     * @param stackTraceElement stack trace element
+     * @param statistics        statistics of the current render or null if render metrics are disabled
+     * @return library group label in <code>[library]</code> format or null if neither the jar file nor the module of
+     * the class can be found
+     */
+    static String getLibraryGroup(final StackTraceElement stackTraceElement, final RenderStatistics statistics) {
+        String library = libraryName(stackTraceElement.getClassName(), statistics);
+        if (library == null && stackTraceElementSerializer != null) {
+            final String moduleName = stackTraceElementSerializer.getModuleName(stackTraceElement);
+            if (!isEmpty(moduleName)) {
+                library = moduleName.endsWith("/") ? moduleName.substring(0, moduleName.length() - 1) : moduleName;
             }
         }
 
-        final ThrowableWrapper cause = throwable.getCause();
-        if (cause != null && !containsPackage(className, ignoreCausePackageSet) && !ignoreAllCauses) {
-            builder.append(getStackTraceString(cause, prefix, true, false, rootPackageSet, groupPackageSet, ignorePackageSet, maxDepth, ignoreAllCauses, printPackageInformation, printModuleName, printSuppressedExceptions));
+        return (library == null) ? null : "[" + library + "]";
+    }
+
+    /**
+     * <p>Appends only the boundary frames of the given stack trace elements.
+     *
+     * <p>A frame is printed if it is the throw site or the outermost frame, if it belongs to a root package or if the
+     * frame before or after it belongs to a different package group, library or module. Consecutive frames that are
+     * not printed are collapsed into a single <code>... n more</code> line.
+     *
+     * @param builder                 string builder that stack trace elements will be appended
+     * @param stackTraceElements      stack trace elements to append
+     * @param frameClasses            classification of stack trace elements
+     * @param frameMatcher            matcher used to classify stack trace elements
+     * @param printModuleName         prints module name in log statement
+     * @param printPackageInformation print package information
+     * @param prefix                  prefix to print on each line
+     * @param statistics              statistics of the current render or null if render metrics are disabled
+     */
+    static void appendBoundaryStackTraceElements(final StringBuilder builder, final StackTraceElement[] stackTraceElements, final int[] frameClasses, final FrameMatcher frameMatcher, final boolean printModuleName, final boolean printPackageInformation, final String prefix, final RenderStatistics statistics) {
+        if (stackTraceElementSerializer == null) {
+            throw new IllegalArgumentException("Stack trace element serializer not initialized.");
+        }
+
+        markBoundaryFrames(stackTraceElements, frameClasses, frameMatcher, statistics);
+
+        int omittedCount = 0;
+        for (int i = 0; i < stackTraceElements.length; i++) {
+            if (FrameMatcher.hasFlag(frameClasses[i], FrameMatcher.BOUNDARY)) {
+                appendOmittedStackTraceElements(builder, omittedCount, prefix);
+                omittedCount = 0;
+
+                builder.append(System.lineSeparator());
+                builder.append(prefix);
+                builder.append("\tat ");
+                builder.append(prefix);
+                appendStackTraceElement(builder, stackTraceElements[i], printModuleName, printPackageInformation);
+                if (statistics != null) {
+                    statistics.framesEmitted++;
+                }
+            } else {
+                omittedCount++;
+            }
         }
 
-        return builder.toString();
+        appendOmittedStackTraceElements(builder, omittedCount, prefix);
+    }
+
+    /**
+     * <p>Sets {@link FrameMatcher#BOUNDARY} flag of the frames that are the throw site, belong to a root package or
+     * have a neighbour from a different package group, library or module.
+     *
+     * @param stackTraceElements stack trace elements
+     * @param frameClasses       classification of stack trace elements, updated in place
+     * @param frameMatcher       matcher used to classify stack trace elements
+     * @param statistics         statistics of the current render or null if render metrics are disabled
+     */
+    static void markBoundaryFrames(final StackTraceElement[] stackTraceElements, final int[] frameClasses, final FrameMatcher frameMatcher, final RenderStatistics statistics) {
+        String previousBoundary = null;
+        String currentBoundary = (stackTraceElements.length > 0) ? getBoundary(stackTraceElements[0], frameClasses[0], frameMatcher, statistics) : null;
+        for (int i = 0; i < stackTraceElements.length; i++) {
+            final String nextBoundary = (i + 1 < stackTraceElements.length) ? getBoundary(stackTraceElements[i + 1], frameClasses[i + 1], frameMatcher, statistics) : null;
+
+            if (i == 0 || !currentBoundary.equals(previousBoundary) || !currentBoundary.equals(nextBoundary) || FrameMatcher.hasFlag(frameClasses[i], FrameMatcher.ROOT)) {
+                frameClasses[i] |= FrameMatcher.BOUNDARY;
+            }
+
+            previousBoundary = currentBoundary;
+            currentBoundary = nextBoundary;
+        }
+    }
+
+    /**
+     * <p>Appends a line showing how many stack trace elements are omitted.
+     *
+     * @param builder      string builder that the line will be appended
+     * @param omittedCount number of omitted stack trace elements
+     * @param prefix       prefix to print on each line
+     */
+    static void appendOmittedStackTraceElements(final StringBuilder builder, final int omittedCount, final String prefix) {
+        if (omittedCount > 0) {
+            builder.append(System.lineSeparator());
+            builder.append(prefix);
+            builder.append("\t... ");
+            builder.append(omittedCount);
+            builder.append(" more");
+        }
+    }
+
+    /**
+     * <p>Returns the boundary that the given stack trace element belongs to. A boundary is the matching group
+     * package if there is one, otherwise the library or the module of the class. If none of them can be found the
+     * package of the class is used.
+     *
+     * @param stackTraceElement stack trace element
+     * @param frameClass        classification of the stack trace element
+     * @param frameMatcher      matcher used to classify the stack trace element
+     * @param statistics        statistics of the current render or null if render metrics are disabled
+     * @return boundary of the given stack trace element
+     */
+    static String getBoundary(final StackTraceElement stackTraceElement, final int frameClass, final FrameMatcher frameMatcher, final RenderStatistics statistics) {
+        final String className = stackTraceElement.getClassName();
+
+        final String groupPackage = frameMatcher.getGroupPackage(frameClass);
+        if (groupPackage != null) {
+            return groupPackage;
+        }
+
+        final String libraryName = libraryName(className, statistics);
+        if (libraryName != null) {
+            return libraryName;
+        }
+
+        final String moduleName = stackTraceElementSerializer.getModuleName(stackTraceElement);
+        if (!isEmpty(moduleName)) {
+            return moduleName;
+        }
+
+        return packageName(className);
     }
 
     /**
@@ -635,9 +1385,13 @@ public abstract class AbstractExceptions {
             } else {
                 stringBuilder.append(prefix);
                 if (numberOfElementsInTheCurrentGroup == 1) {
-                    stringBuilder.append(stackTraceElementSerializer.toString(firstStackTraceElementInTheGroup, printModuleName, printPackageInformation));
+                    appendStackTraceElement(stringBuilder, firstStackTraceElementInTheGroup, printModuleName, printPackageInformation);
                 } else {
-                    stringBuilder.append(String.format("%s%s ... %d more", stackTraceElementSerializer.getModuleName(firstStackTraceElementInTheGroup), currentGroupPackage, (numberOfElementsInTheCurrentGroup - 1)));
+                    stringBuilder.append(stackTraceElementSerializer.getModuleName(firstStackTraceElementInTheGroup));
+                    stringBuilder.append(currentGroupPackage);
+                    stringBuilder.append(" ... ");
+                    stringBuilder.append(numberOfElementsInTheCurrentGroup - 1);
+                    stringBuilder.append(" more");
                     if (printPackageInformation) {
                         stringBuilder.append(stackTraceElementSerializer.getPackageInformation(firstStackTraceElementInTheGroup));
                     }
@@ -648,6 +1402,24 @@ public abstract class AbstractExceptions {
         return 0;
     }
 
+    /**
+     * <p>Appends the given stack trace element using the global stack trace serializer. Serializers implementing
+     * {@link AppendingStackTraceElementSerializer} append to the builder directly.
+     *
+     * @param stringBuilder           string builder that the stack trace element will be appended
+     * @param stackTraceElement       stack trace element to append
+     * @param printModuleName         prints module name in log statement
+     * @param printPackageInformation print package information
+     */
+    static void appendStackTraceElement(final StringBuilder stringBuilder, final StackTraceElement stackTraceElement, final boolean printModuleName, final boolean printPackageInformation) {
+        final StackTraceElementSerializer serializer = stackTraceElementSerializer;
+        if (serializer instanceof AppendingStackTraceElementSerializer) {
+            ((AppendingStackTraceElementSerializer) serializer).append(stringBuilder, stackTraceElement, printModuleName, printPackageInformation);
+        } else {
+            stringBuilder.append(serializer.toString(stackTraceElement, printModuleName, printPackageInformation));
+        }
+    }
+
     /**
      * <p>Returns true if package of the given class name matches one of package names provided in
      * <code>packageSet</code>.
@@ -743,28 +1515,93 @@ public abstract class AbstractExceptions {
      * @return an array containing stack trace elements
      */
     public static StackTraceElement[] getStackTrace(final ThrowableWrapper throwable, final Set<String> rootPackageSet, final Set<String> ignorePackageSet) {
-        final ArrayList<StackTraceElement> list = new ArrayList<StackTraceElement>();
-        final ArrayList<StackTraceElement> partialList = new ArrayList<StackTraceElement>();
+        return getStackTrace(throwable, FrameMatcher.of(rootPackageSet, Collections.<String>emptySet(), ignorePackageSet, Collections.<String>emptySet()));
+    }
 
-        if (throwable != null) {
-            for (StackTraceElementWrapper stackTraceElement : throwable.getStackTrace()) {
-                final String className = stackTraceElement.getStackTraceElement().getClassName();
-                if (!isEmpty(className)) {
-                    if (containsPackage(className, rootPackageSet)) {
-                        list.addAll(partialList);
-                        list.add(stackTraceElement.getStackTraceElement());
-                    } else if (!containsPackage(className, ignorePackageSet)) {
-                        partialList.add(stackTraceElement.getStackTraceElement());
-                    }
+    /**
+     * <p>Builds a smart stack trace for the given <code>throwable</code> using a compiled frame matcher and returns
+     * elements of it.
+     *
+     * @param throwable    parent throwable
+     * @param frameMatcher compiled root and ignore packages
+     * @return an array containing stack trace elements
+     */
+    public static StackTraceElement[] getStackTrace(final ThrowableWrapper throwable, final FrameMatcher frameMatcher) {
+        final StackTraceElement[] stackTraceElements = toStackTraceElements(throwable);
+        return copyStackTraceElements(stackTraceElements, selectStackTraceElements(stackTraceElements, frameMatcher.classify(stackTraceElements)));
+    }
+
+    /**
+     * <p>Returns stack trace elements of the given <code>throwable</code>.
+     *
+     * @param throwable throwable
+     * @return stack trace elements or an empty array if <code>throwable</code> is null
+     */
+    static StackTraceElement[] toStackTraceElements(final ThrowableWrapper throwable) {
+        if (throwable == null) {
+            return new StackTraceElement[0];
+        }
+
+        final StackTraceElementWrapper[] stackTrace = throwable.getStackTrace();
+        final StackTraceElement[] stackTraceElements = new StackTraceElement[stackTrace.length];
+        for (int i = 0; i < stackTrace.length; i++) {
+            stackTraceElements[i] = stackTrace[i].getStackTraceElement();
+        }
+        return stackTraceElements;
+    }
+
+    /**
+     * <p>Selects stack trace elements using root and ignore flags of their classification. Elements before the last
+     * root package element are kept, ignored elements and elements without a class name are dropped. If there are no
+     * root package elements, all elements that are not ignored are kept.
+     *
+     * @param stackTraceElements stack trace elements
+     * @param frameClasses       classification of stack trace elements
+     * @return indexes of selected stack trace elements
+     */
+    static int[] selectStackTraceElements(final StackTraceElement[] stackTraceElements, final int[] frameClasses) {
+        int[] list = new int[frameClasses.length];
+        int listSize = 0;
+        final int[] partialList = new int[frameClasses.length];
+        int partialListSize = 0;
+
+        for (int i = 0; i < frameClasses.length; i++) {
+            if (isEmpty(stackTraceElements[i].getClassName())) {
+                continue;
+            }
+            if (FrameMatcher.hasFlag(frameClasses[i], FrameMatcher.ROOT)) {
+                if (listSize + partialListSize + 1 > list.length) {
+                    list = Arrays.copyOf(list, Math.max(list.length * 2, listSize + partialListSize + 1));
                 }
+                System.arraycopy(partialList, 0, list, listSize, partialListSize);
+                listSize += partialListSize;
+                list[listSize++] = i;
+            } else if (!FrameMatcher.hasFlag(frameClasses[i], FrameMatcher.IGNORE)) {
+                partialList[partialListSize++] = i;
             }
         }
 
-        if (list.isEmpty()) {
-            list.addAll(partialList);
+        if (listSize == 0) {
+            return Arrays.copyOf(partialList, partialListSize);
         }
 
-        return list.toArray(new StackTraceElement[0]);
+        return Arrays.copyOf(list, listSize);
+    }
+
+    private static StackTraceElement[] copyStackTraceElements(final StackTraceElement[] stackTraceElements, final int[] indexes) {
+        final StackTraceElement[] selectedElements = new StackTraceElement[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            selectedElements[i] = stackTraceElements[indexes[i]];
+        }
+        return selectedElements;
+    }
+
+    private static int[] copyFrameClasses(final int[] frameClasses, final int[] indexes) {
+        final int[] selectedClasses = new int[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            selectedClasses[i] = frameClasses[indexes[i]];
+        }
+        return selectedClasses;
     }
 
     /**
@@ -1003,6 +1840,57 @@ public abstract class AbstractExceptions {
         return null;
     }
 
+    /**
+     * Returns the jar file that includes the class with the given name. Results are cached per class name.
+     *
+     * @param className fully qualified class name
+     * @return name of the jar file that includes the class or null if the class cannot be loaded or jar file
+     * information cannot be found
+     */
+    public static String libraryName(final String className) {
+        return libraryName(className, null);
+    }
+
+    /**
+     * Returns the jar file that includes the class with the given name and counts library name cache hits and misses
+     * in the given render statistics.
+     *
+     * @param className  fully qualified class name
+     * @param statistics statistics of the current render or null if render metrics are disabled
+     * @return name of the jar file that includes the class or null if the class cannot be loaded or jar file
+     * information cannot be found
+     */
+    static String libraryName(final String className, final RenderStatistics statistics) {
+        if (className == null) {
+            return null;
+        }
+
+        String libraryName = libraryNameCache.get(className);
+        if (statistics != null) {
+            if (libraryName == null) {
+                statistics.libraryNameCacheMisses++;
+            } else {
+                statistics.libraryNameCacheHits++;
+            }
+        }
+        if (libraryName == null) {
+            libraryNameCacheMisses.incrementAndGet();
+            final Class<?> loadedClass = (classLoader == null) ? null : classLoader.loadClass(className);
+            libraryName = (loadedClass == null) ? null : libraryName(loadedClass);
+            if (libraryName == null) {
+                libraryName = "";
+            }
+
+            if (libraryNameCache.size() >= LIBRARY_NAME_CACHE_SIZE) {
+                libraryNameCacheEvictions.addAndGet(libraryNameCache.size());
+                libraryNameCache.clear();
+            }
+            libraryNameCache.put(className, libraryName);
+        }
+
+        return libraryName.isEmpty() ? null : libraryName;
+    }
+
     /**
      * Returns the jar file that includes the given class.
      *
@@ -0,0 +1,123 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Reads values written by {@link BinaryOutput} from a byte buffer.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+final class BinaryInput {
+
+    private final ByteBuffer buffer;
+
+    BinaryInput(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    int readByte() {
+        return buffer.get() & 0xff;
+    }
+
+    long readLong() {
+        return buffer.getLong();
+    }
+
+    /**
+     * <p>Reads a non-negative integer. Values above <code>Integer.MAX_VALUE</code> are rejected, so counts, lengths
+     * and references read are never negative.
+     */
+    int readVarint() {
+        final long value = readVarlong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Invalid variable length integer.");
+        }
+        return (int) value;
+    }
+
+    long readVarlong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int current = buffer.get();
+            value |= (long) (current & 0x7f) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Invalid variable length integer.");
+    }
+
+    int readSignedVarint() {
+        final long value = readVarlong();
+        if ((value >>> 32) != 0) {
+            throw new IllegalStateException("Invalid variable length integer.");
+        }
+        final int zigzag = (int) value;
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    String readString() {
+        final int length = readVarint();
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > buffer.remaining()) {
+            throw new IllegalStateException("Invalid string length.");
+        }
+
+        final char[] characters = new char[length - 1];
+        for (int i = 0; i < characters.length; i++) {
+            int character = 0;
+            for (int shift = 0; ; shift += 7) {
+                final int current = buffer.get();
+                character |= (current & 0x7f) << shift;
+                if ((current & 0x80) == 0) {
+                    break;
+                }
+                if (shift >= 14) {
+                    throw new IllegalStateException("Invalid string character.");
+                }
+            }
+            characters[i] = (char) character;
+        }
+        return new String(characters);
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Compact copy of a throwable created by {@link FrameDictionary}. Stack trace elements are stored as an
+ * <code>int[]</code> of frame ids and class names and messages are interned, so traces of the same code path share
+ * everything except their id arrays. Compact traces are immutable.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class CompactTrace {
+
+    private final FrameDictionary.Generation generation;
+
+    private final String className;
+
+    private final String message;
+
+    private final int[] frameIds;
+
+    private final CompactTrace cause;
+
+    private final CompactTrace[] suppressed;
+
+    CompactTrace(final FrameDictionary.Generation generation, final String className, final String message, final int[] frameIds, final CompactTrace cause, final CompactTrace[] suppressed) {
+        this.generation = generation;
+        this.className = className;
+        this.message = message;
+        this.frameIds = frameIds;
+        this.cause = cause;
+        this.suppressed = suppressed;
+    }
+
+    /**
+     * <p>Returns the class name of the throwable.
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * <p>Returns the message of the throwable.
+     *
+     * @return message or null if the throwable has no message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * <p>Returns the number of stack trace elements of the throwable.
+     *
+     * @return number of frames
+     */
+    public int getFrameCount() {
+        return frameIds.length;
+    }
+
+    /**
+     * <p>Returns the stack trace element at the given index.
+     *
+     * @param index index of the frame, zero for the top frame
+     * @return stack trace element
+     */
+    public StackTraceElement getFrame(final int index) {
+        return generation.getFrame(frameIds[index]);
+    }
+
+    /**
+     * <p>Returns the compact cause of the throwable.
+     *
+     * @return cause or null if the throwable has no cause
+     */
+    public CompactTrace getCause() {
+        return cause;
+    }
+
+    /**
+     * <p>Returns the compact suppressed exceptions of the throwable.
+     *
+     * @return suppressed exceptions
+     */
+    public CompactTrace[] getSuppressed() {
+        return suppressed.clone();
+    }
+
+    /**
+     * <p>Creates a throwable wrapper of this trace, which can be rendered like the original throwable.
+     *
+     * @return throwable wrapper
+     */
+    public ThrowableWrapper toThrowableWrapper() {
+        final StackTraceElementWrapper[] stackTrace = new StackTraceElementWrapper[frameIds.length];
+        for (int i = 0; i < frameIds.length; i++) {
+            stackTrace[i] = new StackTraceElementWrapper(generation.getFrame(frameIds[i]));
+        }
+
+        final ThrowableWrapper[] suppressedThrowables = new ThrowableWrapper[suppressed.length];
+        for (int i = 0; i < suppressed.length; i++) {
+            suppressedThrowables[i] = suppressed[i].toThrowableWrapper();
+        }
+
+        return new ThrowableWrapper(message, (cause == null) ? null : cause.toThrowableWrapper(), className, suppressedThrowables, stackTrace);
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Adler32;
+
+/**
+ * <p>Preset dictionary used by {@link DeflateCodec}. It contains frames, class names and package names that appear
+ * frequently in stack traces, so that even a single short record can refer to them instead of repeating them.
+ *
+ * <p>Dictionaries are trained from a corpus of exceptions using {@link #train(Collection, int)}. Each frame is
+ * counted in the form it takes in a rendered stack trace, <code>at class.method(file:</code>, which also contains its
+ * class, method and package names as they appear in binary records. Frequent frames are kept, most valuable ones last,
+ * because Deflate encodes closer matches with fewer bits. The id of a dictionary is the Adler-32 checksum of its
+ * bytes, the same value zlib streams record when they are compressed with a preset dictionary, so compressed data
+ * always identifies the dictionary version it needs.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class CompressionDictionary {
+
+    /**
+     * Max size of a dictionary. Deflate can not refer to data further than 32 KiB back.
+     */
+    public static final int MAX_SIZE = 32768;
+
+    /**
+     * Default size of a trained dictionary.
+     */
+    public static final int DEFAULT_SIZE = 16384;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte[] bytes;
+
+    private final int id;
+
+    private CompressionDictionary(final byte[] bytes) {
+        this.bytes = bytes;
+
+        final Adler32 adler32 = new Adler32();
+        adler32.update(bytes, 0, bytes.length);
+        this.id = (int) adler32.getValue();
+    }
+
+    /**
+     * <p>Creates a dictionary from bytes of a dictionary that was trained before.
+     *
+     * @param bytes dictionary bytes, as returned by {@link #getBytes()}
+     * @return dictionary
+     * @throws IllegalArgumentException if bytes are empty or longer than {@link #MAX_SIZE}
+     */
+    public static CompressionDictionary of(final byte[] bytes) {
+        if (bytes.length == 0 || bytes.length > MAX_SIZE) {
+            throw new IllegalArgumentException("Dictionary size must be between 1 and " + MAX_SIZE + ": " + bytes.length);
+        }
+        return new CompressionDictionary(bytes.clone());
+    }
+
+    /**
+     * <p>Trains a dictionary from the frames and class names of the given exceptions, their causes and their
+     * suppressed exceptions.
+     *
+     * @param corpus  exceptions
+     * @param maxSize max size of the dictionary in bytes
+     * @return dictionary
+     * @throws IllegalArgumentException if max size is not between 1 and {@link #MAX_SIZE} or corpus has no frames
+     */
+    public static CompressionDictionary train(final Collection<ThrowableWrapper> corpus, final int maxSize) {
+        if (maxSize < 1 || maxSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Dictionary size must be between 1 and " + MAX_SIZE + ": " + maxSize);
+        }
+
+        final Map<String, int[]> countMap = new HashMap<String, int[]>();
+        for (ThrowableWrapper throwable : corpus) {
+            count(countMap, throwable, 0);
+        }
+        if (countMap.isEmpty()) {
+            throw new IllegalArgumentException("Corpus does not have any frames.");
+        }
+
+        // a token saves about its length every time it occurs
+        final List<Map.Entry<String, int[]>> entryList = new ArrayList<Map.Entry<String, int[]>>(countMap.entrySet());
+        Collections.sort(entryList, new Comparator<Map.Entry<String, int[]>>() {
+
+            @Override
+            public int compare(final Map.Entry<String, int[]> entry1, final Map.Entry<String, int[]> entry2) {
+                final long score1 = (long) entry1.getValue()[0] * entry1.getKey().length();
+                final long score2 = (long) entry2.getValue()[0] * entry2.getKey().length();
+                if (score1 != score2) {
+                    return (score1 > score2) ? -1 : 1;
+                }
+                return entry1.getKey().compareTo(entry2.getKey());
+            }
+        });
+
+        final List<byte[]> selectedList = new ArrayList<byte[]>();
+        final StringBuilder selected = new StringBuilder();
+        int size = 0;
+        for (Map.Entry<String, int[]> entry : entryList) {
+            final String token = entry.getKey();
+            final byte[] tokenBytes = token.getBytes(UTF_8);
+            if (size + tokenBytes.length > maxSize || selected.indexOf(token) >= 0) {
+                continue;
+            }
+            selectedList.add(tokenBytes);
+            selected.append(token);
+            size += tokenBytes.length;
+        }
+
+        // most valuable tokens are written last, closest to the compressed data
+        final byte[] bytes = new byte[size];
+        int position = size;
+        for (byte[] tokenBytes : selectedList) {
+            position -= tokenBytes.length;
+            System.arraycopy(tokenBytes, 0, bytes, position, tokenBytes.length);
+        }
+        return new CompressionDictionary(bytes);
+    }
+
+    /**
+     * <p>Returns the id of this dictionary, the Adler-32 checksum of its bytes.
+     *
+     * @return dictionary id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * <p>Returns the bytes of this dictionary, which can be stored and loaded using {@link #of(byte[])}.
+     *
+     * @return dictionary bytes
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * <p>Returns the size of this dictionary.
+     *
+     * @return size in bytes
+     */
+    public int getSize() {
+        return bytes.length;
+    }
+
+    byte[] getBytesUnsafe() {
+        return bytes;
+    }
+
+    private static void count(final Map<String, int[]> countMap, final ThrowableWrapper throwable, final int depth) {
+        if (throwable == null || depth > ThrowableFingerprint.MAX_CAUSES) {
+            return;
+        }
+
+        count(countMap, throwable.getClassName());
+        final StackTraceElementWrapper[] stackTrace = throwable.getStackTrace();
+        if (stackTrace != null) {
+            for (StackTraceElementWrapper stackTraceElementWrapper : stackTrace) {
+                final StackTraceElement stackTraceElement = stackTraceElementWrapper.getStackTraceElement();
+                final String fileName = stackTraceElement.getFileName();
+                count(countMap, "at " + stackTraceElement.getClassName() + "." + stackTraceElement.getMethodName() + "(" + ((fileName == null) ? "Unknown Source" : fileName + ":"));
+            }
+        }
+
+        final ThrowableWrapper[] suppressed = throwable.getSuppressed();
+        if (suppressed != null) {
+            for (ThrowableWrapper suppressedThrowable : suppressed) {
+                count(countMap, suppressedThrowable, depth + 1);
+            }
+        }
+        count(countMap, throwable.getCause(), depth + 1);
+    }
+
+    private static void count(final Map<String, int[]> countMap, final String token) {
+        if (token == null) {
+            return;
+        }
+
+        final int[] count = countMap.get(token);
+        if (count == null) {
+            countMap.put(token, new int[]{1});
+        } else {
+            count[0]++;
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <p>Compresses rendered stack traces and binary exception records with Deflate, using a preset
+ * {@link CompressionDictionary} trained from stack traces. Small records, which gain almost nothing from plain
+ * compression, shrink considerably because their frames and package names are found in the dictionary.
+ *
+ * <p>Compressed data is the uncompressed length as a variable length integer followed by a zlib stream. The zlib
+ * header records the id of the dictionary used, so data compressed with an older dictionary can still be
+ * decompressed when that dictionary is given as a previous dictionary. <code>Deflater</code> and
+ * <code>Inflater</code> instances are pooled, so compressing does not allocate native memory. A codec can be used by
+ * multiple threads.
+ *
+ * <pre>
+ * CompressionDictionary dictionary = CompressionDictionary.train(corpus, CompressionDictionary.DEFAULT_SIZE);
+ * DeflateCodec codec = new DeflateCodec(dictionary);
+ * byte[] compressed = codec.compress(ThrowableCodec.toByteArray(new ThrowableWrapper(e)));
+ * ThrowableWrapper throwable = ThrowableCodec.decode(ByteBuffer.wrap(codec.decompress(compressed)));
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class DeflateCodec {
+
+    /**
+     * Max number of idle <code>Deflater</code> and <code>Inflater</code> instances kept in each pool.
+     */
+    public static final int MAX_POOL_SIZE = 16;
+
+    /**
+     * Max ratio of uncompressed to compressed length Deflate can produce.
+     */
+    static final int MAX_COMPRESSION_RATIO = 1032;
+
+    private final CompressionDictionary dictionary;
+
+    private final Map<Integer, CompressionDictionary> dictionaryMap;
+
+    private final int level;
+
+    private final Queue<Deflater> deflaterPool;
+
+    private final AtomicInteger deflaterPoolSize;
+
+    private final Queue<Inflater> inflaterPool;
+
+    private final AtomicInteger inflaterPoolSize;
+
+    /**
+     * <p>Creates a codec that compresses with the given dictionary at the fastest compression level.
+     *
+     * @param dictionary          dictionary used to compress and decompress
+     * @param previousDictionaries dictionaries used to decompress data compressed before
+     */
+    public DeflateCodec(final CompressionDictionary dictionary, final CompressionDictionary... previousDictionaries) {
+        this(Deflater.BEST_SPEED, dictionary, previousDictionaries);
+    }
+
+    /**
+     * <p>Creates a codec that compresses with the given dictionary.
+     *
+     * @param level                compression level, from {@link Deflater#BEST_SPEED} to
+     *                             {@link Deflater#BEST_COMPRESSION}
+     * @param dictionary           dictionary used to compress and decompress, null to compress without a dictionary
+     * @param previousDictionaries dictionaries used to decompress data compressed before
+     */
+    public DeflateCodec(final int level, final CompressionDictionary dictionary, final CompressionDictionary... previousDictionaries) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+
+        this.dictionary = dictionary;
+        this.dictionaryMap = new HashMap<Integer, CompressionDictionary>();
+        for (CompressionDictionary previousDictionary : previousDictionaries) {
+            dictionaryMap.put(previousDictionary.getId(), previousDictionary);
+        }
+        if (dictionary != null) {
+            dictionaryMap.put(dictionary.getId(), dictionary);
+        }
+        this.level = level;
+        this.deflaterPool = new ConcurrentLinkedQueue<Deflater>();
+        this.deflaterPoolSize = new AtomicInteger();
+        this.inflaterPool = new ConcurrentLinkedQueue<Inflater>();
+        this.inflaterPoolSize = new AtomicInteger();
+    }
+
+    /**
+     * <p>Returns the dictionary used to compress.
+     *
+     * @return dictionary or null if data is compressed without a dictionary
+     */
+    public CompressionDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * <p>Compresses the given bytes.
+     *
+     * @param bytes bytes to compress
+     * @return compressed bytes
+     */
+    public byte[] compress(final byte[] bytes) {
+        return compress(bytes, 0, bytes.length);
+    }
+
+    /**
+     * <p>Compresses the given range of bytes.
+     *
+     * @param bytes  source array
+     * @param offset start of the range
+     * @param length length of the range
+     * @return compressed bytes
+     */
+    public byte[] compress(final byte[] bytes, final int offset, final int length) {
+        byte[] output = new byte[5 + length / 2 + 64];
+        int size = 0;
+        int value = length;
+        while ((value & ~0x7f) != 0) {
+            output[size++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output[size++] = (byte) value;
+
+        Deflater deflater = deflaterPool.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level);
+        } else {
+            deflaterPoolSize.decrementAndGet();
+        }
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary.getBytesUnsafe());
+            }
+            deflater.setInput(bytes, offset, length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (size == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                size += deflater.deflate(output, size, output.length - size);
+            }
+        } finally {
+            deflater.reset();
+            if (deflaterPoolSize.incrementAndGet() <= MAX_POOL_SIZE) {
+                deflaterPool.offer(deflater);
+            } else {
+                deflaterPoolSize.decrementAndGet();
+                deflater.end();
+            }
+        }
+
+        return Arrays.copyOf(output, size);
+    }
+
+    /**
+     * <p>Compresses the given text, encoded as UTF-8.
+     *
+     * @param text text to compress, for example a rendered stack trace
+     * @return compressed bytes
+     */
+    public byte[] compress(final String text) {
+        return compress(text.getBytes(CompressionDictionary.UTF_8));
+    }
+
+    /**
+     * <p>Decompresses bytes compressed by {@link #compress(byte[])}.
+     *
+     * @param bytes compressed bytes
+     * @return decompressed bytes
+     * @throws IllegalArgumentException if bytes are not valid compressed data or they were compressed with an unknown
+     *                                  dictionary
+     */
+    public byte[] decompress(final byte[] bytes) {
+        long length = 0;
+        int position = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (position == bytes.length || shift > 28) {
+                throw new IllegalArgumentException("Invalid compressed length.");
+            }
+            final int current = bytes[position++] & 0xff;
+            length |= (long) (current & 0x7f) << shift;
+            if ((current & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length > Integer.MAX_VALUE || length > (long) (bytes.length - position) * MAX_COMPRESSION_RATIO) {
+            throw new IllegalArgumentException("Invalid compressed length.");
+        }
+
+        final byte[] output = new byte[(int) length];
+        int size = 0;
+        Inflater inflater = inflaterPool.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        } else {
+            inflaterPoolSize.decrementAndGet();
+        }
+        try {
+            inflater.setInput(bytes, position, bytes.length - position);
+            while (!inflater.finished()) {
+                final int inflated = inflater.inflate(output, size, output.length - size);
+                size += inflated;
+                if (inflater.needsDictionary()) {
+                    final CompressionDictionary compressionDictionary = dictionaryMap.get(inflater.getAdler());
+                    if (compressionDictionary == null) {
+                        throw new IllegalArgumentException(String.format("Unknown compression dictionary %08x.", inflater.getAdler()));
+                    }
+                    inflater.setDictionary(compressionDictionary.getBytesUnsafe());
+                } else if (inflated == 0 && (inflater.needsInput() || size == output.length)) {
+                    break;
+                }
+            }
+            if (!inflater.finished() || size != output.length) {
+                throw new IllegalArgumentException("Invalid compressed data.");
+            }
+        } catch (final DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed data.", e);
+        } finally {
+            inflater.reset();
+            if (inflaterPoolSize.incrementAndGet() <= MAX_POOL_SIZE) {
+                inflaterPool.offer(inflater);
+            } else {
+                inflaterPoolSize.decrementAndGet();
+                inflater.end();
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * <p>Decompresses text compressed by {@link #compress(String)}.
+     *
+     * @param bytes compressed bytes
+     * @return decompressed text
+     * @throws IllegalArgumentException if bytes are not valid compressed data or they were compressed with an unknown
+     *                                  dictionary
+     */
+    public String decompressString(final byte[] bytes) {
+        return new String(decompress(bytes), CompressionDictionary.UTF_8);
+    }
+
+    /**
+     * <p>Releases pooled <code>Deflater</code> and <code>Inflater</code> instances. The codec can still be used
+     * afterwards.
+     */
+    public void clearPools() {
+        Deflater deflater;
+        while ((deflater = deflaterPool.poll()) != null) {
+            deflaterPoolSize.decrementAndGet();
+            deflater.end();
+        }
+        Inflater inflater;
+        while ((inflater = inflaterPool.poll()) != null) {
+            inflaterPoolSize.decrementAndGet();
+            inflater.end();
+        }
+    }
+
+}
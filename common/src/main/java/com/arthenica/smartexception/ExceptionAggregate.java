@@ -0,0 +1,158 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Snapshot of an exception kind tracked by {@link ExceptionAggregator}.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionAggregate {
+
+    private final long fingerprint;
+
+    private final String className;
+
+    private final long count;
+
+    private final long error;
+
+    private final long firstSeen;
+
+    private final long lastSeen;
+
+    private final String originFrame;
+
+    private final String stackTrace;
+
+    public ExceptionAggregate(final long fingerprint, final String className, final long count, final long error, final long firstSeen, final long lastSeen, final String originFrame, final String stackTrace) {
+        this.fingerprint = fingerprint;
+        this.className = className;
+        this.count = count;
+        this.error = error;
+        this.firstSeen = firstSeen;
+        this.lastSeen = lastSeen;
+        this.originFrame = originFrame;
+        this.stackTrace = stackTrace;
+    }
+
+    /**
+     * <p>Returns the fingerprint of this exception kind.
+     *
+     * @return fingerprint
+     * @see ThrowableFingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * <p>Returns the class name of the representative exception.
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * <p>Returns the estimated number of occurrences. The estimate is never lower than the real number of
+     * occurrences and never higher than the real number plus {@link #getError()}.
+     *
+     * @return estimated number of occurrences
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * <p>Returns the maximum overestimation of {@link #getCount()}. It is zero if this exception kind was never
+     * evicted since it was first seen.
+     *
+     * @return maximum overestimation of the count
+     */
+    public long getError() {
+        return error;
+    }
+
+    /**
+     * <p>Returns the time this exception kind started being tracked.
+     *
+     * @return timestamp in milliseconds
+     */
+    public long getFirstSeen() {
+        return firstSeen;
+    }
+
+    /**
+     * <p>Returns the time this exception kind was last seen.
+     *
+     * @return timestamp in milliseconds
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * <p>Returns the first stack trace element of the representative exception that belongs to a root package.
+     *
+     * @return origin frame or null if no root package frame is found
+     */
+    public String getOriginFrame() {
+        return originFrame;
+    }
+
+    /**
+     * <p>Returns the smart stack trace of the representative exception.
+     *
+     * @return rendered stack trace, truncated to {@link ExceptionAggregator#MAX_STACK_TRACE_LENGTH} characters
+     */
+    public String getStackTrace() {
+        return stackTrace;
+    }
+
+    @Override
+    public String toString() {
+        return "ExceptionAggregate{" +
+                "fingerprint=" + Long.toHexString(fingerprint) +
+                ", className='" + className + '\'' +
+                ", count=" + count +
+                ", error=" + error +
+                ", firstSeen=" + firstSeen +
+                ", lastSeen=" + lastSeen +
+                ", originFrame='" + originFrame + '\'' +
+                '}';
+    }
+
+}
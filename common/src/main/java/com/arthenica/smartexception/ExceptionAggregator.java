@@ -0,0 +1,425 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * <p>Counts rendered exceptions by fingerprint, skipping frames in ignore packages, and keeps the most frequent ones
+ * using the Space-Saving algorithm.
+ *
+ * <p>At most {@link #getCapacity()} exception kinds are tracked. When a new kind arrives and the aggregator is full,
+ * the least frequent kind is replaced and the new kind inherits its count as the error of its estimate. Any exception
+ * kind that occurs more than <code>total / capacity</code> times is guaranteed to be tracked. Memory stays bounded no
+ * matter how many distinct exception kinds appear.
+ *
+ * <p>Occurrences of a tracked kind are counted without locking, using an atomic counter of its entry. A lock is taken
+ * only when a kind that is not tracked arrives, to add it or to replace the least frequent kind, which is found by
+ * scanning all entries. A replaced entry is closed before its count is read, so an occurrence that arrives while its
+ * entry is being replaced is counted again under the lock instead of being lost.
+ *
+ * <p>For each kind a representative smart stack trace, first and last seen timestamps and the first root package
+ * frame are kept. Set an aggregator using <code>Exceptions.setExceptionAggregator</code> to record every stack trace
+ * rendered by <code>Exceptions</code> and <code>SmartExceptionConverter</code>.
+ *
+ * <pre>
+ * ExceptionAggregator aggregator = new ExceptionAggregator();
+ * Exceptions.setExceptionAggregator(aggregator);
+ * aggregator.startDigest(System.out, 1, TimeUnit.HOURS, 10);
+ * ...
+ * List&lt;ExceptionAggregate&gt; top = aggregator.getTop(10);
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionAggregator {
+
+    /**
+     * Default number of exception kinds tracked.
+     */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    /**
+     * Max number of characters kept from a representative stack trace.
+     */
+    public static final int MAX_STACK_TRACE_LENGTH = 16384;
+
+    private static final Comparator<ExceptionAggregate> COUNT_COMPARATOR = new Comparator<ExceptionAggregate>() {
+
+        @Override
+        public int compare(final ExceptionAggregate aggregate1, final ExceptionAggregate aggregate2) {
+            if (aggregate1.getCount() != aggregate2.getCount()) {
+                return (aggregate1.getCount() > aggregate2.getCount()) ? -1 : 1;
+            }
+            return Long.compare(aggregate2.getLastSeen(), aggregate1.getLastSeen());
+        }
+    };
+
+    private final int capacity;
+
+    /**
+     * Count of an entry that was replaced, occurrences are no longer counted on it.
+     */
+    private static final long CLOSED = -1;
+
+    private static final AtomicLongFieldUpdater<Entry> COUNT_UPDATER = AtomicLongFieldUpdater.newUpdater(Entry.class, "count");
+
+    private final ConcurrentHashMap<Long, Entry> entryMap;
+
+    /**
+     * Tracked entries, guarded by this aggregator.
+     */
+    private final Entry[] entries;
+
+    private int size;
+
+    private final StripedCounter totalCount;
+
+    private ScheduledExecutorService digestExecutor;
+
+    private volatile Exception lastDigestError;
+
+    public ExceptionAggregator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>Creates an aggregator that tracks at most <code>capacity</code> exception kinds.
+     *
+     * @param capacity max number of exception kinds tracked
+     * @throws IllegalArgumentException if capacity is less than one
+     */
+    public ExceptionAggregator(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.entryMap = new ConcurrentHashMap<Long, Entry>(capacity * 2);
+        this.entries = new Entry[capacity];
+        this.totalCount = new StripedCounter();
+    }
+
+    /**
+     * <p>Records an occurrence of the given throwable.
+     *
+     * @param throwable    throwable rendered
+     * @param frameMatcher frame matcher used to find the root package frame, may be null
+     * @param stackTrace   smart stack trace rendered for the throwable
+     */
+    public void record(final ThrowableWrapper throwable, final FrameMatcher frameMatcher, final String stackTrace) {
+        if (throwable == null) {
+            return;
+        }
+
+        record(ThrowableFingerprint.of(throwable, frameMatcher), throwable, frameMatcher, stackTrace);
+    }
+
+    /**
+     * <p>Records an occurrence of the given throwable, using a fingerprint that was already computed.
+     *
+     * @param fingerprint  fingerprint of the throwable, computed using the same frame matcher
+     * @param throwable    throwable rendered
+     * @param frameMatcher frame matcher used to find the root package frame, may be null
+     * @param stackTrace   smart stack trace rendered for the throwable
+     */
+    void record(final long fingerprint, final ThrowableWrapper throwable, final FrameMatcher frameMatcher, final String stackTrace) {
+        final long now = System.currentTimeMillis();
+        totalCount.increment();
+
+        Entry entry = entryMap.get(fingerprint);
+        if (entry != null && entry.increment(now)) {
+            return;
+        }
+
+        final String originFrame = getOriginFrame(throwable, frameMatcher);
+        final String representativeStackTrace = (stackTrace != null && stackTrace.length() > MAX_STACK_TRACE_LENGTH) ? stackTrace.substring(0, MAX_STACK_TRACE_LENGTH) : stackTrace;
+
+        synchronized (this) {
+            entry = entryMap.get(fingerprint);
+            if (entry != null && entry.increment(now)) {
+                return;
+            }
+
+            final int index;
+            final long error;
+            if (size < capacity) {
+                index = size++;
+                error = 0;
+            } else {
+
+                // replace the least frequent entry, its count becomes the error of the new one
+                index = getLeastFrequentIndex();
+                error = COUNT_UPDATER.getAndSet(entries[index], CLOSED);
+                entryMap.remove(entries[index].fingerprint);
+            }
+
+            entry = new Entry(fingerprint, throwable.getClassName(), error, now, originFrame, representativeStackTrace);
+            entries[index] = entry;
+            entryMap.put(fingerprint, entry);
+        }
+    }
+
+    /**
+     * <p>Returns all tracked exception kinds, most frequent first.
+     *
+     * @return tracked exception kinds
+     */
+    public List<ExceptionAggregate> getTop() {
+        return getTop(capacity);
+    }
+
+    /**
+     * <p>Returns the most frequent exception kinds.
+     *
+     * @param limit max number of exception kinds returned
+     * @return most frequent exception kinds, most frequent first
+     */
+    public List<ExceptionAggregate> getTop(final int limit) {
+        final List<ExceptionAggregate> aggregateList = new ArrayList<ExceptionAggregate>();
+        synchronized (this) {
+            for (int i = 0; i < size; i++) {
+                final Entry entry = entries[i];
+                aggregateList.add(new ExceptionAggregate(entry.fingerprint, entry.className, entry.count, entry.error, entry.firstSeen, entry.lastSeen, entry.originFrame, entry.stackTrace));
+            }
+        }
+
+        Collections.sort(aggregateList, COUNT_COMPARATOR);
+        return (aggregateList.size() > limit) ? new ArrayList<ExceptionAggregate>(aggregateList.subList(0, Math.max(limit, 0))) : aggregateList;
+    }
+
+    /**
+     * <p>Returns the number of occurrences recorded, including occurrences of exception kinds no longer tracked.
+     *
+     * @return number of occurrences recorded
+     */
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * <p>Returns the last error occurred while writing a periodic digest.
+     *
+     * @return last error or null if no error occurred
+     */
+    public Exception getLastDigestError() {
+        return lastDigestError;
+    }
+
+    /**
+     * <p>Returns the max number of exception kinds tracked.
+     *
+     * @return capacity of this aggregator
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * <p>Removes all tracked exception kinds.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < size; i++) {
+            COUNT_UPDATER.set(entries[i], CLOSED);
+            entries[i] = null;
+        }
+        entryMap.clear();
+        size = 0;
+        totalCount.sumThenReset();
+    }
+
+    /**
+     * <p>Writes a digest of the most frequent exception kinds.
+     *
+     * @param appendable       destination of the digest
+     * @param limit            max number of exception kinds written
+     * @param printStackTraces print representative stack traces
+     * @throws IOException if the digest can not be written
+     */
+    public void writeDigest(final Appendable appendable, final int limit, final boolean printStackTraces) throws IOException {
+        final List<ExceptionAggregate> aggregateList = getTop(limit);
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Exception digest at %s: %d exceptions, top %d of %d kinds tracked%n", dateFormat.format(new Date()), getTotalCount(), aggregateList.size(), capacity));
+        for (ExceptionAggregate aggregate : aggregateList) {
+            builder.append(String.format("%10d %s%s [fingerprint %016x, first seen %s, last seen %s%s]%n", aggregate.getCount(), aggregate.getClassName(), (aggregate.getOriginFrame() == null) ? "" : " at " + aggregate.getOriginFrame(), aggregate.getFingerprint(), dateFormat.format(new Date(aggregate.getFirstSeen())), dateFormat.format(new Date(aggregate.getLastSeen())), (aggregate.getError() == 0) ? "" : ", error " + aggregate.getError()));
+            if (printStackTraces && aggregate.getStackTrace() != null) {
+                builder.append(aggregate.getStackTrace());
+                builder.append(String.format("%n"));
+            }
+        }
+
+        appendable.append(builder);
+        if (appendable instanceof Flushable) {
+            ((Flushable) appendable).flush();
+        }
+    }
+
+    /**
+     * <p>Starts writing a digest periodically from a daemon thread. A digest that was started before is stopped.
+     *
+     * @param appendable destination of the digest
+     * @param period     time between digests
+     * @param unit       unit of period
+     * @param limit      max number of exception kinds written in each digest
+     */
+    public synchronized void startDigest(final Appendable appendable, final long period, final TimeUnit unit, final int limit) {
+        stopDigest();
+
+        digestExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "smart-exception-digest");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        digestExecutor.scheduleAtFixedRate(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    writeDigest(appendable, limit, false);
+                } catch (final IOException | RuntimeException e) {
+
+                    // an exception thrown from here would cancel the following digests
+                    lastDigestError = e;
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * <p>Stops writing digests periodically.
+     */
+    public synchronized void stopDigest() {
+        if (digestExecutor != null) {
+            digestExecutor.shutdownNow();
+            digestExecutor = null;
+        }
+    }
+
+    /**
+     * <p>Returns the first stack trace element of the given throwable that belongs to a root package.
+     */
+    static String getOriginFrame(final ThrowableWrapper throwable, final FrameMatcher frameMatcher) {
+        final StackTraceElementWrapper[] stackTrace = throwable.getStackTrace();
+        if (frameMatcher == null || stackTrace == null) {
+            return null;
+        }
+
+        for (StackTraceElementWrapper stackTraceElementWrapper : stackTrace) {
+            final StackTraceElement stackTraceElement = stackTraceElementWrapper.getStackTraceElement();
+            if (FrameMatcher.hasFlag(frameMatcher.match(stackTraceElement.getClassName(), stackTraceElement.getMethodName()), FrameMatcher.ROOT)) {
+                return stackTraceElement.toString();
+            }
+        }
+
+        return null;
+    }
+
+    private int getLeastFrequentIndex() {
+        int index = 0;
+        for (int i = 1; i < size; i++) {
+            if (entries[i].count < entries[index].count) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private static final class Entry {
+
+        private final long fingerprint;
+
+        private final String className;
+
+        volatile long count;
+
+        private final long error;
+
+        private final long firstSeen;
+
+        private volatile long lastSeen;
+
+        private final String originFrame;
+
+        private final String stackTrace;
+
+        private Entry(final long fingerprint, final String className, final long error, final long firstSeen, final String originFrame, final String stackTrace) {
+            this.fingerprint = fingerprint;
+            this.className = className;
+            this.count = error + 1;
+            this.error = error;
+            this.firstSeen = firstSeen;
+            this.lastSeen = firstSeen;
+            this.originFrame = originFrame;
+            this.stackTrace = stackTrace;
+        }
+
+        /**
+         * <p>Counts an occurrence, unless this entry was closed because it was replaced.
+         *
+         * @return true if the occurrence was counted, false if this entry is closed
+         */
+        private boolean increment(final long now) {
+            long current;
+            do {
+                current = count;
+                if (current == CLOSED) {
+                    return false;
+                }
+            } while (!COUNT_UPDATER.compareAndSet(this, current, current + 1));
+            lastSeen = now;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * <p>Group of similar exceptions found by {@link ExceptionClusterer}.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionCluster {
+
+    private static final AtomicLongFieldUpdater<ExceptionCluster> SIZE_UPDATER = AtomicLongFieldUpdater.newUpdater(ExceptionCluster.class, "size");
+
+    private final long id;
+
+    private final String className;
+
+    final int[] signature;
+
+    private volatile long size;
+
+    ExceptionCluster(final long id, final String className, final int[] signature) {
+        this.id = id;
+        this.className = className;
+        this.signature = signature;
+    }
+
+    /**
+     * <p>Returns the id of this cluster, which is the fingerprint of the first exception assigned to it.
+     *
+     * @return cluster id
+     * @see ThrowableFingerprint
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * <p>Returns the class name of the first exception assigned to this cluster.
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * <p>Returns the number of exceptions assigned to this cluster.
+     *
+     * @return number of exceptions
+     */
+    public long getSize() {
+        return size;
+    }
+
+    void increment() {
+        SIZE_UPDATER.incrementAndGet(this);
+    }
+
+    @Override
+    public String toString() {
+        return "ExceptionCluster{" +
+                "id=" + Long.toHexString(id) +
+                ", className='" + className + '\'' +
+                ", size=" + size +
+                '}';
+    }
+
+}
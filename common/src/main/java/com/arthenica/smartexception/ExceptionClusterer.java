@@ -0,0 +1,405 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Clusters near-duplicate exceptions using MinHash signatures and locality sensitive hashing.
+ *
+ * <p>Exact fingerprints split one bug into several groups when a proxy class name or a single intermediate frame is
+ * different. This clusterer treats each exception as the set of its exception class names and its
+ * <code>class#method</code> frames, skipping frames in ignore packages. Digits after the first <code>$</code> of a
+ * class name and everything after <code>$$</code> are removed, so generated proxy, lambda and anonymous class names
+ * match each other. Line numbers are not used.
+ *
+ * <p>Each set is reduced to a MinHash signature of <code>bands * rows</code> values. Two exceptions are compared only
+ * if all rows of at least one band are equal, which keeps clustering near-linear. Candidates are accepted if their
+ * estimated Jaccard similarity is at least the similarity threshold.
+ *
+ * <p>{@link #assign(ThrowableWrapper, FrameMatcher)} clusters exceptions one by one and keeps at most
+ * <code>maxClusters</code> clusters. {@link #cluster(List, FrameMatcher)} clusters a batch of exceptions without
+ * changing the clusters of this instance. Set a clusterer using <code>Exceptions.setExceptionClusterer</code> to group
+ * exceptions in {@link ExceptionAggregator} and {@link ExceptionRateTracker} by cluster instead of by exact
+ * fingerprint.
+ *
+ * <p>The cluster of each exact fingerprint assigned to a kept cluster is remembered, so an exception seen before is
+ * assigned without computing its signature and without locking. Exceptions that are not seen before are compared
+ * with clusters under the lock of this clusterer, one at a time.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionClusterer {
+
+    public static final int DEFAULT_BANDS = 16;
+
+    public static final int DEFAULT_ROWS = 4;
+
+    public static final double DEFAULT_SIMILARITY_THRESHOLD = 0.6;
+
+    public static final int DEFAULT_MAX_CLUSTERS = 4096;
+
+    /**
+     * Average number of exact fingerprints remembered for each kept cluster.
+     */
+    static final int MAX_FINGERPRINTS_PER_CLUSTER = 4;
+
+    private static final Comparator<ExceptionCluster> SIZE_COMPARATOR = new Comparator<ExceptionCluster>() {
+
+        @Override
+        public int compare(final ExceptionCluster cluster1, final ExceptionCluster cluster2) {
+            return Long.compare(cluster2.getSize(), cluster1.getSize());
+        }
+    };
+
+    private final int bands;
+
+    private final int rows;
+
+    private final double similarityThreshold;
+
+    private final int maxClusters;
+
+    private final long[] seeds;
+
+    private final Map<Long, List<ExceptionCluster>> bucketMap = new HashMap<Long, List<ExceptionCluster>>();
+
+    private final List<ExceptionCluster> clusterList = new ArrayList<ExceptionCluster>();
+
+    private final ConcurrentHashMap<Long, ExceptionCluster> fingerprintMap = new ConcurrentHashMap<Long, ExceptionCluster>();
+
+    public ExceptionClusterer() {
+        this(DEFAULT_BANDS, DEFAULT_ROWS, DEFAULT_SIMILARITY_THRESHOLD, DEFAULT_MAX_CLUSTERS);
+    }
+
+    /**
+     * <p>Creates a clusterer. Exceptions whose similarity is above <code>(1 / bands) ^ (1 / rows)</code> are likely
+     * to be compared, the similarity threshold should be close to this value.
+     *
+     * @param bands               number of LSH bands
+     * @param rows                number of signature values in each band
+     * @param similarityThreshold min estimated Jaccard similarity of exceptions in the same cluster
+     * @param maxClusters         max number of clusters kept by {@link #assign(ThrowableWrapper, FrameMatcher)}
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public ExceptionClusterer(final int bands, final int rows, final double similarityThreshold, final int maxClusters) {
+        if (bands < 1 || rows < 1 || maxClusters < 1 || similarityThreshold < 0 || similarityThreshold > 1) {
+            throw new IllegalArgumentException(String.format("Invalid clusterer parameters: bands=%d, rows=%d, similarityThreshold=%f, maxClusters=%d", bands, rows, similarityThreshold, maxClusters));
+        }
+
+        this.bands = bands;
+        this.rows = rows;
+        this.similarityThreshold = similarityThreshold;
+        this.maxClusters = maxClusters;
+        this.seeds = new long[bands * rows];
+
+        long seed = 0x5deece66dL;
+        for (int i = 0; i < seeds.length; i++) {
+            seed += 0x9e3779b97f4a7c15L;
+            seeds[i] = mix(seed);
+        }
+    }
+
+    /**
+     * <p>Assigns the given throwable to the most similar cluster, creating a new cluster if there is no similar one.
+     * When <code>maxClusters</code> clusters exist, a throwable without a similar cluster is assigned to a new cluster
+     * that is not kept, whose id is the fingerprint of the throwable.
+     *
+     * @param throwable    throwable
+     * @param frameMatcher frame matcher whose ignore packages are skipped, may be null
+     * @return cluster of the throwable
+     */
+    public ExceptionCluster assign(final ThrowableWrapper throwable, final FrameMatcher frameMatcher) {
+        final long fingerprint = ThrowableFingerprint.of(throwable, frameMatcher);
+        final ExceptionCluster knownCluster = fingerprintMap.get(fingerprint);
+        if (knownCluster != null) {
+            knownCluster.increment();
+            return knownCluster;
+        }
+
+        final int[] signature = signature(throwable, frameMatcher);
+        final long[] bandKeys = bandKeys(signature);
+
+        synchronized (this) {
+            ExceptionCluster bestCluster = null;
+            double bestSimilarity = similarityThreshold;
+            for (long bandKey : bandKeys) {
+                final List<ExceptionCluster> bucket = bucketMap.get(bandKey);
+                if (bucket != null) {
+                    for (ExceptionCluster cluster : bucket) {
+                        final double similarity = similarity(signature, cluster.signature);
+                        if (similarity >= bestSimilarity && (bestCluster == null || similarity > bestSimilarity)) {
+                            bestCluster = cluster;
+                            bestSimilarity = similarity;
+                        }
+                    }
+                }
+            }
+
+            boolean kept = bestCluster != null;
+            if (bestCluster == null) {
+                bestCluster = new ExceptionCluster(fingerprint, throwable.getClassName(), signature);
+                if (clusterList.size() < maxClusters) {
+                    kept = true;
+                    clusterList.add(bestCluster);
+                    for (long bandKey : bandKeys) {
+                        List<ExceptionCluster> bucket = bucketMap.get(bandKey);
+                        if (bucket == null) {
+                            bucket = new ArrayList<ExceptionCluster>(1);
+                            bucketMap.put(bandKey, bucket);
+                        }
+                        bucket.add(bestCluster);
+                    }
+                }
+            }
+
+            if (kept && fingerprintMap.size() < (long) maxClusters * MAX_FINGERPRINTS_PER_CLUSTER) {
+                fingerprintMap.put(fingerprint, bestCluster);
+            }
+
+            bestCluster.increment();
+            return bestCluster;
+        }
+    }
+
+    /**
+     * <p>Returns clusters created by {@link #assign(ThrowableWrapper, FrameMatcher)}, largest first.
+     *
+     * @return clusters
+     */
+    public List<ExceptionCluster> getClusters() {
+        final List<ExceptionCluster> clusters;
+        synchronized (this) {
+            clusters = new ArrayList<ExceptionCluster>(clusterList);
+        }
+
+        Collections.sort(clusters, SIZE_COMPARATOR);
+        return clusters;
+    }
+
+    /**
+     * <p>Removes all clusters.
+     */
+    public synchronized void reset() {
+        bucketMap.clear();
+        clusterList.clear();
+        fingerprintMap.clear();
+    }
+
+    /**
+     * <p>Clusters the given throwables. Clusters of this instance are not used or changed. Throwables that are
+     * similar to each other directly or through other throwables are put in the same cluster.
+     *
+     * <p>Signatures of all throwables are kept in memory while clustering, <code>4 * bands * rows</code> bytes for
+     * each throwable.
+     *
+     * @param throwables   throwables to cluster
+     * @param frameMatcher frame matcher whose ignore packages are skipped, may be null
+     * @return cluster index of each throwable, clusters are numbered from zero in the order they first appear
+     */
+    public int[] cluster(final List<ThrowableWrapper> throwables, final FrameMatcher frameMatcher) {
+        final int count = throwables.size();
+        final int length = bands * rows;
+        final int[] signatures = new int[count * length];
+        final int[] signature = new int[length];
+        for (int i = 0; i < count; i++) {
+            signature(throwables.get(i), frameMatcher, signature);
+            System.arraycopy(signature, 0, signatures, i * length, length);
+        }
+
+        final int[] parents = new int[count];
+        for (int i = 0; i < count; i++) {
+            parents[i] = i;
+        }
+
+        // compare each throwable with the first throwable of every bucket it falls in
+        final Map<Long, Integer> firstMap = new HashMap<Long, Integer>();
+        for (int band = 0; band < bands; band++) {
+            firstMap.clear();
+            for (int i = 0; i < count; i++) {
+                final Long bandKey = bandKey(signatures, i * length, band);
+                final Integer first = firstMap.get(bandKey);
+                if (first == null) {
+                    firstMap.put(bandKey, i);
+                } else if (find(parents, first) != find(parents, i) && similarity(signatures, first * length, signatures, i * length, length) >= similarityThreshold) {
+                    parents[find(parents, i)] = find(parents, first);
+                }
+            }
+        }
+
+        final int[] clusterIndexes = new int[count];
+        final Map<Integer, Integer> rootMap = new HashMap<Integer, Integer>();
+        for (int i = 0; i < count; i++) {
+            final int root = find(parents, i);
+            Integer clusterIndex = rootMap.get(root);
+            if (clusterIndex == null) {
+                clusterIndex = rootMap.size();
+                rootMap.put(root, clusterIndex);
+            }
+            clusterIndexes[i] = clusterIndex;
+        }
+        return clusterIndexes;
+    }
+
+    /**
+     * <p>Returns the estimated Jaccard similarity of the given throwables.
+     *
+     * @param throwable1   first throwable
+     * @param throwable2   second throwable
+     * @param frameMatcher frame matcher whose ignore packages are skipped, may be null
+     * @return estimated similarity between 0 and 1
+     */
+    public double similarity(final ThrowableWrapper throwable1, final ThrowableWrapper throwable2, final FrameMatcher frameMatcher) {
+        return similarity(signature(throwable1, frameMatcher), signature(throwable2, frameMatcher));
+    }
+
+    int[] signature(final ThrowableWrapper throwable, final FrameMatcher frameMatcher) {
+        final int[] signature = new int[bands * rows];
+        signature(throwable, frameMatcher, signature);
+        return signature;
+    }
+
+    private void signature(final ThrowableWrapper throwable, final FrameMatcher frameMatcher, final int[] signature) {
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        ThrowableWrapper current = throwable;
+        for (int i = 0; current != null && i <= ThrowableFingerprint.MAX_CAUSES; i++) {
+            update(signature, hashClassName(ThrowableFingerprint.FNV_OFFSET_BASIS, current.getClassName()));
+
+            final StackTraceElementWrapper[] stackTrace = current.getStackTrace();
+            if (stackTrace != null) {
+                for (StackTraceElementWrapper stackTraceElementWrapper : stackTrace) {
+                    final StackTraceElement stackTraceElement = stackTraceElementWrapper.getStackTraceElement();
+                    if (frameMatcher == null || !FrameMatcher.hasFlag(frameMatcher.match(stackTraceElement.getClassName(), stackTraceElement.getMethodName()), FrameMatcher.IGNORE)) {
+                        update(signature, ThrowableFingerprint.hash(hashClassName(ThrowableFingerprint.FNV_OFFSET_BASIS, stackTraceElement.getClassName()), stackTraceElement.getMethodName()));
+                    }
+                }
+            }
+            current = current.getCause();
+        }
+    }
+
+    private void update(final int[] signature, final long shingle) {
+        for (int i = 0; i < signature.length; i++) {
+            final int value = (int) (mix(shingle ^ seeds[i]) >>> 33);
+            if (value < signature[i]) {
+                signature[i] = value;
+            }
+        }
+    }
+
+    private long[] bandKeys(final int[] signature) {
+        final long[] bandKeys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            bandKeys[band] = bandKey(signature, 0, band);
+        }
+        return bandKeys;
+    }
+
+    private long bandKey(final int[] signatures, final int offset, final int band) {
+        long key = mix(band + 1);
+        for (int row = 0; row < rows; row++) {
+            key = mix(key ^ signatures[offset + band * rows + row]);
+        }
+        return key;
+    }
+
+    static double similarity(final int[] signature1, final int[] signature2) {
+        return similarity(signature1, 0, signature2, 0, signature1.length);
+    }
+
+    static double similarity(final int[] signatures1, final int offset1, final int[] signatures2, final int offset2, final int length) {
+        int equal = 0;
+        for (int i = 0; i < length; i++) {
+            if (signatures1[offset1 + i] == signatures2[offset2 + i]) {
+                equal++;
+            }
+        }
+        return (double) equal / length;
+    }
+
+    /**
+     * <p>Hashes a class name, skipping digits after the first <code>$</code> and everything after <code>$$</code>.
+     */
+    static long hashClassName(long hash, final String className) {
+        if (className != null) {
+            boolean nested = false;
+            for (int i = 0; i < className.length(); i++) {
+                final char character = className.charAt(i);
+                if (character == '$') {
+                    if (nested && className.charAt(i - 1) == '$') {
+                        break;
+                    }
+                    nested = true;
+                } else if (nested && character >= '0' && character <= '9') {
+                    continue;
+                }
+                hash ^= character;
+                hash *= ThrowableFingerprint.FNV_PRIME;
+            }
+        }
+
+        hash ^= 0xff;
+        hash *= ThrowableFingerprint.FNV_PRIME;
+        return hash;
+    }
+
+    private static int find(final int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    /**
+     * <p>Finalization step of MurmurHash3, spreads all input bits over the result.
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+}
@@ -0,0 +1,566 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>On disk inverted index of journal records, answering queries like "every exception that passed through
+ * <code>com.example.PaymentDao</code>" or "all causes of type <code>SocketTimeoutException</code> in the last hour"
+ * without reading the journal.
+ *
+ * <p>Records are numbered in journal order and indexed by exception class, cause class, frame class, frame method and
+ * fingerprint. Each key has a sorted posting list of record ids. Key tables, posting lists and key names are stored as
+ * primitive arrays and memory mapped when the index is opened. A lookup is a binary search over the mapped key table,
+ * which compares key names in place, followed by a copy of the posting list. Posting lists are intersected with
+ * {@link #intersect(int[], int[])} and filtered by time with {@link #filterByTime(int[], long, long)}.
+ *
+ * <pre>
+ * ExceptionIndex index = ExceptionIndex.build(ExceptionJournal.getSegmentFiles(journalDirectory), indexFile, null);
+ * int[] recordIds = index.filterByTime(index.findByCauseClass("java.net.SocketTimeoutException"), now - 3600000, now);
+ * List&lt;JournalRecord&gt; records = index.getRecords(recordIds, journalDirectory);
+ * </pre>
+ *
+ * <p>Index format: a header of magic number, format version and table sizes, followed by the record table (segment
+ * index, offset and timestamp of each record), the name key table sorted by key name, the fingerprint key table
+ * sorted by fingerprint, posting lists and key names.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionIndex {
+
+    static final int MAGIC = 0x53454958;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+
+    static final int RECORD_ENTRY_SIZE = 20;
+
+    static final int NAME_ENTRY_SIZE = 12;
+
+    static final int FINGERPRINT_ENTRY_SIZE = 16;
+
+    static final char EXCEPTION_CLASS_KEY = 'E';
+
+    static final char CAUSE_CLASS_KEY = 'C';
+
+    static final char FRAME_CLASS_KEY = 'F';
+
+    static final char FRAME_METHOD_KEY = 'M';
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * <p>Growable posting list used while building an index.
+     */
+    private static final class PostingList {
+        int[] recordIds = new int[4];
+        int size;
+
+        void add(final int recordId) {
+            if (size > 0 && recordIds[size - 1] == recordId) {
+                return;
+            }
+            if (size == recordIds.length) {
+                recordIds = Arrays.copyOf(recordIds, size * 2);
+            }
+            recordIds[size++] = recordId;
+        }
+    }
+
+    private final MappedByteBuffer tables;
+
+    private final MappedByteBuffer postings;
+
+    private final MappedByteBuffer names;
+
+    private final int recordCount;
+
+    private final int nameKeyCount;
+
+    private final int fingerprintKeyCount;
+
+    private ExceptionIndex(final MappedByteBuffer tables, final MappedByteBuffer postings, final MappedByteBuffer names, final int recordCount, final int nameKeyCount, final int fingerprintKeyCount) {
+        this.tables = tables;
+        this.postings = postings;
+        this.names = names;
+        this.recordCount = recordCount;
+        this.nameKeyCount = nameKeyCount;
+        this.fingerprintKeyCount = fingerprintKeyCount;
+    }
+
+    /**
+     * <p>Builds an index of the records in the given segment files and opens it.
+     *
+     * @param segmentFiles segment files, oldest first
+     * @param indexFile    index file that will be created or replaced
+     * @param frameMatcher frame matcher used to compute fingerprints or null to include all frames
+     * @return opened index
+     * @throws IOException if a segment can not be read or the index can not be written
+     */
+    public static ExceptionIndex build(final List<File> segmentFiles, final File indexFile, final FrameMatcher frameMatcher) throws IOException {
+        final Map<String, PostingList> namePostingMap = new HashMap<String, PostingList>();
+        final Map<Long, PostingList> fingerprintPostingMap = new HashMap<Long, PostingList>();
+        final List<long[]> recordTable = new ArrayList<long[]>();
+
+        for (File segmentFile : segmentFiles) {
+            for (JournalRecord record : ExceptionJournalReader.readSegment(segmentFile)) {
+                final int recordId = recordTable.size();
+                recordTable.add(new long[]{record.getSegmentIndex(), record.getOffset(), record.getTimestamp()});
+
+                final ThrowableWrapper throwable = record.getThrowable();
+                addPosting(namePostingMap, EXCEPTION_CLASS_KEY + throwable.getClassName(), recordId);
+                ThrowableWrapper cause = throwable.getCause();
+                for (int i = 0; cause != null && i < ThrowableFingerprint.MAX_CAUSES; i++) {
+                    addPosting(namePostingMap, CAUSE_CLASS_KEY + cause.getClassName(), recordId);
+                    cause = cause.getCause();
+                }
+                addFramePostings(namePostingMap, throwable, recordId, 0);
+
+                final long fingerprint = ThrowableFingerprint.of(throwable, frameMatcher);
+                PostingList postingList = fingerprintPostingMap.get(fingerprint);
+                if (postingList == null) {
+                    postingList = new PostingList();
+                    fingerprintPostingMap.put(fingerprint, postingList);
+                }
+                postingList.add(recordId);
+            }
+        }
+
+        final List<String> nameKeys = new ArrayList<String>(namePostingMap.keySet());
+        Collections.sort(nameKeys);
+        final List<Long> fingerprintKeys = new ArrayList<Long>(fingerprintPostingMap.keySet());
+        Collections.sort(fingerprintKeys);
+
+        final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile), 65536));
+        try {
+            long postingCount = 0;
+            for (PostingList postingList : namePostingMap.values()) {
+                postingCount += postingList.size;
+            }
+            for (PostingList postingList : fingerprintPostingMap.values()) {
+                postingCount += postingList.size;
+            }
+            if (postingCount > Integer.MAX_VALUE / 4) {
+                throw new IOException("Too many postings for a single index.");
+            }
+
+            long nameLength = 0;
+            for (String nameKey : nameKeys) {
+                nameLength += 4 + 2L * nameKey.length();
+            }
+            if (nameLength > Integer.MAX_VALUE) {
+                throw new IOException("Too many keys for a single index.");
+            }
+
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+            outputStream.writeInt(recordTable.size());
+            outputStream.writeInt(nameKeys.size());
+            outputStream.writeInt(fingerprintKeys.size());
+            outputStream.writeInt((int) postingCount);
+            outputStream.writeLong(nameLength);
+
+            for (long[] recordEntry : recordTable) {
+                outputStream.writeLong(recordEntry[0]);
+                outputStream.writeInt((int) recordEntry[1]);
+                outputStream.writeLong(recordEntry[2]);
+            }
+
+            int postingStart = 0;
+            int nameOffset = 0;
+            for (String nameKey : nameKeys) {
+                final int size = namePostingMap.get(nameKey).size;
+                outputStream.writeInt(nameOffset);
+                outputStream.writeInt(postingStart);
+                outputStream.writeInt(size);
+                nameOffset += 4 + 2 * nameKey.length();
+                postingStart += size;
+            }
+            for (Long fingerprintKey : fingerprintKeys) {
+                final int size = fingerprintPostingMap.get(fingerprintKey).size;
+                outputStream.writeLong(fingerprintKey);
+                outputStream.writeInt(postingStart);
+                outputStream.writeInt(size);
+                postingStart += size;
+            }
+
+            for (String nameKey : nameKeys) {
+                writePostings(outputStream, namePostingMap.get(nameKey));
+            }
+            for (Long fingerprintKey : fingerprintKeys) {
+                writePostings(outputStream, fingerprintPostingMap.get(fingerprintKey));
+            }
+
+            for (String nameKey : nameKeys) {
+                outputStream.writeInt(nameKey.length());
+                outputStream.writeChars(nameKey);
+            }
+        } finally {
+            outputStream.close();
+        }
+
+        return open(indexFile);
+    }
+
+    /**
+     * <p>Opens an index file created by {@link #build(List, File, FrameMatcher)}.
+     *
+     * @param indexFile index file
+     * @return opened index
+     * @throws IOException if the index can not be read or it is not an exception index
+     */
+    public static ExceptionIndex open(final File indexFile) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "r");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_SIZE, channel.size()));
+            if (header.capacity() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException(String.format("Not an exception index: %s.", indexFile));
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException(String.format("Unsupported exception index version %d.", header.getInt(4)));
+            }
+
+            final int recordCount = header.getInt(8);
+            final int nameKeyCount = header.getInt(12);
+            final int fingerprintKeyCount = header.getInt(16);
+            final int postingCount = header.getInt(20);
+            final long nameLength = header.getLong(24);
+
+            final long tablesLength = HEADER_SIZE + (long) recordCount * RECORD_ENTRY_SIZE + (long) nameKeyCount * NAME_ENTRY_SIZE + (long) fingerprintKeyCount * FINGERPRINT_ENTRY_SIZE;
+            final long postingsLength = 4L * postingCount;
+            if (tablesLength > Integer.MAX_VALUE || tablesLength + postingsLength + nameLength != channel.size()) {
+                throw new IOException(String.format("Corrupt exception index: %s.", indexFile));
+            }
+
+            final MappedByteBuffer tables = channel.map(FileChannel.MapMode.READ_ONLY, 0, tablesLength);
+            final MappedByteBuffer postings = channel.map(FileChannel.MapMode.READ_ONLY, tablesLength, postingsLength);
+            final MappedByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, tablesLength + postingsLength, nameLength);
+            return new ExceptionIndex(tables, postings, names, recordCount, nameKeyCount, fingerprintKeyCount);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * <p>Returns the number of indexed records.
+     *
+     * @return number of records
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * <p>Returns records whose exception is of the given class.
+     *
+     * @param className exception class name
+     * @return sorted record ids
+     */
+    public int[] findByExceptionClass(final String className) {
+        return findByName(EXCEPTION_CLASS_KEY, className);
+    }
+
+    /**
+     * <p>Returns records that have a cause of the given class at any depth.
+     *
+     * @param className cause class name
+     * @return sorted record ids
+     */
+    public int[] findByCauseClass(final String className) {
+        return findByName(CAUSE_CLASS_KEY, className);
+    }
+
+    /**
+     * <p>Returns records that passed through the given class, in the stack trace of the exception, one of its causes or
+     * one of its suppressed exceptions.
+     *
+     * @param className class name of a stack trace element
+     * @return sorted record ids
+     */
+    public int[] findByFrameClass(final String className) {
+        return findByName(FRAME_CLASS_KEY, className);
+    }
+
+    /**
+     * <p>Returns records that passed through the given method.
+     *
+     * @param className  class name of a stack trace element
+     * @param methodName method name of a stack trace element
+     * @return sorted record ids
+     */
+    public int[] findByFrame(final String className, final String methodName) {
+        return findByName(FRAME_METHOD_KEY, className + '#' + methodName);
+    }
+
+    /**
+     * <p>Returns records with the given fingerprint, computed using the frame matcher given while building the index.
+     *
+     * @param fingerprint fingerprint
+     * @return sorted record ids
+     */
+    public int[] findByFingerprint(final long fingerprint) {
+        final int fingerprintTable = HEADER_SIZE + recordCount * RECORD_ENTRY_SIZE + nameKeyCount * NAME_ENTRY_SIZE;
+        int low = 0;
+        int high = fingerprintKeyCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int entry = fingerprintTable + middle * FINGERPRINT_ENTRY_SIZE;
+            final long key = tables.getLong(entry);
+            if (key < fingerprint) {
+                low = middle + 1;
+            } else if (key > fingerprint) {
+                high = middle - 1;
+            } else {
+                return readPostings(tables.getInt(entry + 8), tables.getInt(entry + 12));
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * <p>Returns the given records that were appended in the given time range.
+     *
+     * @param recordIds record ids
+     * @param from      start of the range in milliseconds, inclusive
+     * @param to        end of the range in milliseconds, exclusive
+     * @return sorted record ids
+     */
+    public int[] filterByTime(final int[] recordIds, final long from, final long to) {
+        final int[] filtered = new int[recordIds.length];
+        int size = 0;
+        for (int recordId : recordIds) {
+            final long timestamp = getTimestamp(recordId);
+            if (timestamp >= from && timestamp < to) {
+                filtered[size++] = recordId;
+            }
+        }
+        return Arrays.copyOf(filtered, size);
+    }
+
+    /**
+     * <p>Returns the record ids found in both of the given sorted record id arrays.
+     *
+     * @param first  sorted record ids
+     * @param second sorted record ids
+     * @return sorted record ids
+     */
+    public static int[] intersect(final int[] first, final int[] second) {
+        final int[] intersection = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                intersection[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(intersection, size);
+    }
+
+    /**
+     * <p>Returns the index of the segment of the given record.
+     *
+     * @param recordId record id
+     * @return segment index
+     */
+    public long getSegmentIndex(final int recordId) {
+        return tables.getLong(recordEntry(recordId));
+    }
+
+    /**
+     * <p>Returns the offset of the given record in its segment.
+     *
+     * @param recordId record id
+     * @return offset in bytes
+     */
+    public int getOffset(final int recordId) {
+        return tables.getInt(recordEntry(recordId) + 8);
+    }
+
+    /**
+     * <p>Returns the time the given record was appended.
+     *
+     * @param recordId record id
+     * @return timestamp in milliseconds
+     */
+    public long getTimestamp(final int recordId) {
+        return tables.getLong(recordEntry(recordId) + 12);
+    }
+
+    /**
+     * <p>Reads the given records from the journal. Each segment that contains one of the records is decoded once.
+     *
+     * @param recordIds        record ids
+     * @param journalDirectory directory of segment files
+     * @return records in record id order
+     * @throws IOException if a segment can not be read
+     */
+    public List<JournalRecord> getRecords(final int[] recordIds, final File journalDirectory) throws IOException {
+        final int[] sortedRecordIds = recordIds.clone();
+        Arrays.sort(sortedRecordIds);
+
+        final List<JournalRecord> recordList = new ArrayList<JournalRecord>(sortedRecordIds.length);
+        int i = 0;
+        while (i < sortedRecordIds.length) {
+            final long segmentIndex = getSegmentIndex(sortedRecordIds[i]);
+            final Set<Integer> offsetSet = new HashSet<Integer>();
+            while (i < sortedRecordIds.length && getSegmentIndex(sortedRecordIds[i]) == segmentIndex) {
+                offsetSet.add(getOffset(sortedRecordIds[i]));
+                i++;
+            }
+
+            for (JournalRecord record : ExceptionJournalReader.readSegment(ExceptionJournal.getSegmentFile(journalDirectory, segmentIndex))) {
+                if (offsetSet.contains(record.getOffset())) {
+                    recordList.add(record);
+                }
+            }
+        }
+        return recordList;
+    }
+
+    private int recordEntry(final int recordId) {
+        if (recordId < 0 || recordId >= recordCount) {
+            throw new IndexOutOfBoundsException(String.format("Invalid record id %d.", recordId));
+        }
+        return HEADER_SIZE + recordId * RECORD_ENTRY_SIZE;
+    }
+
+    private int[] findByName(final char kind, final String name) {
+        final int nameTable = HEADER_SIZE + recordCount * RECORD_ENTRY_SIZE;
+        int low = 0;
+        int high = nameKeyCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int entry = nameTable + middle * NAME_ENTRY_SIZE;
+            final int nameOffset = tables.getInt(entry);
+            final int comparison = compareName(names.getInt(nameOffset), nameOffset, kind, name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return readPostings(tables.getInt(entry + 4), tables.getInt(entry + 8));
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * <p>Compares the key name stored at the given offset with the given kind and name, without decoding it.
+     */
+    private int compareName(final int length, final int nameOffset, final char kind, final String name) {
+        final int queryLength = name.length() + 1;
+        final int commonLength = Math.min(length, queryLength);
+        for (int i = 0; i < commonLength; i++) {
+            final char stored = names.getChar(nameOffset + 4 + 2 * i);
+            final char query = (i == 0) ? kind : name.charAt(i - 1);
+            if (stored != query) {
+                return stored - query;
+            }
+        }
+        return length - queryLength;
+    }
+
+    private int[] readPostings(final int postingStart, final int postingCount) {
+        final int[] recordIds = new int[postingCount];
+        final IntBuffer buffer = postings.asIntBuffer();
+        buffer.position(postingStart);
+        buffer.get(recordIds);
+        return recordIds;
+    }
+
+    private static void addPosting(final Map<String, PostingList> postingMap, final String key, final int recordId) {
+        PostingList postingList = postingMap.get(key);
+        if (postingList == null) {
+            postingList = new PostingList();
+            postingMap.put(key, postingList);
+        }
+        postingList.add(recordId);
+    }
+
+    private static void addFramePostings(final Map<String, PostingList> postingMap, final ThrowableWrapper throwable, final int recordId, final int depth) {
+        if (throwable == null || depth > ThrowableFingerprint.MAX_CAUSES) {
+            return;
+        }
+
+        final StackTraceElementWrapper[] stackTrace = throwable.getStackTrace();
+        if (stackTrace != null) {
+            for (StackTraceElementWrapper stackTraceElementWrapper : stackTrace) {
+                final StackTraceElement stackTraceElement = stackTraceElementWrapper.getStackTraceElement();
+                addPosting(postingMap, FRAME_CLASS_KEY + stackTraceElement.getClassName(), recordId);
+                addPosting(postingMap, FRAME_METHOD_KEY + stackTraceElement.getClassName() + '#' + stackTraceElement.getMethodName(), recordId);
+            }
+        }
+
+        final ThrowableWrapper[] suppressed = throwable.getSuppressed();
+        if (suppressed != null) {
+            for (ThrowableWrapper suppressedThrowable : suppressed) {
+                addFramePostings(postingMap, suppressedThrowable, recordId, depth + 1);
+            }
+        }
+        addFramePostings(postingMap, throwable.getCause(), recordId, depth + 1);
+    }
+
+    private static void writePostings(final DataOutputStream outputStream, final PostingList postingList) throws IOException {
+        for (int i = 0; i < postingList.size; i++) {
+            outputStream.writeInt(postingList.recordIds[i]);
+        }
+    }
+
+}
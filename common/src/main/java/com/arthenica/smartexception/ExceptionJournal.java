@@ -0,0 +1,508 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Appends exceptions as compact binary records to memory mapped segment files, so that they survive a crash of
+ * the process even if the log pipeline did not flush them.
+ *
+ * <p>Each segment is a file of fixed size mapped into memory through a {@link FileChannel}. A writer encodes its
+ * record into a thread local buffer, reserves space in the current segment with a compare and set on the segment
+ * position and copies the record into the mapped buffer. No lock is taken unless the segment is full and a new one
+ * must be created. Writes to a mapped buffer land in the page cache of the operating system immediately, so a record
+ * is kept when the process is killed. Call {@link #force()} to make records durable against a crash of the operating
+ * system as well. A full segment is forced when it is replaced by a new one.
+ *
+ * <p>Stack trace elements are encoded using a frame dictionary of the segment. The first record containing a frame
+ * defines it and later records refer to it by id. A frame id becomes visible to other writers only after the
+ * record defining it is written, so a record never refers to a frame defined after it. When the number of segments
+ * exceeds the limit, the oldest segment file is deleted.
+ *
+ * <p>Appending never throws and never prints. Failures to create or delete segment files are kept as the last error
+ * of the journal and exceptions that could not be appended are counted as dropped.
+ *
+ * <p>Segment format: a header of magic number, format version and segment index, followed by records aligned to eight
+ * bytes. Each record starts with its body length and the CRC-32 of its body. The body contains the timestamp, the
+ * thread id and name and the exception with its causes and suppressed exceptions. The length is written last, so a
+ * record that was being written when the process was killed is skipped by {@link ExceptionJournalReader}.
+ * Fingerprints are not computed while appending, readers compute them using their own ignore packages.
+ *
+ * <pre>
+ * ExceptionJournal journal = new ExceptionJournal(new File("/var/log/app/exceptions"));
+ * Exceptions.setExceptionJournal(journal);
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionJournal {
+
+    /**
+     * Default size of a segment file in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Default number of segment files kept.
+     */
+    public static final int DEFAULT_MAX_SEGMENTS = 8;
+
+    static final int MAGIC = 0x534a524e;
+
+    static final int VERSION = 1;
+
+    static final int SEGMENT_HEADER_SIZE = 16;
+
+    static final int RECORD_HEADER_SIZE = 8;
+
+    static final int RECORD_ALIGNMENT = 8;
+
+    static final String SEGMENT_FILE_PREFIX = "exceptions-";
+
+    static final String SEGMENT_FILE_SUFFIX = ".journal";
+
+    static final FilenameFilter SEGMENT_FILE_FILTER = new FilenameFilter() {
+
+        @Override
+        public boolean accept(final File directory, final String name) {
+            return name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX);
+        }
+    };
+
+    /**
+     * <p>Per thread encoding state.
+     */
+    private static final class Encoder {
+        final BinaryOutput output = new BinaryOutput(4096);
+        final CRC32 crc = new CRC32();
+        final Map<StackTraceElement, Integer> definedFrames = new HashMap<StackTraceElement, Integer>();
+    }
+
+    private static final ThreadLocal<Encoder> ENCODER = new ThreadLocal<Encoder>() {
+
+        @Override
+        protected Encoder initialValue() {
+            return new Encoder();
+        }
+    };
+
+    /**
+     * <p>A mapped segment file.
+     */
+    private static final class Segment {
+        final long index;
+        final MappedByteBuffer buffer;
+        final AtomicInteger position = new AtomicInteger(SEGMENT_HEADER_SIZE);
+        final ConcurrentHashMap<StackTraceElement, Integer> frameIds = new ConcurrentHashMap<StackTraceElement, Integer>();
+        final AtomicInteger nextFrameId = new AtomicInteger();
+
+        Segment(final long index, final MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final AtomicLong appendedCount;
+
+    private final AtomicLong droppedCount;
+
+    private volatile Segment segment;
+
+    private volatile Segment previousSegment;
+
+    private volatile IOException lastError;
+
+    private volatile boolean closed;
+
+    /**
+     * <p>Creates a journal in the given directory using {@link #DEFAULT_SEGMENT_SIZE} and
+     * {@link #DEFAULT_MAX_SEGMENTS}.
+     *
+     * @param directory directory of segment files, created if it does not exist
+     * @throws IOException if the first segment can not be created
+     */
+    public ExceptionJournal(final File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * <p>Creates a journal in the given directory. Segments written before are kept and new records are appended to a
+     * new segment.
+     *
+     * @param directory   directory of segment files, created if it does not exist
+     * @param segmentSize size of a segment file in bytes
+     * @param maxSegments number of segment files kept, older ones are deleted
+     * @throws IOException if the first segment can not be created
+     */
+    public ExceptionJournal(final File directory, final int segmentSize, final int maxSegments) throws IOException {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("segmentSize must be at least 4096");
+        }
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("maxSegments must be positive");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Failed to create journal directory %s.", directory));
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize & ~(RECORD_ALIGNMENT - 1);
+        this.maxSegments = maxSegments;
+        this.appendedCount = new AtomicLong();
+        this.droppedCount = new AtomicLong();
+
+        final List<File> segmentFiles = getSegmentFiles(directory);
+        final long nextIndex = segmentFiles.isEmpty() ? 0 : getSegmentIndex(segmentFiles.get(segmentFiles.size() - 1)) + 1;
+        this.segment = createSegment(nextIndex);
+    }
+
+    /**
+     * <p>Appends the given exception.
+     *
+     * @param throwable exception to append
+     * @return true if the exception is appended, false if it is dropped
+     */
+    public boolean append(final Throwable throwable) {
+        return throwable != null && append(new ThrowableWrapper(throwable));
+    }
+
+    /**
+     * <p>Appends the given exception. The exception is dropped if the journal is closed, if it is larger than a
+     * segment or if a new segment can not be created.
+     *
+     * @param throwable exception to append
+     * @return true if the exception is appended, false if it is dropped
+     */
+    public boolean append(final ThrowableWrapper throwable) {
+        if (throwable == null) {
+            return false;
+        }
+
+        final long timestamp = System.currentTimeMillis();
+        final Thread thread = Thread.currentThread();
+        final Encoder encoder = ENCODER.get();
+
+        Segment current = segment;
+        while (!closed) {
+            encoder.output.reset();
+            encoder.definedFrames.clear();
+            encoder.output.writeVarlong(timestamp);
+            encoder.output.writeVarlong(thread.getId());
+            encoder.output.writeString(thread.getName());
+            encodeThrowable(encoder, current, throwable);
+
+            final int bodyLength = encoder.output.size();
+            final int recordLength = (RECORD_HEADER_SIZE + bodyLength + RECORD_ALIGNMENT - 1) & ~(RECORD_ALIGNMENT - 1);
+            if (recordLength > segmentSize - SEGMENT_HEADER_SIZE) {
+                break;
+            }
+
+            final int offset = reserve(current, recordLength);
+            if (offset < 0) {
+                current = nextSegment(current);
+                if (current == null) {
+                    break;
+                }
+                continue;
+            }
+
+            encoder.crc.reset();
+            encoder.crc.update(encoder.output.getBuffer(), 0, bodyLength);
+
+            final ByteBuffer buffer = current.buffer.duplicate();
+            buffer.position(offset + RECORD_HEADER_SIZE);
+            encoder.output.writeTo(buffer);
+            current.buffer.putInt(offset + 4, (int) encoder.crc.getValue());
+            current.buffer.putInt(offset, bodyLength);
+
+            for (Map.Entry<StackTraceElement, Integer> entry : encoder.definedFrames.entrySet()) {
+                current.frameIds.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+
+            appendedCount.incrementAndGet();
+            return true;
+        }
+
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * <p>Returns the number of exceptions appended since this journal was created.
+     *
+     * @return number of appended exceptions
+     */
+    public long getAppendedCount() {
+        return appendedCount.get();
+    }
+
+    /**
+     * <p>Returns the number of exceptions dropped.
+     *
+     * @return number of dropped exceptions
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * <p>Returns the last error occurred while creating or deleting segment files.
+     *
+     * @return last error or null if no error occurred
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * <p>Returns the directory of segment files.
+     *
+     * @return journal directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * <p>Returns the size of a segment file.
+     *
+     * @return segment size in bytes
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * <p>Returns the number of segment files kept.
+     *
+     * @return max number of segments
+     */
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    /**
+     * <p>Writes the records of the current segment to the storage device. The previous segment is forced too, since
+     * records reserved before it was replaced may have been written to it after it was forced.
+     */
+    public void force() {
+        final Segment previous = previousSegment;
+        if (previous != null) {
+            previous.buffer.force();
+        }
+        segment.buffer.force();
+    }
+
+    /**
+     * <p>Forces the current and the previous segment and stops appending. Exceptions appended after this method
+     * returns are dropped.
+     */
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            force();
+        }
+    }
+
+    /**
+     * <p>Returns the segment files in the given directory, oldest first.
+     *
+     * @param directory journal directory
+     * @return list of segment files
+     */
+    public static List<File> getSegmentFiles(final File directory) {
+        final File[] files = directory.listFiles(SEGMENT_FILE_FILTER);
+        if (files == null) {
+            return new ArrayList<File>();
+        }
+
+        Arrays.sort(files);
+        return new ArrayList<File>(Arrays.asList(files));
+    }
+
+    /**
+     * <p>Checks whether the given file is named like a segment file.
+     *
+     * @param file file
+     * @return true if the file name has the segment file prefix and suffix
+     */
+    public static boolean isSegmentFile(final File file) {
+        return SEGMENT_FILE_FILTER.accept(file.getParentFile(), file.getName());
+    }
+
+    static long getSegmentIndex(final File file) {
+        final String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_FILE_PREFIX.length(), name.length() - SEGMENT_FILE_SUFFIX.length()));
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static File getSegmentFile(final File directory, final long index) {
+        return new File(directory, String.format("%s%016d%s", SEGMENT_FILE_PREFIX, index, SEGMENT_FILE_SUFFIX));
+    }
+
+    private static int reserve(final Segment segment, final int recordLength) {
+        final int capacity = segment.buffer.capacity();
+        int position;
+        do {
+            position = segment.position.get();
+            if (position + recordLength > capacity) {
+                return -1;
+            }
+        } while (!segment.position.compareAndSet(position, position + recordLength));
+        return position;
+    }
+
+    private static void encodeThrowable(final Encoder encoder, final Segment segment, final ThrowableWrapper throwable) {
+        final BinaryOutput output = encoder.output;
+        output.writeString(throwable.getClassName());
+        output.writeString(throwable.getMessage());
+
+        final StackTraceElementWrapper[] stackTrace = throwable.getStackTrace();
+        final int frameCount = (stackTrace == null) ? 0 : stackTrace.length;
+        output.writeVarint(frameCount);
+        for (int i = 0; i < frameCount; i++) {
+            final StackTraceElement stackTraceElement = stackTrace[i].getStackTraceElement();
+            Integer frameId = segment.frameIds.get(stackTraceElement);
+            if (frameId == null) {
+                frameId = encoder.definedFrames.get(stackTraceElement);
+            }
+            if (frameId != null) {
+                output.writeVarint(frameId << 1);
+            } else {
+                final int newFrameId = segment.nextFrameId.getAndIncrement();
+                encoder.definedFrames.put(stackTraceElement, newFrameId);
+                output.writeVarint((newFrameId << 1) | 1);
+                output.writeString(StackTraceElementAccessor.getClassLoaderName(stackTraceElement));
+                output.writeString(StackTraceElementAccessor.getModuleName(stackTraceElement));
+                output.writeString(StackTraceElementAccessor.getModuleVersion(stackTraceElement));
+                output.writeString(stackTraceElement.getClassName());
+                output.writeString(stackTraceElement.getMethodName());
+                output.writeString(stackTraceElement.getFileName());
+                output.writeSignedVarint(stackTraceElement.getLineNumber());
+            }
+        }
+
+        final ThrowableWrapper[] suppressed = throwable.getSuppressed();
+        final int suppressedCount = (suppressed == null) ? 0 : suppressed.length;
+        output.writeVarint(suppressedCount);
+        for (int i = 0; i < suppressedCount; i++) {
+            encodeThrowable(encoder, segment, suppressed[i]);
+        }
+
+        if (throwable.getCause() == null) {
+            output.writeByte(0);
+        } else {
+            output.writeByte(1);
+            encodeThrowable(encoder, segment, throwable.getCause());
+        }
+    }
+
+    /**
+     * <p>Replaces the given full segment with a new one, unless another writer already did. The full segment is forced
+     * after the new one is published, so other writers are not blocked while it is written.
+     *
+     * @return the current segment or null if a new segment can not be created
+     */
+    private Segment nextSegment(final Segment full) {
+        final Segment next;
+        synchronized (this) {
+            if (segment != full || closed) {
+                return closed ? null : segment;
+            }
+
+            try {
+                next = createSegment(full.index + 1);
+            } catch (final IOException e) {
+                lastError = e;
+                return null;
+            }
+            previousSegment = full;
+            segment = next;
+        }
+
+        full.buffer.force();
+        return next;
+    }
+
+    private Segment createSegment(final long index) throws IOException {
+        final File file = getSegmentFile(directory, index);
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        final MappedByteBuffer buffer;
+        try {
+            randomAccessFile.setLength(segmentSize);
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } finally {
+            randomAccessFile.close();
+        }
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, index);
+
+        final List<File> segmentFiles = getSegmentFiles(directory);
+        for (int i = 0; i < segmentFiles.size() - maxSegments; i++) {
+            if (!segmentFiles.get(i).delete()) {
+                lastError = new IOException(String.format("Failed to delete journal segment %s.", segmentFiles.get(i)));
+            }
+        }
+
+        return new Segment(index, buffer);
+    }
+
+}
@@ -0,0 +1,342 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Reads exception records from segment files written by {@link ExceptionJournal}.
+ *
+ * <p>Segments are mapped into memory and read sequentially. Records that were being written when the writing process
+ * was killed and records whose checksum does not match are skipped. A segment can be read while it is still being
+ * written, records appended after it is mapped may or may not be read. Records that have a valid checksum but can not
+ * be decoded are skipped too and counted if the caller provides a counter, nothing is printed.
+ *
+ * <p>Every segment has its own frame dictionary, so segments are decoded independently. {@link #read(List,
+ * JournalFilter, ForkJoinPool)} decodes segments in parallel, splitting the list of segments in halves until a single
+ * segment is left and joining the results in segment order.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionJournalReader {
+
+    /**
+     * <p>Frame used in place of a dictionary frame whose defining record could not be read.
+     */
+    static final StackTraceElement UNKNOWN_FRAME = new StackTraceElement("<unknown>", "<unknown>", null, -1);
+
+    private ExceptionJournalReader() {
+    }
+
+    /**
+     * <p>Reads all records of all segments in the given journal directory, oldest first.
+     *
+     * @param directory journal directory
+     * @return list of records
+     * @throws IOException if a segment can not be read
+     */
+    public static List<JournalRecord> readDirectory(final File directory) throws IOException {
+        final List<JournalRecord> recordList = new ArrayList<JournalRecord>();
+        for (File segmentFile : ExceptionJournal.getSegmentFiles(directory)) {
+            recordList.addAll(readSegment(segmentFile));
+        }
+        return recordList;
+    }
+
+    /**
+     * <p>Reads records matching the given filter from the given segment files in parallel.
+     *
+     * @param segmentFiles segment files
+     * @param filter       record filter
+     * @param pool         pool that decodes segments
+     * @return list of matching records, in the order of segment files and in the order records were reserved
+     * @throws IOException if a segment can not be read
+     */
+    public static List<JournalRecord> read(final List<File> segmentFiles, final JournalFilter filter, final ForkJoinPool pool) throws IOException {
+        return read(segmentFiles, filter, pool, null);
+    }
+
+    /**
+     * <p>Reads records matching the given filter from the given segment files in parallel and counts records that can
+     * not be decoded.
+     *
+     * @param segmentFiles       segment files
+     * @param filter             record filter
+     * @param pool               pool that decodes segments
+     * @param skippedRecordCount incremented for each record that has a valid checksum but can not be decoded, may be
+     *                           null
+     * @return list of matching records, in the order of segment files and in the order records were reserved
+     * @throws IOException if a segment can not be read
+     */
+    public static List<JournalRecord> read(final List<File> segmentFiles, final JournalFilter filter, final ForkJoinPool pool, final AtomicLong skippedRecordCount) throws IOException {
+        try {
+            return pool.invoke(new ReadTask(segmentFiles, filter, skippedRecordCount));
+        } catch (final ReadException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof ReadException) {
+                cause = cause.getCause();
+            }
+            throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * <p>Reads all records of the given segment file.
+     *
+     * @param segmentFile segment file
+     * @return list of records in the order they were reserved
+     * @throws IOException if the segment can not be read or it is not a journal segment
+     */
+    public static List<JournalRecord> readSegment(final File segmentFile) throws IOException {
+        return readSegment(segmentFile, JournalFilter.ALL);
+    }
+
+    /**
+     * <p>Reads records of the given segment file that match the given filter.
+     *
+     * @param segmentFile segment file
+     * @param filter      record filter
+     * @return list of matching records in the order they were reserved
+     * @throws IOException if the segment can not be read or it is not a journal segment
+     */
+    public static List<JournalRecord> readSegment(final File segmentFile, final JournalFilter filter) throws IOException {
+        return readSegment(segmentFile, filter, null);
+    }
+
+    /**
+     * <p>Reads records of the given segment file that match the given filter and counts records that can not be
+     * decoded.
+     *
+     * @param segmentFile        segment file
+     * @param filter             record filter
+     * @param skippedRecordCount incremented for each record that has a valid checksum but can not be decoded, may be
+     *                           null
+     * @return list of matching records in the order they were reserved
+     * @throws IOException if the segment can not be read or it is not a journal segment
+     */
+    public static List<JournalRecord> readSegment(final File segmentFile, final JournalFilter filter, final AtomicLong skippedRecordCount) throws IOException {
+        final MappedByteBuffer buffer;
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "r");
+        try {
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+        } finally {
+            randomAccessFile.close();
+        }
+
+        try {
+            return readSegment(buffer, filter, skippedRecordCount);
+        } catch (final IOException e) {
+            throw new IOException(String.format("Failed to read journal segment %s. %s", segmentFile, e.getMessage()), e);
+        }
+    }
+
+    static List<JournalRecord> readSegment(final ByteBuffer buffer, final JournalFilter filter, final AtomicLong skippedRecordCount) throws IOException {
+        if (buffer.capacity() < ExceptionJournal.SEGMENT_HEADER_SIZE || buffer.getInt(0) != ExceptionJournal.MAGIC) {
+            throw new IOException("Not an exception journal segment.");
+        }
+        if (buffer.getInt(4) != ExceptionJournal.VERSION) {
+            throw new IOException(String.format("Unsupported exception journal version %d.", buffer.getInt(4)));
+        }
+
+        final long segmentIndex = buffer.getLong(8);
+        final Map<Integer, StackTraceElement> frameMap = new HashMap<Integer, StackTraceElement>();
+        final List<JournalRecord> recordList = new ArrayList<JournalRecord>();
+        final CRC32 crc = new CRC32();
+        final byte[] body = new byte[4096];
+
+        int offset = ExceptionJournal.SEGMENT_HEADER_SIZE;
+        while (offset + ExceptionJournal.RECORD_HEADER_SIZE <= buffer.capacity()) {
+            final int bodyLength = buffer.getInt(offset);
+            if (bodyLength <= 0 || bodyLength > buffer.capacity() - offset - ExceptionJournal.RECORD_HEADER_SIZE) {
+
+                // not written or partially written record, continue from the next aligned position
+                offset += ExceptionJournal.RECORD_ALIGNMENT;
+                continue;
+            }
+
+            final ByteBuffer bodyBuffer = buffer.duplicate();
+            bodyBuffer.position(offset + ExceptionJournal.RECORD_HEADER_SIZE);
+            bodyBuffer.limit(offset + ExceptionJournal.RECORD_HEADER_SIZE + bodyLength);
+
+            crc.reset();
+            final ByteBuffer crcBuffer = bodyBuffer.duplicate();
+            while (crcBuffer.hasRemaining()) {
+                final int length = Math.min(body.length, crcBuffer.remaining());
+                crcBuffer.get(body, 0, length);
+                crc.update(body, 0, length);
+            }
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                offset += ExceptionJournal.RECORD_ALIGNMENT;
+                continue;
+            }
+
+            try {
+                final BinaryInput input = new BinaryInput(bodyBuffer);
+                final long timestamp = input.readVarlong();
+                final long threadId = input.readVarlong();
+                final String threadName = input.readString();
+                final ThrowableWrapper throwable = decodeThrowable(input, frameMap, 0);
+                final JournalRecord record = new JournalRecord(segmentIndex, offset, timestamp, threadName, threadId, throwable);
+                if (filter.matches(record)) {
+                    recordList.add(record);
+                }
+            } catch (final BufferUnderflowException | IllegalStateException | IllegalArgumentException e) {
+                if (skippedRecordCount != null) {
+                    skippedRecordCount.incrementAndGet();
+                }
+            }
+
+            offset += (ExceptionJournal.RECORD_HEADER_SIZE + bodyLength + ExceptionJournal.RECORD_ALIGNMENT - 1) & ~(ExceptionJournal.RECORD_ALIGNMENT - 1);
+        }
+
+        return recordList;
+    }
+
+    private static ThrowableWrapper decodeThrowable(final BinaryInput input, final Map<Integer, StackTraceElement> frameMap, final int depth) {
+        if (depth > ThrowableFingerprint.MAX_CAUSES * 2) {
+            throw new IllegalStateException("Exception chain is too deep.");
+        }
+
+        final String className = input.readString();
+        final String message = input.readString();
+
+        final int frameCount = input.readVarint();
+        if (frameCount > input.getBuffer().remaining()) {
+            throw new IllegalStateException("Invalid frame count.");
+        }
+        final StackTraceElementWrapper[] stackTrace = new StackTraceElementWrapper[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            final int reference = input.readVarint();
+            final int frameId = reference >>> 1;
+            StackTraceElement stackTraceElement;
+            if ((reference & 1) != 0) {
+                final String classLoaderName = input.readString();
+                final String moduleName = input.readString();
+                final String moduleVersion = input.readString();
+                final String declaringClass = input.readString();
+                final String methodName = input.readString();
+                final String fileName = input.readString();
+                final int lineNumber = input.readSignedVarint();
+                stackTraceElement = StackTraceElementAccessor.create(classLoaderName, moduleName, moduleVersion, declaringClass, methodName, fileName, lineNumber);
+                frameMap.put(frameId, stackTraceElement);
+            } else {
+                stackTraceElement = frameMap.get(frameId);
+                if (stackTraceElement == null) {
+                    stackTraceElement = UNKNOWN_FRAME;
+                }
+            }
+            stackTrace[i] = new StackTraceElementWrapper(stackTraceElement);
+        }
+
+        final int suppressedCount = input.readVarint();
+        if (suppressedCount > input.getBuffer().remaining()) {
+            throw new IllegalStateException("Invalid suppressed exception count.");
+        }
+        final ThrowableWrapper[] suppressed = new ThrowableWrapper[suppressedCount];
+        for (int i = 0; i < suppressedCount; i++) {
+            suppressed[i] = decodeThrowable(input, frameMap, depth + 1);
+        }
+
+        final ThrowableWrapper cause = (input.readByte() == 0) ? null : decodeThrowable(input, frameMap, depth + 1);
+
+        return new ThrowableWrapper(message, cause, className, suppressed, stackTrace);
+    }
+
+    /**
+     * <p>Decodes a range of segment files, splitting it until a single segment is left.
+     */
+    private static final class ReadTask extends RecursiveTask<List<JournalRecord>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<File> segmentFiles;
+
+        private final JournalFilter filter;
+
+        private final AtomicLong skippedRecordCount;
+
+        private ReadTask(final List<File> segmentFiles, final JournalFilter filter, final AtomicLong skippedRecordCount) {
+            this.segmentFiles = segmentFiles;
+            this.filter = filter;
+            this.skippedRecordCount = skippedRecordCount;
+        }
+
+        @Override
+        protected List<JournalRecord> compute() {
+            if (segmentFiles.size() <= 1) {
+                try {
+                    return segmentFiles.isEmpty() ? new ArrayList<JournalRecord>() : readSegment(segmentFiles.get(0), filter, skippedRecordCount);
+                } catch (final IOException e) {
+                    throw new ReadException(e);
+                }
+            }
+
+            final int middle = segmentFiles.size() / 2;
+            final ReadTask first = new ReadTask(segmentFiles.subList(0, middle), filter, skippedRecordCount);
+            final ReadTask second = new ReadTask(segmentFiles.subList(middle, segmentFiles.size()), filter, skippedRecordCount);
+            second.fork();
+
+            final List<JournalRecord> recordList = first.compute();
+            recordList.addAll(second.join());
+            return recordList;
+        }
+    }
+
+    /**
+     * <p>Carries an {@link IOException} out of a {@link ReadTask}.
+     */
+    private static final class ReadException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private ReadException(final IOException cause) {
+            super(cause);
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Snapshot of the rates of an exception kind tracked by {@link ExceptionRateTracker}.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionRate {
+
+    private final long fingerprint;
+
+    private final String className;
+
+    private final long count;
+
+    private final double oneMinuteRate;
+
+    private final double fiveMinuteRate;
+
+    private final double fifteenMinuteRate;
+
+    public ExceptionRate(final long fingerprint, final String className, final long count, final double oneMinuteRate, final double fiveMinuteRate, final double fifteenMinuteRate) {
+        this.fingerprint = fingerprint;
+        this.className = className;
+        this.count = count;
+        this.oneMinuteRate = oneMinuteRate;
+        this.fiveMinuteRate = fiveMinuteRate;
+        this.fifteenMinuteRate = fifteenMinuteRate;
+    }
+
+    /**
+     * <p>Returns the fingerprint of this exception kind.
+     *
+     * @return fingerprint
+     * @see ThrowableFingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * <p>Returns the class name of the first exception seen with this fingerprint.
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * <p>Returns the number of occurrences since this exception kind started being tracked.
+     *
+     * @return number of occurrences
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * <p>Returns the exponentially weighted moving average rate over one minute.
+     *
+     * @return exceptions per second
+     */
+    public double getOneMinuteRate() {
+        return oneMinuteRate;
+    }
+
+    /**
+     * <p>Returns the exponentially weighted moving average rate over five minutes.
+     *
+     * @return exceptions per second
+     */
+    public double getFiveMinuteRate() {
+        return fiveMinuteRate;
+    }
+
+    /**
+     * <p>Returns the exponentially weighted moving average rate over fifteen minutes.
+     *
+     * @return exceptions per second
+     */
+    public double getFifteenMinuteRate() {
+        return fifteenMinuteRate;
+    }
+
+    /**
+     * <p>Returns how fast this exception kind is rising, the difference between its one minute and fifteen minute
+     * rates.
+     *
+     * @return rise in exceptions per second, negative if the rate is falling
+     */
+    public double getRise() {
+        return oneMinuteRate - fifteenMinuteRate;
+    }
+
+    @Override
+    public String toString() {
+        return "ExceptionRate{" +
+                "fingerprint=" + Long.toHexString(fingerprint) +
+                ", className='" + className + '\'' +
+                ", count=" + count +
+                ", oneMinuteRate=" + oneMinuteRate +
+                ", fiveMinuteRate=" + fiveMinuteRate +
+                ", fifteenMinuteRate=" + fifteenMinuteRate +
+                '}';
+    }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Tracks one, five and fifteen minute rates of rendered exceptions for each fingerprint, using exponentially
+ * weighted moving averages updated every {@link #TICK_INTERVAL_SECONDS} seconds. Rates of a new fingerprint start
+ * from zero, so a fingerprint that starts occurring rises until its fifteen minute rate catches up.
+ *
+ * <p>Occurrences are counted by {@link StripedCounter}s, so request threads recording exceptions at the same time do
+ * not contend with each other. Rates are updated by the first thread that records or reads them after a tick interval
+ * elapses. At most {@link #getCapacity()} fingerprints are tracked; fingerprints that became idle are evicted when
+ * rates are updated and occurrences of new fingerprints are counted as dropped while the tracker is full.
+ *
+ * <pre>
+ * ExceptionRateTracker rateTracker = new ExceptionRateTracker();
+ * Exceptions.setExceptionRateTracker(rateTracker);
+ * ...
+ * List&lt;ExceptionRate&gt; rising = rateTracker.getFastestRising(5);
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionRateTracker {
+
+    /**
+     * Default number of fingerprints tracked.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Time between two rate updates.
+     */
+    public static final int TICK_INTERVAL_SECONDS = 5;
+
+    static final long TICK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(TICK_INTERVAL_SECONDS);
+
+    /**
+     * Fingerprints that are not seen during a tick and whose fifteen minute rate is lower than this rate are evicted.
+     */
+    static final double EVICTION_RATE = 0.001;
+
+    static final double ONE_MINUTE_ALPHA = alpha(1);
+
+    static final double FIVE_MINUTE_ALPHA = alpha(5);
+
+    static final double FIFTEEN_MINUTE_ALPHA = alpha(15);
+
+    private static final Comparator<ExceptionRate> RATE_COMPARATOR = new Comparator<ExceptionRate>() {
+
+        @Override
+        public int compare(final ExceptionRate rate1, final ExceptionRate rate2) {
+            return Double.compare(rate2.getOneMinuteRate(), rate1.getOneMinuteRate());
+        }
+    };
+
+    private static final Comparator<ExceptionRate> RISE_COMPARATOR = new Comparator<ExceptionRate>() {
+
+        @Override
+        public int compare(final ExceptionRate rate1, final ExceptionRate rate2) {
+            return Double.compare(rate2.getRise(), rate1.getRise());
+        }
+    };
+
+    private final int capacity;
+
+    private final ConcurrentMap<Long, Entry> entryMap = new ConcurrentHashMap<Long, Entry>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong lastTick;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public ExceptionRateTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>Creates a tracker that tracks at most <code>capacity</code> fingerprints.
+     *
+     * @param capacity max number of fingerprints tracked
+     * @throws IllegalArgumentException if capacity is less than one
+     */
+    public ExceptionRateTracker(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.lastTick = new AtomicLong(nanoTime());
+    }
+
+    /**
+     * <p>Records an occurrence of the given throwable.
+     *
+     * @param throwable    throwable rendered
+     * @param frameMatcher frame matcher whose ignore packages are skipped while computing the fingerprint, may be null
+     */
+    public void record(final ThrowableWrapper throwable, final FrameMatcher frameMatcher) {
+        if (throwable != null) {
+            record(ThrowableFingerprint.of(throwable, frameMatcher), throwable.getClassName());
+        }
+    }
+
+    /**
+     * <p>Records an occurrence of the given fingerprint.
+     *
+     * @param fingerprint fingerprint of the throwable
+     * @param className   class name of the throwable
+     */
+    void record(final long fingerprint, final String className) {
+        tickIfNecessary();
+
+        Entry entry = entryMap.get(fingerprint);
+        if (entry == null) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                droppedCount.incrementAndGet();
+                return;
+            }
+
+            final Entry newEntry = new Entry(fingerprint, className);
+            entry = entryMap.putIfAbsent(fingerprint, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            } else {
+                size.decrementAndGet();
+            }
+        }
+
+        entry.counter.increment();
+    }
+
+    /**
+     * <p>Returns rates of all tracked fingerprints, highest one minute rate first.
+     *
+     * @return rates of tracked fingerprints
+     */
+    public List<ExceptionRate> getRates() {
+        final List<ExceptionRate> rateList = snapshot();
+        Collections.sort(rateList, RATE_COMPARATOR);
+        return rateList;
+    }
+
+    /**
+     * <p>Returns the fingerprints whose one minute rate exceeds their fifteen minute rate the most.
+     *
+     * @param limit max number of fingerprints returned
+     * @return rising fingerprints, fastest rising first
+     */
+    public List<ExceptionRate> getFastestRising(final int limit) {
+        final List<ExceptionRate> risingList = new ArrayList<ExceptionRate>();
+        for (ExceptionRate rate : snapshot()) {
+            if (rate.getRise() > 0) {
+                risingList.add(rate);
+            }
+        }
+
+        Collections.sort(risingList, RISE_COMPARATOR);
+        return (risingList.size() > limit) ? new ArrayList<ExceptionRate>(risingList.subList(0, Math.max(limit, 0))) : risingList;
+    }
+
+    /**
+     * <p>Returns the number of occurrences that were not tracked because the tracker was full.
+     *
+     * @return number of dropped occurrences
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * <p>Returns the max number of fingerprints tracked.
+     *
+     * @return capacity of this tracker
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * <p>Removes all tracked fingerprints.
+     */
+    public synchronized void reset() {
+        entryMap.clear();
+        size.set(0);
+        droppedCount.set(0);
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    void tickIfNecessary() {
+        final long lastTick = this.lastTick.get();
+        final long age = nanoTime() - lastTick;
+        if (age >= TICK_INTERVAL_NANOS) {
+            final long ticks = age / TICK_INTERVAL_NANOS;
+            if (this.lastTick.compareAndSet(lastTick, lastTick + ticks * TICK_INTERVAL_NANOS)) {
+                tick(ticks);
+            }
+        }
+    }
+
+    /**
+     * <p>Updates rates of all fingerprints for the given number of elapsed tick intervals. Occurrences counted since
+     * the last update are assigned to the first interval.
+     */
+    synchronized void tick(final long ticks) {
+        final Iterator<Entry> iterator = entryMap.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            final long count = entry.counter.sumThenReset();
+            final boolean idle = (count == 0) && entry.initialized;
+            entry.total += count;
+            entry.update(count, ticks);
+
+            if (idle && entry.fifteenMinuteRate < EVICTION_RATE) {
+                iterator.remove();
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    private List<ExceptionRate> snapshot() {
+        tickIfNecessary();
+
+        final List<ExceptionRate> rateList = new ArrayList<ExceptionRate>();
+        for (Entry entry : entryMap.values()) {
+            rateList.add(new ExceptionRate(entry.fingerprint, entry.className, entry.total + entry.counter.sum(), entry.oneMinuteRate, entry.fiveMinuteRate, entry.fifteenMinuteRate));
+        }
+        return rateList;
+    }
+
+    private static double alpha(final int minutes) {
+        return 1 - Math.exp(-TICK_INTERVAL_SECONDS / 60.0 / minutes);
+    }
+
+    private static final class Entry {
+
+        private final long fingerprint;
+
+        private final String className;
+
+        private final StripedCounter counter = new StripedCounter();
+
+        private volatile long total;
+
+        private volatile boolean initialized;
+
+        private volatile double oneMinuteRate;
+
+        private volatile double fiveMinuteRate;
+
+        private volatile double fifteenMinuteRate;
+
+        private Entry(final long fingerprint, final String className) {
+            this.fingerprint = fingerprint;
+            this.className = className;
+        }
+
+        private void update(final long count, final long ticks) {
+            final double instantRate = (double) count / TICK_INTERVAL_SECONDS;
+            oneMinuteRate = decay(oneMinuteRate + ONE_MINUTE_ALPHA * (instantRate - oneMinuteRate), ONE_MINUTE_ALPHA, ticks - 1);
+            fiveMinuteRate = decay(fiveMinuteRate + FIVE_MINUTE_ALPHA * (instantRate - fiveMinuteRate), FIVE_MINUTE_ALPHA, ticks - 1);
+            fifteenMinuteRate = decay(fifteenMinuteRate + FIFTEEN_MINUTE_ALPHA * (instantRate - fifteenMinuteRate), FIFTEEN_MINUTE_ALPHA, ticks - 1);
+            initialized = true;
+        }
+
+        /**
+         * <p>Applies the given number of ticks without occurrences.
+         */
+        private static double decay(final double rate, final double alpha, final long ticks) {
+            return (ticks <= 0) ? rate : rate * Math.pow(1 - alpha, ticks);
+        }
+
+    }
+
+}
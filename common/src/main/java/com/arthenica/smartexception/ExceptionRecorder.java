@@ -0,0 +1,338 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * <p>Records recent exceptions in a fixed size ring buffer, so that an application can log a one line summary and
+ * still dump complete smart stack traces of the latest exceptions when they are needed.
+ *
+ * <p>All slots are allocated when the recorder is created. Recording does not lock and does not render anything. A
+ * recording thread claims a sequence number, marks its slot as being written and publishes an immutable record that
+ * holds a compact copy of the exception together with its thread, timestamp and fingerprint. Readers see either a
+ * complete record or none. When the buffer is full, the oldest records are overwritten. If a slot is still being written by a thread that claimed it one lap earlier, the new record is dropped
+ * and counted instead of waiting.
+ *
+ * <p>Exceptions are not retained. Their stack traces are interned in a {@link FrameDictionary} and kept as
+ * {@link CompactTrace} instances, so a full recorder shares frames between records instead of keeping a copy of each
+ * stack trace and the fields of each exception. Records are rendered only when they are dumped. A record keeps the
+ * frame matcher and render options it was recorded with, records without them are rendered using the global root,
+ * group and ignore packages and options.
+ * Dump the global recorder using {@link #dump(Appendable)}, the <code>dumpRecordedExceptions</code> operation of
+ * the management bean or a shutdown hook.
+ *
+ * <pre>
+ * ExceptionRecorder recorder = new ExceptionRecorder();
+ * Exceptions.setExceptionRecorder(recorder);
+ * recorder.registerShutdownHook(System.err);
+ * ...
+ * long fingerprint = recorder.record(e);
+ * logger.error("Request failed: {} [{}]", e, Long.toHexString(fingerprint));
+ * ...
+ * recorder.dump(System.out);
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionRecorder {
+
+    /**
+     * Default number of exceptions kept.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final AtomicLongFieldUpdater<Slot> STATE_UPDATER = AtomicLongFieldUpdater.newUpdater(Slot.class, "state");
+
+    /**
+     * <p>A pre-allocated slot. State is <code>2 * sequence + 1</code> while the record is being written and
+     * <code>2 * sequence + 2</code> after it is published, zero if the slot was never written. The state only decides
+     * which thread may write the slot, readers use the sequence of the published record.
+     */
+    static final class Slot {
+        volatile long state;
+        volatile RecordedException record;
+    }
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    private final AtomicLong cursor;
+
+    private final AtomicLong droppedCount;
+
+    private final FrameDictionary frameDictionary;
+
+    private Thread shutdownHook;
+
+    /**
+     * <p>Creates a recorder that keeps {@link #DEFAULT_CAPACITY} exceptions.
+     */
+    public ExceptionRecorder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>Creates a recorder that keeps the given number of exceptions, rounded up to a power of two.
+     *
+     * @param capacity number of exceptions kept
+     */
+    public ExceptionRecorder(final int capacity) {
+        this(capacity, new FrameDictionary());
+    }
+
+    /**
+     * <p>Creates a recorder that keeps the given number of exceptions, rounded up to a power of two, interning their
+     * frames in the given dictionary.
+     *
+     * @param capacity        number of exceptions kept
+     * @param frameDictionary dictionary of frames, which can be shared with other recorders
+     */
+    public ExceptionRecorder(final int capacity, final FrameDictionary frameDictionary) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+
+        final int slotCount = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = slotCount - 1;
+        this.cursor = new AtomicLong();
+        this.droppedCount = new AtomicLong();
+        this.frameDictionary = frameDictionary;
+    }
+
+    /**
+     * <p>Records the given exception, computing its fingerprint using the global ignore packages.
+     *
+     * @param throwable exception to record
+     * @return fingerprint of the exception, which can be logged to find it in a dump later
+     */
+    public long record(final Throwable throwable) {
+        return record(throwable, AbstractExceptions.packageConfiguration.getFrameMatcher());
+    }
+
+    /**
+     * <p>Records the given exception, computing its fingerprint using the ignore packages of the given frame matcher.
+     * The record is rendered using the global packages and options when it is dumped.
+     *
+     * @param throwable    exception to record
+     * @param frameMatcher frame matcher of root and ignore packages or null to include all frames in the fingerprint
+     * @return fingerprint of the exception, which can be logged to find it in a dump later
+     */
+    public long record(final Throwable throwable, final FrameMatcher frameMatcher) {
+        return (throwable == null) ? 0 : record(throwable, ThrowableFingerprint.of(throwable, frameMatcher), null, null);
+    }
+
+    /**
+     * <p>Records the given exception, computing its fingerprint using the ignore packages of the given frame matcher.
+     * The record is rendered using the given frame matcher and render options when it is dumped.
+     *
+     * @param throwable     exception to record
+     * @param frameMatcher  frame matcher of root, group and ignore packages or null to include all frames in the
+     *                      fingerprint and render the record using the global packages
+     * @param renderOptions options used when the record is dumped or null to use the global options
+     * @return fingerprint of the exception, which can be logged to find it in a dump later
+     */
+    public long record(final Throwable throwable, final FrameMatcher frameMatcher, final RenderOptions renderOptions) {
+        return (throwable == null) ? 0 : record(throwable, ThrowableFingerprint.of(throwable, frameMatcher), frameMatcher, renderOptions);
+    }
+
+    private long record(final Throwable throwable, final long fingerprint, final FrameMatcher frameMatcher, final RenderOptions renderOptions) {
+        final long sequence = cursor.getAndIncrement();
+        final Slot slot = slots[(int) (sequence & mask)];
+
+        final long state = slot.state;
+        if ((state & 1) != 0 || state >= 2 * sequence + 2 || !STATE_UPDATER.compareAndSet(slot, state, 2 * sequence + 1)) {
+            droppedCount.incrementAndGet();
+            return fingerprint;
+        }
+
+        final Thread thread = Thread.currentThread();
+        slot.record = new RecordedException(sequence, System.currentTimeMillis(), thread.getName(), thread.getId(), fingerprint, frameDictionary.compact(throwable), frameMatcher, renderOptions);
+        slot.state = 2 * sequence + 2;
+
+        return fingerprint;
+    }
+
+    /**
+     * <p>Returns the exceptions currently kept, oldest first. Records that are being written or overwritten while
+     * they are read are skipped.
+     *
+     * @return list of recorded exceptions
+     */
+    public List<RecordedException> getRecords() {
+        final long end = cursor.get();
+        final long start = Math.max(0, end - slots.length);
+
+        final List<RecordedException> recordList = new ArrayList<RecordedException>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            final RecordedException record = slots[(int) (sequence & mask)].record;
+            if (record != null && record.getSequence() == sequence) {
+                recordList.add(record);
+            }
+        }
+
+        return recordList;
+    }
+
+    /**
+     * <p>Returns the number of exceptions recorded since this recorder was created, including dropped ones.
+     *
+     * @return number of recorded exceptions
+     */
+    public long getRecordedCount() {
+        return cursor.get();
+    }
+
+    /**
+     * <p>Returns the number of exceptions dropped because their slot was still being written.
+     *
+     * @return number of dropped exceptions
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * <p>Returns the max number of exceptions kept.
+     *
+     * @return capacity of this recorder
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * <p>Returns the dictionary used to intern frames of recorded exceptions.
+     *
+     * @return frame dictionary
+     */
+    public FrameDictionary getFrameDictionary() {
+        return frameDictionary;
+    }
+
+    /**
+     * <p>Renders the exceptions currently kept and writes them, oldest first. Each record is rendered using the frame
+     * matcher and render options it was recorded with, or the global root, group and ignore packages and options.
+     *
+     * @param appendable destination of the dump
+     * @throws IOException if the dump can not be written
+     */
+    public void dump(final Appendable appendable) throws IOException {
+        final List<RecordedException> recordList = getRecords();
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        final FrameMatcher globalFrameMatcher = AbstractExceptions.packageConfiguration.getFrameMatcher();
+        final RenderOptions globalRenderOptions = RenderOptions.global();
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Recorded exceptions at %s: %d recorded, %d dropped, last %d of %d kept%n", dateFormat.format(new Date()), getRecordedCount(), getDroppedCount(), recordList.size(), slots.length));
+        for (RecordedException record : recordList) {
+            builder.append(String.format("#%d %s [%s] fingerprint %016x%n", record.getSequence(), dateFormat.format(new Date(record.getTimestamp())), record.getThreadName(), record.getFingerprint()));
+            final FrameMatcher frameMatcher = (record.getFrameMatcher() == null) ? globalFrameMatcher : record.getFrameMatcher();
+            final RenderOptions options = (record.getRenderOptions() == null) ? globalRenderOptions : record.getRenderOptions();
+            builder.append(AbstractExceptions.getStackTraceString(RenderEntryPoint.EXCEPTION_RECORDER, record.getThrowable(), "", false, false, frameMatcher, options.getMaxDepth(), options.isIgnoreAllCauses(), options.isPrintPackageInformation(), options.isPrintModuleName(), options.isPrintSuppressedExceptions(), options.isPrintBoundaryFramesOnly(), options.isGroupLibraries()));
+            builder.append(String.format("%n"));
+        }
+
+        appendable.append(builder);
+        if (appendable instanceof Flushable) {
+            ((Flushable) appendable).flush();
+        }
+    }
+
+    /**
+     * <p>Returns the dump of the exceptions currently kept as a string.
+     *
+     * @return dump of recorded exceptions
+     * @see #dump(Appendable)
+     */
+    public String dump() {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            dump(builder);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * <p>Registers a shutdown hook that dumps this recorder when the virtual machine shuts down. A hook that was
+     * registered before is removed.
+     *
+     * @param appendable destination of the dump
+     */
+    public synchronized void registerShutdownHook(final Appendable appendable) {
+        unregisterShutdownHook();
+
+        shutdownHook = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    dump(appendable);
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "smart-exception-recorder");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * <p>Removes the shutdown hook registered by {@link #registerShutdownHook(Appendable)}.
+     */
+    public synchronized void unregisterShutdownHook() {
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (final IllegalStateException ignored) {
+                // virtual machine is already shutting down
+            }
+            shutdownHook = null;
+        }
+    }
+
+}
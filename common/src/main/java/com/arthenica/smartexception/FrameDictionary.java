@@ -0,0 +1,350 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Concurrent dictionary of stack trace elements, which assigns an int id to each unique frame and interns class
+ * names and messages, so that retained exceptions can be stored as {@link CompactTrace} instances that share frames
+ * instead of keeping their own <code>StackTraceElement</code> objects.
+ *
+ * <p>Frames are kept in generations of at most {@link #getCapacity()} frames and strings. Interning a known frame is a
+ * lock free lookup. When the current generation is full, a new generation is started and traces compacted afterwards
+ * use it. Each trace references the generation its ids belong to, so an old generation stays reachable only while a
+ * trace that uses it is retained and is reclaimed by the garbage collector after that. A throwable that does not fit
+ * into an empty generation is compacted into a generation of its own, which is not shared with other traces.
+ *
+ * <pre>
+ * FrameDictionary dictionary = new FrameDictionary();
+ * CompactTrace trace = dictionary.compact(e);
+ * ...
+ * String stackTrace = Exceptions.getStackTraceString(trace.toThrowableWrapper());
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class FrameDictionary {
+
+    /**
+     * Default number of frames and strings kept in a generation.
+     */
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    /**
+     * <p>A set of interned frames and strings. Ids are indexes of the frame array and are never reused.
+     */
+    static final class Generation {
+        final ConcurrentMap<StackTraceElement, Integer> ids;
+        final AtomicReferenceArray<StackTraceElement> frames;
+        final AtomicInteger frameCount;
+        final ConcurrentMap<String, String> strings;
+
+        Generation(final int capacity) {
+            this.ids = new ConcurrentHashMap<StackTraceElement, Integer>();
+            this.frames = new AtomicReferenceArray<StackTraceElement>(capacity);
+            this.frameCount = new AtomicInteger();
+            this.strings = new ConcurrentHashMap<String, String>();
+        }
+
+        /**
+         * <p>Returns the id of the given frame, assigning a new one if it is not interned yet.
+         *
+         * @return id of the frame or -1 if this generation is full
+         */
+        int intern(final StackTraceElement frame) {
+            final Integer id = ids.get(frame);
+            if (id != null) {
+                return id;
+            }
+
+            final int newId = frameCount.getAndIncrement();
+            if (newId >= frames.length()) {
+                return -1;
+            }
+
+            // the frame is stored before its id is published, so every published id resolves
+            frames.set(newId, frame);
+            final Integer existingId = ids.putIfAbsent(frame, newId);
+            return (existingId == null) ? newId : existingId;
+        }
+
+        /**
+         * <p>Returns the interned copy of the given string or the string itself if this generation is full.
+         */
+        String intern(final String value) {
+            if (value == null) {
+                return null;
+            }
+
+            final String existing = strings.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            if (strings.size() >= frames.length()) {
+                return value;
+            }
+
+            final String previous = strings.putIfAbsent(value, value);
+            return (previous == null) ? value : previous;
+        }
+
+        StackTraceElement getFrame(final int id) {
+            return frames.get(id);
+        }
+    }
+
+    private final int capacity;
+
+    private volatile Generation generation;
+
+    private final AtomicLong generationCount;
+
+    /**
+     * <p>Creates a dictionary that keeps {@link #DEFAULT_CAPACITY} frames in a generation.
+     */
+    public FrameDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>Creates a dictionary that keeps the given number of frames and strings in a generation.
+     *
+     * @param capacity max number of frames and strings in a generation
+     * @throws IllegalArgumentException if capacity is less than one
+     */
+    public FrameDictionary(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.generation = new Generation(capacity);
+        this.generationCount = new AtomicLong(1);
+    }
+
+    /**
+     * <p>Returns a compact copy of the given throwable, its causes and its suppressed exceptions.
+     *
+     * @param throwable throwable
+     * @return compact trace or null if throwable is null
+     */
+    public CompactTrace compact(final Throwable throwable) {
+        if (throwable == null) {
+            return null;
+        }
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final Generation current = generation;
+            final CompactTrace trace = compact(current, throwable, Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>()));
+            if (trace != null) {
+                return trace;
+            }
+            if (attempt == 0) {
+                nextGeneration(current);
+            }
+        }
+
+        // the throwable does not fit into a generation, it gets a generation of its own
+        for (int privateCapacity = nextCapacity(capacity); ; privateCapacity = nextCapacity(privateCapacity)) {
+            final CompactTrace trace = compact(new Generation(privateCapacity), throwable, Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>()));
+            if (trace != null) {
+                return trace;
+            }
+        }
+    }
+
+    /**
+     * <p>Returns a compact copy of the given throwable wrapper, its causes and its suppressed exceptions.
+     *
+     * @param throwable throwable wrapper
+     * @return compact trace or null if throwable is null
+     */
+    public CompactTrace compact(final ThrowableWrapper throwable) {
+        if (throwable == null) {
+            return null;
+        }
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final Generation current = generation;
+            final CompactTrace trace = compact(current, throwable, 0);
+            if (trace != null) {
+                return trace;
+            }
+            if (attempt == 0) {
+                nextGeneration(current);
+            }
+        }
+
+        // the throwable does not fit into a generation, it gets a generation of its own
+        for (int privateCapacity = nextCapacity(capacity); ; privateCapacity = nextCapacity(privateCapacity)) {
+            final CompactTrace trace = compact(new Generation(privateCapacity), throwable, 0);
+            if (trace != null) {
+                return trace;
+            }
+        }
+    }
+
+    /**
+     * <p>Returns the number of frames interned in the current generation.
+     *
+     * @return number of frames
+     */
+    public int getSize() {
+        return Math.min(generation.frameCount.get(), capacity);
+    }
+
+    /**
+     * <p>Returns the max number of frames and strings kept in a generation.
+     *
+     * @return capacity of a generation
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * <p>Returns the number of generations created by this dictionary, including the current one.
+     *
+     * @return number of generations
+     */
+    public long getGenerationCount() {
+        return generationCount.get();
+    }
+
+    private static int nextCapacity(final int capacity) {
+        if (capacity >= (1 << 30)) {
+            throw new IllegalArgumentException("Throwable has too many frames to compact.");
+        }
+        return capacity * 2;
+    }
+
+    private void nextGeneration(final Generation full) {
+        synchronized (this) {
+            if (generation == full) {
+                generation = new Generation(capacity);
+                generationCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * <p>Compacts the given throwable using the given generation.
+     *
+     * @return compact trace or null if the generation became full
+     */
+    private static CompactTrace compact(final Generation generation, final Throwable throwable, final Set<Throwable> alreadyCompacted) {
+        alreadyCompacted.add(throwable);
+
+        final StackTraceElement[] stackTrace = throwable.getStackTrace();
+        final int[] frameIds = new int[stackTrace.length];
+        for (int i = 0; i < stackTrace.length; i++) {
+            frameIds[i] = generation.intern(stackTrace[i]);
+            if (frameIds[i] < 0) {
+                return null;
+            }
+        }
+
+        CompactTrace cause = null;
+        if (throwable.getCause() != null && !alreadyCompacted.contains(throwable.getCause())) {
+            cause = compact(generation, throwable.getCause(), alreadyCompacted);
+            if (cause == null) {
+                return null;
+            }
+        }
+
+        final Throwable[] suppressedThrowableArray = throwable.getSuppressed();
+        CompactTrace[] suppressed = new CompactTrace[suppressedThrowableArray.length];
+        int suppressedCount = 0;
+        for (Throwable suppressedThrowable : suppressedThrowableArray) {
+            if (!alreadyCompacted.contains(suppressedThrowable)) {
+                final CompactTrace suppressedTrace = compact(generation, suppressedThrowable, alreadyCompacted);
+                if (suppressedTrace == null) {
+                    return null;
+                }
+                suppressed[suppressedCount++] = suppressedTrace;
+            }
+        }
+        if (suppressedCount < suppressed.length) {
+            final CompactTrace[] trimmed = new CompactTrace[suppressedCount];
+            System.arraycopy(suppressed, 0, trimmed, 0, suppressedCount);
+            suppressed = trimmed;
+        }
+
+        return new CompactTrace(generation, generation.intern(throwable.getClass().getName()), generation.intern(throwable.getMessage()), frameIds, cause, suppressed);
+    }
+
+    /**
+     * <p>Compacts the given throwable wrapper using the given generation.
+     *
+     * @return compact trace or null if the generation became full
+     */
+    private static CompactTrace compact(final Generation generation, final ThrowableWrapper throwable, final int depth) {
+        final StackTraceElementWrapper[] stackTrace = throwable.getStackTrace();
+        final int[] frameIds = new int[(stackTrace == null) ? 0 : stackTrace.length];
+        for (int i = 0; i < frameIds.length; i++) {
+            frameIds[i] = generation.intern(stackTrace[i].getStackTraceElement());
+            if (frameIds[i] < 0) {
+                return null;
+            }
+        }
+
+        CompactTrace cause = null;
+        if (throwable.getCause() != null && depth < ThrowableFingerprint.MAX_CAUSES) {
+            cause = compact(generation, throwable.getCause(), depth + 1);
+            if (cause == null) {
+                return null;
+            }
+        }
+
+        final ThrowableWrapper[] suppressedThrowableArray = throwable.getSuppressed();
+        final CompactTrace[] suppressed = new CompactTrace[(suppressedThrowableArray == null || depth >= ThrowableFingerprint.MAX_CAUSES) ? 0 : suppressedThrowableArray.length];
+        for (int i = 0; i < suppressed.length; i++) {
+            suppressed[i] = compact(generation, suppressedThrowableArray[i], depth + 1);
+            if (suppressed[i] == null) {
+                return null;
+            }
+        }
+
+        return new CompactTrace(generation, generation.intern(throwable.getClassName()), generation.intern(throwable.getMessage()), frameIds, cause, suppressed);
+    }
+
+}
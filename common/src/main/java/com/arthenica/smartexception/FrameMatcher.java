@@ -0,0 +1,850 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Compiled form of root, group, ignore and ignore cause rules.
+ *
+ * <p>A rule is either a package prefix or a glob pattern.
+ * <ul>
+ *     <li>Rules without wildcards are package prefixes, e.g. <code>org.springframework</code> matches all classes
+ *     whose names start with it.</li>
+ *     <li><code>*</code> matches any sequence of characters and <code>?</code> matches a single character, e.g.
+ *     <code>*$$EnhancerBySpringCGLIB$$*</code> or <code>com.example.*.generated.*</code>. Glob patterns must match the
+ *     whole class name.</li>
+ *     <li>A method pattern can be appended after <code>#</code>, e.g. <code>com.example.*#lambda$*</code> or
+ *     <code>*#invoke0</code>. Rules without <code>#</code> match all methods of a class.</li>
+ * </ul>
+ *
+ * <p>All rules are compiled into a single deterministic automaton, so matching a frame reads its class and method
+ * name once no matter how many rules are registered. The state reached after reading a class name is cached, so
+ * frequently seen classes are classified with a single lookup.
+ *
+ * <p>Rules that would need more than {@link #MAX_STATES} states, e.g. many globs with several wildcards, are not
+ * rejected. They are matched by simulating the non-deterministic automaton instead, which is slower but uses memory
+ * proportional to the total length of the rules.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class FrameMatcher {
+
+    /**
+     * <p>Match flag set when the class belongs to a root package.
+     */
+    public static final int ROOT = 0x1;
+
+    /**
+     * <p>Match flag set when the class belongs to an ignore package.
+     */
+    public static final int IGNORE = 0x2;
+
+    /**
+     * <p>Match flag set when the class belongs to an ignore cause package.
+     */
+    public static final int IGNORE_CAUSE = 0x4;
+
+    /**
+     * <p>Classification flag set on frames that are printed when only boundary frames are printed. It is not set by
+     * rules.
+     */
+    public static final int BOUNDARY = 0x8;
+
+    /**
+     * <p>Number of bits reserved for match flags. Group index is stored in the bits above.
+     */
+    static final int GROUP_SHIFT = 8;
+
+    /**
+     * <p>Max number of compiled matchers kept in the matcher cache.
+     */
+    public static final int MATCHER_CACHE_SIZE = 64;
+
+    /**
+     * <p>Max number of automaton states a matcher can have.
+     */
+    public static final int MAX_STATES = 65536;
+
+    /**
+     * <p>Max number of class names kept in the class state cache of a matcher.
+     */
+    public static final int CLASS_CACHE_SIZE = 4096;
+
+    /**
+     * <p>Character separating class and method patterns.
+     */
+    static final char METHOD_SEPARATOR = '#';
+
+    /**
+     * <p>Caches compiled matchers using the contents of the package sets they are compiled from.
+     */
+    static final ConcurrentMap<Key, FrameMatcher> matcherCache = new ConcurrentHashMap<Key, FrameMatcher>();
+
+    static final AtomicLong matcherCacheHits = new AtomicLong();
+
+    static final AtomicLong matcherCacheMisses = new AtomicLong();
+
+    static final AtomicLong matcherCacheEvictions = new AtomicLong();
+
+    private static final int TOKEN_ONE = -1;
+
+    private static final int TOKEN_STAR = -2;
+
+    private static final int TOKEN_ANY = -3;
+
+    /**
+     * <p>Character classes of ascii characters. Characters not used in any rule share class zero.
+     */
+    private final int[] asciiClasses;
+
+    /**
+     * <p>Non-ascii characters used in rules, sorted, and their classes.
+     */
+    private final char[] extraCharacters;
+
+    private final int[] extraClasses;
+
+    private final int classCount;
+
+    /**
+     * <p>Transition table, <code>transitions[state * classCount + characterClass]</code> is the next state.
+     */
+    private final int[] transitions;
+
+    /**
+     * <p>Match result of each state.
+     */
+    private final int[] results;
+
+    /**
+     * <p>States that can not be left, matching stops when one is reached.
+     */
+    private final boolean[] finalStates;
+
+    private final String[] groupPackages;
+
+    /**
+     * <p>Builder of the non-deterministic automaton simulated when rules need too many states, null otherwise.
+     */
+    private final Builder builder;
+
+    private final State startState;
+
+    /**
+     * <p>Caches the state reached after reading a class name.
+     */
+    private final ConcurrentMap<String, Integer> classStateCache = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * <p>Caches the non-deterministic state reached after reading a class name, used when there is no automaton.
+     */
+    private final ConcurrentMap<String, State> classPositionCache = new ConcurrentHashMap<String, State>();
+
+    private final AtomicLong classCacheMisses = new AtomicLong();
+
+    private final AtomicLong classCacheEvictions = new AtomicLong();
+
+    private FrameMatcher(final int[] asciiClasses, final char[] extraCharacters, final int[] extraClasses, final int classCount, final int[] transitions, final int[] results, final boolean[] finalStates, final String[] groupPackages) {
+        this.asciiClasses = asciiClasses;
+        this.extraCharacters = extraCharacters;
+        this.extraClasses = extraClasses;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.results = results;
+        this.finalStates = finalStates;
+        this.groupPackages = groupPackages;
+        this.builder = null;
+        this.startState = null;
+    }
+
+    private FrameMatcher(final Builder builder, final State startState) {
+        this.asciiClasses = null;
+        this.extraCharacters = null;
+        this.extraClasses = null;
+        this.classCount = 0;
+        this.transitions = null;
+        this.results = null;
+        this.finalStates = null;
+        this.groupPackages = builder.groupPackages;
+        this.builder = builder;
+        this.startState = startState;
+    }
+
+    /**
+     * <p>Returns a matcher compiled from the given package sets. Compiled matchers are cached, so the same package
+     * sets are compiled only once.
+     *
+     * @param rootPackageSet        root packages
+     * @param groupPackageSet       group packages
+     * @param ignorePackageSet      ignore packages
+     * @param ignoreCausePackageSet ignore cause packages
+     * @return compiled matcher
+     */
+    public static FrameMatcher of(final Set<String> rootPackageSet, final Set<String> groupPackageSet, final Set<String> ignorePackageSet, final Set<String> ignoreCausePackageSet) {
+        final Key key = new Key(rootPackageSet, groupPackageSet, ignorePackageSet, ignoreCausePackageSet);
+
+        FrameMatcher frameMatcher = matcherCache.get(key);
+        if (frameMatcher == null) {
+            matcherCacheMisses.incrementAndGet();
+            final Key copy = key.copy();
+            frameMatcher = compile(copy.rootPackageSet, copy.groupPackageSet, copy.ignorePackageSet, copy.ignoreCausePackageSet);
+
+            if (matcherCache.size() >= MATCHER_CACHE_SIZE) {
+                matcherCacheEvictions.addAndGet(matcherCache.size());
+                matcherCache.clear();
+            }
+            matcherCache.put(copy, frameMatcher);
+        } else {
+            matcherCacheHits.incrementAndGet();
+        }
+
+        return frameMatcher;
+    }
+
+    /**
+     * <p>Removes all compiled matchers from the matcher cache. Matchers already in use are not affected.
+     */
+    public static void clearMatcherCache() {
+        matcherCache.clear();
+    }
+
+    /**
+     * <p>Returns the number of compiled matchers in the matcher cache.
+     *
+     * @return number of cached matchers
+     */
+    public static int getMatcherCacheSize() {
+        return matcherCache.size();
+    }
+
+    /**
+     * <p>Returns the number of times a compiled matcher was found in the matcher cache.
+     *
+     * @return number of matcher cache hits
+     */
+    public static long getMatcherCacheHits() {
+        return matcherCacheHits.get();
+    }
+
+    /**
+     * <p>Returns the number of times a matcher was compiled because it was not found in the matcher cache.
+     *
+     * @return number of matcher cache misses
+     */
+    public static long getMatcherCacheMisses() {
+        return matcherCacheMisses.get();
+    }
+
+    /**
+     * <p>Returns the number of matchers removed from the matcher cache because it was full.
+     *
+     * @return number of matcher cache evictions
+     */
+    public static long getMatcherCacheEvictions() {
+        return matcherCacheEvictions.get();
+    }
+
+    /**
+     * <p>Compiles the given rules into a new matcher.
+     *
+     * @param rootPackages        root packages or patterns
+     * @param groupPackages       group packages or patterns
+     * @param ignorePackages      ignore packages or patterns
+     * @param ignoreCausePackages ignore cause packages or patterns
+     * @return compiled matcher
+     */
+    public static FrameMatcher compile(final Collection<String> rootPackages, final Collection<String> groupPackages, final Collection<String> ignorePackages, final Collection<String> ignoreCausePackages) {
+        final List<Rule> ruleList = new ArrayList<Rule>();
+        final List<String> groupList = new ArrayList<String>();
+
+        addRules(ruleList, rootPackages, ROOT);
+        addRules(ruleList, ignorePackages, IGNORE);
+        addRules(ruleList, ignoreCausePackages, IGNORE_CAUSE);
+        for (String groupPackage : groupPackages) {
+            if (groupPackage != null && !groupList.contains(groupPackage)) {
+                groupList.add(groupPackage);
+                addRule(ruleList, groupPackage, groupList.size() << GROUP_SHIFT);
+            }
+        }
+
+        return new Builder(ruleList, groupList.toArray(new String[0])).build();
+    }
+
+    private static void addRules(final List<Rule> ruleList, final Collection<String> patterns, final int flag) {
+        for (String pattern : patterns) {
+            if (pattern != null) {
+                addRule(ruleList, pattern, flag);
+            }
+        }
+    }
+
+    private static void addRule(final List<Rule> ruleList, final String pattern, final int result) {
+        final boolean glob = pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0;
+        final boolean method = pattern.indexOf(METHOD_SEPARATOR) >= 0;
+
+        final List<Integer> tokenList = new ArrayList<Integer>();
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '*') {
+                tokenList.add(TOKEN_STAR);
+            } else if (c == '?') {
+                tokenList.add(TOKEN_ONE);
+            } else {
+                tokenList.add((int) c);
+            }
+        }
+
+        if (!glob && !method) {
+
+            // package prefix
+            tokenList.add(TOKEN_ANY);
+        } else if (tokenList.get(tokenList.size() - 1) == TOKEN_STAR) {
+
+            // a trailing wildcard matches the method name too
+            tokenList.set(tokenList.size() - 1, TOKEN_ANY);
+        } else if (!method) {
+
+            // class pattern, matches with or without a method name
+            final List<Integer> methodTokenList = new ArrayList<Integer>(tokenList);
+            methodTokenList.add((int) METHOD_SEPARATOR);
+            methodTokenList.add(TOKEN_ANY);
+            ruleList.add(new Rule(methodTokenList, result, pattern.length()));
+        }
+
+        ruleList.add(new Rule(tokenList, result, pattern.length()));
+    }
+
+    /**
+     * <p>Matches the given class name against all rules. Rules with a method pattern are not matched.
+     *
+     * @param className fully qualified class name
+     * @return match flags combined with the index of the matching group package
+     */
+    public int match(final String className) {
+        return match(className, null);
+    }
+
+    /**
+     * <p>Matches the given frame against all rules.
+     *
+     * <p>Root, ignore and ignore cause flags are set if any of the rules of that kind matches. If more than one group
+     * rule matches, the longest one is selected.
+     *
+     * @param className  fully qualified class name
+     * @param methodName method name or null if method rules should not be matched
+     * @return match flags combined with the index of the matching group package
+     */
+    public int match(final String className, final String methodName) {
+        if (builder != null) {
+            return simulate(className, methodName);
+        }
+
+        int state = classState(className);
+        if (!finalStates[state]) {
+            if (methodName != null) {
+                state = transitions[state * classCount + characterClass(METHOD_SEPARATOR)];
+                if (!finalStates[state]) {
+                    state = walk(state, methodName);
+                }
+            }
+        }
+
+        return results[state];
+    }
+
+    /**
+     * <p>Classifies the given stack trace elements in a single pass.
+     *
+     * @param stackTraceElements stack trace elements
+     * @return match result of each stack trace element, see {@link #match(String, String)}
+     */
+    public int[] classify(final StackTraceElement[] stackTraceElements) {
+        final int[] frameClasses = new int[stackTraceElements.length];
+        for (int i = 0; i < stackTraceElements.length; i++) {
+            frameClasses[i] = match(stackTraceElements[i].getClassName(), stackTraceElements[i].getMethodName());
+        }
+        return frameClasses;
+    }
+
+    private int classState(final String className) {
+        final Integer cachedState = classStateCache.get(className);
+        if (cachedState != null) {
+            return cachedState;
+        }
+
+        classCacheMisses.incrementAndGet();
+        final int state = walk(0, className);
+        if (classStateCache.size() >= CLASS_CACHE_SIZE) {
+            classCacheEvictions.addAndGet(classStateCache.size());
+            classStateCache.clear();
+        }
+        classStateCache.put(className, state);
+
+        return state;
+    }
+
+    /**
+     * <p>Matches the given frame by simulating the non-deterministic automaton.
+     */
+    private int simulate(final String className, final String methodName) {
+        State state = classPositionCache.get(className);
+        if (state == null) {
+            classCacheMisses.incrementAndGet();
+            state = simulate(startState, className);
+            if (classPositionCache.size() >= CLASS_CACHE_SIZE) {
+                classCacheEvictions.addAndGet(classPositionCache.size());
+                classPositionCache.clear();
+            }
+            classPositionCache.put(className, state);
+        }
+
+        if (methodName != null && !state.positions.isEmpty()) {
+            state = simulate(builder.step(state, METHOD_SEPARATOR), methodName);
+        }
+
+        return builder.result(state);
+    }
+
+    private State simulate(State state, final String string) {
+        final int length = string.length();
+        for (int i = 0; i < length && !state.positions.isEmpty(); i++) {
+            state = builder.step(state, string.charAt(i));
+        }
+        return state;
+    }
+
+    private int walk(int state, final String string) {
+        final int length = string.length();
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * classCount + characterClass(string.charAt(i))];
+            if (finalStates[state]) {
+                break;
+            }
+        }
+        return state;
+    }
+
+    private int characterClass(final char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+
+        int low = 0;
+        int high = extraCharacters.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (extraCharacters[middle] < c) {
+                low = middle + 1;
+            } else if (extraCharacters[middle] > c) {
+                high = middle - 1;
+            } else {
+                return extraClasses[middle];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * <p>Returns the group package selected by the given match result.
+     *
+     * @param match match result returned by {@link #match(String)}
+     * @return group package or null if no group package matched
+     */
+    public String getGroupPackage(final int match) {
+        final int group = match >>> GROUP_SHIFT;
+        return (group == 0) ? null : groupPackages[group - 1];
+    }
+
+    /**
+     * <p>Returns whether the given match result includes the given flag.
+     *
+     * @param match match result returned by {@link #match(String)}
+     * @param flag  one of {@link #ROOT}, {@link #IGNORE} or {@link #IGNORE_CAUSE}
+     * @return true if the flag is set, false otherwise
+     */
+    public static boolean hasFlag(final int match, final int flag) {
+        return (match & flag) != 0;
+    }
+
+    /**
+     * <p>Returns the number of automaton states.
+     *
+     * @return number of states or zero if rules are matched without an automaton
+     */
+    public int getStateCount() {
+        return (results == null) ? 0 : results.length;
+    }
+
+    /**
+     * <p>Returns whether rules are compiled into a deterministic automaton. Rules that need more than
+     * {@link #MAX_STATES} states are matched by simulating the non-deterministic automaton instead.
+     *
+     * @return true if rules are compiled into a deterministic automaton
+     */
+    public boolean isDeterministic() {
+        return builder == null;
+    }
+
+    /**
+     * <p>Returns the number of class names in the class state cache.
+     *
+     * @return number of cached class names
+     */
+    public int getClassCacheSize() {
+        return classStateCache.size() + classPositionCache.size();
+    }
+
+    /**
+     * <p>Returns the number of class names matched because they were not found in the class state cache.
+     *
+     * @return number of class state cache misses
+     */
+    public long getClassCacheMisses() {
+        return classCacheMisses.get();
+    }
+
+    /**
+     * <p>Returns the number of class names removed from the class state cache because it was full.
+     *
+     * @return number of class state cache evictions
+     */
+    public long getClassCacheEvictions() {
+        return classCacheEvictions.get();
+    }
+
+    /**
+     * <p>Removes all class names from the class state cache.
+     */
+    public void clearClassCache() {
+        classStateCache.clear();
+        classPositionCache.clear();
+    }
+
+    /**
+     * <p>A single rule. Tokens are characters, {@link #TOKEN_ONE}, {@link #TOKEN_STAR} or {@link #TOKEN_ANY}.
+     */
+    static class Rule {
+        final int[] tokens;
+        final int result;
+        final int length;
+
+        Rule(final List<Integer> tokenList, final int result, final int length) {
+            this.tokens = new int[tokenList.size()];
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = tokenList.get(i);
+            }
+            this.result = result;
+            this.length = length;
+        }
+
+        boolean accepts(final int token, final char c) {
+            switch (token) {
+                case TOKEN_ANY:
+                    return true;
+                case TOKEN_ONE:
+                case TOKEN_STAR:
+                    return c != METHOD_SEPARATOR;
+                default:
+                    return token == c;
+            }
+        }
+    }
+
+    /**
+     * <p>Builds the automaton from rules using subset construction. Each rule position is a state of the
+     * non-deterministic automaton, each set of positions reached by the same input is a state of the matcher.
+     *
+     * <p>A rule that reaches its trailing <code>*</code> matches whatever follows, so its position is dropped and its
+     * result is recorded in the state instead. This keeps the number of states close to the total length of the rules.
+     */
+    static class Builder {
+        final List<Rule> ruleList;
+        final String[] groupPackages;
+        final int[] offsets;
+        final int positionCount;
+
+        Builder(final List<Rule> ruleList, final String[] groupPackages) {
+            this.ruleList = ruleList;
+            this.groupPackages = groupPackages;
+            this.offsets = new int[ruleList.size()];
+
+            int offset = 0;
+            for (int i = 0; i < ruleList.size(); i++) {
+                offsets[i] = offset;
+                offset += ruleList.get(i).tokens.length + 1;
+            }
+            this.positionCount = offset;
+        }
+
+        FrameMatcher build() {
+            final TreeSet<Character> characterSet = new TreeSet<Character>();
+            characterSet.add(METHOD_SEPARATOR);
+            for (Rule rule : ruleList) {
+                for (int token : rule.tokens) {
+                    if (token >= 0) {
+                        characterSet.add((char) token);
+                    }
+                }
+            }
+
+            final int[] asciiClasses = new int[128];
+            final char[] representatives = new char[characterSet.size() + 1];
+            final List<Character> extraCharacterList = new ArrayList<Character>();
+            final List<Integer> extraClassList = new ArrayList<Integer>();
+            representatives[0] = otherCharacter(characterSet);
+            int classCount = 1;
+            for (Character c : characterSet) {
+                representatives[classCount] = c;
+                if (c < 128) {
+                    asciiClasses[c] = classCount;
+                } else {
+                    extraCharacterList.add(c);
+                    extraClassList.add(classCount);
+                }
+                classCount++;
+            }
+            final char[] extraCharacters = new char[extraCharacterList.size()];
+            final int[] extraClasses = new int[extraClassList.size()];
+            for (int i = 0; i < extraCharacters.length; i++) {
+                extraCharacters[i] = extraCharacterList.get(i);
+                extraClasses[i] = extraClassList.get(i);
+            }
+
+            final List<State> stateList = new ArrayList<State>();
+            final Map<State, Integer> stateMap = new HashMap<State, Integer>();
+            final List<int[]> transitionList = new ArrayList<int[]>();
+
+            final State start = new State(positionCount, 0);
+            for (int i = 0; i < ruleList.size(); i++) {
+                addPosition(start, i, 0);
+            }
+            stateList.add(start);
+            stateMap.put(start, 0);
+
+            for (int state = 0; state < stateList.size(); state++) {
+                final State current = stateList.get(state);
+                final int[] row = new int[classCount];
+                for (int characterClass = 0; characterClass < classCount; characterClass++) {
+                    final State next = step(current, representatives[characterClass]);
+                    Integer nextState = stateMap.get(next);
+                    if (nextState == null) {
+                        if (stateList.size() >= MAX_STATES) {
+                            return new FrameMatcher(this, start);
+                        }
+                        nextState = stateList.size();
+                        stateList.add(next);
+                        stateMap.put(next, nextState);
+                    }
+                    row[characterClass] = nextState;
+                }
+                transitionList.add(row);
+            }
+
+            final int stateCount = stateList.size();
+            final int[] transitions = new int[stateCount * classCount];
+            final int[] results = new int[stateCount];
+            final boolean[] finalStates = new boolean[stateCount];
+            for (int state = 0; state < stateCount; state++) {
+                final int[] row = transitionList.get(state);
+                System.arraycopy(row, 0, transitions, state * classCount, classCount);
+                results[state] = result(stateList.get(state));
+                finalStates[state] = stateList.get(state).positions.isEmpty();
+            }
+
+            return new FrameMatcher(asciiClasses, extraCharacters, extraClasses, classCount, transitions, results, finalStates, groupPackages);
+        }
+
+        private static char otherCharacter(final Set<Character> characterSet) {
+            char c = 0;
+            while (characterSet.contains(c)) {
+                c++;
+            }
+            return c;
+        }
+
+        private void addPosition(final State state, final int ruleIndex, int position) {
+            final Rule rule = ruleList.get(ruleIndex);
+            final int[] tokens = rule.tokens;
+
+            // wildcards can match an empty sequence
+            while (position < tokens.length && tokens[position] == TOKEN_STAR) {
+                state.positions.set(offsets[ruleIndex] + position);
+                position++;
+            }
+
+            if (position == tokens.length - 1 && tokens[position] == TOKEN_ANY) {
+                state.result = merge(state.result, rule.result);
+            } else {
+                state.positions.set(offsets[ruleIndex] + position);
+            }
+        }
+
+        private State step(final State state, final char c) {
+            final State next = new State(positionCount, state.result);
+            int ruleIndex = 0;
+            for (int i = state.positions.nextSetBit(0); i >= 0; i = state.positions.nextSetBit(i + 1)) {
+                while (ruleIndex + 1 < offsets.length && offsets[ruleIndex + 1] <= i) {
+                    ruleIndex++;
+                }
+                final Rule rule = ruleList.get(ruleIndex);
+                final int position = i - offsets[ruleIndex];
+                if (position < rule.tokens.length) {
+                    final int token = rule.tokens[position];
+                    if (rule.accepts(token, c)) {
+                        addPosition(next, ruleIndex, (token == TOKEN_STAR) ? position : position + 1);
+                    }
+                }
+            }
+            return next;
+        }
+
+        private int result(final State state) {
+            int result = state.result;
+            for (int ruleIndex = 0; ruleIndex < offsets.length; ruleIndex++) {
+                final Rule rule = ruleList.get(ruleIndex);
+                if (state.positions.get(offsets[ruleIndex] + rule.tokens.length)) {
+                    result = merge(result, rule.result);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * <p>Combines two match results. Flags are combined, the longest group package is kept.
+         */
+        private int merge(final int result, final int ruleResult) {
+            final int group = result >>> GROUP_SHIFT;
+            final int ruleGroup = ruleResult >>> GROUP_SHIFT;
+            final int flags = (result | ruleResult) & ((1 << GROUP_SHIFT) - 1);
+
+            if (group == 0 || (ruleGroup != 0 && groupPackages[ruleGroup - 1].length() > groupPackages[group - 1].length())) {
+                return flags | (ruleGroup << GROUP_SHIFT);
+            }
+            return flags | (group << GROUP_SHIFT);
+        }
+    }
+
+    /**
+     * <p>Rule positions that are still matching and the result of rules that already matched.
+     */
+    static class State {
+        final BitSet positions;
+        int result;
+
+        State(final int positionCount, final int result) {
+            this.positions = new BitSet(positionCount);
+            this.result = result;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof State)) {
+                return false;
+            }
+            final State state = (State) o;
+            return result == state.result && positions.equals(state.positions);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * positions.hashCode() + result;
+        }
+    }
+
+    /**
+     * <p>Cache key built from package sets. Lookups use the given sets directly, entries stored in the cache use
+     * immutable copies of them.
+     */
+    static class Key {
+        final Set<String> rootPackageSet;
+        final Set<String> groupPackageSet;
+        final Set<String> ignorePackageSet;
+        final Set<String> ignoreCausePackageSet;
+
+        Key(final Set<String> rootPackageSet, final Set<String> groupPackageSet, final Set<String> ignorePackageSet, final Set<String> ignoreCausePackageSet) {
+            this.rootPackageSet = rootPackageSet;
+            this.groupPackageSet = groupPackageSet;
+            this.ignorePackageSet = ignorePackageSet;
+            this.ignoreCausePackageSet = ignoreCausePackageSet;
+        }
+
+        Key copy() {
+            return new Key(copyOf(rootPackageSet), copyOf(groupPackageSet), copyOf(ignorePackageSet), copyOf(ignoreCausePackageSet));
+        }
+
+        private static Set<String> copyOf(final Set<String> set) {
+            synchronized (set) {
+                return Collections.unmodifiableSet(new HashSet<String>(set));
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return rootPackageSet.equals(key.rootPackageSet) && groupPackageSet.equals(key.groupPackageSet) && ignorePackageSet.equals(key.ignorePackageSet) && ignoreCausePackageSet.equals(key.ignoreCausePackageSet);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = rootPackageSet.hashCode();
+            result = 31 * result + groupPackageSet.hashCode();
+            result = 31 * result + ignorePackageSet.hashCode();
+            result = 31 * result + ignoreCausePackageSet.hashCode();
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Built-in package rules for frameworks that add a lot of noise to stack traces.
+ *
+ * <p>Each profile defines group packages, which collapse consecutive framework frames into a single line, and ignore
+ * packages, which remove frames that never carry useful information like reflection accessors and generated proxies.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public enum FrameworkProfile {
+
+    SPRING("spring",
+            Arrays.asList("org.springframework", "org.aopalliance"),
+            Arrays.asList("org.springframework.cglib", "net.bytebuddy", "com.sun.proxy", "jdk.proxy", "*$$EnhancerBySpringCGLIB$$*", "*$$SpringCGLIB$$*", "*$$FastClassBySpringCGLIB$$*", "*$ByteBuddy$*")),
+
+    CXF("cxf",
+            Arrays.asList("org.apache.cxf", "javax.ws.rs", "jakarta.ws.rs"),
+            Collections.<String>emptyList()),
+
+    TOMCAT("tomcat",
+            Arrays.asList("org.apache.catalina", "org.apache.coyote", "org.apache.tomcat", "javax.servlet", "jakarta.servlet"),
+            Collections.<String>emptyList()),
+
+    NETTY("netty",
+            Arrays.asList("io.netty", "reactor.netty"),
+            Collections.<String>emptyList()),
+
+    JDK_REFLECTION("jdk-reflection",
+            Collections.<String>emptyList(),
+            Arrays.asList("jdk.internal.reflect", "sun.reflect", "java.lang.reflect", "java.lang.invoke", "*$$Lambda$*", "*$$Lambda/*"));
+
+    private final String profileName;
+
+    private final List<String> groupPackages;
+
+    private final List<String> ignorePackages;
+
+    FrameworkProfile(final String profileName, final List<String> groupPackages, final List<String> ignorePackages) {
+        this.profileName = profileName;
+        this.groupPackages = Collections.unmodifiableList(groupPackages);
+        this.ignorePackages = Collections.unmodifiableList(ignorePackages);
+    }
+
+    /**
+     * <p>Returns the name of this profile.
+     *
+     * @return profile name
+     */
+    public String getProfileName() {
+        return profileName;
+    }
+
+    /**
+     * <p>Returns the group packages defined by this profile.
+     *
+     * @return group packages
+     */
+    public List<String> getGroupPackages() {
+        return groupPackages;
+    }
+
+    /**
+     * <p>Returns the ignore packages defined by this profile.
+     *
+     * @return ignore packages
+     */
+    public List<String> getIgnorePackages() {
+        return ignorePackages;
+    }
+
+    /**
+     * <p>Returns the profile with the given name.
+     *
+     * @param profileName profile name, e.g. <code>spring</code> or <code>jdk-reflection</code>
+     * @return profile with the given name
+     * @throws IllegalArgumentException if there is no profile with the given name
+     */
+    public static FrameworkProfile forName(final String profileName) {
+        for (FrameworkProfile profile : values()) {
+            if (profile.profileName.equalsIgnoreCase(profileName.trim())) {
+                return profile;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown framework profile: %s", profileName));
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Built-in {@link RenderMetrics} implementation that keeps render time, scanned frame and printed frame
+ * histograms and total counters for each {@link RenderEntryPoint}.
+ *
+ * <pre>
+ * HistogramRenderMetrics metrics = new HistogramRenderMetrics();
+ * Exceptions.setRenderMetrics(metrics);
+ * ...
+ * long p99 = metrics.getRenderNanos(RenderEntryPoint.EXCEPTIONS).getValueAtPercentile(99);
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class HistogramRenderMetrics implements RenderMetrics {
+
+    /**
+     * <p>Highest render time tracked by render time histograms.
+     */
+    public static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * <p>Highest number of frames tracked by frame histograms.
+     */
+    public static final long HIGHEST_TRACKABLE_FRAMES = 1 << 16;
+
+    private static final int CAUSES_VISITED = 0;
+
+    private static final int SUPPRESSED_VISITED = 1;
+
+    private static final int LIBRARY_NAME_CACHE_HITS = 2;
+
+    private static final int LIBRARY_NAME_CACHE_MISSES = 3;
+
+    private static final int RENDERED_CHARACTERS = 4;
+
+    private static final int COUNTER_COUNT = 5;
+
+    private final LogLinearHistogram[] renderNanos;
+
+    private final LogLinearHistogram[] framesScanned;
+
+    private final LogLinearHistogram[] framesEmitted;
+
+    private final AtomicLongArray counters;
+
+    public HistogramRenderMetrics() {
+        final int entryPointCount = RenderEntryPoint.values().length;
+        renderNanos = new LogLinearHistogram[entryPointCount];
+        framesScanned = new LogLinearHistogram[entryPointCount];
+        framesEmitted = new LogLinearHistogram[entryPointCount];
+        for (int i = 0; i < entryPointCount; i++) {
+            renderNanos[i] = new LogLinearHistogram(HIGHEST_TRACKABLE_NANOS);
+            framesScanned[i] = new LogLinearHistogram(HIGHEST_TRACKABLE_FRAMES);
+            framesEmitted[i] = new LogLinearHistogram(HIGHEST_TRACKABLE_FRAMES);
+        }
+        counters = new AtomicLongArray(entryPointCount * COUNTER_COUNT);
+    }
+
+    @Override
+    public void record(final RenderStatistics statistics) {
+        final int entryPoint = statistics.getEntryPoint().ordinal();
+        renderNanos[entryPoint].record(statistics.getNanos());
+        framesScanned[entryPoint].record(statistics.getFramesScanned());
+        framesEmitted[entryPoint].record(statistics.getFramesEmitted());
+
+        final int offset = entryPoint * COUNTER_COUNT;
+        addCounter(offset + CAUSES_VISITED, statistics.getCausesVisited());
+        addCounter(offset + SUPPRESSED_VISITED, statistics.getSuppressedVisited());
+        addCounter(offset + LIBRARY_NAME_CACHE_HITS, statistics.getLibraryNameCacheHits());
+        addCounter(offset + LIBRARY_NAME_CACHE_MISSES, statistics.getLibraryNameCacheMisses());
+        addCounter(offset + RENDERED_CHARACTERS, statistics.getLength());
+    }
+
+    private void addCounter(final int index, final int value) {
+        if (value != 0) {
+            counters.addAndGet(index, value);
+        }
+    }
+
+    /**
+     * <p>Returns the render time histogram of the given entry point, in nanoseconds.
+     *
+     * @param entryPoint entry point
+     * @return render time histogram
+     */
+    public LogLinearHistogram getRenderNanos(final RenderEntryPoint entryPoint) {
+        return renderNanos[entryPoint.ordinal()];
+    }
+
+    /**
+     * <p>Returns the histogram of stack trace elements scanned per render for the given entry point.
+     *
+     * @param entryPoint entry point
+     * @return scanned frame histogram
+     */
+    public LogLinearHistogram getFramesScanned(final RenderEntryPoint entryPoint) {
+        return framesScanned[entryPoint.ordinal()];
+    }
+
+    /**
+     * <p>Returns the histogram of stack trace lines printed per render for the given entry point.
+     *
+     * @param entryPoint entry point
+     * @return printed frame histogram
+     */
+    public LogLinearHistogram getFramesEmitted(final RenderEntryPoint entryPoint) {
+        return framesEmitted[entryPoint.ordinal()];
+    }
+
+    /**
+     * <p>Returns the number of stack traces rendered by the given entry point.
+     *
+     * @param entryPoint entry point
+     * @return number of stack traces rendered
+     */
+    public long getRenderCount(final RenderEntryPoint entryPoint) {
+        return renderNanos[entryPoint.ordinal()].getTotalCount();
+    }
+
+    /**
+     * <p>Returns the total number of causes printed by the given entry point.
+     *
+     * @param entryPoint entry point
+     * @return number of causes printed
+     */
+    public long getCausesVisited(final RenderEntryPoint entryPoint) {
+        return counters.get(entryPoint.ordinal() * COUNTER_COUNT + CAUSES_VISITED);
+    }
+
+    /**
+     * <p>Returns the total number of suppressed exceptions printed by the given entry point.
+     *
+     * @param entryPoint entry point
+     * @return number of suppressed exceptions printed
+     */
+    public long getSuppressedVisited(final RenderEntryPoint entryPoint) {
+        return counters.get(entryPoint.ordinal() * COUNTER_COUNT + SUPPRESSED_VISITED);
+    }
+
+    /**
+     * <p>Returns the total number of library name cache hits of the given entry point.
+     *
+     * @param entryPoint entry point
+     * @return number of library name cache hits
+     */
+    public long getLibraryNameCacheHits(final RenderEntryPoint entryPoint) {
+        return counters.get(entryPoint.ordinal() * COUNTER_COUNT + LIBRARY_NAME_CACHE_HITS);
+    }
+
+    /**
+     * <p>Returns the total number of library name cache misses of the given entry point.
+     *
+     * @param entryPoint entry point
+     * @return number of library name cache misses
+     */
+    public long getLibraryNameCacheMisses(final RenderEntryPoint entryPoint) {
+        return counters.get(entryPoint.ordinal() * COUNTER_COUNT + LIBRARY_NAME_CACHE_MISSES);
+    }
+
+    /**
+     * <p>Returns the total number of characters rendered by the given entry point.
+     *
+     * @param entryPoint entry point
+     * @return number of characters rendered
+     */
+    public long getRenderedCharacters(final RenderEntryPoint entryPoint) {
+        return counters.get(entryPoint.ordinal() * COUNTER_COUNT + RENDERED_CHARACTERS);
+    }
+
+    /**
+     * <p>Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < renderNanos.length; i++) {
+            renderNanos[i].reset();
+            framesScanned[i].reset();
+            framesEmitted[i].reset();
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+}
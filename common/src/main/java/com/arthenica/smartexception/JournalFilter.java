@@ -0,0 +1,158 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>Immutable filter of journal records by time, fingerprint and exception class. A record matches when it matches
+ * all criteria that are set. Multiple fingerprints or class names match a record if any of them matches.
+ *
+ * <pre>
+ * JournalFilter filter = JournalFilter.ALL
+ *     .withFrom(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1))
+ *     .withClassName("java.net.SocketTimeoutException");
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class JournalFilter {
+
+    /**
+     * Filter that matches all records.
+     */
+    public static final JournalFilter ALL = new JournalFilter(Long.MIN_VALUE, Long.MAX_VALUE, Collections.<Long>emptySet(), Collections.<String>emptySet(), null);
+
+    private final long from;
+
+    private final long to;
+
+    private final Set<Long> fingerprintSet;
+
+    private final Set<String> classNameSet;
+
+    private final FrameMatcher frameMatcher;
+
+    private JournalFilter(final long from, final long to, final Set<Long> fingerprintSet, final Set<String> classNameSet, final FrameMatcher frameMatcher) {
+        this.from = from;
+        this.to = to;
+        this.fingerprintSet = fingerprintSet;
+        this.classNameSet = classNameSet;
+        this.frameMatcher = frameMatcher;
+    }
+
+    /**
+     * <p>Returns a filter that matches records appended at or after the given time.
+     *
+     * @param from timestamp in milliseconds
+     * @return new filter
+     */
+    public JournalFilter withFrom(final long from) {
+        return new JournalFilter(from, to, fingerprintSet, classNameSet, frameMatcher);
+    }
+
+    /**
+     * <p>Returns a filter that matches records appended before the given time.
+     *
+     * @param to timestamp in milliseconds
+     * @return new filter
+     */
+    public JournalFilter withTo(final long to) {
+        return new JournalFilter(from, to, fingerprintSet, classNameSet, frameMatcher);
+    }
+
+    /**
+     * <p>Returns a filter that also matches records with the given fingerprint.
+     *
+     * @param fingerprint fingerprint computed using the frame matcher of this filter
+     * @return new filter
+     * @see ThrowableFingerprint
+     */
+    public JournalFilter withFingerprint(final long fingerprint) {
+        final Set<Long> newFingerprintSet = new HashSet<Long>(fingerprintSet);
+        newFingerprintSet.add(fingerprint);
+        return new JournalFilter(from, to, Collections.unmodifiableSet(newFingerprintSet), classNameSet, frameMatcher);
+    }
+
+    /**
+     * <p>Returns a filter that also matches records of the given exception class, thrown directly or as a cause.
+     *
+     * @param className exception class name
+     * @return new filter
+     */
+    public JournalFilter withClassName(final String className) {
+        final Set<String> newClassNameSet = new HashSet<String>(classNameSet);
+        newClassNameSet.add(className);
+        return new JournalFilter(from, to, fingerprintSet, Collections.unmodifiableSet(newClassNameSet), frameMatcher);
+    }
+
+    /**
+     * <p>Returns a filter that computes fingerprints skipping frames in ignore packages of the given frame matcher.
+     *
+     * @param frameMatcher frame matcher or null to include all frames in fingerprints
+     * @return new filter
+     */
+    public JournalFilter withFrameMatcher(final FrameMatcher frameMatcher) {
+        return new JournalFilter(from, to, fingerprintSet, classNameSet, frameMatcher);
+    }
+
+    /**
+     * <p>Checks whether the given record matches this filter.
+     *
+     * @param record journal record
+     * @return true if the record matches
+     */
+    public boolean matches(final JournalRecord record) {
+        if (record.getTimestamp() < from || record.getTimestamp() >= to) {
+            return false;
+        }
+
+        if (!classNameSet.isEmpty()) {
+            boolean found = false;
+            ThrowableWrapper current = record.getThrowable();
+            for (int i = 0; current != null && i <= ThrowableFingerprint.MAX_CAUSES && !found; i++) {
+                found = classNameSet.contains(current.getClassName());
+                current = current.getCause();
+            }
+            if (!found) {
+                return false;
+            }
+        }
+
+        return fingerprintSet.isEmpty() || fingerprintSet.contains(ThrowableFingerprint.of(record.getThrowable(), frameMatcher));
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Exception record read from an {@link ExceptionJournal} segment.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class JournalRecord {
+
+    private final long segmentIndex;
+
+    private final int offset;
+
+    private final long timestamp;
+
+    private final String threadName;
+
+    private final long threadId;
+
+    private final ThrowableWrapper throwable;
+
+    public JournalRecord(final long segmentIndex, final int offset, final long timestamp, final String threadName, final long threadId, final ThrowableWrapper throwable) {
+        this.segmentIndex = segmentIndex;
+        this.offset = offset;
+        this.timestamp = timestamp;
+        this.threadName = threadName;
+        this.threadId = threadId;
+        this.throwable = throwable;
+    }
+
+    /**
+     * <p>Returns the index of the segment this record was read from.
+     *
+     * @return segment index
+     */
+    public long getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    /**
+     * <p>Returns the position of this record in its segment.
+     *
+     * @return offset in bytes
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * <p>Returns the time this exception was appended.
+     *
+     * @return timestamp in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * <p>Returns the name of the thread that appended this exception.
+     *
+     * @return thread name
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * <p>Returns the id of the thread that appended this exception.
+     *
+     * @return thread id
+     */
+    public long getThreadId() {
+        return threadId;
+    }
+
+    /**
+     * <p>Returns the decoded exception.
+     *
+     * @return throwable
+     */
+    public ThrowableWrapper getThrowable() {
+        return throwable;
+    }
+
+}
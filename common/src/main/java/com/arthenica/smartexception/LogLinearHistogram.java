@@ -0,0 +1,210 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Lock-free histogram of non-negative long values with a bounded relative error.
+ *
+ * <p>Values below {@link #SUB_BUCKET_COUNT} are counted exactly. Larger values are counted in buckets that split
+ * each power of two range into {@link #SUB_BUCKET_COUNT} linear sub-buckets, so a reported value differs from the
+ * recorded value by less than <code>1 / SUB_BUCKET_COUNT</code>. Values above the highest trackable value are
+ * counted in the last bucket.
+ *
+ * <p>Recording is wait-free except for updating the max value, which retries only while it increases. Reads are not
+ * atomic, values recorded while reading may be partially included.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class LogLinearHistogram {
+
+    /**
+     * <p>Number of bits used for the linear part of a bucket index.
+     */
+    static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * <p>Number of linear sub-buckets in each power of two range.
+     */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final long highestTrackableValue;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * <p>Creates a new histogram.
+     *
+     * @param highestTrackableValue highest value that can be counted in its own bucket, must be positive
+     */
+    public LogLinearHistogram(final long highestTrackableValue) {
+        if (highestTrackableValue < 1) {
+            throw new IllegalArgumentException("Highest trackable value must be positive.");
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(bucketIndex(highestTrackableValue) + 1);
+    }
+
+    /**
+     * <p>Returns the index of the bucket that counts the given value.
+     *
+     * @param value non-negative value
+     * @return bucket index
+     */
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        final int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * <p>Returns the highest value counted in the given bucket.
+     *
+     * @param index bucket index
+     * @return highest value of the bucket
+     */
+    static long highestValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long subBucket = SUB_BUCKET_COUNT + (index % SUB_BUCKET_COUNT);
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * <p>Records a value. Negative values are recorded as zero.
+     *
+     * @param value value to record
+     */
+    public void record(final long value) {
+        final long recordedValue = Math.max(0, value);
+        counts.incrementAndGet(bucketIndex(Math.min(recordedValue, highestTrackableValue)));
+        sum.addAndGet(recordedValue);
+
+        long currentMax = max.get();
+        while (recordedValue > currentMax && !max.compareAndSet(currentMax, recordedValue)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * <p>Returns the number of values recorded.
+     *
+     * @return number of values recorded
+     */
+    public long getTotalCount() {
+        long totalCount = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            totalCount += counts.get(i);
+        }
+        return totalCount;
+    }
+
+    /**
+     * <p>Returns the highest value recorded.
+     *
+     * @return highest value recorded or zero if no values are recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * <p>Returns the mean of recorded values.
+     *
+     * @return mean of recorded values or zero if no values are recorded
+     */
+    public double getMean() {
+        final long totalCount = getTotalCount();
+        return (totalCount == 0) ? 0 : (double) sum.get() / totalCount;
+    }
+
+    /**
+     * <p>Returns the value that the given percentage of recorded values are less than or equal to. Returned value is
+     * the highest value of the bucket that includes the percentile, limited by the max value recorded. The max value
+     * is returned for the last bucket, which counts values above the highest trackable value too.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return value at the given percentile or zero if no values are recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        }
+
+        final long[] snapshot = new long[counts.length()];
+        long totalCount = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            totalCount += snapshot[i];
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            count += snapshot[i];
+            if (count >= countAtPercentile) {
+                return (i == snapshot.length - 1) ? getMax() : Math.min(highestValue(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * <p>Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+}
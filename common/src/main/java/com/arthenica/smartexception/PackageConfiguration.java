@@ -0,0 +1,137 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>Immutable snapshot of global root, group, ignore and ignore cause packages.
+ *
+ * <p>Registering or clearing packages creates a new snapshot instead of modifying the current one, so a stack trace
+ * is always rendered with packages that were registered together. The frame matcher of a snapshot is compiled once,
+ * by the thread that registers packages, before the snapshot is published.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+final class PackageConfiguration {
+
+    static final PackageConfiguration EMPTY = new PackageConfiguration(Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.<String>emptySet());
+
+    final Set<String> rootPackageSet;
+
+    final Set<String> groupPackageSet;
+
+    final Set<String> ignorePackageSet;
+
+    final Set<String> ignoreCausePackageSet;
+
+    private volatile FrameMatcher frameMatcher;
+
+    private PackageConfiguration(final Set<String> rootPackageSet, final Set<String> groupPackageSet, final Set<String> ignorePackageSet, final Set<String> ignoreCausePackageSet) {
+        this.rootPackageSet = rootPackageSet;
+        this.groupPackageSet = groupPackageSet;
+        this.ignorePackageSet = ignorePackageSet;
+        this.ignoreCausePackageSet = ignoreCausePackageSet;
+    }
+
+    /**
+     * <p>Returns the frame matcher compiled from packages of this snapshot.
+     *
+     * @return compiled frame matcher
+     */
+    FrameMatcher getFrameMatcher() {
+        FrameMatcher frameMatcher = this.frameMatcher;
+        if (frameMatcher == null) {
+            frameMatcher = FrameMatcher.of(rootPackageSet, groupPackageSet, ignorePackageSet, ignoreCausePackageSet);
+            this.frameMatcher = frameMatcher;
+        }
+        return frameMatcher;
+    }
+
+    static PackageConfiguration of(final Collection<String> rootPackages, final Collection<String> groupPackages, final Collection<String> ignorePackages, final Collection<String> ignoreCausePackages) {
+        final Set<String> ignoreCausePackageSet = copy(ignoreCausePackages);
+        return new PackageConfiguration(copy(rootPackages), copy(groupPackages), add(copy(ignorePackages), ignoreCausePackageSet), ignoreCausePackageSet);
+    }
+
+    PackageConfiguration withRootPackage(final String packageString) {
+        return new PackageConfiguration(add(rootPackageSet, Collections.singleton(packageString)), groupPackageSet, ignorePackageSet, ignoreCausePackageSet);
+    }
+
+    PackageConfiguration withoutRootPackages() {
+        return new PackageConfiguration(Collections.<String>emptySet(), groupPackageSet, ignorePackageSet, ignoreCausePackageSet);
+    }
+
+    PackageConfiguration withGroupPackage(final String packageString) {
+        return new PackageConfiguration(rootPackageSet, add(groupPackageSet, Collections.singleton(packageString)), ignorePackageSet, ignoreCausePackageSet);
+    }
+
+    PackageConfiguration withoutGroupPackages() {
+        return new PackageConfiguration(rootPackageSet, Collections.<String>emptySet(), ignorePackageSet, ignoreCausePackageSet);
+    }
+
+    PackageConfiguration withIgnorePackage(final String packageString, final boolean ignoreCauseClasses) {
+        final Set<String> packageSet = Collections.singleton(packageString);
+        return new PackageConfiguration(rootPackageSet, groupPackageSet, add(ignorePackageSet, packageSet), ignoreCauseClasses ? add(ignoreCausePackageSet, packageSet) : ignoreCausePackageSet);
+    }
+
+    PackageConfiguration withoutIgnorePackages() {
+        return new PackageConfiguration(rootPackageSet, groupPackageSet, Collections.<String>emptySet(), Collections.<String>emptySet());
+    }
+
+    PackageConfiguration withProfile(final FrameworkProfile profile) {
+        return new PackageConfiguration(rootPackageSet, add(groupPackageSet, profile.getGroupPackages()), add(ignorePackageSet, profile.getIgnorePackages()), ignoreCausePackageSet);
+    }
+
+    private static Set<String> copy(final Collection<String> packages) {
+        if (packages == null || packages.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        return Collections.unmodifiableSet(new HashSet<String>(packages));
+    }
+
+    private static Set<String> add(final Set<String> packageSet, final Collection<String> packages) {
+        if (packageSet.containsAll(packages)) {
+            return packageSet;
+        }
+
+        final Set<String> newPackageSet = new HashSet<String>(packageSet);
+        newPackageSet.addAll(packages);
+        return Collections.unmodifiableSet(newPackageSet);
+    }
+
+}
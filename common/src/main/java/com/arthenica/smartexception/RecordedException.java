@@ -0,0 +1,175 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Snapshot of an exception recorded by {@link ExceptionRecorder}.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class RecordedException {
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final String threadName;
+
+    private final long threadId;
+
+    private final long fingerprint;
+
+    private final CompactTrace trace;
+
+    private final FrameMatcher frameMatcher;
+
+    private final RenderOptions renderOptions;
+
+    public RecordedException(final long sequence, final long timestamp, final String threadName, final long threadId, final long fingerprint, final CompactTrace trace) {
+        this(sequence, timestamp, threadName, threadId, fingerprint, trace, null, null);
+    }
+
+    public RecordedException(final long sequence, final long timestamp, final String threadName, final long threadId, final long fingerprint, final CompactTrace trace, final FrameMatcher frameMatcher, final RenderOptions renderOptions) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.threadName = threadName;
+        this.threadId = threadId;
+        this.fingerprint = fingerprint;
+        this.trace = trace;
+        this.frameMatcher = frameMatcher;
+        this.renderOptions = renderOptions;
+    }
+
+    /**
+     * <p>Returns the sequence number of this record. Sequence numbers start from zero and increase by one for each
+     * exception recorded by the same recorder.
+     *
+     * @return sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * <p>Returns the time this exception was recorded.
+     *
+     * @return timestamp in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * <p>Returns the name of the thread that recorded this exception.
+     *
+     * @return thread name
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * <p>Returns the id of the thread that recorded this exception.
+     *
+     * @return thread id
+     */
+    public long getThreadId() {
+        return threadId;
+    }
+
+    /**
+     * <p>Returns the message of the exception at the time it was recorded.
+     *
+     * @return message or null if the exception does not have a message
+     */
+    public String getMessage() {
+        return trace.getMessage();
+    }
+
+    /**
+     * <p>Returns the class name of the exception.
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return trace.getClassName();
+    }
+
+    /**
+     * <p>Returns the fingerprint of the exception, skipping frames in ignore packages.
+     *
+     * @return fingerprint
+     * @see ThrowableFingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * <p>Returns the compact copy of the exception kept by the recorder.
+     *
+     * @return compact trace
+     */
+    public CompactTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * <p>Returns the frame matcher this exception was recorded with.
+     *
+     * @return frame matcher or null if the exception is rendered using the global packages
+     */
+    public FrameMatcher getFrameMatcher() {
+        return frameMatcher;
+    }
+
+    /**
+     * <p>Returns the render options this exception was recorded with.
+     *
+     * @return render options or null if the exception is rendered using the global options
+     */
+    public RenderOptions getRenderOptions() {
+        return renderOptions;
+    }
+
+    /**
+     * <p>Creates a throwable wrapper of the recorded exception, which can be rendered like the original exception.
+     *
+     * @return throwable wrapper
+     */
+    public ThrowableWrapper getThrowable() {
+        return trace.toThrowableWrapper();
+    }
+
+}
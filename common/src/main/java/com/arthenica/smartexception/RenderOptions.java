@@ -0,0 +1,150 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Immutable set of options used to render a smart stack trace, apart from its root, group and ignore packages.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class RenderOptions {
+
+    private final int maxDepth;
+
+    private final boolean ignoreAllCauses;
+
+    private final boolean printPackageInformation;
+
+    private final boolean printModuleName;
+
+    private final boolean printSuppressedExceptions;
+
+    private final boolean printBoundaryFramesOnly;
+
+    private final boolean groupLibraries;
+
+    /**
+     * <p>Creates a set of render options.
+     *
+     * @param maxDepth                  max depth in exception chain that will be used
+     * @param ignoreAllCauses           ignore all causes in the exception chain
+     * @param printPackageInformation   print package information
+     * @param printModuleName           prints module name in log statement
+     * @param printSuppressedExceptions print suppressed exceptions
+     * @param printBoundaryFramesOnly   print only the throw site, root package frames and boundary frames
+     * @param groupLibraries            group consecutive elements loaded from the same jar file or module
+     */
+    public RenderOptions(final int maxDepth, final boolean ignoreAllCauses, final boolean printPackageInformation, final boolean printModuleName, final boolean printSuppressedExceptions, final boolean printBoundaryFramesOnly, final boolean groupLibraries) {
+        this.maxDepth = maxDepth;
+        this.ignoreAllCauses = ignoreAllCauses;
+        this.printPackageInformation = printPackageInformation;
+        this.printModuleName = printModuleName;
+        this.printSuppressedExceptions = printSuppressedExceptions;
+        this.printBoundaryFramesOnly = printBoundaryFramesOnly;
+        this.groupLibraries = groupLibraries;
+    }
+
+    /**
+     * <p>Returns the global render options. Max depth is not a global option, so it is zero.
+     *
+     * @return current global render options
+     */
+    public static RenderOptions global() {
+        return new RenderOptions(0, AbstractExceptions.ignoreAllCauses, AbstractExceptions.printPackageInformation, AbstractExceptions.printModuleName, AbstractExceptions.printSuppressedExceptions, AbstractExceptions.printBoundaryFramesOnly, AbstractExceptions.groupLibraries);
+    }
+
+    /**
+     * <p>Returns the max depth in exception chain that will be used.
+     *
+     * @return max depth or zero if stack traces are not limited by depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * <p>Returns whether all causes in the exception chain are ignored.
+     *
+     * @return true if causes are not printed
+     */
+    public boolean isIgnoreAllCauses() {
+        return ignoreAllCauses;
+    }
+
+    /**
+     * <p>Returns whether package information is printed.
+     *
+     * @return true if package information is printed
+     */
+    public boolean isPrintPackageInformation() {
+        return printPackageInformation;
+    }
+
+    /**
+     * <p>Returns whether module names are printed.
+     *
+     * @return true if module names are printed
+     */
+    public boolean isPrintModuleName() {
+        return printModuleName;
+    }
+
+    /**
+     * <p>Returns whether suppressed exceptions are printed.
+     *
+     * @return true if suppressed exceptions are printed
+     */
+    public boolean isPrintSuppressedExceptions() {
+        return printSuppressedExceptions;
+    }
+
+    /**
+     * <p>Returns whether only the throw site, root package frames and boundary frames are printed.
+     *
+     * @return true if only boundary frames are printed
+     */
+    public boolean isPrintBoundaryFramesOnly() {
+        return printBoundaryFramesOnly;
+    }
+
+    /**
+     * <p>Returns whether consecutive elements loaded from the same jar file or module are grouped.
+     *
+     * @return true if libraries are grouped
+     */
+    public boolean isGroupLibraries() {
+        return groupLibraries;
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Statistics collected while rendering a single stack trace. Created for each render only when render metrics
+ * are enabled.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class RenderStatistics {
+
+    private final RenderEntryPoint entryPoint;
+
+    private final ThrowableWrapper throwable;
+
+    private final FrameMatcher frameMatcher;
+
+    private long fingerprint;
+
+    int framesScanned;
+
+    int framesEmitted;
+
+    int causesVisited;
+
+    int suppressedVisited;
+
+    int libraryNameCacheHits;
+
+    int libraryNameCacheMisses;
+
+    int length;
+
+    long nanos;
+
+    RenderStatistics(final RenderEntryPoint entryPoint, final ThrowableWrapper throwable, final FrameMatcher frameMatcher) {
+        this.entryPoint = entryPoint;
+        this.throwable = throwable;
+        this.frameMatcher = frameMatcher;
+    }
+
+    /**
+     * <p>Returns the method that rendered the stack trace.
+     *
+     * @return entry point of the render
+     */
+    public RenderEntryPoint getEntryPoint() {
+        return entryPoint;
+    }
+
+    /**
+     * <p>Returns the class name of the rendered throwable.
+     *
+     * @return class name of the rendered throwable
+     */
+    public String getThrowableClassName() {
+        return throwable.getClassName();
+    }
+
+    /**
+     * <p>Returns the fingerprint of the rendered throwable. It is computed on the first call using the frame matcher
+     * of the render, so frames in ignored packages are skipped the same way they are for aggregation and rate
+     * tracking.
+     *
+     * @return fingerprint of the rendered throwable
+     * @see ThrowableFingerprint
+     */
+    public long getFingerprint() {
+        if (fingerprint == 0) {
+            fingerprint = ThrowableFingerprint.of(throwable, frameMatcher);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * <p>Returns the number of stack trace elements read from the throwable, its causes and suppressed exceptions.
+     *
+     * @return number of stack trace elements scanned
+     */
+    public int getFramesScanned() {
+        return framesScanned;
+    }
+
+    /**
+     * <p>Returns the number of stack trace lines printed. A group of stack trace elements printed on a single line is
+     * counted once.
+     *
+     * @return number of stack trace lines printed
+     */
+    public int getFramesEmitted() {
+        return framesEmitted;
+    }
+
+    /**
+     * <p>Returns the number of causes printed.
+     *
+     * @return number of causes printed
+     */
+    public int getCausesVisited() {
+        return causesVisited;
+    }
+
+    /**
+     * <p>Returns the number of suppressed exceptions printed.
+     *
+     * @return number of suppressed exceptions printed
+     */
+    public int getSuppressedVisited() {
+        return suppressedVisited;
+    }
+
+    /**
+     * <p>Returns the number of library names found in the library name cache.
+     *
+     * @return number of library name cache hits
+     */
+    public int getLibraryNameCacheHits() {
+        return libraryNameCacheHits;
+    }
+
+    /**
+     * <p>Returns the number of library names resolved because they were not found in the library name cache.
+     *
+     * @return number of library name cache misses
+     */
+    public int getLibraryNameCacheMisses() {
+        return libraryNameCacheMisses;
+    }
+
+    /**
+     * <p>Returns the number of characters in the rendered stack trace.
+     *
+     * @return length of the rendered stack trace
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * <p>Returns the time spent rendering the stack trace.
+     *
+     * @return render time in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderStatistics{" +
+                "entryPoint=" + entryPoint +
+                ", throwableClassName=" + getThrowableClassName() +
+                ", framesScanned=" + framesScanned +
+                ", framesEmitted=" + framesEmitted +
+                ", causesVisited=" + causesVisited +
+                ", suppressedVisited=" + suppressedVisited +
+                ", libraryNameCacheHits=" + libraryNameCacheHits +
+                ", libraryNameCacheMisses=" + libraryNameCacheMisses +
+                ", length=" + length +
+                ", nanos=" + nanos +
+                '}';
+    }
+
+}
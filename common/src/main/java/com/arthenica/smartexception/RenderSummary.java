@@ -0,0 +1,127 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * <p>Render time summary of a single {@link RenderEntryPoint}, built from {@link HistogramRenderMetrics}. Times are
+ * in nanoseconds.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class RenderSummary {
+
+    private final String entryPoint;
+
+    private final long count;
+
+    private final double mean;
+
+    private final long p50;
+
+    private final long p90;
+
+    private final long p99;
+
+    private final long p999;
+
+    private final long max;
+
+    public RenderSummary(final String entryPoint, final long count, final double mean, final long p50, final long p90, final long p99, final long p999, final long max) {
+        this.entryPoint = entryPoint;
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * <p>Creates a summary of the render time histogram of the given entry point.
+     *
+     * @param renderMetrics render metrics
+     * @param entryPoint    entry point
+     * @return render time summary
+     */
+    public static RenderSummary of(final HistogramRenderMetrics renderMetrics, final RenderEntryPoint entryPoint) {
+        final LogLinearHistogram histogram = renderMetrics.getRenderNanos(entryPoint);
+        return new RenderSummary(entryPoint.name(), histogram.getTotalCount(), histogram.getMean(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9), histogram.getMax());
+    }
+
+    /**
+     * <p>Reconstructs a summary from its open type representation, used by MXBean proxies.
+     *
+     * @param compositeData open type representation of a summary
+     * @return render time summary
+     */
+    public static RenderSummary from(final CompositeData compositeData) {
+        return new RenderSummary((String) compositeData.get("entryPoint"), (Long) compositeData.get("count"), (Double) compositeData.get("mean"), (Long) compositeData.get("p50"), (Long) compositeData.get("p90"), (Long) compositeData.get("p99"), (Long) compositeData.get("p999"), (Long) compositeData.get("max"));
+    }
+
+    public String getEntryPoint() {
+        return entryPoint;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Management interface of global smart-exception configuration, registered by
+ * <code>Exceptions.registerMBean()</code> as {@link SmartExceptionManagement#OBJECT_NAME}.
+ *
+ * <p>Option attributes and operations take effect for stack traces rendered after they return. Render threads are
+ * never blocked, a stack trace being rendered keeps using the configuration it started with.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public interface SmartExceptionMXBean {
+
+    String[] getRootPackages();
+
+    String[] getGroupPackages();
+
+    String[] getIgnorePackages();
+
+    String[] getIgnoreCausePackages();
+
+    boolean isIgnoreAllCauses();
+
+    void setIgnoreAllCauses(final boolean ignoreAllCauses);
+
+    boolean isPrintPackageInformation();
+
+    void setPrintPackageInformation(final boolean printPackageInformation);
+
+    boolean isPrintModuleName();
+
+    void setPrintModuleName(final boolean printModuleName);
+
+    boolean isPrintSuppressedExceptions();
+
+    void setPrintSuppressedExceptions(final boolean printSuppressedExceptions);
+
+    boolean isPrintBoundaryFramesOnly();
+
+    void setPrintBoundaryFramesOnly(final boolean printBoundaryFramesOnly);
+
+    boolean isGroupLibraries();
+
+    void setGroupLibraries(final boolean groupLibraries);
+
+    int getMatcherCacheSize();
+
+    long getMatcherCacheHits();
+
+    long getMatcherCacheMisses();
+
+    long getMatcherCacheEvictions();
+
+    double getMatcherCacheHitRatio();
+
+    int getClassCacheSize();
+
+    long getClassCacheMisses();
+
+    long getClassCacheEvictions();
+
+    int getLibraryNameCacheSize();
+
+    long getLibraryNameCacheMisses();
+
+    long getLibraryNameCacheEvictions();
+
+    /**
+     * <p>Returns the library name cache hit ratio of stack traces rendered since render metrics were enabled.
+     *
+     * @return hit ratio between 0 and 1 or <code>NaN</code> if {@link HistogramRenderMetrics} is not enabled or
+     * nothing is rendered yet
+     */
+    double getLibraryNameCacheHitRatio();
+
+    /**
+     * <p>Returns whether {@link HistogramRenderMetrics} is enabled.
+     *
+     * @return true if render metrics are recorded by {@link HistogramRenderMetrics}
+     */
+    boolean isRenderMetricsEnabled();
+
+    /**
+     * <p>Enables or disables render metrics. Enabling sets a new {@link HistogramRenderMetrics} unless one is
+     * already set, disabling removes any render metrics implementation.
+     *
+     * @param renderMetricsEnabled true to enable render metrics
+     */
+    void setRenderMetricsEnabled(final boolean renderMetricsEnabled);
+
+    /**
+     * <p>Returns render time summaries of each entry point.
+     *
+     * @return render time summaries or an empty array if {@link HistogramRenderMetrics} is not enabled
+     */
+    RenderSummary[] getRenderSummaries();
+
+    /**
+     * <p>Returns the number of exceptions appended to the global exception journal.
+     *
+     * @return number of appended exceptions or 0 if there is no global exception journal
+     */
+    long getJournalAppendedCount();
+
+    /**
+     * <p>Returns the number of exceptions dropped by the global exception journal.
+     *
+     * @return number of dropped exceptions or 0 if there is no global exception journal
+     */
+    long getJournalDroppedCount();
+
+    /**
+     * <p>Returns the message of the last error occurred while creating or deleting segment files of the global
+     * exception journal.
+     *
+     * @return last error message or null if there is no global exception journal or no error occurred
+     * @see ExceptionJournal#getLastError()
+     */
+    String getJournalLastError();
+
+    /**
+     * <p>Replaces root, group, ignore and ignore cause packages at once.
+     *
+     * @param rootPackages        new root packages
+     * @param groupPackages       new group packages
+     * @param ignorePackages      new ignore packages
+     * @param ignoreCausePackages new ignore packages that ignore cause classes too
+     */
+    void reconfigure(final String[] rootPackages, final String[] groupPackages, final String[] ignorePackages, final String[] ignoreCausePackages);
+
+    /**
+     * <p>Registers group and ignore packages of the framework profile with the given name.
+     *
+     * @param profileName name of the framework profile
+     */
+    void registerProfile(final String profileName);
+
+    /**
+     * <p>Clears library name, frame matcher and class state caches.
+     */
+    void clearCaches();
+
+    /**
+     * <p>Removes recorded render metrics.
+     */
+    void resetRenderMetrics();
+
+    /**
+     * <p>Renders the exceptions kept by the global exception recorder.
+     *
+     * @return dump of recorded exceptions or an empty string if there is no global exception recorder
+     * @see ExceptionRecorder#dump(Appendable)
+     */
+    String dumpRecordedExceptions();
+
+}
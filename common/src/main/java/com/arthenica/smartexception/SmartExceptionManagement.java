@@ -0,0 +1,352 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>{@link SmartExceptionMXBean} implementation that reads and updates global options of
+ * {@link AbstractExceptions}.
+ *
+ * <p>Package attributes are read from a single package snapshot and {@link #reconfigure} publishes a new snapshot
+ * at once, so rendering threads never see a partially applied configuration.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class SmartExceptionManagement implements SmartExceptionMXBean {
+
+    /**
+     * Object name used to register the management bean on the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "com.arthenica.smartexception:type=SmartException";
+
+    /**
+     * <p>Registers a management bean on the platform MBean server. Does nothing if it is already registered.
+     *
+     * @throws IllegalStateException if the management bean can not be registered
+     */
+    public static synchronized void register() {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(new SmartExceptionManagement(), objectName);
+            }
+        } catch (final JMException e) {
+            throw new IllegalStateException("Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * <p>Unregisters the management bean from the platform MBean server. Does nothing if it is not registered.
+     *
+     * @throws IllegalStateException if the management bean can not be unregistered
+     */
+    public static synchronized void unregister() {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (final JMException e) {
+            throw new IllegalStateException("Failed to unregister " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public String[] getRootPackages() {
+        return toSortedArray(AbstractExceptions.packageConfiguration.rootPackageSet);
+    }
+
+    @Override
+    public String[] getGroupPackages() {
+        return toSortedArray(AbstractExceptions.packageConfiguration.groupPackageSet);
+    }
+
+    @Override
+    public String[] getIgnorePackages() {
+        return toSortedArray(AbstractExceptions.packageConfiguration.ignorePackageSet);
+    }
+
+    @Override
+    public String[] getIgnoreCausePackages() {
+        return toSortedArray(AbstractExceptions.packageConfiguration.ignoreCausePackageSet);
+    }
+
+    @Override
+    public boolean isIgnoreAllCauses() {
+        return AbstractExceptions.getIgnoreAllCauses();
+    }
+
+    @Override
+    public void setIgnoreAllCauses(final boolean ignoreAllCauses) {
+        AbstractExceptions.setIgnoreAllCauses(ignoreAllCauses);
+    }
+
+    @Override
+    public boolean isPrintPackageInformation() {
+        return AbstractExceptions.isPrintPackageInformation();
+    }
+
+    @Override
+    public void setPrintPackageInformation(final boolean printPackageInformation) {
+        AbstractExceptions.setPrintPackageInformation(printPackageInformation);
+    }
+
+    @Override
+    public boolean isPrintModuleName() {
+        return AbstractExceptions.getPrintModuleName();
+    }
+
+    @Override
+    public void setPrintModuleName(final boolean printModuleName) {
+        AbstractExceptions.setPrintModuleName(printModuleName);
+    }
+
+    @Override
+    public boolean isPrintSuppressedExceptions() {
+        return AbstractExceptions.getPrintSuppressedExceptions();
+    }
+
+    @Override
+    public void setPrintSuppressedExceptions(final boolean printSuppressedExceptions) {
+        AbstractExceptions.setPrintSuppressedExceptions(printSuppressedExceptions);
+    }
+
+    @Override
+    public boolean isPrintBoundaryFramesOnly() {
+        return AbstractExceptions.getPrintBoundaryFramesOnly();
+    }
+
+    @Override
+    public void setPrintBoundaryFramesOnly(final boolean printBoundaryFramesOnly) {
+        AbstractExceptions.setPrintBoundaryFramesOnly(printBoundaryFramesOnly);
+    }
+
+    @Override
+    public boolean isGroupLibraries() {
+        return AbstractExceptions.getGroupLibraries();
+    }
+
+    @Override
+    public void setGroupLibraries(final boolean groupLibraries) {
+        AbstractExceptions.setGroupLibraries(groupLibraries);
+    }
+
+    @Override
+    public int getMatcherCacheSize() {
+        return FrameMatcher.getMatcherCacheSize();
+    }
+
+    @Override
+    public long getMatcherCacheHits() {
+        return FrameMatcher.getMatcherCacheHits();
+    }
+
+    @Override
+    public long getMatcherCacheMisses() {
+        return FrameMatcher.getMatcherCacheMisses();
+    }
+
+    @Override
+    public long getMatcherCacheEvictions() {
+        return FrameMatcher.getMatcherCacheEvictions();
+    }
+
+    @Override
+    public double getMatcherCacheHitRatio() {
+        return ratio(FrameMatcher.getMatcherCacheHits(), FrameMatcher.getMatcherCacheMisses());
+    }
+
+    @Override
+    public int getClassCacheSize() {
+        return AbstractExceptions.packageConfiguration.getFrameMatcher().getClassCacheSize();
+    }
+
+    @Override
+    public long getClassCacheMisses() {
+        return AbstractExceptions.packageConfiguration.getFrameMatcher().getClassCacheMisses();
+    }
+
+    @Override
+    public long getClassCacheEvictions() {
+        return AbstractExceptions.packageConfiguration.getFrameMatcher().getClassCacheEvictions();
+    }
+
+    @Override
+    public int getLibraryNameCacheSize() {
+        return AbstractExceptions.libraryNameCache.size();
+    }
+
+    @Override
+    public long getLibraryNameCacheMisses() {
+        return AbstractExceptions.libraryNameCacheMisses.get();
+    }
+
+    @Override
+    public long getLibraryNameCacheEvictions() {
+        return AbstractExceptions.libraryNameCacheEvictions.get();
+    }
+
+    @Override
+    public double getLibraryNameCacheHitRatio() {
+        final RenderMetrics renderMetrics = AbstractExceptions.renderMetrics;
+        if (!(renderMetrics instanceof HistogramRenderMetrics)) {
+            return Double.NaN;
+        }
+
+        final HistogramRenderMetrics histogramRenderMetrics = (HistogramRenderMetrics) renderMetrics;
+        long hits = 0;
+        long misses = 0;
+        for (RenderEntryPoint entryPoint : RenderEntryPoint.values()) {
+            hits += histogramRenderMetrics.getLibraryNameCacheHits(entryPoint);
+            misses += histogramRenderMetrics.getLibraryNameCacheMisses(entryPoint);
+        }
+        return ratio(hits, misses);
+    }
+
+    @Override
+    public boolean isRenderMetricsEnabled() {
+        return AbstractExceptions.renderMetrics instanceof HistogramRenderMetrics;
+    }
+
+    @Override
+    public void setRenderMetricsEnabled(final boolean renderMetricsEnabled) {
+        synchronized (SmartExceptionManagement.class) {
+            if (!renderMetricsEnabled) {
+                AbstractExceptions.setRenderMetrics(null);
+            } else if (!isRenderMetricsEnabled()) {
+                AbstractExceptions.setRenderMetrics(new HistogramRenderMetrics());
+            }
+        }
+    }
+
+    @Override
+    public RenderSummary[] getRenderSummaries() {
+        final RenderMetrics renderMetrics = AbstractExceptions.renderMetrics;
+        if (!(renderMetrics instanceof HistogramRenderMetrics)) {
+            return new RenderSummary[0];
+        }
+
+        final List<RenderSummary> summaryList = new ArrayList<RenderSummary>();
+        for (RenderEntryPoint entryPoint : RenderEntryPoint.values()) {
+            summaryList.add(RenderSummary.of((HistogramRenderMetrics) renderMetrics, entryPoint));
+        }
+        return summaryList.toArray(new RenderSummary[0]);
+    }
+
+    @Override
+    public long getJournalAppendedCount() {
+        final ExceptionJournal exceptionJournal = AbstractExceptions.exceptionJournal;
+        return (exceptionJournal == null) ? 0 : exceptionJournal.getAppendedCount();
+    }
+
+    @Override
+    public long getJournalDroppedCount() {
+        final ExceptionJournal exceptionJournal = AbstractExceptions.exceptionJournal;
+        return (exceptionJournal == null) ? 0 : exceptionJournal.getDroppedCount();
+    }
+
+    @Override
+    public String getJournalLastError() {
+        final ExceptionJournal exceptionJournal = AbstractExceptions.exceptionJournal;
+        final IOException lastError = (exceptionJournal == null) ? null : exceptionJournal.getLastError();
+        return (lastError == null) ? null : lastError.toString();
+    }
+
+    @Override
+    public void reconfigure(final String[] rootPackages, final String[] groupPackages, final String[] ignorePackages, final String[] ignoreCausePackages) {
+        AbstractExceptions.reconfigure(toList(rootPackages), toList(groupPackages), toList(ignorePackages), toList(ignoreCausePackages));
+    }
+
+    @Override
+    public void registerProfile(final String profileName) {
+        AbstractExceptions.registerProfile(profileName);
+    }
+
+    @Override
+    public void clearCaches() {
+        AbstractExceptions.clearCaches();
+    }
+
+    @Override
+    public void resetRenderMetrics() {
+        final RenderMetrics renderMetrics = AbstractExceptions.renderMetrics;
+        if (renderMetrics instanceof HistogramRenderMetrics) {
+            ((HistogramRenderMetrics) renderMetrics).reset();
+        }
+    }
+
+    @Override
+    public String dumpRecordedExceptions() {
+        final ExceptionRecorder exceptionRecorder = AbstractExceptions.exceptionRecorder;
+        return (exceptionRecorder == null) ? "" : exceptionRecorder.dump();
+    }
+
+    private static String[] toSortedArray(final Set<String> packageSet) {
+        final String[] packages = packageSet.toArray(new String[0]);
+        Arrays.sort(packages);
+        return packages;
+    }
+
+    private static List<String> toList(final String[] packages) {
+        if (packages == null) {
+            return null;
+        }
+
+        final List<String> packageList = new ArrayList<String>();
+        for (String packageString : packages) {
+            if (packageString != null && !packageString.trim().isEmpty()) {
+                packageList.add(packageString.trim());
+            }
+        }
+        return packageList;
+    }
+
+    private static double ratio(final long hits, final long misses) {
+        final long total = hits + misses;
+        return (total == 0) ? Double.NaN : (double) hits / total;
+    }
+
+}
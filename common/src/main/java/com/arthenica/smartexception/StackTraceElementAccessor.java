@@ -0,0 +1,118 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * <p>Reads and restores class loader and module names of stack trace elements, which are available on Java 9 and
+ * later only. On earlier versions names are returned as null and ignored while creating stack trace elements.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+final class StackTraceElementAccessor {
+
+    private static final Method GET_CLASS_LOADER_NAME;
+
+    private static final Method GET_MODULE_NAME;
+
+    private static final Method GET_MODULE_VERSION;
+
+    private static final Constructor<StackTraceElement> CONSTRUCTOR;
+
+    static {
+        Method getClassLoaderName = null;
+        Method getModuleName = null;
+        Method getModuleVersion = null;
+        Constructor<StackTraceElement> constructor = null;
+        try {
+            getClassLoaderName = StackTraceElement.class.getMethod("getClassLoaderName");
+            getModuleName = StackTraceElement.class.getMethod("getModuleName");
+            getModuleVersion = StackTraceElement.class.getMethod("getModuleVersion");
+            constructor = StackTraceElement.class.getConstructor(String.class, String.class, String.class, String.class, String.class, String.class, int.class);
+        } catch (final NoSuchMethodException e) {
+            getClassLoaderName = null;
+            getModuleName = null;
+            getModuleVersion = null;
+            constructor = null;
+        }
+
+        GET_CLASS_LOADER_NAME = getClassLoaderName;
+        GET_MODULE_NAME = getModuleName;
+        GET_MODULE_VERSION = getModuleVersion;
+        CONSTRUCTOR = constructor;
+    }
+
+    private StackTraceElementAccessor() {
+    }
+
+    static String getClassLoaderName(final StackTraceElement stackTraceElement) {
+        return invoke(GET_CLASS_LOADER_NAME, stackTraceElement);
+    }
+
+    static String getModuleName(final StackTraceElement stackTraceElement) {
+        return invoke(GET_MODULE_NAME, stackTraceElement);
+    }
+
+    static String getModuleVersion(final StackTraceElement stackTraceElement) {
+        return invoke(GET_MODULE_VERSION, stackTraceElement);
+    }
+
+    static StackTraceElement create(final String classLoaderName, final String moduleName, final String moduleVersion, final String declaringClass, final String methodName, final String fileName, final int lineNumber) {
+        if (CONSTRUCTOR != null && (classLoaderName != null || moduleName != null || moduleVersion != null)) {
+            try {
+                return CONSTRUCTOR.newInstance(classLoaderName, moduleName, moduleVersion, declaringClass, methodName, fileName, lineNumber);
+            } catch (final InstantiationException | IllegalAccessException | InvocationTargetException ignored) {
+                // fall back to a stack trace element without module information
+            }
+        }
+
+        return new StackTraceElement(declaringClass, methodName, fileName, lineNumber);
+    }
+
+    private static String invoke(final Method method, final StackTraceElement stackTraceElement) {
+        if (method == null) {
+            return null;
+        }
+
+        try {
+            return (String) method.invoke(stackTraceElement);
+        } catch (final IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Counter that spreads increments of different threads over several cache line padded cells, so that threads
+ * incrementing it concurrently do not contend on the same cache line.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+final class StripedCounter {
+
+    /**
+     * Number of longs between two cells, one 64 byte cache line.
+     */
+    static final int PADDING = 8;
+
+    static final int MAX_STRIPES = 16;
+
+    static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells = new AtomicLongArray((STRIPES + 1) * PADDING);
+
+    /**
+     * <p>Adds one to the cell of the current thread.
+     */
+    void increment() {
+        cells.getAndIncrement(index(Thread.currentThread().getId()));
+    }
+
+    /**
+     * <p>Returns the sum of all cells.
+     *
+     * @return current value
+     */
+    long sum() {
+        long sum = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            sum += cells.get((stripe + 1) * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * <p>Returns the sum of all cells and sets them to zero. Increments made concurrently are either included in the
+     * returned sum or kept for the next call.
+     *
+     * @return value before reset
+     */
+    long sumThenReset() {
+        long sum = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            sum += cells.getAndSet((stripe + 1) * PADDING, 0);
+        }
+        return sum;
+    }
+
+    static int index(final long threadId) {
+        // the first cache line is left empty, so the first cell does not share a line with the array header
+        long hash = threadId * 0x9e3779b97f4a7c15L;
+        return ((int) (hash >>> 32) & (STRIPES - 1)) * PADDING + PADDING;
+    }
+
+    static int stripes(final int processors) {
+        int stripes = 1;
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Encodes throwable wrappers in a compact, versioned binary format, so that exceptions can be forwarded between
+ * services and to collectors without rendering them. A decoded throwable wrapper renders exactly like the original.
+ *
+ * <p>An encoded throwable starts with a magic byte and the format version, followed by a string table, a frame table
+ * and the throwable tree. The string table holds every distinct class name, message, method name, file name, class
+ * loader name, module name and module version once. Frames are stored once as references into the string table and
+ * a line number, and throwables refer to frames by their index in the frame table. Each throwable is written as its
+ * class name, message, frame references, suppressed exceptions and cause. Counts, lengths and references are
+ * variable length integers, seven bits per byte.
+ *
+ * <p>Encoding reuses thread local tables and buffers, so only the output is allocated. Decoding allocates only the
+ * decoded strings, frames and wrappers.
+ *
+ * <pre>
+ * ByteBuffer buffer = ByteBuffer.allocate(65536);
+ * ThrowableCodec.encode(new ThrowableWrapper(e), buffer);
+ * ...
+ * buffer.flip();
+ * ThrowableWrapper throwable = ThrowableCodec.decode(buffer);
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class ThrowableCodec {
+
+    /**
+     * First byte of every encoded throwable.
+     */
+    public static final int MAGIC = 0x53;
+
+    /**
+     * Version of the format written by this codec.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * <p>Tables and buffers of the current thread, cleared before each encoding.
+     */
+    private static final class Encoder {
+        final BinaryOutput tables = new BinaryOutput(4096);
+        final BinaryOutput tree = new BinaryOutput(4096);
+        final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+        final List<String> strings = new ArrayList<String>();
+        final Map<StackTraceElement, Integer> frameIds = new HashMap<StackTraceElement, Integer>();
+        final List<StackTraceElement> frames = new ArrayList<StackTraceElement>();
+
+        void reset() {
+            tables.reset();
+            tree.reset();
+            stringIds.clear();
+            strings.clear();
+            frameIds.clear();
+            frames.clear();
+        }
+    }
+
+    private static final ThreadLocal<Encoder> ENCODER = new ThreadLocal<Encoder>() {
+
+        @Override
+        protected Encoder initialValue() {
+            return new Encoder();
+        }
+    };
+
+    private ThrowableCodec() {
+    }
+
+    /**
+     * <p>Encodes the given throwable into the given buffer, starting at its position.
+     *
+     * @param throwable throwable
+     * @param buffer    destination buffer
+     * @return number of bytes written
+     * @throws BufferOverflowException if the buffer does not have enough space, nothing is written in that case
+     */
+    public static int encode(final ThrowableWrapper throwable, final ByteBuffer buffer) {
+        final Encoder encoder = encode(throwable);
+        final int size = encoder.tables.size() + encoder.tree.size();
+        if (size > buffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+
+        encoder.tables.writeTo(buffer);
+        encoder.tree.writeTo(buffer);
+        return size;
+    }
+
+    /**
+     * <p>Encodes the given throwable into a new byte array.
+     *
+     * @param throwable throwable
+     * @return encoded throwable
+     */
+    public static byte[] toByteArray(final ThrowableWrapper throwable) {
+        final Encoder encoder = encode(throwable);
+        final byte[] bytes = Arrays.copyOf(encoder.tables.getBuffer(), encoder.tables.size() + encoder.tree.size());
+        System.arraycopy(encoder.tree.getBuffer(), 0, bytes, encoder.tables.size(), encoder.tree.size());
+        return bytes;
+    }
+
+    /**
+     * <p>Decodes a throwable written by {@link #encode(ThrowableWrapper, ByteBuffer)}, starting at the position of
+     * the given buffer. The position is moved to the end of the encoded throwable.
+     *
+     * @param buffer source buffer
+     * @return decoded throwable
+     * @throws IllegalArgumentException if the buffer does not start with a valid encoded throwable
+     */
+    public static ThrowableWrapper decode(final ByteBuffer buffer) {
+        final BinaryInput input = new BinaryInput(buffer);
+        try {
+            if (input.readByte() != MAGIC) {
+                throw new IllegalArgumentException("Not an encoded throwable.");
+            }
+            final int version = input.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException(String.format("Unsupported encoded throwable version %d.", version));
+            }
+
+            final int stringCount = input.readVarint();
+            if (stringCount > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid string count.");
+            }
+            final String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                strings[i] = input.readString();
+            }
+
+            final int frameCount = input.readVarint();
+            if (frameCount > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid frame count.");
+            }
+            final StackTraceElementWrapper[] frames = new StackTraceElementWrapper[frameCount];
+            for (int i = 0; i < frameCount; i++) {
+                final String classLoaderName = readStringReference(input, strings);
+                final String moduleName = readStringReference(input, strings);
+                final String moduleVersion = readStringReference(input, strings);
+                final String declaringClass = readStringReference(input, strings);
+                final String methodName = readStringReference(input, strings);
+                final String fileName = readStringReference(input, strings);
+                final int lineNumber = input.readSignedVarint();
+                if (declaringClass == null || methodName == null) {
+                    throw new IllegalArgumentException("Invalid frame.");
+                }
+                frames[i] = new StackTraceElementWrapper(StackTraceElementAccessor.create(classLoaderName, moduleName, moduleVersion, declaringClass, methodName, fileName, lineNumber));
+            }
+
+            return decodeThrowable(input, strings, frames, 0);
+        } catch (final BufferUnderflowException | IllegalStateException e) {
+            throw new IllegalArgumentException("Invalid encoded throwable.", e);
+        }
+    }
+
+    private static Encoder encode(final ThrowableWrapper throwable) {
+        if (throwable == null) {
+            throw new NullPointerException("throwable");
+        }
+
+        final Encoder encoder = ENCODER.get();
+        encoder.reset();
+        encodeThrowable(encoder, throwable, 0);
+
+        final BinaryOutput tables = encoder.tables;
+        tables.writeByte(MAGIC);
+        tables.writeByte(VERSION);
+        tables.writeVarint(encoder.strings.size());
+        for (String string : encoder.strings) {
+            tables.writeString(string);
+        }
+        tables.writeVarint(encoder.frames.size());
+        for (StackTraceElement frame : encoder.frames) {
+            tables.writeVarint(stringReference(encoder, StackTraceElementAccessor.getClassLoaderName(frame)));
+            tables.writeVarint(stringReference(encoder, StackTraceElementAccessor.getModuleName(frame)));
+            tables.writeVarint(stringReference(encoder, StackTraceElementAccessor.getModuleVersion(frame)));
+            tables.writeVarint(stringReference(encoder, frame.getClassName()));
+            tables.writeVarint(stringReference(encoder, frame.getMethodName()));
+            tables.writeVarint(stringReference(encoder, frame.getFileName()));
+            tables.writeSignedVarint(frame.getLineNumber());
+        }
+        return encoder;
+    }
+
+    /**
+     * <p>Writes the given throwable to the tree buffer and adds its frames to the frame table. Frame strings are added
+     * to the string table while frames are collected, so the string table is complete before tables are written.
+     */
+    private static void encodeThrowable(final Encoder encoder, final ThrowableWrapper throwable, final int depth) {
+        if (depth > ThrowableFingerprint.MAX_CAUSES * 2) {
+            throw new IllegalArgumentException("Exception chain is too deep.");
+        }
+
+        final BinaryOutput tree = encoder.tree;
+        tree.writeVarint(stringReference(encoder, throwable.getClassName()));
+        tree.writeVarint(stringReference(encoder, throwable.getMessage()));
+
+        final StackTraceElementWrapper[] stackTrace = throwable.getStackTrace();
+        final int frameCount = (stackTrace == null) ? 0 : stackTrace.length;
+        tree.writeVarint(frameCount);
+        for (int i = 0; i < frameCount; i++) {
+            final StackTraceElement frame = stackTrace[i].getStackTraceElement();
+            Integer frameId = encoder.frameIds.get(frame);
+            if (frameId == null) {
+                frameId = encoder.frames.size();
+                encoder.frameIds.put(frame, frameId);
+                encoder.frames.add(frame);
+                stringReference(encoder, StackTraceElementAccessor.getClassLoaderName(frame));
+                stringReference(encoder, StackTraceElementAccessor.getModuleName(frame));
+                stringReference(encoder, StackTraceElementAccessor.getModuleVersion(frame));
+                stringReference(encoder, frame.getClassName());
+                stringReference(encoder, frame.getMethodName());
+                stringReference(encoder, frame.getFileName());
+            }
+            tree.writeVarint(frameId);
+        }
+
+        final ThrowableWrapper[] suppressed = throwable.getSuppressed();
+        final int suppressedCount = (suppressed == null) ? 0 : suppressed.length;
+        tree.writeVarint(suppressedCount);
+        for (int i = 0; i < suppressedCount; i++) {
+            encodeThrowable(encoder, suppressed[i], depth + 1);
+        }
+
+        if (throwable.getCause() == null) {
+            tree.writeByte(0);
+        } else {
+            tree.writeByte(1);
+            encodeThrowable(encoder, throwable.getCause(), depth + 1);
+        }
+    }
+
+    /**
+     * <p>Returns the reference of the given string, adding it to the string table if it is not there yet.
+     *
+     * @return index of the string plus one or zero for null
+     */
+    private static int stringReference(final Encoder encoder, final String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        Integer id = encoder.stringIds.get(value);
+        if (id == null) {
+            id = encoder.strings.size();
+            encoder.stringIds.put(value, id);
+            encoder.strings.add(value);
+        }
+        return id + 1;
+    }
+
+    private static String readStringReference(final BinaryInput input, final String[] strings) {
+        final int reference = input.readVarint();
+        if (reference < 0 || reference > strings.length) {
+            throw new IllegalArgumentException("Invalid string reference.");
+        }
+        return (reference == 0) ? null : strings[reference - 1];
+    }
+
+    private static ThrowableWrapper decodeThrowable(final BinaryInput input, final String[] strings, final StackTraceElementWrapper[] frames, final int depth) {
+        if (depth > ThrowableFingerprint.MAX_CAUSES * 2) {
+            throw new IllegalArgumentException("Exception chain is too deep.");
+        }
+
+        final String className = readStringReference(input, strings);
+        final String message = readStringReference(input, strings);
+
+        final int frameCount = input.readVarint();
+        if (frameCount > input.getBuffer().remaining()) {
+            throw new IllegalArgumentException("Invalid frame count.");
+        }
+        final StackTraceElementWrapper[] stackTrace = new StackTraceElementWrapper[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            final int frameId = input.readVarint();
+            if (frameId < 0 || frameId >= frames.length) {
+                throw new IllegalArgumentException("Invalid frame reference.");
+            }
+            stackTrace[i] = frames[frameId];
+        }
+
+        final int suppressedCount = input.readVarint();
+        if (suppressedCount > input.getBuffer().remaining()) {
+            throw new IllegalArgumentException("Invalid suppressed exception count.");
+        }
+        final ThrowableWrapper[] suppressed = new ThrowableWrapper[suppressedCount];
+        for (int i = 0; i < suppressedCount; i++) {
+            suppressed[i] = decodeThrowable(input, strings, frames, depth + 1);
+        }
+
+        final ThrowableWrapper cause = (input.readByte() == 0) ? null : decodeThrowable(input, strings, frames, depth + 1);
+
+        return new ThrowableWrapper(message, cause, className, suppressed, stackTrace);
+    }
+
+}
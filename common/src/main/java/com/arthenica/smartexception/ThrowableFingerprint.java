@@ -0,0 +1,187 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception;
+
+/**
+ * <p>Computes fingerprints of throwables. Throwables thrown from the same code path have the same fingerprint, even
+ * if their messages are different.
+ *
+ * <p>A fingerprint is a 64-bit FNV-1a hash of class names of the throwable and its causes and of class and method
+ * names of their stack trace elements. Line numbers, messages and suppressed exceptions are not included, so a
+ * fingerprint does not change when unrelated lines of the same method change. When a frame matcher is given, frames
+ * in ignore packages are skipped as well, so proxies and reflection frames do not split the same exception into
+ * several fingerprints. Fingerprints are computed without allocating.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class ThrowableFingerprint {
+
+    /**
+     * Maximum number of causes included in a fingerprint.
+     */
+    public static final int MAX_CAUSES = 64;
+
+    static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    static final long FNV_PRIME = 0x100000001b3L;
+
+    private ThrowableFingerprint() {
+    }
+
+    /**
+     * <p>Returns the fingerprint of the given throwable.
+     *
+     * @param throwable throwable
+     * @return fingerprint of the throwable or 0 if throwable is null
+     */
+    public static long of(final ThrowableWrapper throwable) {
+        return of(throwable, null);
+    }
+
+    /**
+     * <p>Returns the fingerprint of the given throwable, skipping frames that belong to ignore packages of the given
+     * frame matcher.
+     *
+     * @param throwable    throwable
+     * @param frameMatcher frame matcher of root and ignore packages or null to include all frames
+     * @return fingerprint of the throwable or 0 if throwable is null
+     */
+    public static long of(final ThrowableWrapper throwable, final FrameMatcher frameMatcher) {
+        if (throwable == null) {
+            return 0;
+        }
+
+        long hash = FNV_OFFSET_BASIS;
+        ThrowableWrapper current = throwable;
+        for (int i = 0; current != null && i <= MAX_CAUSES; i++) {
+            hash = hash(hash, current.getClassName());
+            final StackTraceElementWrapper[] stackTrace = current.getStackTrace();
+            if (stackTrace != null) {
+                for (StackTraceElementWrapper stackTraceElementWrapper : stackTrace) {
+                    final StackTraceElement stackTraceElement = stackTraceElementWrapper.getStackTraceElement();
+                    if (frameMatcher != null && FrameMatcher.hasFlag(frameMatcher.match(stackTraceElement.getClassName(), stackTraceElement.getMethodName()), FrameMatcher.IGNORE)) {
+                        continue;
+                    }
+                    hash = hash(hash, stackTraceElement.getClassName());
+                    hash = hash(hash, stackTraceElement.getMethodName());
+                }
+            }
+            current = current.getCause();
+        }
+        return hash;
+    }
+
+    /**
+     * <p>Returns the fingerprint of the given throwable without wrapping it, skipping frames that belong to ignore
+     * packages of the given frame matcher. The result is equal to the fingerprint of its {@link ThrowableWrapper}.
+     *
+     * @param throwable    throwable
+     * @param frameMatcher frame matcher of root and ignore packages or null to include all frames
+     * @return fingerprint of the throwable or 0 if throwable is null
+     */
+    public static long of(final Throwable throwable, final FrameMatcher frameMatcher) {
+        if (throwable == null) {
+            return 0;
+        }
+
+        long hash = FNV_OFFSET_BASIS;
+        Throwable current = throwable;
+        for (int i = 0; current != null && i <= MAX_CAUSES; i++) {
+            hash = hash(hash, current.getClass().getName());
+            final StackTraceElement[] stackTrace = current.getStackTrace();
+            if (stackTrace != null) {
+                for (StackTraceElement stackTraceElement : stackTrace) {
+                    if (frameMatcher != null && FrameMatcher.hasFlag(frameMatcher.match(stackTraceElement.getClassName(), stackTraceElement.getMethodName()), FrameMatcher.IGNORE)) {
+                        continue;
+                    }
+                    hash = hash(hash, stackTraceElement.getClassName());
+                    hash = hash(hash, stackTraceElement.getMethodName());
+                }
+            }
+            current = isInChain(throwable, current.getCause(), i + 1) ? null : current.getCause();
+        }
+        return hash;
+    }
+
+    /**
+     * <p>Checks whether the given cause already appears in the first <code>length</code> elements of the cause chain,
+     * in the same way {@link ThrowableWrapper} stops at circular causes.
+     */
+    private static boolean isInChain(final Throwable throwable, final Throwable cause, final int length) {
+        Throwable current = throwable;
+        for (int i = 0; current != null && i < length; i++) {
+            if (current == cause) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * <p>Returns the fingerprint of the given throwable as a 16 digit hexadecimal string.
+     *
+     * @param throwable throwable
+     * @return hexadecimal fingerprint of the throwable
+     */
+    public static String toHexString(final ThrowableWrapper throwable) {
+        return toHexString(of(throwable));
+    }
+
+    /**
+     * <p>Returns the given fingerprint as a 16 digit hexadecimal string.
+     *
+     * @param fingerprint fingerprint
+     * @return hexadecimal fingerprint
+     */
+    public static String toHexString(final long fingerprint) {
+        final String hexString = Long.toHexString(fingerprint);
+        return "0000000000000000".substring(hexString.length()) + hexString;
+    }
+
+    static long hash(long hash, final String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+
+        // separator, so that "ab" + "c" and "a" + "bc" have different hashes
+        hash ^= 0xff;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+
+}
@@ -35,6 +35,23 @@ package com.arthenica.smartexception;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
 public class AbstractExceptionsTest {
 
     @Test
@@ -61,6 +78,835 @@ public class AbstractExceptionsTest {
         assertPackageInformation("mylib-1.2.3.jar", "1.2.3", " [mylib-1.2.3.jar]");
     }
 
+    @Test
+    public void frameMatcher() {
+        final FrameMatcher frameMatcher = FrameMatcher.compile(Collections.singleton("com.example"), Arrays.asList("org.springframework", "org.springframework.aop"), Collections.singleton("org.springframework.cglib"), Collections.singleton("com.example.wrapper"));
+
+        final int rootMatch = frameMatcher.match("com.example.wrapper.WrapperException");
+        Assert.assertTrue(FrameMatcher.hasFlag(rootMatch, FrameMatcher.ROOT));
+        Assert.assertTrue(FrameMatcher.hasFlag(rootMatch, FrameMatcher.IGNORE_CAUSE));
+        Assert.assertFalse(FrameMatcher.hasFlag(rootMatch, FrameMatcher.IGNORE));
+        Assert.assertNull(frameMatcher.getGroupPackage(rootMatch));
+
+        final int groupMatch = frameMatcher.match("org.springframework.aop.framework.ReflectiveMethodInvocation");
+        Assert.assertEquals("org.springframework.aop", frameMatcher.getGroupPackage(groupMatch));
+        Assert.assertFalse(FrameMatcher.hasFlag(groupMatch, FrameMatcher.IGNORE));
+
+        final int ignoreMatch = frameMatcher.match("org.springframework.cglib.proxy.MethodProxy");
+        Assert.assertEquals("org.springframework", frameMatcher.getGroupPackage(ignoreMatch));
+        Assert.assertTrue(FrameMatcher.hasFlag(ignoreMatch, FrameMatcher.IGNORE));
+
+        Assert.assertEquals(0, frameMatcher.match("java.lang.Thread"));
+    }
+
+    @Test
+    public void frameMatcherPatterns() {
+        final FrameMatcher frameMatcher = FrameMatcher.compile(Collections.singleton("com.example.*.generated.*"), Collections.singleton("com.example.*#lambda$*"), Collections.singleton("*$$EnhancerBySpringCGLIB$$*"), Collections.<String>emptySet());
+
+        Assert.assertTrue(FrameMatcher.hasFlag(frameMatcher.match("com.example.api.generated.Client", "call"), FrameMatcher.ROOT));
+        Assert.assertTrue(FrameMatcher.hasFlag(frameMatcher.match("com.example.api.generated.Client"), FrameMatcher.ROOT));
+        Assert.assertFalse(FrameMatcher.hasFlag(frameMatcher.match("com.example.api.Client", "call"), FrameMatcher.ROOT));
+        Assert.assertFalse(FrameMatcher.hasFlag(frameMatcher.match("org.example.api.generated.Client", "call"), FrameMatcher.ROOT));
+
+        Assert.assertTrue(FrameMatcher.hasFlag(frameMatcher.match("com.example.Service$$EnhancerBySpringCGLIB$$1a2b3c", "process"), FrameMatcher.IGNORE));
+        Assert.assertFalse(FrameMatcher.hasFlag(frameMatcher.match("com.example.Service", "process"), FrameMatcher.IGNORE));
+
+        Assert.assertEquals("com.example.*#lambda$*", frameMatcher.getGroupPackage(frameMatcher.match("com.example.Service", "lambda$process$0")));
+        Assert.assertNull(frameMatcher.getGroupPackage(frameMatcher.match("com.example.Service", "process")));
+        Assert.assertNull(frameMatcher.getGroupPackage(frameMatcher.match("com.example.Service")));
+    }
+
+    @Test
+    public void frameMatcherStateCount() {
+        final Set<String> packageSet = new HashSet<String>();
+        for (int i = 0; i < 1000; i++) {
+            packageSet.add("com.example.module" + i);
+        }
+
+        final FrameMatcher frameMatcher = FrameMatcher.compile(packageSet, Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.<String>emptySet());
+        Assert.assertTrue(frameMatcher.getStateCount() < 2000);
+        Assert.assertTrue(FrameMatcher.hasFlag(frameMatcher.match("com.example.module999.Main", "main"), FrameMatcher.ROOT));
+        Assert.assertFalse(FrameMatcher.hasFlag(frameMatcher.match("com.example.Main", "main"), FrameMatcher.ROOT));
+    }
+
+    @Test
+    public void frameMatcherStateLimit() {
+        final String[] words = {"proxy", "cglib", "spring", "hibernate", "jdk", "sun", "reflect", "invoke", "lambda", "aop", "intercept", "handler"};
+        final List<String> ignorePackageList = new ArrayList<String>();
+        for (int i = 0; i < words.length; i++) {
+            ignorePackageList.add("*" + words[i] + "*" + words[(i + 1) % words.length].substring(0, 2) + "*");
+        }
+
+        // rules that need too many states are accepted and matched without an automaton
+        AbstractExceptions.reconfigure(Collections.singleton("com.example"), Collections.<String>emptySet(), ignorePackageList, Collections.<String>emptySet());
+        try {
+            final FrameMatcher frameMatcher = AbstractExceptions.packageConfiguration.getFrameMatcher();
+            Assert.assertFalse(frameMatcher.isDeterministic());
+            Assert.assertEquals(0, frameMatcher.getStateCount());
+            Assert.assertEquals(FrameMatcher.ROOT | FrameMatcher.IGNORE, frameMatcher.match("com.example.Service$proxy$cglib", "call"));
+            Assert.assertEquals(FrameMatcher.ROOT, frameMatcher.match("com.example.Service", "call"));
+            Assert.assertEquals(FrameMatcher.IGNORE, frameMatcher.match("org.example.invoke.lambda.Task", "run"));
+            Assert.assertEquals(0, frameMatcher.match("org.example.Handler", "handle"));
+            Assert.assertEquals(0, frameMatcher.match("org.example.Handler"));
+            Assert.assertTrue(frameMatcher.getClassCacheSize() > 0);
+        } finally {
+            AbstractExceptions.reconfigure(Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.<String>emptySet());
+        }
+    }
+
+    @Test
+    public void frameMatcherCache() {
+        final Set<String> rootPackageSet = new HashSet<String>(Collections.singleton("com.example"));
+        final Set<String> emptySet = Collections.emptySet();
+
+        final FrameMatcher frameMatcher = FrameMatcher.of(rootPackageSet, emptySet, emptySet, emptySet);
+        Assert.assertSame(frameMatcher, FrameMatcher.of(new HashSet<String>(rootPackageSet), emptySet, emptySet, emptySet));
+
+        rootPackageSet.add("org.example");
+        final FrameMatcher updatedFrameMatcher = FrameMatcher.of(rootPackageSet, emptySet, emptySet, emptySet);
+        Assert.assertNotSame(frameMatcher, updatedFrameMatcher);
+        Assert.assertTrue(FrameMatcher.hasFlag(updatedFrameMatcher.match("org.example.Main"), FrameMatcher.ROOT));
+    }
+
+    @Test
+    public void frameMatcherClassify() {
+        final FrameMatcher frameMatcher = FrameMatcher.compile(Collections.singleton("com.example"), Collections.singleton("org.springframework"), Collections.singleton("java.lang.reflect"), Collections.<String>emptySet());
+        final StackTraceElement[] stackTraceElements = new StackTraceElement[]{
+                new StackTraceElement("java.util.ArrayList", "get", "ArrayList.java", 10),
+                new StackTraceElement("com.example.Service", "run", "Service.java", 20),
+                new StackTraceElement("java.lang.reflect.Method", "invoke", "Method.java", 30),
+                new StackTraceElement("org.springframework.aop.Proxy", "invoke", "Proxy.java", 40),
+                new StackTraceElement("org.example.Main", "main", "Main.java", 50),
+                new StackTraceElement("java.lang.Thread", "run", "Thread.java", 60)
+        };
+
+        final int[] frameClasses = frameMatcher.classify(stackTraceElements);
+        Assert.assertEquals(0, frameClasses[0]);
+        Assert.assertTrue(FrameMatcher.hasFlag(frameClasses[1], FrameMatcher.ROOT));
+        Assert.assertTrue(FrameMatcher.hasFlag(frameClasses[2], FrameMatcher.IGNORE));
+        Assert.assertEquals("org.springframework", frameMatcher.getGroupPackage(frameClasses[3]));
+        Assert.assertEquals(6, frameMatcher.getClassCacheSize());
+
+        Assert.assertArrayEquals(new int[]{0, 1}, AbstractExceptions.selectStackTraceElements(stackTraceElements, frameClasses));
+
+        final int[] frameClassesWithoutRoot = FrameMatcher.compile(Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.singleton("java.lang.reflect"), Collections.<String>emptySet()).classify(stackTraceElements);
+        Assert.assertArrayEquals(new int[]{0, 1, 3, 4, 5}, AbstractExceptions.selectStackTraceElements(stackTraceElements, frameClassesWithoutRoot));
+    }
+
+    @Test
+    public void frameMatcherClassCacheSize() {
+        final FrameMatcher frameMatcher = FrameMatcher.compile(Collections.singleton("com.example"), Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.<String>emptySet());
+        for (int i = 0; i < FrameMatcher.CLASS_CACHE_SIZE * 2; i++) {
+            Assert.assertTrue(FrameMatcher.hasFlag(frameMatcher.match("com.example.Class" + i, "run"), FrameMatcher.ROOT));
+        }
+        Assert.assertTrue(frameMatcher.getClassCacheSize() <= FrameMatcher.CLASS_CACHE_SIZE);
+    }
+
+    @Test
+    public void frameworkProfile() {
+        Assert.assertEquals(FrameworkProfile.SPRING, FrameworkProfile.forName("spring"));
+        Assert.assertEquals(FrameworkProfile.JDK_REFLECTION, FrameworkProfile.forName(" JDK-Reflection "));
+        Assert.assertTrue(FrameworkProfile.TOMCAT.getGroupPackages().contains("org.apache.catalina"));
+        Assert.assertTrue(FrameworkProfile.JDK_REFLECTION.getIgnorePackages().contains("jdk.internal.reflect"));
+
+        try {
+            FrameworkProfile.forName("struts");
+            Assert.fail();
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Unknown framework profile: struts", e.getMessage());
+        }
+    }
+
+    @Test
+    public void logLinearHistogramBuckets() {
+        for (long value = 0; value < 1 << 20; value++) {
+            final int index = LogLinearHistogram.bucketIndex(value);
+            Assert.assertTrue(LogLinearHistogram.highestValue(index) >= value);
+            Assert.assertTrue(index == 0 || LogLinearHistogram.highestValue(index - 1) < value);
+            Assert.assertTrue(LogLinearHistogram.highestValue(index) - value <= value / LogLinearHistogram.SUB_BUCKET_COUNT);
+        }
+        Assert.assertEquals(Long.MAX_VALUE, LogLinearHistogram.highestValue(LogLinearHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void logLinearHistogram() {
+        final LogLinearHistogram histogram = new LogLinearHistogram(1000000);
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+
+        for (int value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+        histogram.record(5000000);
+
+        Assert.assertEquals(10001, histogram.getTotalCount());
+        Assert.assertEquals(5000000, histogram.getMax());
+        Assert.assertEquals((10000 * 10001 / 2 + 5000000) / 10001.0, histogram.getMean(), 0.001);
+        Assert.assertEquals(1, histogram.getValueAtPercentile(0));
+        Assert.assertEquals(5001, histogram.getValueAtPercentile(50), 5001 / LogLinearHistogram.SUB_BUCKET_COUNT);
+        Assert.assertEquals(9901, histogram.getValueAtPercentile(99), 9901 / LogLinearHistogram.SUB_BUCKET_COUNT);
+        Assert.assertEquals(5000000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getTotalCount());
+        Assert.assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void exceptionAggregator() throws InterruptedException {
+        final StackTraceElementWrapper[] stackTrace = new StackTraceElementWrapper[]{
+                new StackTraceElementWrapper(new StackTraceElement("java.lang.reflect.Method", "invoke", "Method.java", 498)),
+                new StackTraceElementWrapper(new StackTraceElement("com.example.Service", "run", "Service.java", 42))
+        };
+        final FrameMatcher frameMatcher = FrameMatcher.compile(Collections.singleton("com.example"), Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.<String>emptySet());
+        final ThrowableWrapper heavyHitter = new ThrowableWrapper("Failed.", null, "com.example.HeavyHitterException", new ThrowableWrapper[0], stackTrace);
+
+        final ExceptionAggregator aggregator = new ExceptionAggregator(16);
+        for (int i = 0; i < 10000; i++) {
+            aggregator.record(new ThrowableWrapper("Failed.", null, "com.example.Exception" + i, new ThrowableWrapper[0], stackTrace), frameMatcher, "com.example.Exception" + i);
+            if (i % 10 == 0) {
+                aggregator.record(heavyHitter, frameMatcher, "com.example.HeavyHitterException");
+            }
+        }
+
+        Assert.assertEquals(11000, aggregator.getTotalCount());
+        Assert.assertEquals(16, aggregator.getTop().size());
+        Assert.assertEquals(3, aggregator.getTop(3).size());
+
+        final ExceptionAggregate top = aggregator.getTop(1).get(0);
+        Assert.assertEquals("com.example.HeavyHitterException", top.getClassName());
+        Assert.assertEquals(ThrowableFingerprint.of(heavyHitter), top.getFingerprint());
+        Assert.assertTrue(top.getCount() >= 1000);
+        Assert.assertTrue(top.getCount() - top.getError() <= 1000);
+        Assert.assertEquals("com.example.Service.run(Service.java:42)", top.getOriginFrame());
+        Assert.assertEquals("com.example.HeavyHitterException", top.getStackTrace());
+        Assert.assertTrue(top.getFirstSeen() <= top.getLastSeen());
+
+        aggregator.reset();
+        Assert.assertEquals(0, aggregator.getTotalCount());
+        Assert.assertTrue(aggregator.getTop().isEmpty());
+
+        // occurrences of tracked kinds are counted concurrently without losing any
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        aggregator.record(heavyHitter, frameMatcher, "com.example.HeavyHitterException");
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(40000, aggregator.getTotalCount());
+        Assert.assertEquals(40000, aggregator.getTop(1).get(0).getCount());
+
+        // occurrences counted while entries are replaced are not lost
+        final ExceptionAggregator smallAggregator = new ExceptionAggregator(2);
+        final Thread[] replacingThreads = new Thread[5];
+        for (int i = 0; i < replacingThreads.length; i++) {
+            final boolean replacing = (i == 0);
+            replacingThreads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        if (replacing) {
+                            smallAggregator.record(new ThrowableWrapper("Failed.", null, "com.example.Exception" + j, new ThrowableWrapper[0], stackTrace), frameMatcher, "com.example.Exception" + j);
+                        } else {
+                            smallAggregator.record(heavyHitter, frameMatcher, "com.example.HeavyHitterException");
+                        }
+                    }
+                }
+            });
+            replacingThreads[i].start();
+        }
+        for (Thread thread : replacingThreads) {
+            thread.join();
+        }
+        Assert.assertEquals(50000, smallAggregator.getTotalCount());
+        final ExceptionAggregate heavyHitterAggregate = smallAggregator.getTop(1).get(0);
+        Assert.assertEquals("com.example.HeavyHitterException", heavyHitterAggregate.getClassName());
+        Assert.assertTrue(heavyHitterAggregate.getCount() >= 40000);
+        Assert.assertTrue(heavyHitterAggregate.getCount() - heavyHitterAggregate.getError() <= 40000);
+    }
+
+    @Test
+    public void exceptionAggregatorDigestError() throws InterruptedException {
+        final ExceptionAggregator aggregator = new ExceptionAggregator(16);
+        aggregator.record(new ThrowableWrapper("Failed.", null, "com.example.Exception", new ThrowableWrapper[0], new StackTraceElementWrapper[0]), null, "com.example.Exception");
+        Assert.assertNull(aggregator.getLastDigestError());
+
+        final AtomicLong digestCount = new AtomicLong();
+        aggregator.startDigest(new Appendable() {
+
+            @Override
+            public Appendable append(final CharSequence csq) {
+                digestCount.incrementAndGet();
+                throw new IllegalStateException("Closed.");
+            }
+
+            @Override
+            public Appendable append(final CharSequence csq, final int start, final int end) {
+                return append(csq);
+            }
+
+            @Override
+            public Appendable append(final char c) {
+                return append(String.valueOf(c));
+            }
+        }, 10, TimeUnit.MILLISECONDS, 10);
+
+        // a failing digest does not cancel the following ones
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (digestCount.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        aggregator.stopDigest();
+
+        Assert.assertTrue(digestCount.get() >= 2);
+        Assert.assertTrue(aggregator.getLastDigestError() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void throwableFingerprintIgnorePackages() {
+        final StackTraceElementWrapper service = new StackTraceElementWrapper(new StackTraceElement("com.example.Service", "run", "Service.java", 42));
+        final ThrowableWrapper direct = new ThrowableWrapper("Failed.", null, "java.lang.IllegalStateException", new ThrowableWrapper[0], new StackTraceElementWrapper[]{service});
+        final ThrowableWrapper proxied = new ThrowableWrapper("Failed.", null, "java.lang.IllegalStateException", new ThrowableWrapper[0], new StackTraceElementWrapper[]{
+                new StackTraceElementWrapper(new StackTraceElement("com.example.Service$$EnhancerBySpringCGLIB$$1", "run", null, -1)),
+                service
+        });
+        final FrameMatcher frameMatcher = FrameMatcher.compile(Collections.singleton("com.example"), Collections.<String>emptySet(), Collections.singleton("*$$EnhancerBySpringCGLIB$$*"), Collections.<String>emptySet());
+
+        Assert.assertNotEquals(ThrowableFingerprint.of(direct), ThrowableFingerprint.of(proxied));
+        Assert.assertEquals(ThrowableFingerprint.of(direct, frameMatcher), ThrowableFingerprint.of(proxied, frameMatcher));
+        Assert.assertEquals(ThrowableFingerprint.of(direct), ThrowableFingerprint.of(direct, frameMatcher));
+    }
+
+    @Test
+    public void stripedCounter() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counter.increment();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(40000, counter.sum());
+        Assert.assertEquals(40000, counter.sumThenReset());
+        Assert.assertEquals(0, counter.sum());
+        Assert.assertEquals(1, StripedCounter.stripes(1));
+        Assert.assertEquals(8, StripedCounter.stripes(6));
+        Assert.assertEquals(StripedCounter.MAX_STRIPES, StripedCounter.stripes(1000));
+    }
+
+    @Test
+    public void exceptionRateTracker() {
+        final long[] time = new long[1];
+        final ExceptionRateTracker rateTracker = new ExceptionRateTracker(2) {
+
+            @Override
+            long nanoTime() {
+                return time[0];
+            }
+        };
+
+        // steady 1 exception per second for an hour
+        for (int second = 0; second < 3600; second++) {
+            time[0] = TimeUnit.SECONDS.toNanos(second);
+            rateTracker.record(1, "com.example.SteadyException");
+        }
+        final ExceptionRate steady = rateTracker.getRates().get(0);
+        Assert.assertEquals(1.0, steady.getOneMinuteRate(), 0.05);
+        Assert.assertEquals(1.0, steady.getFifteenMinuteRate(), 0.05);
+        Assert.assertEquals(0, steady.getRise(), 0.05);
+
+        // a burst of 10 exceptions per second during the last minute
+        for (int second = 3600; second < 3660; second++) {
+            time[0] = TimeUnit.SECONDS.toNanos(second);
+            rateTracker.record(1, "com.example.SteadyException");
+            for (int i = 0; i < 10; i++) {
+                rateTracker.record(2, "com.example.RisingException");
+            }
+        }
+        rateTracker.record(3, "com.example.DroppedException");
+        Assert.assertEquals(1, rateTracker.getDroppedCount());
+
+        time[0] = TimeUnit.SECONDS.toNanos(3660);
+        final ExceptionRate rising = rateTracker.getFastestRising(1).get(0);
+        Assert.assertEquals(2, rising.getFingerprint());
+        Assert.assertEquals("com.example.RisingException", rising.getClassName());
+        Assert.assertEquals(600, rising.getCount());
+        Assert.assertTrue(rising.getOneMinuteRate() > 5);
+        Assert.assertTrue(rising.getOneMinuteRate() > rising.getFiveMinuteRate());
+        Assert.assertTrue(rising.getFiveMinuteRate() > rising.getFifteenMinuteRate());
+
+        // idle fingerprints are evicted
+        time[0] = TimeUnit.HOURS.toNanos(4);
+        Assert.assertTrue(rateTracker.getRates().isEmpty());
+    }
+
+    @Test
+    public void exceptionClusterer() {
+        final ThrowableWrapper base = clusterThrowable("com.example.Service", "com.sun.proxy.$Proxy12", "handle", "org.apache.catalina.core.ApplicationFilterChain");
+        final ThrowableWrapper otherProxy = clusterThrowable("com.example.Service", "com.sun.proxy.$Proxy57", "handle", "org.apache.catalina.core.ApplicationFilterChain");
+        final ThrowableWrapper otherFrame = clusterThrowable("com.example.Service", "com.sun.proxy.$Proxy12", "handleAsync", "org.apache.catalina.core.ApplicationFilterChain");
+        final ThrowableWrapper otherService = clusterThrowable("org.example.Repository", "org.example.Repository$$EnhancerBySpringCGLIB$$1f2e", "save", "org.springframework.web.servlet.DispatcherServlet");
+
+        Assert.assertEquals(ExceptionClusterer.hashClassName(0, "com.sun.proxy.$Proxy12"), ExceptionClusterer.hashClassName(0, "com.sun.proxy.$Proxy57"));
+        Assert.assertEquals(ExceptionClusterer.hashClassName(0, "com.example.Service$$Lambda$1/0x01"), ExceptionClusterer.hashClassName(0, "com.example.Service$$Lambda$2/0x02"));
+        Assert.assertNotEquals(ExceptionClusterer.hashClassName(0, "com.example.Service"), ExceptionClusterer.hashClassName(0, "com.example.Servic"));
+
+        final ExceptionClusterer clusterer = new ExceptionClusterer();
+        Assert.assertEquals(1.0, clusterer.similarity(base, otherProxy, null), 0.0);
+        Assert.assertTrue(clusterer.similarity(base, otherFrame, null) >= ExceptionClusterer.DEFAULT_SIMILARITY_THRESHOLD);
+        Assert.assertTrue(clusterer.similarity(base, otherService, null) < ExceptionClusterer.DEFAULT_SIMILARITY_THRESHOLD);
+
+        final ExceptionCluster cluster = clusterer.assign(base, null);
+        Assert.assertEquals(ThrowableFingerprint.of(base), cluster.getId());
+        Assert.assertSame(cluster, clusterer.assign(otherProxy, null));
+        Assert.assertSame(cluster, clusterer.assign(otherFrame, null));
+        Assert.assertNotSame(cluster, clusterer.assign(otherService, null));
+        Assert.assertEquals(2, clusterer.getClusters().size());
+        Assert.assertEquals(3, clusterer.getClusters().get(0).getSize());
+
+        // exceptions seen before are assigned to the same cluster without being compared again
+        Assert.assertSame(cluster, clusterer.assign(otherFrame, null));
+        Assert.assertEquals(4, clusterer.getClusters().get(0).getSize());
+
+        Assert.assertArrayEquals(new int[]{0, 1, 0, 0, 1}, clusterer.cluster(Arrays.asList(base, otherService, otherProxy, otherFrame, otherService), null));
+
+        clusterer.reset();
+        Assert.assertTrue(clusterer.getClusters().isEmpty());
+    }
+
+    @Test
+    public void exceptionRecorder() throws InterruptedException {
+        final ExceptionRecorder recorder = new ExceptionRecorder(100);
+        Assert.assertEquals(128, recorder.getCapacity());
+
+        final IllegalStateException cause = new IllegalStateException("Cause.");
+        final IllegalArgumentException exception = new IllegalArgumentException("Failed.", cause);
+        cause.initCause(exception);
+        Assert.assertEquals(ThrowableFingerprint.of(new ThrowableWrapper(exception)), recorder.record(exception, null));
+
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        recorder.record(new IllegalStateException("Failed " + j + "."), null);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(4001, recorder.getRecordedCount());
+        final List<RecordedException> recordList = recorder.getRecords();
+        Assert.assertTrue(recordList.size() <= 128);
+        Assert.assertTrue(recordList.size() + recorder.getDroppedCount() >= 128);
+        long previousSequence = 4001 - 129;
+        for (RecordedException record : recordList) {
+            Assert.assertTrue(record.getSequence() > previousSequence);
+            Assert.assertEquals("java.lang.IllegalStateException", record.getClassName());
+            Assert.assertEquals(record.getThrowable().getMessage(), record.getMessage());
+            previousSequence = record.getSequence();
+        }
+
+        final ExceptionRecorder smallRecorder = new ExceptionRecorder(4);
+        for (int i = 0; i < 6; i++) {
+            smallRecorder.record(new IllegalArgumentException("Failed " + i + "."), null);
+        }
+        final List<RecordedException> smallRecordList = smallRecorder.getRecords();
+        Assert.assertEquals(4, smallRecordList.size());
+        Assert.assertEquals(2, smallRecordList.get(0).getSequence());
+        Assert.assertEquals("Failed 5.", smallRecordList.get(3).getMessage());
+        Assert.assertEquals(Thread.currentThread().getName(), smallRecordList.get(3).getThreadName());
+    }
+
+    @Test
+    public void frameDictionary() {
+        final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+        exception.addSuppressed(new UnsupportedOperationException());
+        final ThrowableWrapper throwable = new ThrowableWrapper(exception);
+
+        final FrameDictionary dictionary = new FrameDictionary();
+        final CompactTrace trace = dictionary.compact(exception);
+        assertThrowableEquals(throwable, trace.toThrowableWrapper());
+        assertThrowableEquals(throwable, dictionary.compact(throwable).toThrowableWrapper());
+        Assert.assertEquals(1, trace.getSuppressed().length);
+        Assert.assertEquals("Invalid argument.", trace.getCause().getMessage());
+        Assert.assertNull(dictionary.compact((Throwable) null));
+
+        // frames and class names of the same code path are shared
+        final int size = dictionary.getSize();
+        final CompactTrace otherTrace = dictionary.compact(new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument.")));
+        Assert.assertSame(trace.getClassName(), otherTrace.getClassName());
+        Assert.assertSame(trace.getCause().getFrame(1), otherTrace.getCause().getFrame(1));
+        Assert.assertTrue(dictionary.getSize() <= size + 2);
+
+        // traces of an old generation are still resolved after the dictionary is full
+        final FrameDictionary smallDictionary = new FrameDictionary(trace.getFrameCount() + 1);
+        final CompactTrace firstTrace = smallDictionary.compact(exception.getCause());
+        Assert.assertEquals(1, smallDictionary.getGenerationCount());
+        for (int i = 0; i < 4; i++) {
+            final IllegalArgumentException generated = new IllegalArgumentException("Generated.");
+            generated.setStackTrace(new StackTraceElement[]{new StackTraceElement("com.example.Generated" + i, "run", null, -1)});
+            Assert.assertEquals("com.example.Generated" + i, smallDictionary.compact(generated).getFrame(0).getClassName());
+        }
+        Assert.assertTrue(smallDictionary.getGenerationCount() > 1);
+        assertThrowableEquals(throwable.getCause(), firstTrace.toThrowableWrapper());
+
+        // a throwable with more frames than a generation holds is still compacted, without looping over generations
+        final IllegalStateException largeException = new IllegalStateException("Large.");
+        final StackTraceElement[] largeStackTrace = new StackTraceElement[10];
+        for (int i = 0; i < largeStackTrace.length; i++) {
+            largeStackTrace[i] = new StackTraceElement("com.example.Large" + i, "run", null, -1);
+        }
+        largeException.setStackTrace(largeStackTrace);
+        final FrameDictionary tinyDictionary = new FrameDictionary(4);
+        assertThrowableEquals(new ThrowableWrapper(largeException), tinyDictionary.compact(largeException).toThrowableWrapper());
+        assertThrowableEquals(new ThrowableWrapper(largeException), tinyDictionary.compact(new ThrowableWrapper(largeException)).toThrowableWrapper());
+        Assert.assertTrue(tinyDictionary.getGenerationCount() <= 3);
+    }
+
+    @Test
+    public void throwableCodec() {
+        final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException(null, new IllegalStateException("Failed.")));
+        exception.addSuppressed(new UnsupportedOperationException());
+        final ThrowableWrapper throwable = new ThrowableWrapper(exception);
+
+        final IllegalArgumentException lineNumbers = new IllegalArgumentException("Line numbers.");
+        lineNumbers.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("com.example.Native", "call", null, -2),
+                new StackTraceElement("com.example.Min", "call", "Min.java", Integer.MIN_VALUE),
+                new StackTraceElement("com.example.Max", "call", "Max.java", Integer.MAX_VALUE)});
+        assertThrowableEquals(new ThrowableWrapper(lineNumbers), ThrowableCodec.decode(ByteBuffer.wrap(ThrowableCodec.toByteArray(new ThrowableWrapper(lineNumbers)))));
+
+        final byte[] bytes = ThrowableCodec.toByteArray(throwable);
+        Assert.assertEquals(ThrowableCodec.MAGIC, bytes[0]);
+        Assert.assertEquals(ThrowableCodec.VERSION, bytes[1]);
+
+        // several throwables can be written to the same buffer
+        final ByteBuffer buffer = ByteBuffer.allocate(2 * bytes.length + 1);
+        Assert.assertEquals(bytes.length, ThrowableCodec.encode(throwable, buffer));
+        Assert.assertEquals(bytes.length, ThrowableCodec.encode(throwable, buffer));
+        try {
+            ThrowableCodec.encode(throwable, buffer);
+            Assert.fail("Encoding into a full buffer must fail.");
+        } catch (final BufferOverflowException e) {
+            Assert.assertEquals(2 * bytes.length, buffer.position());
+        }
+        buffer.flip();
+        assertThrowableEquals(throwable, ThrowableCodec.decode(buffer));
+        assertThrowableEquals(throwable, ThrowableCodec.decode(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+
+        final byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        final byte[] unsupported = bytes.clone();
+        unsupported[1] = ThrowableCodec.VERSION + 1;
+        final byte magic = ThrowableCodec.MAGIC;
+        final byte version = ThrowableCodec.VERSION;
+        final byte[] hugeStringCount = {magic, version, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f};
+        final byte[] negativeStringReference = {magic, version, 0, 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08, 0, 0, 0, 0, 0, 0};
+        final byte[] negativeFrameReference = {magic, version, 0, 0, 0, 0, 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f, 0, 0};
+        final byte[] tooLongVarint = {magic, version, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0};
+        for (byte[] invalid : new byte[][]{truncated, unsupported, new byte[]{0, 1}, new byte[0], hugeStringCount, negativeStringReference, negativeFrameReference, tooLongVarint}) {
+            try {
+                ThrowableCodec.decode(ByteBuffer.wrap(invalid));
+                Assert.fail("Decoding invalid data must fail.");
+            } catch (final IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void deflateCodec() {
+        final List<ThrowableWrapper> corpus = new ArrayList<ThrowableWrapper>();
+        for (int i = 0; i < 20; i++) {
+            corpus.add(new ThrowableWrapper(new IllegalStateException("Failed " + i + ".", new IllegalArgumentException())));
+        }
+        final CompressionDictionary dictionary = CompressionDictionary.train(corpus, CompressionDictionary.DEFAULT_SIZE);
+        Assert.assertTrue(dictionary.getSize() > 0 && dictionary.getSize() <= CompressionDictionary.DEFAULT_SIZE);
+        Assert.assertEquals(dictionary.getId(), CompressionDictionary.of(dictionary.getBytes()).getId());
+
+        final DeflateCodec codec = new DeflateCodec(dictionary);
+        final DeflateCodec plainCodec = new DeflateCodec(Deflater.BEST_SPEED, null);
+        final ThrowableWrapper throwable = new ThrowableWrapper(new IllegalStateException("Failed.", new IllegalArgumentException()));
+        final byte[] record = ThrowableCodec.toByteArray(throwable);
+        final byte[] compressed = codec.compress(record);
+        Assert.assertTrue(compressed.length < plainCodec.compress(record).length);
+        assertThrowableEquals(throwable, ThrowableCodec.decode(ByteBuffer.wrap(codec.decompress(compressed))));
+
+        final String text = "java.lang.IllegalStateException: Failed.\n\tat " + throwable.getStackTrace()[0].getStackTraceElement();
+        Assert.assertEquals(text, codec.decompressString(codec.compress(text)));
+        Assert.assertEquals("", codec.decompressString(codec.compress("")));
+        Assert.assertEquals(text, codec.decompressString(plainCodec.compress(text)));
+
+        // data compressed with an older dictionary needs that dictionary
+        final CompressionDictionary newDictionary = CompressionDictionary.train(corpus.subList(0, 1), 64);
+        Assert.assertNotEquals(dictionary.getId(), newDictionary.getId());
+        Assert.assertArrayEquals(record, new DeflateCodec(newDictionary, dictionary).decompress(compressed));
+        for (byte[] invalid : new byte[][]{Arrays.copyOf(compressed, compressed.length - 1), new byte[]{10, 1, 2}, new byte[0]}) {
+            try {
+                new DeflateCodec(newDictionary).decompress(invalid);
+                Assert.fail("Decompressing invalid data must fail.");
+            } catch (final IllegalArgumentException ignored) {
+            }
+        }
+        try {
+            new DeflateCodec(newDictionary).decompress(compressed);
+            Assert.fail("Decompressing with an unknown dictionary must fail.");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(String.format("%08x", dictionary.getId())));
+        }
+        codec.clearPools();
+        Assert.assertArrayEquals(record, codec.decompress(compressed));
+    }
+
+    @Test
+    public void exceptionJournal() throws IOException, InterruptedException {
+        final File directory = File.createTempFile("smart-exception", "journal");
+        Assert.assertTrue(directory.delete());
+        try {
+            final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+            exception.addSuppressed(new UnsupportedOperationException());
+            final ThrowableWrapper throwable = new ThrowableWrapper(exception);
+
+            ExceptionJournal journal = new ExceptionJournal(directory, 4096, 3);
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(journal.append(throwable));
+            }
+
+            List<JournalRecord> recordList = ExceptionJournalReader.readDirectory(directory);
+            Assert.assertEquals(3, recordList.size());
+            assertThrowableEquals(throwable, recordList.get(2).getThrowable());
+            Assert.assertEquals(ThrowableFingerprint.of(throwable), ThrowableFingerprint.of(recordList.get(2).getThrowable()));
+            Assert.assertEquals(Thread.currentThread().getName(), recordList.get(2).getThreadName());
+            Assert.assertEquals(ExceptionJournal.SEGMENT_HEADER_SIZE, recordList.get(0).getOffset());
+
+            // frames are defined by the first record only
+            Assert.assertTrue(recordList.get(2).getOffset() - recordList.get(1).getOffset() < recordList.get(1).getOffset() - recordList.get(0).getOffset());
+
+            // a record with an invalid checksum is skipped, later records are still read
+            final RandomAccessFile segmentFile = new RandomAccessFile(ExceptionJournal.getSegmentFiles(directory).get(0), "rw");
+            segmentFile.seek(recordList.get(1).getOffset() + 4);
+            segmentFile.writeInt(0);
+            segmentFile.close();
+            recordList = ExceptionJournalReader.readDirectory(directory);
+            Assert.assertEquals(2, recordList.size());
+            assertThrowableEquals(throwable, recordList.get(1).getThrowable());
+
+            // a record with a valid checksum that can not be decoded is skipped and counted
+            corruptRecord(ExceptionJournal.getSegmentFiles(directory).get(0), recordList.get(0).getOffset());
+            final AtomicLong skippedRecordCount = new AtomicLong();
+            recordList = ExceptionJournalReader.readSegment(ExceptionJournal.getSegmentFiles(directory).get(0), JournalFilter.ALL, skippedRecordCount);
+            Assert.assertEquals(1, recordList.size());
+            Assert.assertEquals(1, skippedRecordCount.get());
+            journal.close();
+
+            journal = new ExceptionJournal(directory, 4096, 3);
+            final ExceptionJournal concurrentJournal = journal;
+            final Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 200; j++) {
+                            concurrentJournal.append(new IllegalStateException("Failed " + j + "."));
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            journal.close();
+
+            Assert.assertEquals(800, journal.getAppendedCount() + journal.getDroppedCount());
+            Assert.assertEquals(0, journal.getDroppedCount());
+            final List<File> segmentFileList = ExceptionJournal.getSegmentFiles(directory);
+            Assert.assertEquals(3, segmentFileList.size());
+            long recordCount = 0;
+            for (File file : segmentFileList) {
+                for (JournalRecord record : ExceptionJournalReader.readSegment(file)) {
+                    Assert.assertEquals("java.lang.IllegalStateException", record.getThrowable().getClassName());
+                    Assert.assertTrue(record.getThrowable().getMessage().startsWith("Failed "));
+                    recordCount++;
+                }
+            }
+            Assert.assertTrue(recordCount > 0 && recordCount < 800);
+
+            final ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                Assert.assertEquals(recordCount, ExceptionJournalReader.read(segmentFileList, JournalFilter.ALL, pool).size());
+                Assert.assertTrue(ExceptionJournalReader.read(segmentFileList, JournalFilter.ALL.withClassName("java.lang.IllegalArgumentException"), pool).isEmpty());
+                Assert.assertTrue(ExceptionJournalReader.read(segmentFileList, JournalFilter.ALL.withFrom(System.currentTimeMillis() + 1000), pool).isEmpty());
+
+                final JournalRecord record = ExceptionJournalReader.readSegment(segmentFileList.get(2)).get(0);
+                Assert.assertEquals(recordCount, ExceptionJournalReader.read(segmentFileList, JournalFilter.ALL.withFingerprint(ThrowableFingerprint.of(record.getThrowable())).withClassName("java.lang.IllegalStateException"), pool).size());
+                Assert.assertTrue(ExceptionJournalReader.read(segmentFileList, JournalFilter.ALL.withFingerprint(ThrowableFingerprint.of(throwable)), pool).isEmpty());
+            } finally {
+                pool.shutdown();
+            }
+
+            // a segment that can not be created drops the exception and keeps the error
+            final File failingDirectory = new File(directory, "failing");
+            final ExceptionJournal failingJournal = new ExceptionJournal(failingDirectory, 4096, 3);
+            for (File file : ExceptionJournal.getSegmentFiles(failingDirectory)) {
+                Assert.assertTrue(file.delete());
+            }
+            Assert.assertTrue(failingDirectory.delete());
+            int appended = 0;
+            while (failingJournal.append(throwable)) {
+                appended++;
+            }
+            Assert.assertTrue(appended > 0);
+            Assert.assertEquals(appended, failingJournal.getAppendedCount());
+            Assert.assertEquals(1, failingJournal.getDroppedCount());
+            Assert.assertNotNull(failingJournal.getLastError());
+            failingJournal.close();
+        } finally {
+            for (File file : ExceptionJournal.getSegmentFiles(directory)) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void exceptionIndex() throws IOException {
+        final File directory = File.createTempFile("smart-exception", "journal");
+        Assert.assertTrue(directory.delete());
+        final File indexFile = File.createTempFile("smart-exception", ".index");
+        try {
+            final IllegalStateException daoException = new IllegalStateException("Query failed.", new java.net.SocketTimeoutException("Read timed out."));
+            daoException.setStackTrace(new StackTraceElement[]{
+                    new StackTraceElement("com.example.PaymentDao", "save", "PaymentDao.java", 42),
+                    new StackTraceElement("com.example.PaymentService", "pay", "PaymentService.java", 17)});
+            final IllegalArgumentException serviceException = new IllegalArgumentException("Invalid amount.");
+            serviceException.setStackTrace(new StackTraceElement[]{
+                    new StackTraceElement("com.example.PaymentService", "validate", "PaymentService.java", 30)});
+
+            final ExceptionJournal journal = new ExceptionJournal(directory, 4096, 8);
+            for (int i = 0; i < 60; i++) {
+                Assert.assertTrue(journal.append((i % 3 == 0) ? daoException : serviceException));
+            }
+            journal.close();
+            Assert.assertTrue(ExceptionJournal.getSegmentFiles(directory).size() > 1);
+
+            Assert.assertEquals(60, ExceptionIndex.build(ExceptionJournal.getSegmentFiles(directory), indexFile, null).getRecordCount());
+            final ExceptionIndex index = ExceptionIndex.open(indexFile);
+            Assert.assertEquals(60, index.getRecordCount());
+
+            final int[] daoRecords = index.findByFrameClass("com.example.PaymentDao");
+            Assert.assertEquals(20, daoRecords.length);
+            for (int i = 1; i < daoRecords.length; i++) {
+                Assert.assertTrue(daoRecords[i - 1] < daoRecords[i]);
+            }
+            Assert.assertArrayEquals(daoRecords, index.findByCauseClass("java.net.SocketTimeoutException"));
+            Assert.assertArrayEquals(daoRecords, index.findByExceptionClass("java.lang.IllegalStateException"));
+            Assert.assertArrayEquals(daoRecords, index.findByFrame("com.example.PaymentDao", "save"));
+            Assert.assertArrayEquals(daoRecords, index.findByFingerprint(ThrowableFingerprint.of(new ThrowableWrapper(daoException))));
+            Assert.assertEquals(60, index.findByFrameClass("com.example.PaymentService").length);
+            Assert.assertEquals(40, index.findByFrame("com.example.PaymentService", "validate").length);
+            Assert.assertEquals(0, index.findByFrame("com.example.PaymentService", "refund").length);
+            Assert.assertEquals(0, index.findByExceptionClass("java.net.SocketTimeoutException").length);
+            Assert.assertEquals(0, index.findByFingerprint(0).length);
+
+            Assert.assertEquals(20, ExceptionIndex.intersect(daoRecords, index.findByFrameClass("com.example.PaymentService")).length);
+            Assert.assertEquals(0, ExceptionIndex.intersect(daoRecords, index.findByExceptionClass("java.lang.IllegalArgumentException")).length);
+            Assert.assertEquals(20, index.filterByTime(daoRecords, System.currentTimeMillis() - 3600000, System.currentTimeMillis() + 1).length);
+            Assert.assertEquals(0, index.filterByTime(daoRecords, System.currentTimeMillis() + 1000, Long.MAX_VALUE).length);
+
+            final List<JournalRecord> recordList = index.getRecords(daoRecords, directory);
+            Assert.assertEquals(20, recordList.size());
+            for (int i = 0; i < recordList.size(); i++) {
+                Assert.assertEquals(index.getOffset(daoRecords[i]), recordList.get(i).getOffset());
+                Assert.assertEquals(index.getSegmentIndex(daoRecords[i]), recordList.get(i).getSegmentIndex());
+                assertThrowableEquals(new ThrowableWrapper(daoException), recordList.get(i).getThrowable());
+            }
+        } finally {
+            for (File file : ExceptionJournal.getSegmentFiles(directory)) {
+                file.delete();
+            }
+            directory.delete();
+            indexFile.delete();
+        }
+    }
+
+    private void corruptRecord(final File segmentFile, final int offset) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw");
+        try {
+            randomAccessFile.seek(offset);
+            final byte[] body = new byte[randomAccessFile.readInt()];
+            Arrays.fill(body, (byte) 0xff);
+            final CRC32 crc = new CRC32();
+            crc.update(body);
+            randomAccessFile.writeInt((int) crc.getValue());
+            randomAccessFile.write(body);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private void assertThrowableEquals(final ThrowableWrapper expected, final ThrowableWrapper actual) {
+        Assert.assertEquals(expected.getClassName(), actual.getClassName());
+        Assert.assertEquals(expected.getMessage(), actual.getMessage());
+        Assert.assertEquals(expected.getStackTrace().length, actual.getStackTrace().length);
+        for (int i = 0; i < expected.getStackTrace().length; i++) {
+            final StackTraceElement expectedElement = expected.getStackTrace()[i].getStackTraceElement();
+            final StackTraceElement actualElement = actual.getStackTrace()[i].getStackTraceElement();
+            Assert.assertEquals(expectedElement.getClassName(), actualElement.getClassName());
+            Assert.assertEquals(expectedElement.getMethodName(), actualElement.getMethodName());
+            Assert.assertEquals(expectedElement.getFileName(), actualElement.getFileName());
+            Assert.assertEquals(expectedElement.getLineNumber(), actualElement.getLineNumber());
+        }
+        Assert.assertEquals(expected.getSuppressed().length, actual.getSuppressed().length);
+        for (int i = 0; i < expected.getSuppressed().length; i++) {
+            assertThrowableEquals(expected.getSuppressed()[i], actual.getSuppressed()[i]);
+        }
+        if (expected.getCause() == null) {
+            Assert.assertNull(actual.getCause());
+        } else {
+            assertThrowableEquals(expected.getCause(), actual.getCause());
+        }
+    }
+
+    private ThrowableWrapper clusterThrowable(final String className, final String proxyClassName, final String methodName, final String frameworkClassName) {
+        final StackTraceElementWrapper[] stackTrace = new StackTraceElementWrapper[24];
+        stackTrace[0] = new StackTraceElementWrapper(new StackTraceElement(className, "validate", null, 10));
+        stackTrace[1] = new StackTraceElementWrapper(new StackTraceElement(proxyClassName, methodName, null, -1));
+        stackTrace[2] = new StackTraceElementWrapper(new StackTraceElement(className, methodName, null, 20));
+        for (int i = 3; i < stackTrace.length; i++) {
+            stackTrace[i] = new StackTraceElementWrapper(new StackTraceElement(frameworkClassName, "invoke" + i, null, i));
+        }
+        return new ThrowableWrapper("Failed.", null, "java.lang.IllegalStateException", new ThrowableWrapper[0], stackTrace);
+    }
+
     private void assertPackageInformation(final String libraryName, final String version, final String expectedPackageInformation) {
         String packageInformation = AbstractExceptions.packageInformation(libraryName, version);
         Assert.assertEquals(expectedPackageInformation, packageInformation);
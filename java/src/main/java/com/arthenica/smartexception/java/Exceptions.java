@@ -50,6 +50,7 @@ public class Exceptions {
         packageLoader = new JavaPackageLoader();
         classLoader = new JavaClassLoader();
 
+        AbstractExceptions.setClassLoader(Exceptions.classLoader);
         AbstractExceptions.setStackTraceElementSerializer(new JavaStackTraceElementSerializer());
     }
 
@@ -60,6 +61,9 @@ public class Exceptions {
     /**
      * <p>Registers a new root package.
      *
+     * <p>A glob pattern like <code>*$$EnhancerBySpringCGLIB$$*</code> or a method pattern like
+     * <code>com.example.*#lambda$*</code> can be registered instead of a package name, see {@link FrameMatcher}.
+     *
      * @param packageString root package name to register
      */
     public static void registerRootPackage(final String packageString) {
@@ -76,6 +80,9 @@ public class Exceptions {
     /**
      * <p>Registers a new group package.
      *
+     * <p>A glob pattern like <code>*$$EnhancerBySpringCGLIB$$*</code> or a method pattern like
+     * <code>com.example.*#lambda$*</code> can be registered instead of a package name, see {@link FrameMatcher}.
+     *
      * @param packageString group package name to register
      */
     public static void registerGroupPackage(final String packageString) {
@@ -112,6 +119,9 @@ public class Exceptions {
     /**
      * <p>Registers a new ignore package.
      *
+     * <p>A glob pattern like <code>*$$EnhancerBySpringCGLIB$$*</code> or a method pattern like
+     * <code>com.example.*#lambda$*</code> can be registered instead of a package name, see {@link FrameMatcher}.
+     *
      * @param packageString      ignore package name to register
      * @param ignoreCauseClasses ignore cause classes from this package too
      */
@@ -126,6 +136,28 @@ public class Exceptions {
         AbstractExceptions.clearIgnorePackages();
     }
 
+    /**
+     * <p>Registers group and ignore packages of the given framework profile.
+     *
+     * <p>Packages registered by a profile are cleared by {@link #clearGroupPackages()} and
+     * {@link #clearIgnorePackages()}.
+     *
+     * @param profile framework profile to register
+     */
+    public static void registerProfile(final FrameworkProfile profile) {
+        AbstractExceptions.registerProfile(profile);
+    }
+
+    /**
+     * <p>Registers group and ignore packages of the framework profile with the given name.
+     *
+     * @param profileName name of the framework profile to register, e.g. <code>spring</code>
+     * @throws IllegalArgumentException if there is no profile with the given name
+     */
+    public static void registerProfile(final String profileName) {
+        AbstractExceptions.registerProfile(profileName);
+    }
+
     /**
      * <p>Returns the value of ignore all causes option.
      *
@@ -191,6 +223,209 @@ public class Exceptions {
         AbstractExceptions.setPrintSuppressedExceptions(printSuppressedExceptions);
     }
 
+    /**
+     * <p>Returns the value of print boundary frames only option.
+     *
+     * @return the value of global print boundary frames only option
+     */
+    public static boolean getPrintBoundaryFramesOnly() {
+        return AbstractExceptions.getPrintBoundaryFramesOnly();
+    }
+
+    /**
+     * <p>Sets the value of print boundary frames only option.
+     *
+     * <p>When this option is true, stack traces printed or converted to string include only the throw site, frames
+     * from root packages and frames where control crosses a package or library boundary.
+     *
+     * @param printBoundaryFramesOnly new global print boundary frames only option
+     */
+    public static void setPrintBoundaryFramesOnly(final boolean printBoundaryFramesOnly) {
+        AbstractExceptions.setPrintBoundaryFramesOnly(printBoundaryFramesOnly);
+    }
+
+    /**
+     * <p>Returns the value of group libraries option.
+     *
+     * @return the value of global group libraries option
+     */
+    public static boolean getGroupLibraries() {
+        return AbstractExceptions.getGroupLibraries();
+    }
+
+    /**
+     * <p>Sets the value of group libraries option.
+     *
+     * <p>When this option is true, consecutive stack trace elements loaded from the same jar file or module are
+     * grouped and printed as <code>[library.jar] ... n more</code>.
+     *
+     * @param groupLibraries new global group libraries option
+     */
+    public static void setGroupLibraries(final boolean groupLibraries) {
+        AbstractExceptions.setGroupLibraries(groupLibraries);
+    }
+
+    /**
+     * <p>Returns the render metrics implementation which receives statistics of rendered stack traces.
+     *
+     * @return current render metrics implementation or null if render metrics are disabled
+     */
+    public static RenderMetrics getRenderMetrics() {
+        return AbstractExceptions.getRenderMetrics();
+    }
+
+    /**
+     * <p>Enables render metrics. Statistics of every rendered stack trace, including render time, scanned and
+     * printed frames, are passed to the given implementation. Use {@link HistogramRenderMetrics} to keep render time
+     * and frame histograms. Render metrics are disabled by default, setting null disables them again.
+     *
+     * @param renderMetrics new render metrics implementation or null to disable render metrics
+     */
+    public static void setRenderMetrics(final RenderMetrics renderMetrics) {
+        AbstractExceptions.setRenderMetrics(renderMetrics);
+    }
+
+    /**
+     * <p>Returns the exception aggregator which records rendered stack traces.
+     *
+     * @return current exception aggregator or null if exceptions are not aggregated
+     */
+    public static ExceptionAggregator getExceptionAggregator() {
+        return AbstractExceptions.getExceptionAggregator();
+    }
+
+    /**
+     * <p>Enables exception aggregation. Every stack trace rendered by this class or by
+     * <code>SmartExceptionConverter</code> is counted by its fingerprint, use {@link ExceptionAggregator#getTop(int)}
+     * to find the most frequent exceptions. Exceptions are not aggregated by default, setting null disables
+     * aggregation again.
+     *
+     * @param exceptionAggregator new exception aggregator or null to disable aggregation
+     */
+    public static void setExceptionAggregator(final ExceptionAggregator exceptionAggregator) {
+        AbstractExceptions.setExceptionAggregator(exceptionAggregator);
+    }
+
+    /**
+     * <p>Returns the exception rate tracker which records rendered stack traces.
+     *
+     * @return current exception rate tracker or null if exception rates are not tracked
+     */
+    public static ExceptionRateTracker getExceptionRateTracker() {
+        return AbstractExceptions.getExceptionRateTracker();
+    }
+
+    /**
+     * <p>Enables exception rate tracking. One, five and fifteen minute rates of every stack trace rendered by this
+     * class or by <code>SmartExceptionConverter</code> are tracked by its fingerprint, use
+     * {@link ExceptionRateTracker#getFastestRising(int)} to find exceptions whose rates are rising. Exception rates
+     * are not tracked by default, setting null disables tracking again.
+     *
+     * @param exceptionRateTracker new exception rate tracker or null to disable tracking
+     */
+    public static void setExceptionRateTracker(final ExceptionRateTracker exceptionRateTracker) {
+        AbstractExceptions.setExceptionRateTracker(exceptionRateTracker);
+    }
+
+    /**
+     * <p>Returns the exception clusterer used to group rendered exceptions.
+     *
+     * @return current exception clusterer or null if exceptions are grouped by exact fingerprints
+     */
+    public static ExceptionClusterer getExceptionClusterer() {
+        return AbstractExceptions.getExceptionClusterer();
+    }
+
+    /**
+     * <p>Groups rendered exceptions by clusters of near-duplicate exceptions instead of exact fingerprints in
+     * {@link ExceptionAggregator} and {@link ExceptionRateTracker}. Setting null groups them by exact fingerprints
+     * again.
+     *
+     * @param exceptionClusterer new exception clusterer or null to group exceptions by exact fingerprints
+     */
+    public static void setExceptionClusterer(final ExceptionClusterer exceptionClusterer) {
+        AbstractExceptions.setExceptionClusterer(exceptionClusterer);
+    }
+
+    /**
+     * <p>Returns the global exception recorder.
+     *
+     * @return current exception recorder or null if recent exceptions are not recorded
+     */
+    public static ExceptionRecorder getExceptionRecorder() {
+        return AbstractExceptions.getExceptionRecorder();
+    }
+
+    /**
+     * <p>Sets the global exception recorder, which keeps recent exceptions so they can be dumped later with the
+     * <code>dumpRecordedExceptions</code> operation of the management bean. Setting null disables it again.
+     *
+     * @param exceptionRecorder new exception recorder or null to disable recording
+     */
+    public static void setExceptionRecorder(final ExceptionRecorder exceptionRecorder) {
+        AbstractExceptions.setExceptionRecorder(exceptionRecorder);
+    }
+
+    /**
+     * <p>Returns the global exception journal.
+     *
+     * @return current exception journal or null if rendered exceptions are not journaled
+     */
+    public static ExceptionJournal getExceptionJournal() {
+        return AbstractExceptions.getExceptionJournal();
+    }
+
+    /**
+     * <p>Appends every rendered exception to the given memory mapped journal before its stack trace is rendered, so
+     * that it survives a crash of the process. Setting null disables journaling again.
+     *
+     * @param exceptionJournal new exception journal or null to disable journaling
+     */
+    public static void setExceptionJournal(final ExceptionJournal exceptionJournal) {
+        AbstractExceptions.setExceptionJournal(exceptionJournal);
+    }
+
+    /**
+     * <p>Registers {@link SmartExceptionMXBean} on the platform MBean server as
+     * <code>com.arthenica.smartexception:type=SmartException</code>. It exposes registered packages, options, cache
+     * statistics and render time summaries, and allows reconfiguring packages and clearing caches at runtime.
+     *
+     * @throws IllegalStateException if the management bean can not be registered
+     */
+    public static void registerMBean() {
+        SmartExceptionManagement.register();
+    }
+
+    /**
+     * <p>Unregisters {@link SmartExceptionMXBean} from the platform MBean server.
+     *
+     * @throws IllegalStateException if the management bean can not be unregistered
+     */
+    public static void unregisterMBean() {
+        SmartExceptionManagement.unregister();
+    }
+
+    /**
+     * <p>Prepares rendering before the first exception is printed. Compiles the frame matcher of registered
+     * packages, loads classes used while rendering, resolves package information and library names and renders a
+     * sample exception, so that rendering methods are compiled by the JIT compiler.
+     *
+     * <p>Call this method during startup after registering packages, preferably from a background thread.
+     */
+    public static void warmUp() {
+        AbstractExceptions.warmUp();
+    }
+
+    /**
+     * <p>Prepares rendering before the first exception is printed, rendering a sample exception
+     * <code>iterations</code> times.
+     *
+     * @param iterations number of times the sample exception is rendered
+     */
+    public static void warmUp(final int iterations) {
+        AbstractExceptions.warmUp(iterations);
+    }
+
     /**
      * <p>Returns the smart stack trace for the given <code>throwable</code>.
      *
@@ -33,16 +33,22 @@
 package com.arthenica.smartexception.java;
 
 import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.AppendingStackTraceElementSerializer;
 import com.arthenica.smartexception.StackTraceElementSerializer;
 
-public class JavaStackTraceElementSerializer implements StackTraceElementSerializer {
+public class JavaStackTraceElementSerializer implements AppendingStackTraceElementSerializer {
 
     @Override
     public String toString(final StackTraceElement stackTraceElement, final boolean printModuleName, final boolean printPackageInformation) {
         final StringBuilder stringBuilder = new StringBuilder();
+        append(stringBuilder, stackTraceElement, printModuleName, printPackageInformation);
+        return stringBuilder.toString();
+    }
 
+    @Override
+    public void append(final StringBuilder stringBuilder, final StackTraceElement stackTraceElement, final boolean printModuleName, final boolean printPackageInformation) {
         stringBuilder.append(stackTraceElement.getClassName());
-        stringBuilder.append(".");
+        stringBuilder.append('.');
         stringBuilder.append(stackTraceElement.getMethodName());
 
         if (stackTraceElement.isNativeMethod()) {
@@ -62,8 +68,6 @@ public class JavaStackTraceElementSerializer implements StackTraceElementSeriali
         if (printPackageInformation) {
             stringBuilder.append(getPackageInformation(stackTraceElement));
         }
-
-        return stringBuilder.toString();
     }
 
     @Override
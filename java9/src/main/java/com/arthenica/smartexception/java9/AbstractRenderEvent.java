@@ -0,0 +1,100 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.java9;
+
+import com.arthenica.smartexception.RenderStatistics;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * <p>Base class of flight recorder events emitted for rendered stack traces.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+@Category("Smart Exception")
+@StackTrace(false)
+abstract class AbstractRenderEvent extends Event {
+
+    @Label("Entry Point")
+    String entryPoint;
+
+    @Label("Exception Class")
+    String exceptionClass;
+
+    @Label("Fingerprint")
+    long fingerprint;
+
+    @Label("Frames In")
+    int framesIn;
+
+    @Label("Frames Out")
+    int framesOut;
+
+    @Label("Causes")
+    int causes;
+
+    @Label("Suppressed Exceptions")
+    int suppressed;
+
+    @Label("Characters Produced")
+    int charactersProduced;
+
+    @Label("Render Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long renderTime;
+
+    @Label("Library Name Cache Hits")
+    int libraryNameCacheHits;
+
+    @Label("Library Name Cache Misses")
+    int libraryNameCacheMisses;
+
+    void set(final RenderStatistics statistics) {
+        entryPoint = statistics.getEntryPoint().name();
+        exceptionClass = statistics.getThrowableClassName();
+        fingerprint = statistics.getFingerprint();
+        framesIn = statistics.getFramesScanned();
+        framesOut = statistics.getFramesEmitted();
+        causes = statistics.getCausesVisited();
+        suppressed = statistics.getSuppressedVisited();
+        charactersProduced = statistics.getLength();
+        renderTime = statistics.getNanos();
+        libraryNameCacheHits = statistics.getLibraryNameCacheHits();
+        libraryNameCacheMisses = statistics.getLibraryNameCacheMisses();
+    }
+
+}
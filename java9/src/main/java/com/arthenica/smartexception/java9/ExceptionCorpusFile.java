@@ -0,0 +1,117 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.java9;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Reads and writes exception corpus files. A corpus file is a gzip compressed Java serialization stream, holding
+ * the number of exceptions followed by the exceptions.
+ *
+ * <p>Reading is restricted by {@link #FILTER}, which only accepts JDK types, so a corpus file can not instantiate
+ * application classes.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class ExceptionCorpusFile {
+
+    /**
+     * <p>Serialization filter applied while reading corpus files.
+     */
+    public static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter("maxdepth=256;java.lang.*;java.io.*;java.net.*;java.sql.*;java.util.*;java.util.concurrent.*;!*");
+
+    /**
+     * <p>Max initial capacity of the list of exceptions read, the count stored in a file is not trusted.
+     */
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    private ExceptionCorpusFile() {
+    }
+
+    /**
+     * <p>Writes exceptions to the given corpus file.
+     *
+     * @param file       corpus file
+     * @param throwables exceptions
+     * @throws IOException if the file can not be written
+     */
+    public static void write(final File file, final List<Throwable> throwables) throws IOException {
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file))))) {
+            outputStream.writeInt(throwables.size());
+            for (Throwable throwable : throwables) {
+                outputStream.writeObject(throwable);
+            }
+        }
+    }
+
+    /**
+     * <p>Reads exceptions from the given corpus file.
+     *
+     * @param file corpus file
+     * @return exceptions
+     * @throws IOException if the file can not be read or includes unexpected types
+     */
+    public static List<Throwable> read(final File file) throws IOException {
+        try (ObjectInputStream inputStream = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            inputStream.setObjectInputFilter(FILTER);
+
+            final int count = inputStream.readInt();
+            final List<Throwable> throwables = new ArrayList<>(Math.max(0, Math.min(count, MAX_INITIAL_CAPACITY)));
+            for (int i = 0; i < count; i++) {
+                final Object object = inputStream.readObject();
+                if (!(object instanceof Throwable)) {
+                    throw new InvalidObjectException(String.format("Unexpected object in exception corpus: %s", object));
+                }
+                throwables.add((Throwable) object);
+            }
+            return throwables;
+        } catch (final ClassNotFoundException e) {
+            throw new InvalidObjectException(String.format("Unexpected class in exception corpus: %s", e.getMessage()));
+        }
+    }
+
+}
@@ -0,0 +1,386 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.java9;
+
+import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.ExceptionJournal;
+import com.arthenica.smartexception.ExceptionJournalReader;
+import com.arthenica.smartexception.FrameMatcher;
+import com.arthenica.smartexception.FrameworkProfile;
+import com.arthenica.smartexception.JournalFilter;
+import com.arthenica.smartexception.JournalRecord;
+import com.arthenica.smartexception.ThrowableFingerprint;
+import com.arthenica.smartexception.ThrowableWrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Reads exceptions from journal directories, journal segment files and exception corpus files, filters them and
+ * renders them again using any root, group and ignore packages and options.
+ *
+ * <p>Journal segments are memory mapped and decoded in parallel on a fork join pool. Corpus files are read using
+ * {@link ExceptionCorpusFile}, their exceptions have no timestamp and thread. The number of journal records that could not be decoded is printed to the error stream.
+ *
+ * <pre>
+ * java com.arthenica.smartexception.java9.ExceptionJournalTool [options] &lt;directory|segment|corpus&gt;...
+ * </pre>
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public class ExceptionJournalTool {
+
+    static final String USAGE = String.format("Usage: ExceptionJournalTool [options] <directory|segment|corpus>...%n"
+            + "  --from <time>                    records appended at or after time, ISO-8601 instant or epoch millis%n"
+            + "  --to <time>                      records appended before time, ISO-8601 instant or epoch millis%n"
+            + "  --fingerprint <hex>              records with the fingerprint, may be repeated%n"
+            + "  --class <class name>             records with the exception or cause class, may be repeated%n"
+            + "  --rootPackage <package>          root package, may be repeated%n"
+            + "  --groupPackage <package>         group package, may be repeated%n"
+            + "  --ignorePackage <package>        ignore package, may be repeated%n"
+            + "  --profile <profile>              framework profile, may be repeated%n"
+            + "  --maxDepth <depth>               max depth in exception chain%n"
+            + "  --ignoreCauses                   do not print causes%n"
+            + "  --printPackageInformation        print jar file and version of frames%n"
+            + "  --printModuleName                print module names of frames%n"
+            + "  --hideSuppressedExceptions       do not print suppressed exceptions%n"
+            + "  --printBoundaryFramesOnly        print only boundary frames%n"
+            + "  --groupLibraries                 group frames of the same library%n"
+            + "  --format <text|summary|json>     output format, text by default%n"
+            + "  --parallelism <threads>          number of threads decoding segments%n");
+
+    static final String FORMAT_TEXT = "text";
+
+    static final String FORMAT_SUMMARY = "summary";
+
+    static final String FORMAT_JSON = "json";
+
+    private final List<File> inputs = new ArrayList<>();
+
+    private final Set<String> rootPackages = new LinkedHashSet<>();
+
+    private final Set<String> groupPackages = new LinkedHashSet<>();
+
+    private final Set<String> ignorePackages = new LinkedHashSet<>();
+
+    private final AtomicLong skippedRecordCount = new AtomicLong();
+
+    private JournalFilter filter = JournalFilter.ALL;
+
+    private int maxDepth = 0;
+
+    private boolean ignoreCauses = false;
+
+    private boolean printPackageInformation = false;
+
+    private boolean printModuleName = false;
+
+    private boolean printSuppressedExceptions = true;
+
+    private boolean printBoundaryFramesOnly = false;
+
+    private boolean groupLibraries = false;
+
+    private String format = FORMAT_TEXT;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    static {
+        AbstractExceptions.setClassLoader(new Java9ClassLoader());
+        AbstractExceptions.setStackTraceElementSerializer(new Java9StackTraceElementSerializer());
+    }
+
+    public static void main(final String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * <p>Runs the tool with the given command line arguments.
+     *
+     * @param args command line arguments
+     * @param out  destination of rendered exceptions
+     * @param err  destination of errors
+     * @return exit code, zero on success
+     */
+    static int run(final String[] args, final PrintStream out, final PrintStream err) {
+        final ExceptionJournalTool tool = new ExceptionJournalTool();
+        try {
+            tool.parseArguments(args);
+        } catch (final IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.print(USAGE);
+            return 2;
+        }
+
+        try {
+            tool.print(tool.read(), out);
+            if (tool.skippedRecordCount.get() > 0) {
+                err.printf("Skipped %d journal records that could not be decoded.%n", tool.skippedRecordCount.get());
+            }
+            return 0;
+        } catch (final IOException e) {
+            err.println(e.getMessage());
+            return 1;
+        }
+    }
+
+    void parseArguments(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            final String argument = args[i];
+            if (!argument.startsWith("--")) {
+                inputs.add(new File(argument));
+                continue;
+            }
+
+            switch (argument) {
+                case "--ignoreCauses": {
+                    ignoreCauses = true;
+                }
+                break;
+                case "--printPackageInformation": {
+                    printPackageInformation = true;
+                }
+                break;
+                case "--printModuleName": {
+                    printModuleName = true;
+                }
+                break;
+                case "--hideSuppressedExceptions": {
+                    printSuppressedExceptions = false;
+                }
+                break;
+                case "--printBoundaryFramesOnly": {
+                    printBoundaryFramesOnly = true;
+                }
+                break;
+                case "--groupLibraries": {
+                    groupLibraries = true;
+                }
+                break;
+                default: {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException(String.format("Missing value of %s.", argument));
+                    }
+                    parseOption(argument, args[++i]);
+                }
+            }
+        }
+
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No input files.");
+        }
+    }
+
+    private void parseOption(final String option, final String value) {
+        try {
+            switch (option) {
+                case "--from": {
+                    filter = filter.withFrom(parseTime(value));
+                }
+                break;
+                case "--to": {
+                    filter = filter.withTo(parseTime(value));
+                }
+                break;
+                case "--fingerprint": {
+                    filter = filter.withFingerprint(Long.parseUnsignedLong(value, 16));
+                }
+                break;
+                case "--class": {
+                    filter = filter.withClassName(value);
+                }
+                break;
+                case "--rootPackage": {
+                    rootPackages.add(value);
+                }
+                break;
+                case "--groupPackage": {
+                    groupPackages.add(value);
+                }
+                break;
+                case "--ignorePackage": {
+                    ignorePackages.add(value);
+                }
+                break;
+                case "--profile": {
+                    final FrameworkProfile profile = FrameworkProfile.forName(value);
+                    groupPackages.addAll(profile.getGroupPackages());
+                    ignorePackages.addAll(profile.getIgnorePackages());
+                }
+                break;
+                case "--maxDepth": {
+                    maxDepth = Integer.parseInt(value);
+                }
+                break;
+                case "--format": {
+                    if (!FORMAT_TEXT.equals(value) && !FORMAT_SUMMARY.equals(value) && !FORMAT_JSON.equals(value)) {
+                        throw new IllegalArgumentException(String.format("Unsupported format: %s.", value));
+                    }
+                    format = value;
+                }
+                break;
+                case "--parallelism": {
+                    parallelism = Integer.parseInt(value);
+                    if (parallelism < 1) {
+                        throw new IllegalArgumentException("Parallelism must be positive.");
+                    }
+                }
+                break;
+                default: {
+                    throw new IllegalArgumentException(String.format("Unsupported option: %s.", option));
+                }
+            }
+        } catch (final NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format("Invalid value of %s: %s.", option, value));
+        }
+    }
+
+    List<JournalRecord> read() throws IOException {
+        final FrameMatcher frameMatcher = getFrameMatcher();
+        final JournalFilter recordFilter = filter.withFrameMatcher(frameMatcher);
+
+        final List<File> segmentFiles = new ArrayList<>();
+        final List<File> corpusFiles = new ArrayList<>();
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                segmentFiles.addAll(ExceptionJournal.getSegmentFiles(input));
+            } else if (ExceptionJournal.isSegmentFile(input)) {
+                segmentFiles.add(input);
+            } else if (input.isFile()) {
+                corpusFiles.add(input);
+            } else {
+                throw new IOException(String.format("File not found: %s.", input));
+            }
+        }
+
+        final List<JournalRecord> recordList;
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            recordList = ExceptionJournalReader.read(segmentFiles, recordFilter, pool, skippedRecordCount);
+        } finally {
+            pool.shutdown();
+        }
+
+        for (File corpusFile : corpusFiles) {
+            final List<Throwable> throwables = ExceptionCorpusFile.read(corpusFile);
+            for (int i = 0; i < throwables.size(); i++) {
+                final JournalRecord record = new JournalRecord(-1, i, 0, null, 0, new ThrowableWrapper(throwables.get(i)));
+                if (recordFilter.matches(record)) {
+                    recordList.add(record);
+                }
+            }
+        }
+
+        return recordList;
+    }
+
+    void print(final List<JournalRecord> recordList, final PrintStream out) {
+        final FrameMatcher frameMatcher = getFrameMatcher();
+        for (JournalRecord record : recordList) {
+            final ThrowableWrapper throwable = record.getThrowable();
+            final String fingerprint = ThrowableFingerprint.toHexString(ThrowableFingerprint.of(throwable, frameMatcher));
+            final String timestamp = (record.getTimestamp() == 0) ? "-" : Instant.ofEpochMilli(record.getTimestamp()).toString();
+
+            if (FORMAT_SUMMARY.equals(format)) {
+                out.printf("%s %s %s%s%n", timestamp, fingerprint, throwable.getClassName(), (throwable.getMessage() == null) ? "" : ": " + throwable.getMessage());
+                continue;
+            }
+
+            final String stackTrace = AbstractExceptions.getStackTraceString(throwable, "", false, false, frameMatcher, maxDepth, ignoreCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries);
+            if (FORMAT_JSON.equals(format)) {
+                out.printf("{\"timestamp\":%d,\"thread\":%s,\"fingerprint\":\"%s\",\"className\":%s,\"message\":%s,\"stackTrace\":%s}%n", record.getTimestamp(), toJsonString(record.getThreadName()), fingerprint, toJsonString(throwable.getClassName()), toJsonString(throwable.getMessage()), toJsonString(stackTrace));
+            } else {
+                out.printf("%s [%s] fingerprint %s%n%s%n", timestamp, (record.getThreadName() == null) ? "-" : record.getThreadName(), fingerprint, stackTrace);
+            }
+        }
+    }
+
+    private FrameMatcher getFrameMatcher() {
+        return AbstractExceptions.getFrameMatcher(rootPackages, groupPackages, ignorePackages);
+    }
+
+    static long parseTime(final String value) {
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value);
+        }
+        return Instant.parse(value).toEpochMilli();
+    }
+
+    static String toJsonString(final String value) {
+        if (value == null) {
+            return "null";
+        }
+
+        final StringBuilder builder = new StringBuilder(value.length() + 2);
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char character = value.charAt(i);
+            switch (character) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (character < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        builder.append(character);
+                    }
+            }
+        }
+        builder.append('"');
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.java9;
+
+import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.RenderMetrics;
+import com.arthenica.smartexception.RenderStatistics;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Emits {@link RenderEvent} and {@link SlowRenderEvent} flight recorder events for rendered stack traces.
+ *
+ * <p>Events are disabled by default. After {@link #enable()} is called, statistics of rendered stack traces are
+ * collected only while a flight recording with at least one of these events enabled is running. When no such
+ * recording is running, rendering does not allocate anything for flight recorder events.
+ *
+ * <pre>
+ * Exceptions.enableFlightRecorderEvents();
+ * ...
+ * Recording recording = new Recording();
+ * recording.enable(RenderEvent.NAME);
+ * recording.enable(SlowRenderEvent.NAME);
+ * recording.start();
+ * </pre>
+ *
+ * <p>Events are emitted through {@link AbstractExceptions#setRenderMetrics(RenderMetrics)}. Render metrics set before
+ * a recording starts keep receiving statistics while events are recorded, render metrics set while a recording is
+ * running replace flight recorder events until the next recording state change.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public final class FlightRecorderEvents {
+
+    /**
+     * Default render time threshold of {@link SlowRenderEvent}.
+     */
+    public static final long DEFAULT_SLOW_RENDER_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final EventType RENDER_EVENT_TYPE = EventType.getEventType(RenderEvent.class);
+
+    private static final EventType SLOW_RENDER_EVENT_TYPE = EventType.getEventType(SlowRenderEvent.class);
+
+    private static volatile long slowRenderThresholdNanos = DEFAULT_SLOW_RENDER_THRESHOLD_NANOS;
+
+    private static boolean enabled;
+
+    private static boolean listenerAdded;
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * <p>Enables flight recorder events. Events are recorded by flight recordings that enable them.
+     */
+    public static synchronized void enable() {
+        enabled = true;
+        if (!listenerAdded) {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+
+                @Override
+                public void recordingStateChanged(final Recording recording) {
+                    update();
+                }
+            });
+            listenerAdded = true;
+        }
+        update();
+    }
+
+    /**
+     * <p>Disables flight recorder events.
+     */
+    public static synchronized void disable() {
+        enabled = false;
+        update();
+    }
+
+    /**
+     * <p>Returns whether flight recorder events are enabled.
+     *
+     * @return true if flight recorder events are enabled
+     */
+    public static synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * <p>Returns the render time threshold of {@link SlowRenderEvent}.
+     *
+     * @return slow render threshold in nanoseconds
+     */
+    public static long getSlowRenderThresholdNanos() {
+        return slowRenderThresholdNanos;
+    }
+
+    /**
+     * <p>Sets the render time threshold of {@link SlowRenderEvent}. Stack traces rendered in this time or longer are
+     * recorded as slow renders.
+     *
+     * @param slowRenderThresholdNanos new slow render threshold in nanoseconds
+     */
+    public static void setSlowRenderThresholdNanos(final long slowRenderThresholdNanos) {
+        FlightRecorderEvents.slowRenderThresholdNanos = slowRenderThresholdNanos;
+    }
+
+    /**
+     * <p>Starts or stops collecting render statistics depending on whether events are enabled and recorded.
+     */
+    static synchronized void update() {
+        final boolean recorded = enabled && (RENDER_EVENT_TYPE.isEnabled() || SLOW_RENDER_EVENT_TYPE.isEnabled());
+        final RenderMetrics renderMetrics = AbstractExceptions.getRenderMetrics();
+        if (recorded && !(renderMetrics instanceof FlightRecorderRenderMetrics)) {
+            AbstractExceptions.setRenderMetrics(new FlightRecorderRenderMetrics(renderMetrics));
+        } else if (!recorded && renderMetrics instanceof FlightRecorderRenderMetrics) {
+            AbstractExceptions.setRenderMetrics(((FlightRecorderRenderMetrics) renderMetrics).delegate);
+        }
+    }
+
+    /**
+     * <p>Render metrics implementation that commits flight recorder events and forwards statistics to the render
+     * metrics that was set before.
+     */
+    static final class FlightRecorderRenderMetrics implements RenderMetrics {
+
+        final RenderMetrics delegate;
+
+        FlightRecorderRenderMetrics(final RenderMetrics delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void record(final RenderStatistics statistics) {
+            if (RENDER_EVENT_TYPE.isEnabled()) {
+                final RenderEvent event = new RenderEvent();
+                event.set(statistics);
+                event.commit();
+            }
+
+            final long threshold = slowRenderThresholdNanos;
+            if (statistics.getNanos() >= threshold && SLOW_RENDER_EVENT_TYPE.isEnabled()) {
+                final SlowRenderEvent event = new SlowRenderEvent();
+                event.set(statistics);
+                event.threshold = threshold;
+                event.commit();
+            }
+
+            if (delegate != null) {
+                delegate.record(statistics);
+            }
+        }
+
+    }
+
+}
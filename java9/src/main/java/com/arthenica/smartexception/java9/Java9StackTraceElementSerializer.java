@@ -33,20 +33,27 @@
 package com.arthenica.smartexception.java9;
 
 import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.AppendingStackTraceElementSerializer;
 import com.arthenica.smartexception.StackTraceElementSerializer;
 
-public class Java9StackTraceElementSerializer implements StackTraceElementSerializer {
+public class Java9StackTraceElementSerializer implements AppendingStackTraceElementSerializer {
 
     @Override
     public String toString(final StackTraceElement stackTraceElement, final boolean printModuleName, final boolean printPackageInformation) {
         final StringBuilder stringBuilder = new StringBuilder();
+        append(stringBuilder, stackTraceElement, printModuleName, printPackageInformation);
+        return stringBuilder.toString();
+    }
 
+    @Override
+    public void append(final StringBuilder stringBuilder, final StackTraceElement stackTraceElement, final boolean printModuleName, final boolean printPackageInformation) {
         if (printModuleName && !AbstractExceptions.isEmpty(stackTraceElement.getModuleName())) {
-            stringBuilder.append(getModuleName(stackTraceElement));
+            stringBuilder.append(stackTraceElement.getModuleName());
+            stringBuilder.append('/');
         }
 
         stringBuilder.append(stackTraceElement.getClassName());
-        stringBuilder.append(".");
+        stringBuilder.append('.');
         stringBuilder.append(stackTraceElement.getMethodName());
 
         if (stackTraceElement.isNativeMethod()) {
@@ -66,8 +73,6 @@ public class Java9StackTraceElementSerializer implements StackTraceElementSerial
         if (printPackageInformation) {
             stringBuilder.append(getPackageInformation(stackTraceElement));
         }
-
-        return stringBuilder.toString();
     }
 
     @Override
@@ -88,7 +93,7 @@ public class Java9StackTraceElementSerializer implements StackTraceElementSerial
 
     @Override
     public String getModuleName(StackTraceElement stackTraceElement) {
-        return (stackTraceElement != null) ? !AbstractExceptions.isEmpty(stackTraceElement.getModuleName()) ? String.format("%s/", stackTraceElement.getModuleName()) : "" : "";
+        return (stackTraceElement != null) ? !AbstractExceptions.isEmpty(stackTraceElement.getModuleName()) ? stackTraceElement.getModuleName() + "/" : "" : "";
     }
 
     @Override
@@ -33,6 +33,25 @@
 package com.arthenica.smartexception.java9;
 
 import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.ExceptionAggregate;
+import com.arthenica.smartexception.ExceptionAggregator;
+import com.arthenica.smartexception.ExceptionClusterer;
+import com.arthenica.smartexception.ExceptionJournal;
+import com.arthenica.smartexception.ExceptionJournalReader;
+import com.arthenica.smartexception.ExceptionRate;
+import com.arthenica.smartexception.ExceptionRateTracker;
+import com.arthenica.smartexception.ExceptionRecorder;
+import com.arthenica.smartexception.FrameworkProfile;
+import com.arthenica.smartexception.HistogramRenderMetrics;
+import com.arthenica.smartexception.JournalRecord;
+import com.arthenica.smartexception.RenderEntryPoint;
+import com.arthenica.smartexception.RenderMetrics;
+import com.arthenica.smartexception.RenderStatistics;
+import com.arthenica.smartexception.SmartExceptionMXBean;
+import com.arthenica.smartexception.SmartExceptionManagement;
+import com.arthenica.smartexception.StackTraceElementWrapper;
+import com.arthenica.smartexception.ThrowableCodec;
+import com.arthenica.smartexception.ThrowableFingerprint;
 import com.arthenica.smartexception.ThrowableWrapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -40,20 +59,38 @@ import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.json.JSONArray;
 import org.json.JSONException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.management.JMX;
 import javax.management.MBeanException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.DigestException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.ConcurrentModificationException;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
 
 public class ExceptionsTest {
 
@@ -401,6 +438,575 @@ public class ExceptionsTest {
         }
     }
 
+    @Test
+    public void getStackTraceWithBoundaryFramesOnly() {
+        final StackTraceElementWrapper[] stackTrace = new StackTraceElementWrapper[]{
+                new StackTraceElementWrapper(new StackTraceElement("org.example.library.Parser", "parse", "Parser.java", 10)),
+                new StackTraceElementWrapper(new StackTraceElement("org.example.library.Reader", "read", "Reader.java", 20)),
+                new StackTraceElementWrapper(new StackTraceElement("org.example.library.Stream", "next", "Stream.java", 30)),
+                new StackTraceElementWrapper(new StackTraceElement("org.example.framework.Handler", "handle", "Handler.java", 40)),
+                new StackTraceElementWrapper(new StackTraceElement("org.example.framework.Chain", "proceed", "Chain.java", 50)),
+                new StackTraceElementWrapper(new StackTraceElement("org.example.framework.web.Filter", "doFilter", "Filter.java", 60)),
+                new StackTraceElementWrapper(new StackTraceElement("org.example.framework.web.Servlet", "service", "Servlet.java", 70)),
+                new StackTraceElementWrapper(new StackTraceElement("com.example.app.Controller", "get", "Controller.java", 80))
+        };
+        final ThrowableWrapper throwableWrapper = new ThrowableWrapper("Parse failed.", null, "java.lang.IllegalStateException", new ThrowableWrapper[0], stackTrace);
+
+        try {
+            Exceptions.setPrintBoundaryFramesOnly(true);
+
+            String expectedStackTrace = "java.lang.IllegalStateException: Parse failed.\n" + "\tat org.example.library.Parser.parse(Parser.java:10)\n" + "\t... 1 more\n" + "\tat org.example.library.Stream.next(Stream.java:30)\n" + "\tat org.example.framework.Handler.handle(Handler.java:40)\n" + "\t... 2 more\n" + "\tat org.example.framework.web.Servlet.service(Servlet.java:70)\n" + "\tat com.example.app.Controller.get(Controller.java:80)";
+            Assert.assertEquals(expectedStackTrace, AbstractExceptions.getStackTraceString(throwableWrapper, new HashSet<String>(), Collections.singleton("org.example.framework"), new HashSet<String>()));
+
+            expectedStackTrace = "java.lang.IllegalStateException: Parse failed.\n" + "\tat org.example.library.Parser.parse(Parser.java:10)\n" + "\t... 1 more\n" + "\tat org.example.library.Stream.next(Stream.java:30)\n" + "\tat org.example.framework.Handler.handle(Handler.java:40)\n" + "\tat org.example.framework.Chain.proceed(Chain.java:50)\n" + "\tat org.example.framework.web.Filter.doFilter(Filter.java:60)\n" + "\tat org.example.framework.web.Servlet.service(Servlet.java:70)\n" + "\tat com.example.app.Controller.get(Controller.java:80)";
+            Assert.assertEquals(expectedStackTrace, AbstractExceptions.getStackTraceString(throwableWrapper, new HashSet<String>(), new HashSet<String>(), new HashSet<String>()));
+        } finally {
+            Exceptions.setPrintBoundaryFramesOnly(false);
+        }
+    }
+
+    @Test
+    public void getStackTraceWithGroupLibraries() {
+        final StackTraceElementWrapper[] stackTrace = new StackTraceElementWrapper[]{
+                new StackTraceElementWrapper(new StackTraceElement("com.example.app.Service", "run", "Service.java", 10)),
+                new StackTraceElementWrapper(new StackTraceElement("org.junit.Assert", "fail", "Assert.java", 20)),
+                new StackTraceElementWrapper(new StackTraceElement("org.junit.runners.ParentRunner", "run", "ParentRunner.java", 30)),
+                new StackTraceElementWrapper(new StackTraceElement("org.junit.runners.BlockJUnit4ClassRunner", "runChild", "BlockJUnit4ClassRunner.java", 40)),
+                new StackTraceElementWrapper(new StackTraceElement("org.apache.commons.codec.binary.Hex", "decodeHex", "Hex.java", 50)),
+                new StackTraceElementWrapper(new StackTraceElement("com.example.app.Main", "main", "Main.java", 60))
+        };
+        final ThrowableWrapper throwableWrapper = new ThrowableWrapper("Failed.", null, "java.lang.IllegalStateException", new ThrowableWrapper[0], stackTrace);
+
+        try {
+            Exceptions.setGroupLibraries(true);
+
+            String expectedStackTrace = "java.lang.IllegalStateException: Failed.\n" + "\tat com.example.app.Service.run(Service.java:10)\n" + "\tat [junit-4.13.2.jar] ... 2 more\n" + "\tat org.apache.commons.codec.binary.Hex.decodeHex(Hex.java:50)\n" + "\tat com.example.app.Main.main(Main.java:60)";
+            Assert.assertEquals(expectedStackTrace, AbstractExceptions.getStackTraceString(throwableWrapper, new HashSet<String>(), new HashSet<String>(), new HashSet<String>()));
+
+            expectedStackTrace = "java.lang.IllegalStateException: Failed.\n" + "\tat com.example.app.Service.run(Service.java:10)\n" + "\tat org.junit ... 2 more\n" + "\tat org.apache.commons.codec.binary.Hex.decodeHex(Hex.java:50)\n" + "\tat com.example.app.Main.main(Main.java:60)";
+            Assert.assertEquals(expectedStackTrace, AbstractExceptions.getStackTraceString(throwableWrapper, new HashSet<String>(), Collections.singleton("org.junit"), new HashSet<String>()));
+        } finally {
+            Exceptions.setGroupLibraries(false);
+        }
+    }
+
+    @Test
+    public void getStackTraceWithPatterns() {
+        final StackTraceElementWrapper[] stackTrace = new StackTraceElementWrapper[]{
+                new StackTraceElementWrapper(new StackTraceElement("com.example.app.Service", "lambda$process$0", "Service.java", 10)),
+                new StackTraceElementWrapper(new StackTraceElement("com.example.app.Service", "lambda$process$1", "Service.java", 11)),
+                new StackTraceElementWrapper(new StackTraceElement("com.example.app.Service", "process", "Service.java", 20)),
+                new StackTraceElementWrapper(new StackTraceElement("com.example.app.Service$$EnhancerBySpringCGLIB$$1a2b3c", "process", "<generated>", -1)),
+                new StackTraceElementWrapper(new StackTraceElement("com.example.app.Main", "main", "Main.java", 60))
+        };
+        final ThrowableWrapper throwableWrapper = new ThrowableWrapper("Failed.", null, "java.lang.IllegalStateException", new ThrowableWrapper[0], stackTrace);
+
+        try {
+            Exceptions.registerGroupPackage("com.example.*#lambda$*");
+            Exceptions.registerIgnorePackage("*$$EnhancerBySpringCGLIB$$*", false);
+
+            String expectedStackTrace = "java.lang.IllegalStateException: Failed.\n" + "\tat com.example.*#lambda$* ... 1 more\n" + "\tat com.example.app.Service.process(Service.java:20)\n" + "\tat com.example.app.Main.main(Main.java:60)";
+            Assert.assertEquals(expectedStackTrace, AbstractExceptions.getStackTraceString(throwableWrapper));
+        } finally {
+            Exceptions.clearGroupPackages();
+            Exceptions.clearIgnorePackages();
+        }
+    }
+
+    @Test
+    public void getStackTraceWhileReconfiguring() throws InterruptedException {
+        final IllegalStateException exception = new IllegalStateException("Failed.");
+        exception.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("com.example.app.Service", "process", "Service.java", 20),
+                new StackTraceElement("org.springframework.cglib.proxy.MethodProxy", "invoke", "MethodProxy.java", 218),
+                new StackTraceElement("org.springframework.aop.framework.ReflectiveMethodInvocation", "proceed", "ReflectiveMethodInvocation.java", 186),
+                new StackTraceElement("org.springframework.aop.framework.ReflectiveMethodInvocation", "proceed", "ReflectiveMethodInvocation.java", 163),
+                new StackTraceElement("com.example.app.Main", "main", "Main.java", 60)
+        });
+
+        // PROFILE IS REGISTERED AT ONCE BUT CLEARED IN TWO STEPS, GROUP PACKAGES ARE NEVER USED WITHOUT IGNORE PACKAGES
+        final Set<String> expectedStackTraces = new HashSet<>();
+        try {
+            expectedStackTraces.add(Exceptions.getStackTraceString(exception));
+            Exceptions.registerProfile(FrameworkProfile.SPRING);
+            expectedStackTraces.add(Exceptions.getStackTraceString(exception));
+            Exceptions.clearGroupPackages();
+            expectedStackTraces.add(Exceptions.getStackTraceString(exception));
+        } finally {
+            Exceptions.clearGroupPackages();
+            Exceptions.clearIgnorePackages();
+        }
+        Assert.assertEquals(3, expectedStackTraces.size());
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Queue<Object> failures = new ConcurrentLinkedQueue<>();
+        final Thread configurationThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                while (running.get()) {
+                    Exceptions.registerProfile(FrameworkProfile.SPRING);
+                    Exceptions.clearGroupPackages();
+                    Exceptions.clearIgnorePackages();
+                }
+            }
+        });
+
+        final Thread[] renderThreads = new Thread[8];
+        for (int i = 0; i < renderThreads.length; i++) {
+            renderThreads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 2000; j++) {
+                        try {
+                            final String stackTraceString = Exceptions.getStackTraceString(exception);
+                            if (!expectedStackTraces.contains(stackTraceString)) {
+                                failures.add(stackTraceString);
+                            }
+                        } catch (RuntimeException e) {
+                            failures.add(e);
+                        }
+                    }
+                }
+            });
+        }
+
+        try {
+            configurationThread.start();
+            for (Thread renderThread : renderThreads) {
+                renderThread.start();
+            }
+            for (Thread renderThread : renderThreads) {
+                renderThread.join();
+            }
+        } finally {
+            running.set(false);
+            configurationThread.join();
+            Exceptions.clearGroupPackages();
+            Exceptions.clearIgnorePackages();
+        }
+
+        Assert.assertTrue(String.valueOf(failures.peek()), failures.isEmpty());
+    }
+
+    @Test
+    public void renderMetrics() {
+        final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+        exception.addSuppressed(new UnsupportedOperationException("Not supported."));
+        final int stackTraceLength = exception.getStackTrace().length + exception.getCause().getStackTrace().length + exception.getSuppressed()[0].getStackTrace().length;
+
+        final List<RenderStatistics> recordedStatistics = new ArrayList<>();
+        final HistogramRenderMetrics histogramRenderMetrics = new HistogramRenderMetrics();
+        Assert.assertNull(Exceptions.getRenderMetrics());
+        try {
+            Exceptions.setRenderMetrics(new RenderMetrics() {
+
+                @Override
+                public void record(final RenderStatistics statistics) {
+                    recordedStatistics.add(statistics);
+                    histogramRenderMetrics.record(statistics);
+                }
+            });
+
+            final String stackTraceString = Exceptions.getStackTraceString(exception);
+            Assert.assertEquals(1, recordedStatistics.size());
+
+            final RenderStatistics statistics = recordedStatistics.get(0);
+            Assert.assertEquals(RenderEntryPoint.EXCEPTIONS, statistics.getEntryPoint());
+            Assert.assertEquals(stackTraceLength, statistics.getFramesScanned());
+            Assert.assertEquals(stackTraceString.split("\tat ", -1).length - 1, statistics.getFramesEmitted());
+            Assert.assertEquals(1, statistics.getCausesVisited());
+            Assert.assertEquals(1, statistics.getSuppressedVisited());
+            Assert.assertEquals(stackTraceString.length(), statistics.getLength());
+            Assert.assertTrue(statistics.getNanos() > 0);
+
+            Assert.assertEquals(1, histogramRenderMetrics.getRenderCount(RenderEntryPoint.EXCEPTIONS));
+            Assert.assertEquals(0, histogramRenderMetrics.getRenderCount(RenderEntryPoint.SMART_EXCEPTION_CONVERTER));
+            Assert.assertEquals(stackTraceLength, histogramRenderMetrics.getFramesScanned(RenderEntryPoint.EXCEPTIONS).getMax());
+            Assert.assertEquals(1, histogramRenderMetrics.getCausesVisited(RenderEntryPoint.EXCEPTIONS));
+            Assert.assertEquals(1, histogramRenderMetrics.getSuppressedVisited(RenderEntryPoint.EXCEPTIONS));
+
+            Exceptions.setRenderMetrics(null);
+            Exceptions.getStackTraceString(exception);
+            Assert.assertEquals(1, recordedStatistics.size());
+        } finally {
+            Exceptions.setRenderMetrics(null);
+        }
+    }
+
+    @Test
+    public void exceptionAggregator() {
+        final ExceptionAggregator aggregator = new ExceptionAggregator();
+        Exceptions.registerRootPackage("com.arthenica.smartexception");
+        Exceptions.setExceptionAggregator(aggregator);
+        try {
+            String stackTraceString = null;
+            for (int i = 0; i < 3; i++) {
+                stackTraceString = Exceptions.getStackTraceString(new IllegalStateException("Failed " + i + "."));
+            }
+            Exceptions.getStackTraceString(new IllegalArgumentException("Invalid argument."));
+            Exceptions.warmUp(10);
+
+            Assert.assertEquals(4, aggregator.getTotalCount());
+            final List<ExceptionAggregate> top = aggregator.getTop();
+            Assert.assertEquals(2, top.size());
+            Assert.assertEquals(IllegalStateException.class.getName(), top.get(0).getClassName());
+            Assert.assertEquals(3, top.get(0).getCount());
+            Assert.assertEquals(0, top.get(0).getError());
+            Assert.assertTrue(top.get(0).getOriginFrame().contains(".exceptionAggregator("));
+            Assert.assertEquals(stackTraceString.replace("Failed 2.", "Failed 0."), top.get(0).getStackTrace());
+            Assert.assertEquals(IllegalArgumentException.class.getName(), top.get(1).getClassName());
+            Assert.assertEquals(1, top.get(1).getCount());
+        } finally {
+            Exceptions.setExceptionAggregator(null);
+            Exceptions.clearRootPackages();
+        }
+    }
+
+    @Test
+    public void exceptionRateTracker() {
+        final ExceptionAggregator aggregator = new ExceptionAggregator();
+        final ExceptionRateTracker rateTracker = new ExceptionRateTracker();
+        Exceptions.setExceptionAggregator(aggregator);
+        Exceptions.setExceptionRateTracker(rateTracker);
+        try {
+            for (int i = 0; i < 3; i++) {
+                Exceptions.getStackTraceString(new IllegalStateException("Failed " + i + "."));
+            }
+
+            final List<ExceptionRate> rates = rateTracker.getRates();
+            Assert.assertEquals(1, rates.size());
+            Assert.assertEquals(IllegalStateException.class.getName(), rates.get(0).getClassName());
+            Assert.assertEquals(3, rates.get(0).getCount());
+            Assert.assertEquals(aggregator.getTop(1).get(0).getFingerprint(), rates.get(0).getFingerprint());
+        } finally {
+            Exceptions.setExceptionAggregator(null);
+            Exceptions.setExceptionRateTracker(null);
+        }
+    }
+
+    @Test
+    public void renderStatisticsFingerprint() {
+        final IllegalStateException exception = new IllegalStateException("Failed.");
+        final List<RenderStatistics> recordedStatistics = new ArrayList<>();
+        final ExceptionAggregator aggregator = new ExceptionAggregator();
+        Exceptions.setExceptionAggregator(aggregator);
+        Exceptions.setRenderMetrics(new RenderMetrics() {
+
+            @Override
+            public void record(final RenderStatistics statistics) {
+                recordedStatistics.add(statistics);
+            }
+        });
+        Exceptions.registerIgnorePackage("org.junit", false);
+        Exceptions.registerIgnorePackage("jdk.internal", false);
+        try {
+            Exceptions.getStackTraceString(exception);
+
+            Assert.assertEquals(1, recordedStatistics.size());
+            final long fingerprint = recordedStatistics.get(0).getFingerprint();
+            Assert.assertEquals(aggregator.getTop(1).get(0).getFingerprint(), fingerprint);
+            Assert.assertNotEquals(ThrowableFingerprint.of(new ThrowableWrapper(exception)), fingerprint);
+        } finally {
+            Exceptions.setExceptionAggregator(null);
+            Exceptions.setRenderMetrics(null);
+            Exceptions.clearIgnorePackages();
+        }
+    }
+
+    @Test
+    public void exceptionClusterer() {
+        final IllegalStateException exception = new IllegalStateException("Failed.");
+        final StackTraceElement[] stackTrace = exception.getStackTrace().clone();
+        stackTrace[0] = new StackTraceElement("com.sun.proxy.$Proxy12", "invoke", null, -1);
+        final IllegalStateException proxiedException = new IllegalStateException("Failed.");
+        proxiedException.setStackTrace(stackTrace);
+
+        final ExceptionAggregator aggregator = new ExceptionAggregator();
+        Exceptions.setExceptionAggregator(aggregator);
+        Exceptions.setExceptionClusterer(new ExceptionClusterer());
+        try {
+            Exceptions.getStackTraceString(exception);
+            Exceptions.getStackTraceString(proxiedException);
+
+            Assert.assertEquals(1, aggregator.getTop().size());
+            Assert.assertEquals(2, aggregator.getTop().get(0).getCount());
+            Assert.assertEquals(1, Exceptions.getExceptionClusterer().getClusters().size());
+
+            Exceptions.setExceptionClusterer(null);
+            Exceptions.getStackTraceString(proxiedException);
+            Assert.assertEquals(2, aggregator.getTop().size());
+        } finally {
+            Exceptions.setExceptionAggregator(null);
+            Exceptions.setExceptionClusterer(null);
+        }
+    }
+
+    @Test
+    public void exceptionRecorder() {
+        final ExceptionAggregator aggregator = new ExceptionAggregator();
+        final ExceptionRecorder recorder = new ExceptionRecorder(4);
+        Exceptions.setExceptionAggregator(aggregator);
+        Exceptions.setExceptionRecorder(recorder);
+        try {
+            for (int i = 0; i < 6; i++) {
+                Exceptions.getExceptionRecorder().record(new IllegalStateException("Failed " + i + ".", new IllegalArgumentException("Invalid argument.")));
+            }
+
+            final String dump = recorder.dump();
+            Assert.assertTrue(dump, dump.startsWith("Recorded exceptions at "));
+            Assert.assertTrue(dump, dump.contains("6 recorded, 0 dropped, last 4 of 4 kept"));
+            Assert.assertTrue(dump, dump.contains("#5 "));
+            Assert.assertFalse(dump, dump.contains("#1 "));
+            Assert.assertTrue(dump, dump.contains("java.lang.IllegalStateException: Failed 5."));
+            Assert.assertTrue(dump, dump.contains("Caused by: java.lang.IllegalArgumentException: Invalid argument."));
+            Assert.assertEquals(0, aggregator.getTotalCount());
+        } finally {
+            Exceptions.setExceptionAggregator(null);
+            Exceptions.setExceptionRecorder(null);
+        }
+    }
+
+    @Test
+    public void exceptionJournal() throws IOException {
+        final File directory = File.createTempFile("smart-exception", "journal");
+        Assert.assertTrue(directory.delete());
+        final ExceptionJournal journal = new ExceptionJournal(directory);
+        Exceptions.setExceptionJournal(journal);
+        try {
+            final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+            final String stackTrace = Exceptions.getStackTraceString(exception);
+            Exceptions.warmUp(10);
+            Assert.assertEquals(1, journal.getAppendedCount());
+
+            final List<JournalRecord> recordList = ExceptionJournalReader.readDirectory(directory);
+            Assert.assertEquals(1, recordList.size());
+            Assert.assertEquals(stackTrace, AbstractExceptions.getStackTraceString(recordList.get(0).getThrowable()));
+        } finally {
+            Exceptions.setExceptionJournal(null);
+            journal.close();
+            for (File file : ExceptionJournal.getSegmentFiles(directory)) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void exceptionJournalTool() throws IOException {
+        final File directory = File.createTempFile("smart-exception", "journal");
+        Assert.assertTrue(directory.delete());
+        final ExceptionJournal journal = new ExceptionJournal(directory);
+        try {
+            final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid \"argument\"."));
+            journal.append(exception);
+            journal.append(new UnsupportedOperationException("Not supported."));
+            journal.close();
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final ByteArrayOutputStream err = new ByteArrayOutputStream();
+            Assert.assertEquals(0, ExceptionJournalTool.run(new String[]{"--format", "summary", directory.getPath()}, new PrintStream(out), new PrintStream(err)));
+            String[] lines = out.toString().split(System.lineSeparator());
+            Assert.assertEquals(2, lines.length);
+            Assert.assertTrue(lines[0], lines[0].endsWith(" " + ThrowableFingerprint.toHexString(new ThrowableWrapper(exception)) + " java.lang.IllegalStateException: Failed."));
+            Assert.assertTrue(lines[1], lines[1].endsWith(" java.lang.UnsupportedOperationException: Not supported."));
+
+            out.reset();
+            Assert.assertEquals(0, ExceptionJournalTool.run(new String[]{"--class", "java.lang.IllegalArgumentException", "--rootPackage", "com.arthenica", "--ignoreCauses", directory.getPath()}, new PrintStream(out), new PrintStream(err)));
+            final String text = out.toString();
+            Assert.assertTrue(text, text.contains("[" + Thread.currentThread().getName() + "]"));
+            Assert.assertTrue(text, text.contains("java.lang.IllegalStateException: Failed."));
+            Assert.assertFalse(text, text.contains("Caused by:"));
+            Assert.assertFalse(text, text.contains("UnsupportedOperationException"));
+
+            out.reset();
+            Assert.assertEquals(0, ExceptionJournalTool.run(new String[]{"--format", "json", "--from", "0", "--to", Instant.now().plusSeconds(60).toString(), directory.getPath()}, new PrintStream(out), new PrintStream(err)));
+            lines = out.toString().split(System.lineSeparator());
+            Assert.assertEquals(2, lines.length);
+            Assert.assertTrue(lines[0], lines[0].contains("\"className\":\"java.lang.IllegalStateException\""));
+            Assert.assertTrue(lines[0], lines[0].contains("Invalid \\\"argument\\\"."));
+
+            out.reset();
+            Assert.assertEquals(0, ExceptionJournalTool.run(new String[]{"--to", "0", directory.getPath()}, new PrintStream(out), new PrintStream(err)));
+            Assert.assertEquals("", out.toString());
+            Assert.assertEquals("", err.toString());
+
+            // records with a valid checksum that can not be decoded are reported on the error stream
+            final JournalRecord lastRecord = ExceptionJournalReader.readDirectory(directory).get(1);
+            try (RandomAccessFile segmentFile = new RandomAccessFile(ExceptionJournal.getSegmentFiles(directory).get(0), "rw")) {
+                segmentFile.seek(lastRecord.getOffset());
+                final byte[] body = new byte[segmentFile.readInt()];
+                Arrays.fill(body, (byte) 0xff);
+                final CRC32 crc = new CRC32();
+                crc.update(body);
+                segmentFile.writeInt((int) crc.getValue());
+                segmentFile.write(body);
+            }
+            Assert.assertEquals(0, ExceptionJournalTool.run(new String[]{"--format", "summary", directory.getPath()}, new PrintStream(out), new PrintStream(err)));
+            Assert.assertEquals(1, out.toString().split(System.lineSeparator()).length);
+            Assert.assertEquals("Skipped 1 journal records that could not be decoded." + System.lineSeparator(), err.toString());
+            err.reset();
+
+            Assert.assertEquals(2, ExceptionJournalTool.run(new String[]{"--format", "xml", directory.getPath()}, new PrintStream(out), new PrintStream(err)));
+            Assert.assertTrue(err.toString(), err.toString().startsWith("Unsupported format: xml."));
+        } finally {
+            for (File file : ExceptionJournal.getSegmentFiles(directory)) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void throwableCodec() {
+        final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+        exception.addSuppressed(new UnsupportedOperationException());
+        final StackTraceElement[] deepStackTrace = new StackTraceElement[64];
+        for (int i = 0; i < deepStackTrace.length; i++) {
+            deepStackTrace[i] = new StackTraceElement("com.arthenica.smartexception.PaymentService", "call" + (i % 4), "PaymentService.java", 10 + i % 4);
+        }
+        exception.setStackTrace(deepStackTrace);
+        final ThrowableWrapper throwable = new ThrowableWrapper(exception);
+        final String stackTrace = Exceptions.getStackTraceString(exception);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(65536);
+        final int size = ThrowableCodec.encode(throwable, buffer);
+        Assert.assertEquals(size, buffer.position());
+        Assert.assertTrue(size * 5 < stackTrace.length());
+        buffer.flip();
+        Assert.assertEquals(stackTrace, AbstractExceptions.getStackTraceString(ThrowableCodec.decode(buffer)));
+        Assert.assertFalse(buffer.hasRemaining());
+        Assert.assertEquals(stackTrace, AbstractExceptions.getStackTraceString(ThrowableCodec.decode(ByteBuffer.wrap(ThrowableCodec.toByteArray(throwable)))));
+    }
+
+    @Test
+    public void managementBean() throws Exception {
+        final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName(SmartExceptionManagement.OBJECT_NAME);
+
+        Exceptions.registerRootPackage("com.example");
+        Exceptions.registerMBean();
+        Exceptions.registerMBean();
+        try {
+            final SmartExceptionMXBean managementBean = JMX.newMXBeanProxy(mBeanServer, objectName, SmartExceptionMXBean.class);
+            managementBean.reconfigure(new String[]{"com.arthenica.smartexception"}, new String[]{"org.junit"}, new String[]{"java.lang.reflect"}, new String[]{"jdk.internal"});
+            Assert.assertArrayEquals(new String[]{"com.arthenica.smartexception"}, managementBean.getRootPackages());
+            Assert.assertArrayEquals(new String[]{"org.junit"}, managementBean.getGroupPackages());
+            Assert.assertArrayEquals(new String[]{"java.lang.reflect", "jdk.internal"}, managementBean.getIgnorePackages());
+            Assert.assertArrayEquals(new String[]{"jdk.internal"}, managementBean.getIgnoreCausePackages());
+
+            final String stackTraceString = Exceptions.getStackTraceString(exception);
+            Assert.assertTrue(stackTraceString.contains("\tat com.arthenica.smartexception"));
+            Assert.assertFalse(stackTraceString.contains("\tat java.lang.reflect"));
+            Assert.assertFalse(stackTraceString.contains("\tat jdk.internal"));
+
+            managementBean.setRenderMetricsEnabled(true);
+            Assert.assertTrue(Exceptions.getRenderMetrics() instanceof HistogramRenderMetrics);
+            Exceptions.getStackTraceString(exception);
+            Assert.assertTrue(managementBean.getClassCacheSize() > 0);
+            Assert.assertEquals(RenderEntryPoint.values().length, managementBean.getRenderSummaries().length);
+            Assert.assertEquals(RenderEntryPoint.EXCEPTIONS.name(), managementBean.getRenderSummaries()[0].getEntryPoint());
+            Assert.assertEquals(1, managementBean.getRenderSummaries()[0].getCount());
+
+            managementBean.resetRenderMetrics();
+            Assert.assertEquals(0, managementBean.getRenderSummaries()[0].getCount());
+
+            managementBean.clearCaches();
+            Assert.assertEquals(0, managementBean.getClassCacheSize());
+            Assert.assertEquals(0, managementBean.getLibraryNameCacheSize());
+            Assert.assertEquals(0, managementBean.getMatcherCacheSize());
+
+            managementBean.setRenderMetricsEnabled(false);
+            Assert.assertNull(Exceptions.getRenderMetrics());
+            Assert.assertTrue(Double.isNaN(managementBean.getLibraryNameCacheHitRatio()));
+            Assert.assertEquals(0, managementBean.getRenderSummaries().length);
+
+            Assert.assertEquals("", managementBean.dumpRecordedExceptions());
+            Exceptions.setExceptionRecorder(new ExceptionRecorder());
+            Exceptions.getExceptionRecorder().record(exception);
+            Assert.assertTrue(managementBean.dumpRecordedExceptions().contains("java.lang.IllegalStateException: Failed."));
+
+            Assert.assertEquals(0, managementBean.getJournalAppendedCount());
+            Assert.assertNull(managementBean.getJournalLastError());
+        } finally {
+            Exceptions.unregisterMBean();
+            Exceptions.setRenderMetrics(null);
+            Exceptions.setExceptionRecorder(null);
+            Exceptions.clearRootPackages();
+            Exceptions.clearGroupPackages();
+            Exceptions.clearIgnorePackages();
+        }
+
+        Assert.assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test
+    public void flightRecorderEvents() throws IOException {
+        final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+        final Path recordingFile = Files.createTempFile("smart-exception", ".jfr");
+
+        Exceptions.enableFlightRecorderEvents();
+        try {
+            Assert.assertNull(Exceptions.getRenderMetrics());
+
+            try (Recording recording = new Recording()) {
+                recording.enable(RenderEvent.NAME);
+                recording.enable(SlowRenderEvent.NAME);
+                recording.start();
+                Assert.assertNotNull(Exceptions.getRenderMetrics());
+
+                FlightRecorderEvents.setSlowRenderThresholdNanos(0);
+                Exceptions.getStackTraceString(exception);
+
+                recording.stop();
+                Assert.assertNull(Exceptions.getRenderMetrics());
+                recording.dump(recordingFile);
+            }
+
+            final List<RecordedEvent> renderEvents = new ArrayList<>();
+            final List<RecordedEvent> slowRenderEvents = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+                if (RenderEvent.NAME.equals(event.getEventType().getName())) {
+                    renderEvents.add(event);
+                } else if (SlowRenderEvent.NAME.equals(event.getEventType().getName())) {
+                    slowRenderEvents.add(event);
+                }
+            }
+
+            Assert.assertEquals(1, renderEvents.size());
+            Assert.assertEquals(1, slowRenderEvents.size());
+
+            final RecordedEvent event = renderEvents.get(0);
+            Assert.assertEquals(RenderEntryPoint.EXCEPTIONS.name(), event.getString("entryPoint"));
+            Assert.assertEquals(IllegalStateException.class.getName(), event.getString("exceptionClass"));
+            Assert.assertEquals(ThrowableFingerprint.of(new ThrowableWrapper(exception)), event.getLong("fingerprint"));
+            Assert.assertEquals(exception.getStackTrace().length + exception.getCause().getStackTrace().length, event.getInt("framesIn"));
+            Assert.assertEquals(1, event.getInt("causes"));
+            Assert.assertEquals(Exceptions.getStackTraceString(exception).length(), event.getInt("charactersProduced"));
+            Assert.assertTrue(event.getLong("renderTime") > 0);
+        } finally {
+            FlightRecorderEvents.setSlowRenderThresholdNanos(FlightRecorderEvents.DEFAULT_SLOW_RENDER_THRESHOLD_NANOS);
+            Exceptions.disableFlightRecorderEvents();
+            Files.delete(recordingFile);
+        }
+    }
+
+    @Test
+    public void throwableFingerprint() {
+        final List<IllegalStateException> exceptions = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            exceptions.add(new IllegalStateException("Failed " + i + "."));
+        }
+        final IllegalArgumentException otherException = new IllegalArgumentException("Failed.");
+
+        Assert.assertEquals(ThrowableFingerprint.of(new ThrowableWrapper(exceptions.get(0))), ThrowableFingerprint.of(new ThrowableWrapper(exceptions.get(1))));
+        Assert.assertNotEquals(ThrowableFingerprint.of(new ThrowableWrapper(exceptions.get(0))), ThrowableFingerprint.of(new ThrowableWrapper(otherException)));
+        Assert.assertEquals(16, ThrowableFingerprint.toHexString(new ThrowableWrapper(otherException)).length());
+        Assert.assertEquals(0, ThrowableFingerprint.of(null));
+    }
+
     @Test
     public void getAllMessages() {
         Exception level2Exception = new IllegalStateException("Invalid running state.");
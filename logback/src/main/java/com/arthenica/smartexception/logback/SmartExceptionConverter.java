@@ -35,10 +35,23 @@ package com.arthenica.smartexception.logback;
 import ch.qos.logback.classic.pattern.ThrowableHandlingConverter;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxy;
 import ch.qos.logback.core.CoreConstants;
 import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.ExceptionRecorder;
+import com.arthenica.smartexception.FrameMatcher;
+import com.arthenica.smartexception.FrameworkProfile;
+import com.arthenica.smartexception.RenderEntryPoint;
+import com.arthenica.smartexception.RenderOptions;
+import com.arthenica.smartexception.ThrowableFingerprint;
+import com.arthenica.smartexception.java9.Java9ClassLoader;
 import com.arthenica.smartexception.java9.Java9StackTraceElementSerializer;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -46,10 +59,18 @@ import java.util.Set;
 /**
  * <p>Converts throwables into strings using smart-exception-java9.
  *
+ * <p>Options of a started converter are published as an immutable snapshot, which is read once for each converted
+ * event. When the <code>jmxName</code> option is set, the converter is registered on the platform MBean server as
+ * <code>com.arthenica.smartexception:type=SmartExceptionConverter,name=&lt;jmxName&gt;</code>.
+ *
+ * <p>When the <code>record</code> option is enabled, throwables are recorded in the global {@link ExceptionRecorder}
+ * and converted into a single line containing the class name, message and fingerprint. Full smart stack traces are
+ * rendered only when the recorder is dumped, using the packages and options of the converter.
+ *
  * @author Taner Sener
  * @since 0.2
  */
-public class SmartExceptionConverter extends ThrowableHandlingConverter {
+public class SmartExceptionConverter extends ThrowableHandlingConverter implements SmartExceptionConverterMXBean {
 
     public static final String OPTION_VALUE_ROOT_PACKAGE = "rootPackage";
 
@@ -67,6 +88,20 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
 
     public static final String OPTION_VALUE_PRINT_SUPPRESSED_EXCEPTIONS = "printSuppressedExceptions";
 
+    public static final String OPTION_VALUE_PRINT_BOUNDARY_FRAMES_ONLY = "printBoundaryFramesOnly";
+
+    public static final String OPTION_VALUE_GROUP_LIBRARIES = "groupLibraries";
+
+    public static final String OPTION_VALUE_PROFILE = "profile";
+
+    public static final String OPTION_VALUE_WARM_UP = "warmUp";
+
+    public static final String OPTION_VALUE_JMX_NAME = "jmxName";
+
+    public static final String OPTION_VALUE_RECORD = "record";
+
+    public static final String JMX_DOMAIN = "com.arthenica.smartexception";
+
     private Set<String> rootPackages = new LinkedHashSet<>();
 
     private Set<String> groupPackages = new LinkedHashSet<>();
@@ -83,13 +118,170 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
 
     private boolean printSuppressedExceptions = AbstractExceptions.DEFAULT_PRINT_SUPPRESSED_EXCEPTIONS;
 
+    private boolean printBoundaryFramesOnly = AbstractExceptions.DEFAULT_PRINT_BOUNDARY_FRAMES_ONLY;
+
+    private boolean groupLibraries = AbstractExceptions.DEFAULT_GROUP_LIBRARIES;
+
+    private boolean warmUp = false;
+
+    private String jmxName;
+
+    private boolean record = false;
+
+    private ObjectName objectName;
+
+    private volatile Settings settings;
+
     static {
+        AbstractExceptions.setClassLoader(new Java9ClassLoader());
         AbstractExceptions.setStackTraceElementSerializer(new Java9StackTraceElementSerializer());
     }
 
     public void start() {
         parseOptions();
+        settings = new Settings(this);
         super.start();
+
+        if (jmxName != null) {
+            registerMBean();
+        }
+
+        if (record) {
+            synchronized (SmartExceptionConverter.class) {
+                if (AbstractExceptions.getExceptionRecorder() == null) {
+                    AbstractExceptions.setExceptionRecorder(new ExceptionRecorder());
+                }
+            }
+        }
+
+        if (warmUp) {
+            final Thread warmUpThread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    warmUp(AbstractExceptions.DEFAULT_WARM_UP_ITERATIONS);
+                }
+            }, "smart-exception-warm-up");
+            warmUpThread.setDaemon(true);
+            warmUpThread.start();
+        }
+    }
+
+    /**
+     * <p>Converts a sample exception <code>iterations</code> times using the options of this converter, so that the
+     * first exception logged does not pay for class loading, package information lookups and JIT compilation.
+     *
+     * <p>When the <code>warmUp</code> option is enabled, {@link #start()} calls this method from a daemon thread with
+     * {@link AbstractExceptions#DEFAULT_WARM_UP_ITERATIONS} iterations. Does nothing if the converter is not started.
+     *
+     * @param iterations number of times the sample exception is converted
+     */
+    public void warmUp(final int iterations) {
+        final IllegalStateException exception = new IllegalStateException("Warm up.", new IllegalArgumentException("Warm up cause."));
+        exception.addSuppressed(new UnsupportedOperationException("Warm up suppressed."));
+        final IThrowableProxy throwableProxy = new ThrowableProxy(exception);
+
+        for (int i = 0; i < iterations && isStarted(); i++) {
+            getSettings().getStackTraceString(RenderEntryPoint.WARM_UP, throwableProxy);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (objectName != null) {
+            unregisterMBean();
+        }
+        super.stop();
+    }
+
+    /**
+     * <p>Replaces all options of this converter at once. Events converted concurrently use either the previous
+     * options or the new ones, never a mix of them.
+     *
+     * <p>Options use the same syntax as the options of the <code>%smartEx</code> conversion word, separated by
+     * <code>;</code>, e.g. <code>rootPackage=com.example;maxDepth=5</code>. Options that are not specified revert to
+     * their default values. <code>warmUp</code>, <code>record</code> and <code>jmxName</code> options are not changed.
+     *
+     * @param options new options separated by <code>;</code>
+     */
+    @Override
+    public void reconfigure(final String options) {
+        final SmartExceptionConverter parsed = new SmartExceptionConverter();
+        if (options != null) {
+            for (String option : options.split(";")) {
+                if (!option.trim().isEmpty()) {
+                    parsed.parseOption(option.trim());
+                }
+            }
+        }
+
+        synchronized (this) {
+            this.rootPackages = parsed.rootPackages;
+            this.groupPackages = parsed.groupPackages;
+            this.ignorePackages = parsed.ignorePackages;
+            this.ignoreCauses = parsed.ignoreCauses;
+            this.printModuleName = parsed.printModuleName;
+            this.maxDepth = parsed.maxDepth;
+            this.printPackageInformation = parsed.printPackageInformation;
+            this.printSuppressedExceptions = parsed.printSuppressedExceptions;
+            this.printBoundaryFramesOnly = parsed.printBoundaryFramesOnly;
+            this.groupLibraries = parsed.groupLibraries;
+            this.settings = new Settings(this);
+        }
+    }
+
+    @Override
+    public int getClassCacheSize() {
+        return getSettings().frameMatcher.getClassCacheSize();
+    }
+
+    @Override
+    public void clearCaches() {
+        getSettings().frameMatcher.clearClassCache();
+        AbstractExceptions.clearCaches();
+    }
+
+    private Settings getSettings() {
+        Settings settings = this.settings;
+        if (settings == null || settings.isStale()) {
+            synchronized (this) {
+                settings = this.settings;
+                if (settings == null || settings.isStale()) {
+                    settings = new Settings(this);
+                    this.settings = settings;
+                }
+            }
+        }
+        return settings;
+    }
+
+    private void registerMBean() {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName(JMX_DOMAIN + ":type=SmartExceptionConverter,name=" + ObjectName.quote(jmxName));
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (final JMException e) {
+            objectName = null;
+            System.out.printf("Failed to register SmartExceptionConverter MBean: %s%n", jmxName);
+            e.printStackTrace();
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (final JMException e) {
+            System.out.printf("Failed to unregister SmartExceptionConverter MBean: %s%n", jmxName);
+            e.printStackTrace();
+        } finally {
+            objectName = null;
+        }
     }
 
     private void parseOptions() {
@@ -139,6 +331,32 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
                         printSuppressedExceptions = parseBooleanOption(split[1]);
                     }
                     break;
+                    case OPTION_VALUE_PRINT_BOUNDARY_FRAMES_ONLY: {
+                        printBoundaryFramesOnly = parseBooleanOption(split[1]);
+                    }
+                    break;
+                    case OPTION_VALUE_GROUP_LIBRARIES: {
+                        groupLibraries = parseBooleanOption(split[1]);
+                    }
+                    break;
+                    case OPTION_VALUE_WARM_UP: {
+                        warmUp = parseBooleanOption(split[1]);
+                    }
+                    break;
+                    case OPTION_VALUE_JMX_NAME: {
+                        jmxName = split[1];
+                    }
+                    break;
+                    case OPTION_VALUE_RECORD: {
+                        record = parseBooleanOption(split[1]);
+                    }
+                    break;
+                    case OPTION_VALUE_PROFILE: {
+                        for (String profileName : split[1].split(",")) {
+                            addProfile(profileName);
+                        }
+                    }
+                    break;
                     default: {
                         System.out.printf("Unsupported SmartExceptionConverter option: %s%n", option);
                     }
@@ -162,38 +380,44 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
 
     public void addRootPackage(final String rootPackage) {
         this.rootPackages.add(rootPackage);
+        this.settings = null;
     }
 
     public Set<String> getRootPackages() {
-        return rootPackages;
+        return Collections.unmodifiableSet(rootPackages);
     }
 
     public void setRootPackages(final Set<String> rootPackages) {
         this.rootPackages = rootPackages;
+        this.settings = null;
     }
 
     public void addGroupPackage(final String groupPackage) {
         this.groupPackages.add(groupPackage);
+        this.settings = null;
     }
 
     public Set<String> getGroupPackages() {
-        return groupPackages;
+        return Collections.unmodifiableSet(groupPackages);
     }
 
     public void setGroupPackages(final Set<String> groupPackages) {
         this.groupPackages = groupPackages;
+        this.settings = null;
     }
 
     public void addIgnorePackage(final String ignorePackage) {
         this.ignorePackages.add(ignorePackage);
+        this.settings = null;
     }
 
     public Set<String> getIgnorePackages() {
-        return ignorePackages;
+        return Collections.unmodifiableSet(ignorePackages);
     }
 
     public void setIgnorePackages(final Set<String> ignorePackages) {
         this.ignorePackages = ignorePackages;
+        this.settings = null;
     }
 
     public boolean isIgnoreCauses() {
@@ -202,6 +426,7 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
 
     public void setIgnoreCauses(boolean ignoreCauses) {
         this.ignoreCauses = ignoreCauses;
+        this.settings = null;
     }
 
     public boolean isPrintModuleName() {
@@ -210,6 +435,7 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
 
     public void setPrintModuleName(boolean printModuleName) {
         this.printModuleName = printModuleName;
+        this.settings = null;
     }
 
     public int getMaxDepth() {
@@ -218,6 +444,7 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
 
     public void setMaxDepth(int maxDepth) {
         this.maxDepth = maxDepth;
+        this.settings = null;
     }
 
     public boolean isPrintPackageInformation() {
@@ -226,6 +453,7 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
 
     public void setPrintPackageInformation(boolean printPackageInformation) {
         this.printPackageInformation = printPackageInformation;
+        this.settings = null;
     }
 
     public boolean isPrintSuppressedExceptions() {
@@ -234,6 +462,60 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
 
     public void setPrintSuppressedExceptions(boolean printSuppressedExceptions) {
         this.printSuppressedExceptions = printSuppressedExceptions;
+        this.settings = null;
+    }
+
+    public boolean isPrintBoundaryFramesOnly() {
+        return printBoundaryFramesOnly;
+    }
+
+    public void setPrintBoundaryFramesOnly(boolean printBoundaryFramesOnly) {
+        this.printBoundaryFramesOnly = printBoundaryFramesOnly;
+        this.settings = null;
+    }
+
+    public boolean isGroupLibraries() {
+        return groupLibraries;
+    }
+
+    public void setGroupLibraries(boolean groupLibraries) {
+        this.groupLibraries = groupLibraries;
+        this.settings = null;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public String getJmxName() {
+        return jmxName;
+    }
+
+    public void setJmxName(String jmxName) {
+        this.jmxName = jmxName;
+    }
+
+    public boolean isRecord() {
+        return record;
+    }
+
+    public void setRecord(boolean record) {
+        this.record = record;
+    }
+
+    public void addProfile(final String profileName) {
+        try {
+            final FrameworkProfile profile = FrameworkProfile.forName(profileName);
+            this.groupPackages.addAll(profile.getGroupPackages());
+            this.ignorePackages.addAll(profile.getIgnorePackages());
+            this.settings = null;
+        } catch (final IllegalArgumentException e) {
+            System.out.printf("Unsupported SmartExceptionConverter profile: %s%n", profileName);
+        }
     }
 
     @Override
@@ -243,7 +525,77 @@ public class SmartExceptionConverter extends ThrowableHandlingConverter {
             return CoreConstants.EMPTY_STRING;
         }
 
-        return AbstractExceptions.getStackTraceString(ThrowableWrapperHelper.toThrowableWrapper(throwableProxy), false, false, rootPackages, groupPackages, ignorePackages, maxDepth, ignoreCauses, printPackageInformation, printModuleName, printSuppressedExceptions);
+        final ExceptionRecorder exceptionRecorder = AbstractExceptions.getExceptionRecorder();
+        if (record && exceptionRecorder != null && throwableProxy instanceof ThrowableProxy) {
+            return getSettings().record(exceptionRecorder, ((ThrowableProxy) throwableProxy).getThrowable());
+        }
+
+        return getSettings().getStackTraceString(RenderEntryPoint.SMART_EXCEPTION_CONVERTER, throwableProxy);
+    }
+
+    /**
+     * <p>Immutable snapshot of the frame matcher and render options of a converter. Global ignore cause packages are
+     * part of the frame matcher, so a snapshot becomes stale when they are changed.
+     */
+    private static final class Settings {
+
+        private final Set<String> ignoreCausePackageSet;
+
+        private final FrameMatcher frameMatcher;
+
+        private final int maxDepth;
+
+        private final boolean ignoreCauses;
+
+        private final boolean printPackageInformation;
+
+        private final boolean printModuleName;
+
+        private final boolean printSuppressedExceptions;
+
+        private final boolean printBoundaryFramesOnly;
+
+        private final boolean groupLibraries;
+
+        private final RenderOptions renderOptions;
+
+        private Settings(final SmartExceptionConverter converter) {
+            this.ignoreCausePackageSet = AbstractExceptions.getIgnoreCausePackages();
+            this.frameMatcher = FrameMatcher.of(converter.rootPackages, converter.groupPackages, converter.ignorePackages, ignoreCausePackageSet);
+            this.maxDepth = converter.maxDepth;
+            this.ignoreCauses = converter.ignoreCauses;
+            this.printPackageInformation = converter.printPackageInformation;
+            this.printModuleName = converter.printModuleName;
+            this.printSuppressedExceptions = converter.printSuppressedExceptions;
+            this.printBoundaryFramesOnly = converter.printBoundaryFramesOnly;
+            this.groupLibraries = converter.groupLibraries;
+            this.renderOptions = new RenderOptions(maxDepth, ignoreCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries);
+        }
+
+        private boolean isStale() {
+            return ignoreCausePackageSet != AbstractExceptions.getIgnoreCausePackages();
+        }
+
+        private String getStackTraceString(final RenderEntryPoint entryPoint, final IThrowableProxy throwableProxy) {
+            return AbstractExceptions.getStackTraceString(entryPoint, ThrowableWrapperHelper.toThrowableWrapper(throwableProxy), "", false, false, frameMatcher, maxDepth, ignoreCauses, printPackageInformation, printModuleName, printSuppressedExceptions, printBoundaryFramesOnly, groupLibraries);
+        }
+
+        private String record(final ExceptionRecorder exceptionRecorder, final Throwable throwable) {
+            final long fingerprint = exceptionRecorder.record(throwable, frameMatcher, renderOptions);
+
+            final StringBuilder builder = new StringBuilder();
+            builder.append(throwable.getClass().getName());
+            final String message = throwable.getMessage();
+            if (message != null) {
+                builder.append(": ");
+                builder.append(message);
+            }
+            builder.append(" [fingerprint ");
+            builder.append(ThrowableFingerprint.toHexString(fingerprint));
+            builder.append(']');
+            return builder.toString();
+        }
+
     }
 
 }
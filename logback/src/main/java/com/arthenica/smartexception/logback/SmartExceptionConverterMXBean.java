@@ -0,0 +1,85 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.logback;
+
+import java.util.Set;
+
+/**
+ * <p>Management interface of a {@link SmartExceptionConverter}, registered when the <code>jmxName</code> option is
+ * set.
+ *
+ * @author Taner Sener
+ * @since 0.3.0
+ */
+public interface SmartExceptionConverterMXBean {
+
+    Set<String> getRootPackages();
+
+    Set<String> getGroupPackages();
+
+    Set<String> getIgnorePackages();
+
+    int getMaxDepth();
+
+    boolean isIgnoreCauses();
+
+    boolean isPrintModuleName();
+
+    boolean isPrintPackageInformation();
+
+    boolean isPrintSuppressedExceptions();
+
+    boolean isPrintBoundaryFramesOnly();
+
+    boolean isGroupLibraries();
+
+    /**
+     * <p>Returns the number of classes cached by the frame matcher of this converter.
+     *
+     * @return number of cached classes
+     */
+    int getClassCacheSize();
+
+    /**
+     * <p>Replaces all options of the converter at once.
+     *
+     * @param options new options separated by <code>;</code>, e.g. <code>rootPackage=com.example;maxDepth=5</code>
+     */
+    void reconfigure(final String options);
+
+    /**
+     * <p>Clears the class cache of the converter and global smart-exception caches.
+     */
+    void clearCaches();
+
+}
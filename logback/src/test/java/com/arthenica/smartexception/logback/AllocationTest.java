@@ -0,0 +1,193 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.FrameMatcher;
+import com.arthenica.smartexception.FrameworkProfile;
+import com.arthenica.smartexception.ThrowableFingerprint;
+import com.arthenica.smartexception.ThrowableWrapper;
+import com.arthenica.smartexception.java9.Exceptions;
+import com.arthenica.smartexception.java9.Java9ClassLoader;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * <p>Measures bytes allocated by hot paths after warm-up and fails if they exceed their ceilings. Cache hits must not
+ * allocate, rendering must allocate in proportion to the rendered output.
+ */
+public class AllocationTest {
+
+    /**
+     * <p>Max number of bytes a render may allocate for each character of output, includes wrapping the throwable,
+     * the string builder and the returned string.
+     */
+    static final int BYTES_PER_OUTPUT_CHARACTER = 8;
+
+    /**
+     * <p>Max number of bytes a render may allocate regardless of its output.
+     */
+    static final int FIXED_BYTES = 4096;
+
+    static final int WARM_UP_ITERATIONS = 20000;
+
+    static final int MEASURED_ITERATIONS = 1000;
+
+    static final int MEASUREMENT_ROUNDS = 5;
+
+    @Test
+    public void frameMatcherCacheHit() {
+        final FrameMatcher frameMatcher = AbstractExceptions.getFrameMatcher(Collections.singleton("com.example"), Collections.<String>emptySet(), Collections.singleton("org.springframework"));
+        Assert.assertEquals(0, allocatedBytes(() -> frameMatcher.match("org.springframework.web.servlet.DispatcherServlet")));
+    }
+
+    @Test
+    public void libraryNameCacheHit() {
+        AbstractExceptions.setClassLoader(new Java9ClassLoader());
+        Assert.assertEquals(0, allocatedBytes(() -> AbstractExceptions.libraryName("org.junit.Assert")));
+    }
+
+    @Test
+    public void throwableFingerprint() {
+        final ThrowableWrapper throwableWrapper = new ThrowableWrapper(createThrowable(32));
+        Assert.assertEquals(0, allocatedBytes(() -> ThrowableFingerprint.of(throwableWrapper)));
+    }
+
+    @Test
+    public void getStackTraceString() {
+        final Throwable throwable = createThrowable(32);
+        try {
+            Exceptions.registerRootPackage("com.arthenica");
+            Exceptions.registerProfile(FrameworkProfile.JDK_REFLECTION);
+
+            final int outputLength = Exceptions.getStackTraceString(throwable).length();
+            assertCeiling(outputLength, allocatedBytes(() -> Exceptions.getStackTraceString(throwable)));
+        } finally {
+            Exceptions.clearRootPackages();
+            Exceptions.clearGroupPackages();
+            Exceptions.clearIgnorePackages();
+        }
+    }
+
+    @Test
+    public void getStackTraceStringWithFlightRecorderEventsNotRecorded() {
+        final Throwable throwable = createThrowable(32);
+        try {
+            Exceptions.registerRootPackage("com.arthenica");
+            Exceptions.enableFlightRecorderEvents();
+
+            // render statistics are not collected while events are not recorded
+            Assert.assertNull(Exceptions.getRenderMetrics());
+
+            final int outputLength = Exceptions.getStackTraceString(throwable).length();
+            assertCeiling(outputLength, allocatedBytes(() -> Exceptions.getStackTraceString(throwable)));
+        } finally {
+            Exceptions.disableFlightRecorderEvents();
+            Exceptions.clearRootPackages();
+        }
+    }
+
+    @Test
+    public void convert() {
+        final LoggerContext loggerContext = new LoggerContext();
+        final SmartExceptionConverter converter = new SmartExceptionConverter();
+        converter.setContext(loggerContext);
+        converter.setOptionList(Arrays.asList("rootPackage=com.arthenica", "profile=jdk-reflection"));
+        converter.start();
+
+        try {
+            final LoggingEvent loggingEvent = new LoggingEvent(AllocationTest.class.getName(), loggerContext.getLogger(AllocationTest.class), Level.ERROR, "Request failed.", createThrowable(32), null);
+
+            final int outputLength = converter.convert(loggingEvent).length();
+            assertCeiling(outputLength, allocatedBytes(() -> converter.convert(loggingEvent)));
+        } finally {
+            converter.stop();
+            loggerContext.stop();
+        }
+    }
+
+    static void assertCeiling(final int outputLength, final long allocatedBytes) {
+        final long ceiling = (long) BYTES_PER_OUTPUT_CHARACTER * outputLength + FIXED_BYTES;
+        Assert.assertTrue(String.format("Allocated %d bytes for %d characters, ceiling is %d bytes.", allocatedBytes, outputLength, ceiling), allocatedBytes <= ceiling);
+    }
+
+    /**
+     * <p>Returns the number of bytes allocated by the current thread for a single run of the given operation. The
+     * operation is warmed up first, the lowest value of several rounds is returned to discard allocations made by
+     * the JIT compiler or the measurement itself.
+     */
+    static long allocatedBytes(final Runnable operation) {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled());
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        long minAllocatedBytes = Long.MAX_VALUE;
+        for (int round = 0; round < MEASUREMENT_ROUNDS; round++) {
+            final long start = allocationMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                operation.run();
+            }
+            final long end = allocationMXBean.getThreadAllocatedBytes(threadId);
+            minAllocatedBytes = Math.min(minAllocatedBytes, (end - start) / MEASURED_ITERATIONS);
+        }
+
+        return minAllocatedBytes;
+    }
+
+    static Throwable createThrowable(final int depth) {
+        if (depth > 0) {
+            return createThrowable(depth - 1);
+        }
+
+        final IllegalStateException exception = new IllegalStateException("Request failed.", new IOException("Connection reset."));
+        exception.addSuppressed(new IllegalArgumentException("Invalid state."));
+        return exception;
+    }
+
+}
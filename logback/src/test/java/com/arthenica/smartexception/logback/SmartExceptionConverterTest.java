@@ -0,0 +1,128 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.arthenica.smartexception.AbstractExceptions;
+import com.arthenica.smartexception.ExceptionRecorder;
+import com.arthenica.smartexception.FrameMatcher;
+import com.arthenica.smartexception.RecordedException;
+import com.arthenica.smartexception.ThrowableFingerprint;
+import com.arthenica.smartexception.java9.Exceptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SmartExceptionConverterTest {
+
+    @Test
+    public void record() {
+        final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+        final LoggerContext loggerContext = new LoggerContext();
+        final SmartExceptionConverter converter = new SmartExceptionConverter();
+        converter.setContext(loggerContext);
+        converter.setOptionList(Arrays.asList("rootPackage=com.arthenica", "ignorePackage=org.junit", "ignoreCauses=true", "record=true"));
+
+        Exceptions.setExceptionRecorder(null);
+        converter.start();
+        try {
+            final ExceptionRecorder recorder = Exceptions.getExceptionRecorder();
+            Assert.assertNotNull(recorder);
+
+            final LoggingEvent loggingEvent = new LoggingEvent(SmartExceptionConverterTest.class.getName(), loggerContext.getLogger(SmartExceptionConverterTest.class), Level.ERROR, "Request failed.", exception, null);
+            final FrameMatcher frameMatcher = AbstractExceptions.getFrameMatcher(Collections.singleton("com.arthenica"), Collections.<String>emptySet(), Collections.singleton("org.junit"));
+            final long fingerprint = ThrowableFingerprint.of(exception, frameMatcher);
+            Assert.assertEquals("java.lang.IllegalStateException: Failed. [fingerprint " + ThrowableFingerprint.toHexString(fingerprint) + "]", converter.convert(loggingEvent));
+
+            final List<RecordedException> recordList = recorder.getRecords();
+            Assert.assertEquals(1, recordList.size());
+            Assert.assertEquals(fingerprint, recordList.get(0).getFingerprint());
+            Assert.assertTrue(recordList.get(0).getRenderOptions().isIgnoreAllCauses());
+
+            // dump uses the packages and options of the converter, not the global ones
+            final String dump = recorder.dump();
+            Assert.assertTrue(dump, dump.contains("java.lang.IllegalStateException: Failed."));
+            Assert.assertTrue(dump, dump.contains("\tat com.arthenica.smartexception.logback.SmartExceptionConverterTest.record("));
+            Assert.assertFalse(dump, dump.contains("Caused by:"));
+            Assert.assertFalse(dump, dump.contains("\tat org.junit"));
+            Assert.assertFalse(Exceptions.getIgnoreAllCauses());
+
+            converter.setRecord(false);
+            Assert.assertTrue(converter.convert(loggingEvent).contains("\tat com.arthenica.smartexception.logback.SmartExceptionConverterTest.record("));
+            Assert.assertEquals(1, recorder.getRecords().size());
+        } finally {
+            converter.stop();
+            loggerContext.stop();
+            Exceptions.setExceptionRecorder(null);
+        }
+    }
+
+    @Test
+    public void ignoreCausePackages() {
+        final IllegalStateException exception = new IllegalStateException("Failed.", new IllegalArgumentException("Invalid argument."));
+        final LoggerContext loggerContext = new LoggerContext();
+        final SmartExceptionConverter converter = new SmartExceptionConverter();
+        converter.setContext(loggerContext);
+        converter.setOptionList(Arrays.asList("rootPackage=com.arthenica", "ignorePackage=org.junit"));
+
+        converter.start();
+        try {
+            final LoggingEvent loggingEvent = new LoggingEvent(SmartExceptionConverterTest.class.getName(), loggerContext.getLogger(SmartExceptionConverterTest.class), Level.ERROR, "Request failed.", exception, null);
+            Assert.assertTrue(converter.convert(loggingEvent).contains("Caused by: java.lang.IllegalArgumentException"));
+
+            // global ignore cause packages registered after the converter is started are used
+            Exceptions.registerIgnorePackage("java.lang", true);
+            Assert.assertFalse(converter.convert(loggingEvent).contains("Caused by:"));
+
+            Exceptions.clearIgnorePackages();
+            Assert.assertTrue(converter.convert(loggingEvent).contains("Caused by: java.lang.IllegalArgumentException"));
+
+            try {
+                converter.getRootPackages().add("org.example");
+                Assert.fail("Root packages of the converter are modifiable.");
+            } catch (final UnsupportedOperationException e) {
+                Assert.assertEquals(Collections.singleton("com.arthenica"), converter.getRootPackages());
+            }
+        } finally {
+            Exceptions.clearIgnorePackages();
+            converter.stop();
+            loggerContext.stop();
+        }
+    }
+
+}
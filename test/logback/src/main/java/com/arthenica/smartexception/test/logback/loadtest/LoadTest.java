@@ -0,0 +1,268 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.test.logback.loadtest;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import com.arthenica.smartexception.test.logback.spring.Application;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Starts the sample application on a random loopback port and sends requests to an endpoint that logs an
+ * exception on every request, at each of the given rates.
+ *
+ * <p>Requests are sent on a fixed schedule, latency of a request is measured from the time it was scheduled, so
+ * requests delayed by a slow server are not left out. For each rate it reports request latency percentiles, the
+ * number of events written per second by {@link LoadTestAppender}, dropped events and garbage collection time. The
+ * client runs in the same JVM, so the same client overhead is included in both <code>smart</code> and
+ * <code>default</code> runs.
+ */
+public class LoadTest {
+
+    public static final String DEFAULT_RATES = "250,500,1000,2000,4000";
+
+    public static final int DEFAULT_DURATION_SECONDS = 10;
+
+    public static final int DEFAULT_DEPTH = 16;
+
+    public static final int CLIENT_THREADS = 64;
+
+    public static final String APPENDER_NAME = "LOAD_TEST";
+
+    private static final String CSV_HEADER = "converter,rate,requests,errors,requestsPerSecond,p50Micros,p90Micros,p99Micros,p999Micros,maxMicros,eventsPerSecond,bytesPerEvent,droppedEvents,gcMillis,gcCount";
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1 || !("smart".equals(args[0]) || "default".equals(args[0]))) {
+            System.out.println("Usage: LoadTest <smart|default> [rates] [durationSeconds] [depth] [resultsFile]");
+            System.exit(1);
+        }
+
+        final String converter = args[0];
+        final int[] rates = parseRates((args.length > 1) ? args[1] : DEFAULT_RATES);
+        final int durationSeconds = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_DURATION_SECONDS;
+        final int depth = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_DEPTH;
+        final File resultsFile = new File((args.length > 4) ? args[4] : "loadtest-" + converter + ".csv");
+
+        final String configuration = "logback-loadtest-" + converter + ".xml";
+        System.setProperty("logback.configurationFile", configuration);
+        System.setProperty("http.maxConnections", String.valueOf(CLIENT_THREADS));
+
+        final ConfigurableApplicationContext applicationContext = SpringApplication.run(Application.class, "--server.address=127.0.0.1", "--server.port=0", "--logging.config=classpath:" + configuration, "--spring.main.banner-mode=off");
+        final ExecutorService executorService = Executors.newFixedThreadPool(CLIENT_THREADS);
+        try {
+            final int port = applicationContext.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            final URL url = new URL("http://127.0.0.1:" + port + "/storm?depth=" + depth);
+            final LoadTestAppender appender = getAppender();
+
+            System.out.printf("Warming up at %d requests per second for %d seconds%n", rates[0], durationSeconds);
+            runStep(url, executorService, appender, rates[0], durationSeconds);
+
+            if (resultsFile.getParentFile() != null) {
+                resultsFile.getParentFile().mkdirs();
+            }
+            try (PrintWriter writer = new PrintWriter(new FileWriter(resultsFile))) {
+                writer.println(CSV_HEADER);
+                System.out.printf("%-8s %7s %7s %10s %10s %10s %10s %10s %12s %8s %8s%n", "rate", "errors", "req/s", "p50(us)", "p99(us)", "p99.9(us)", "max(us)", "events/s", "bytes/event", "dropped", "gc(ms)");
+                for (int rate : rates) {
+                    final StepResult result = runStep(url, executorService, appender, rate, durationSeconds);
+                    System.out.printf("%-8d %7d %7.0f %10d %10d %10d %10d %10.0f %12d %8d %8d%n", rate, result.errors, result.requestsPerSecond, result.getPercentile(0.5), result.getPercentile(0.99), result.getPercentile(0.999), result.getPercentile(1.0), result.eventsPerSecond, result.bytesPerEvent, result.droppedEvents, result.gcMillis);
+                    writer.printf("%s,%d,%d,%d,%.1f,%d,%d,%d,%d,%d,%.1f,%d,%d,%d,%d%n", converter, rate, result.latencies.length, result.errors, result.requestsPerSecond, result.getPercentile(0.5), result.getPercentile(0.9), result.getPercentile(0.99), result.getPercentile(0.999), result.getPercentile(1.0), result.eventsPerSecond, result.bytesPerEvent, result.droppedEvents, result.gcMillis, result.gcCount);
+                }
+            }
+            System.out.printf("Results written to %s%n", resultsFile.getAbsolutePath());
+        } finally {
+            executorService.shutdownNow();
+            applicationContext.close();
+        }
+    }
+
+    static int[] parseRates(final String rates) {
+        final String[] split = rates.split("[,;]");
+        final int[] parsed = new int[split.length];
+        for (int i = 0; i < split.length; i++) {
+            parsed[i] = Integer.parseInt(split[i].trim());
+            if (parsed[i] <= 0) {
+                throw new IllegalArgumentException("Invalid rate " + split[i]);
+            }
+        }
+        return parsed;
+    }
+
+    private static LoadTestAppender getAppender() {
+        final LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        final LoadTestAppender appender = (LoadTestAppender) loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).getAppender(APPENDER_NAME);
+        if (appender == null) {
+            throw new IllegalStateException("Appender " + APPENDER_NAME + " not found.");
+        }
+        return appender;
+    }
+
+    private static StepResult runStep(final URL url, final ExecutorService executorService, final LoadTestAppender appender, final int rate, final int durationSeconds) throws InterruptedException {
+        final int requests = rate * durationSeconds;
+        final long[] latencies = new long[requests];
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch completed = new CountDownLatch(requests);
+
+        final long appendedEvents = appender.getAppendedEvents();
+        final long droppedEvents = appender.getDroppedEvents();
+        final long writtenEvents = appender.getWrittenEvents();
+        final long writtenBytes = appender.getWrittenBytes();
+        final long gcMillis = getGcMillis();
+        final long gcCount = getGcCount();
+
+        final long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            final int index = i;
+            final long scheduled = start + i * interval;
+            long delay;
+            while ((delay = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            executorService.execute(() -> {
+                if (!send(url)) {
+                    errors.incrementAndGet();
+                }
+                latencies[index] = System.nanoTime() - scheduled;
+                completed.countDown();
+            });
+        }
+        completed.await();
+        final long requestsEnd = System.nanoTime();
+
+        final long appended = appender.getAppendedEvents() - appendedEvents;
+        final long drainDeadline = requestsEnd + TimeUnit.SECONDS.toNanos(30);
+        while ((appender.getWrittenEvents() - writtenEvents) + (appender.getDroppedEvents() - droppedEvents) < appended && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        final long end = System.nanoTime();
+
+        final StepResult result = new StepResult();
+        Arrays.sort(latencies);
+        result.latencies = latencies;
+        result.errors = errors.get();
+        result.requestsPerSecond = requests * (double) TimeUnit.SECONDS.toNanos(1) / (requestsEnd - start);
+        final long written = appender.getWrittenEvents() - writtenEvents;
+        result.eventsPerSecond = written * (double) TimeUnit.SECONDS.toNanos(1) / (end - start);
+        result.bytesPerEvent = (written > 0) ? (appender.getWrittenBytes() - writtenBytes) / written : 0;
+        result.droppedEvents = appender.getDroppedEvents() - droppedEvents;
+        result.gcMillis = getGcMillis() - gcMillis;
+        result.gcCount = getGcCount() - gcCount;
+        return result;
+    }
+
+    private static boolean send(final URL url) {
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            final int responseCode = connection.getResponseCode();
+            try (InputStream inputStream = (responseCode < 400) ? connection.getInputStream() : connection.getErrorStream()) {
+                if (inputStream != null) {
+                    final byte[] buffer = new byte[256];
+                    while (inputStream.read(buffer) != -1) {
+                        // consume the response so the connection can be reused
+                    }
+                }
+            }
+            return responseCode == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long getGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean garbageCollectorMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, garbageCollectorMXBean.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long getGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean garbageCollectorMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, garbageCollectorMXBean.getCollectionCount());
+        }
+        return total;
+    }
+
+    static class StepResult {
+
+        long[] latencies;
+
+        int errors;
+
+        double requestsPerSecond;
+
+        double eventsPerSecond;
+
+        long bytesPerEvent;
+
+        long droppedEvents;
+
+        long gcMillis;
+
+        long gcCount;
+
+        /**
+         * <p>Returns the latency at the given percentile in microseconds, <code>latencies</code> must be sorted.
+         */
+        long getPercentile(final double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return TimeUnit.NANOSECONDS.toMicros(latencies[Math.max(0, index)]);
+        }
+
+    }
+
+}
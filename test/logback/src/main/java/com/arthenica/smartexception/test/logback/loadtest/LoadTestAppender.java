@@ -0,0 +1,204 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2022, Taner Sener
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.arthenica.smartexception.test.logback.loadtest;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Appender used by {@link LoadTest}. Events are encoded on the logging thread, like a file appender does, and
+ * encoded bytes are written to <code>file</code> by a background thread through a bounded queue. Events that do not
+ * fit into the queue are dropped and counted. If <code>file</code> is not set or empty, encoded bytes are only
+ * counted.
+ */
+public class LoadTestAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    public static final int DEFAULT_QUEUE_SIZE = 8192;
+
+    private Encoder<ILoggingEvent> encoder;
+
+    private String file;
+
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+
+    private final AtomicLong appendedEvents = new AtomicLong();
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    private final AtomicLong writtenEvents = new AtomicLong();
+
+    private final AtomicLong writtenBytes = new AtomicLong();
+
+    private BlockingQueue<byte[]> queue;
+
+    private OutputStream outputStream;
+
+    private Thread writerThread;
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No encoder set for the appender named \"" + name + "\".");
+            return;
+        }
+        if (file != null && !file.isEmpty()) {
+            final File parent = new File(file).getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            try {
+                outputStream = new BufferedOutputStream(new FileOutputStream(file), 65536);
+            } catch (IOException e) {
+                addError("Failed to open file " + file, e);
+                return;
+            }
+        }
+
+        queue = new ArrayBlockingQueue<>(queueSize);
+        writerThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                write();
+            }
+        }, "load-test-appender-" + name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (outputStream != null) {
+            try {
+                outputStream.close();
+            } catch (IOException e) {
+                addError("Failed to close file " + file, e);
+            }
+        }
+    }
+
+    @Override
+    protected void append(final ILoggingEvent event) {
+        appendedEvents.incrementAndGet();
+        if (!queue.offer(encoder.encode(event))) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    private void write() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final byte[] bytes = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (bytes == null) {
+                    if (outputStream != null) {
+                        outputStream.flush();
+                    }
+                    continue;
+                }
+                if (outputStream != null) {
+                    outputStream.write(bytes);
+                }
+                writtenEvents.incrementAndGet();
+                writtenBytes.addAndGet(bytes.length);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            addError("Failed to write file " + file, e);
+        }
+    }
+
+    public Encoder<ILoggingEvent> getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public long getAppendedEvents() {
+        return appendedEvents.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public long getWrittenEvents() {
+        return writtenEvents.get();
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes.get();
+    }
+
+}
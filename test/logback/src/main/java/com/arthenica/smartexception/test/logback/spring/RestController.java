@@ -37,6 +37,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 public class RestController {
@@ -53,4 +54,27 @@ public class RestController {
         }
     }
 
+    @GetMapping("/storm")
+    public ResponseEntity<String> storm(@RequestParam(defaultValue = "16") final int depth) {
+        try {
+            descend(depth);
+            return ResponseEntity.ok("Success");
+        } catch (IllegalStateException e) {
+            logger.error("/storm request failed.", e);
+            return ResponseEntity.ok("Success");
+        }
+    }
+
+    private void descend(final int depth) {
+        if (depth > 0) {
+            descend(depth - 1);
+        } else {
+            try {
+                Integer.parseInt("storm");
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Storm request failed.", e);
+            }
+        }
+    }
+
 }